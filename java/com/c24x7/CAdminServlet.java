@@ -0,0 +1,94 @@
+// Copyright (C) 2010-2012 Patrick Nicolas
+package com.c24x7;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.c24x7.models.CModelRegistry;
+import com.c24x7.util.logs.CLogger;
+
+
+
+				/**
+				 * <p>Servlet to reload the lookup dictionaries and models without restarting
+				 * the servlet container. The request reload=name loads a new version of the model
+				 * in the background and waits for its activation unless wait=false is specified.
+				 * The servlet returns the status of the models registry and accepts requests
+				 * from the local host only.</p>
+				 * @author Patrick Nicolas
+				 * @date 07/12/2012
+				 */
+public class CAdminServlet extends HttpServlet {
+	protected static final long serialVersionUID = -2480365519721954138L;
+
+
+	public void doGet(HttpServletRequest request,
+					  HttpServletResponse response) throws ServletException, IOException {
+
+		if( !isLocalRequest(request)) {
+			response.sendError(HttpServletResponse.SC_FORBIDDEN);
+		}
+		else {
+			response.setContentType("text/plain");
+			response.setCharacterEncoding("UTF-8");
+			PrintWriter out = response.getWriter();
+
+			String modelName = request.getParameter("reload");
+			if( modelName != null) {
+				out.println(reload(modelName, !"false".equals(request.getParameter("wait"))));
+			}
+			out.println(CModelRegistry.getStatus());
+			out.close();
+		}
+	}
+
+
+		// --------------------------
+		//  Supporting Private Methods
+		// ----------------------------
+
+	private String reload(final String modelName, boolean wait) {
+		String result = null;
+		int modelId = CModelRegistry.getModelId(modelName);
+
+		if( modelId == -1) {
+			result = "Model " + modelName + " undefined";
+		}
+		else {
+			try {
+				Future<Integer> version = CModelRegistry.reload(modelId);
+				result = wait ?
+						"Model " + modelName + " activated in version " + version.get() :
+						"Reload of model " + modelName + " started";
+			}
+			catch( IllegalArgumentException e) {
+				result = "Model " + modelName + " cannot be reloaded: " + e.getMessage();
+			}
+			catch( ExecutionException e) {
+				result = "Reload of model " + modelName + " failed: " + e.getCause().toString();
+			}
+			catch( InterruptedException e) {
+				Thread.currentThread().interrupt();
+				result = "Reload of model " + modelName + " interrupted";
+			}
+		}
+		CLogger.info(result);
+
+		return result;
+	}
+
+
+	private static boolean isLocalRequest(HttpServletRequest request) {
+		String address = request.getRemoteAddr();
+		return "127.0.0.1".equals(address) || "0:0:0:0:0:0:0:1".equals(address) || "::1".equals(address);
+	}
+}
+
+// ----------------------------  EOF -------------------------------
@@ -61,20 +61,25 @@ public class CAnalysisServlet extends HttpServlet {
 					 * Analyze the content...
 					 */
 				CTextSemanticService analyzer = new CTextSemanticService();	
-				CSummaryModel model = new CSummaryModel(null, seed);
+				try {
+					CSummaryModel model = new CSummaryModel(null, seed);
 
-			//	analyzer.execute(model);		
+				//	analyzer.execute(model);		
 	
-					/*
-					 * Create the HTML page from the model..
-					 */
-				CHTMLPage htmlPage = new CHTMLPage(thisUser);	
-				htmlPage.write(model);
-				outputHtml = htmlPage.toString();
-					/*
-					 * Update the persistent cache (Database)
-					 */
-				thisUser.setModel(model);
+						/*
+						 * Create the HTML page from the model..
+						 */
+					CHTMLPage htmlPage = new CHTMLPage(thisUser);	
+					htmlPage.write(model);
+					outputHtml = htmlPage.toString();
+						/*
+						 * Update the persistent cache (Database)
+						 */
+					thisUser.setModel(model);
+				}
+				finally {
+					analyzer.close();
+				}
 			}
 			System.out.println("Done");
 		}
@@ -0,0 +1,70 @@
+// Copyright (C) 2010-2012 Patrick Nicolas
+package com.c24x7.apps;
+
+import java.util.List;
+
+import com.c24x7.benchmarks.ABenchmark;
+import com.c24x7.benchmarks.CBenchmarkRunner;
+import com.c24x7.benchmarks.CCollectionsBenchmarks;
+import com.c24x7.benchmarks.CGraphBenchmarks;
+import com.c24x7.benchmarks.CTextAnalysisBenchmarks;
+import com.c24x7.util.logs.CLogger;
+
+
+
+			/**
+			 * <p>Command line application that runs the micro-benchmarks of the
+			 * text analysis. The benchmarks use local fixtures and a stubbed taxonomy
+			 * source so they can be executed offline.</p>
+			 * @author Patrick Nicolas
+			 * @date 06/26/2012
+			 */
+public final class CBenchmarkApp {
+	private static final String USAGE = "Command line arguments:\nCBenchmarkApp [filter] [warmup iterations] [iterations]";
+
+	public static void main(String[] args) {
+			/*
+			 * The results are reported by the runner through the logger.
+			 */
+		CLogger.setStdOut();
+		String filter = null;
+		int warmupIterations = CBenchmarkRunner.DEFAULT_WARMUP_ITERATIONS,
+		    iterations = CBenchmarkRunner.DEFAULT_ITERATIONS;
+
+		try {
+			if( args != null) {
+				if( args.length > 0 && !args[0].equals("all")) {
+					filter = args[0];
+				}
+				if( args.length > 1) {
+					warmupIterations = Integer.parseInt(args[1]);
+				}
+				if( args.length > 2) {
+					iterations = Integer.parseInt(args[2]);
+				}
+			}
+		}
+		catch( NumberFormatException e) {
+			CLogger.info(USAGE);
+			return;
+		}
+
+		List<ABenchmark> benchmarks = CTextAnalysisBenchmarks.getBenchmarks();
+		benchmarks.addAll(CCollectionsBenchmarks.getBenchmarks());
+		benchmarks.addAll(CGraphBenchmarks.getBenchmarks());
+		
+		CBenchmarkRunner runner = new CBenchmarkRunner(warmupIterations, iterations);
+		for( ABenchmark benchmark : benchmarks) {
+			if( filter == null || benchmark.getName().startsWith(filter)) {
+				try {
+					runner.run(benchmark);
+				}
+				catch( Exception e) {
+					CLogger.error("Cannot run benchmark " + benchmark.getName() + " " + e.toString());
+				}
+			}
+		}
+	}
+}
+
+// ----------------  EOF --------------------------------------------
@@ -1,10 +1,16 @@
 // Copyright (C) 2010-2012 Patrick Nicolas
 package com.c24x7.apps;
 
+import java.io.IOException;
+import java.sql.SQLException;
 
+import com.c24x7.semantics.CTaxonomyConnectionsPool;
+import com.c24x7.semantics.CTaxonomyFilters;
+import com.c24x7.semantics.CTaxonomyStore;
 import com.c24x7.semantics.lookup.CLookup;
 import com.c24x7.semantics.lookup.CLookupGenerator;
 import com.c24x7.textanalyzer.tfidf.CIdfVector;
+import com.c24x7.util.collections.CBloomFilter;
 import com.c24x7.util.logs.CLogger;
 
 
@@ -27,14 +33,18 @@ public final class CCreateLookupMapApp {
 				 * Update the Semantic database with IDF values.
 				 */
 			if(args[0].compareTo("-idf")==0) {
-				long numRecords = CIdfVector.writeDatabase();		
+				long numRecords = (args.length > 1 && args[1].compareTo("-rows")==0) ? 
+									CIdfVector.writeDatabase() :
+									CIdfVector.writeDatabaseBulk();		
 				System.out.println("IDF initialization done for " + numRecords);
 			}
 			
 				/*
 				 * Create a lookup map file with lower case keywords
 				 * of the command line is defined as -lookup -l or original
-				 * keywords if -lookup -o
+				 * keywords if -lookup -o. The number of workers scanning the
+				 * database is set with -workers n and the binary lookup files
+				 * are compiled if -bin is specified.
 				 */
 			else if( args[0].compareTo("-lookup")==0){
 				final String lookupType = (args.length > 1 && args[1].compareTo("extended")==0) ?
@@ -42,15 +52,63 @@ public final class CCreateLookupMapApp {
 											CLookup.ORIGINAL;
 				
 				CLookupGenerator generator = new CLookupGenerator();
-				generator.createLookupMap(lookupType);
+				for( int k = 1; k < args.length; k++) {
+					if( args[k].compareTo("-workers")==0 && k+1 < args.length) {
+						generator.setNumWorkers(Integer.parseInt(args[++k]));
+					}
+					else if( args[k].compareTo("-bin")==0) {
+						generator.setBinaryOutput(true);
+					}
+				}
+				int numRecords = generator.createLookupMap(lookupType);
+				System.out.println("Lookup map created with " + numRecords + " records");
+			}
+			
+				/*
+				 * Create the Bloom filters of the labels of the
+				 * entries and aliases tables, with an optional false positive rate.
+				 */
+			else if( args[0].compareTo("-filters")==0){
+				try {
+					double rate = (args.length > 1) ? Double.parseDouble(args[1]) : CBloomFilter.DEFAULT_FALSE_POSITIVE_RATE;
+					long numLabels = CTaxonomyFilters.create(rate);
+					System.out.println("Taxonomy filters created with " + numLabels + " labels");
+				}
+				catch( NumberFormatException e) {
+					CLogger.error("Incorrect false positive rate " + args[1]);
+				}
+				catch( SQLException e) {
+					CLogger.error("Cannot scan taxonomy tables " + e.toString());
+				}
+				catch( IOException e) {
+					CLogger.error("Cannot write taxonomy filters " + e.toString());
+				}
+			}
+			
+				/*
+				 * Export the taxonomy records of the entries and aliases
+				 * tables into the read only taxonomy stores.
+				 */
+			else if( args[0].compareTo("-store")==0){
+				try {
+					int numEntries = CTaxonomyStore.export(CTaxonomyConnectionsPool.ENTRY_TABLE);
+					int numAliases = CTaxonomyStore.export(CTaxonomyConnectionsPool.ALIAS_TABLE);
+					System.out.println("Taxonomy stores created with " + numEntries + " entries and " + numAliases + " aliases");
+				}
+				catch( SQLException e) {
+					CLogger.error("Cannot scan taxonomy tables " + e.toString());
+				}
+				catch( IOException e) {
+					CLogger.error("Cannot write taxonomy stores " + e.toString());
+				}
 			}
 							
 			else {
-				CLogger.info("Command line arguments:\nCCreateLookupMapApp [arg]  arg: -idf or -lookup -l/-o");
+				CLogger.info("Command line arguments:\nCCreateLookupMapApp [arg]  arg: -idf [-rows] or -lookup -l/-o [-workers n] [-bin] or -filters [rate] or -store");
 			}
 		}
 		else {
-			CLogger.info("Command line arguments:\nCCreateLookupMapApp [arg]  arg: -idf or -lookup -l/-o");
+			CLogger.info("Command line arguments:\nCCreateLookupMapApp [arg]  arg: -idf [-rows] or -lookup -l/-o [-workers n] [-bin] or -filters [rate] or -store");
 		}
 	}
 }
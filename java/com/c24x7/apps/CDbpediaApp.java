@@ -36,6 +36,9 @@ import com.c24x7.util.logs.CLogger;
 			 */
 public final class CDbpediaApp {
 
+	private static final int 	UPDATE_BATCH_SIZE 	= 250;
+	private static final int 	FIRST_TAXONOMY_ID 	= 680000;
+	
 	protected static Map<String, ADbpediaEtl> operationsMap = null;
 	
 	static {
@@ -95,6 +98,14 @@ public final class CDbpediaApp {
 			CDbpediaLoader dbpediaManager = (args.length > 1 && args[1] != null) ?
 	                new CDbpediaLoader(Long.parseLong(args[1])) :
 	                new CDbpediaLoader();
+			
+				/*
+				 * Load the chunks of the dbpedia file concurrently
+				 * if a number of workers is specified.
+				 */
+			if( args.length > 2 && args[2] != null) {
+				dbpediaManager.setNumWorkers(Integer.parseInt(args[2]));
+			}
 	
 			dbpediaManager.writeDbpediaDatabase(operationsMap.get(args[0]));
 		}
@@ -118,82 +129,84 @@ public final class CDbpediaApp {
 				/*
 				 * Create a SQL access class for Dbpedia
 				 */
-				CDbpediaSql dbpediaSql = CDbpediaSql.getInstance();
-				
+				final CDbpediaSql dbpediaSql = CDbpediaSql.getInstance();
+			
 					/*
-					 * Initialize the statements for the query and
+					 * Initialize the fields for the scan and
 					 * updated requests to DBpedia database.
 					 */
 				String[] fields = new String[] {
 					"label", "lgabstract", "taxonomy", "sub_taxonomy"
 				};
-				
-				
-				dbpediaSql.setQuery(fields, "wnet is null and id");
-				
+			
 				String[] updateFields = new String[] {
 					"taxonomy"	
 				};
-				dbpediaSql.setUpdate(updateFields, null);
-				
-				
+				dbpediaSql.setUpdate(updateFields, null, UPDATE_BATCH_SIZE);
+			
+			
 				/*
 				 * Create a semantic service for analyzing abstracts.
 				 */
-				CAbstractSemanticService semanticService = new CAbstractSemanticService(3);
-				
-				String[] results = null;
-				
-				int numEntries = dbpediaSql.getNumEntries();
-				for( int id = 680000; id < numEntries; id++) {
-					if( id % 2500 == 0) { 
-						System.out.println(id);
-					}
+				final CAbstractSemanticService semanticService = new CAbstractSemanticService(3);
+			
+					/*
+					 * Scan the entries without taxonomy lineage with a single query.
+					 */
+				CDbpediaSql.NRecordHandler handler = new CDbpediaSql.NRecordHandler() {
+					@Override
+					public void process(int id, final String[] results) throws SQLException {
+						if( id % 2500 == 0) { 
+							System.out.println(id);
+						}
+					
+						String[] categoriesLineages = null;
+						if( results[results.length-1] != null) {
+							categoriesLineages = results[results.length-1].split("#");
+						}
 					
-					try {
-						results = dbpediaSql.executeQuery(id);
-						if( results != null) {
-							String[] categoriesLineages = null;
-							if( results[results.length-1] != null) {
-								categoriesLineages = results[results.length-1].split("#");
+							/*
+							 * If the record has a taxonomy lineages associated to 
+							 * categories., then used them to infer the actual taxonomy
+							 * lineage of the Wikipedia entry or label.
+							 */
+						if( categoriesLineages != null) {
+							try {
+								semanticService.setTaxonomyLineages(results[2], categoriesLineages);
+							}
+							catch( ArrayIndexOutOfBoundsException e) {
+								CLogger.error("out of bounds for " + results[0] + " " + e.toString());
 							}
+						
+							if( semanticService.execute(results[1], results[0]) != null) {
+								String[] taxonomyLineages = semanticService.getNewTaxonomyLineages();
+								StringBuilder buf = new StringBuilder();
+							
+								int lastTaxonomyLineageIndex = taxonomyLineages.length-1;
+								for(int j = 0; j < lastTaxonomyLineageIndex; j++) {
+									buf.append(taxonomyLineages[j]);
+									buf.append("#");
+								}
+								buf.append(taxonomyLineages[lastTaxonomyLineageIndex]);
 							
 								/*
-								 * If the record has a taxonomy lineages associated to 
-								 * categories., then used them to infer the actual taxonomy
-								 * lineage of the Wikipedia entry or label.
+								 * Insert the taxonomy lineages into Dbpedia table.
 								 */
-							if( categoriesLineages != null) {
-								try {
-									semanticService.setTaxonomyLineages(results[2], categoriesLineages);
-								}
-								catch( ArrayIndexOutOfBoundsException e) {
-									CLogger.error("out of bounds for " + results[0] + " " + e.toString());
-								}
-								
-								if( semanticService.execute(results[1], results[0]) != null) {
-									String[] taxonomyLineages = semanticService.getNewTaxonomyLineages();
-									StringBuilder buf = new StringBuilder();
-									
-									int lastTaxonomyLineageIndex = taxonomyLineages.length-1;
-									for(int j = 0; j < lastTaxonomyLineageIndex; j++) {
-										buf.append(taxonomyLineages[j]);
-										buf.append("#");
-									}
-									buf.append(taxonomyLineages[lastTaxonomyLineageIndex]);
-									
-									/*
-									 * Insert the taxonomy lineages into Dbpedia table.
-									 */
-									dbpediaSql.executeUpdate(new String[] { buf.toString()}, id);
-								}
+								dbpediaSql.executeUpdate(new String[] { buf.toString()}, id);
 							}
 						}
 					}
-					catch( SQLException e) {
-						CLogger.error(e.toString());
-					}
+				};
+			
+				int numEntries = dbpediaSql.getNumEntries();
+				try {
+					dbpediaSql.scan(fields, "wnet is null", FIRST_TAXONOMY_ID, numEntries-1, true, handler);
+					dbpediaSql.flushUpdates();
+				}
+				catch( SQLException e) {
+					CLogger.error(e.toString());
 				}
+				semanticService.close();
 			}
 		}
 	}
@@ -217,6 +230,7 @@ public final class CDbpediaApp {
 		CLogger.info("\n-loadImage: Load the thumbnail image from the dbpedia data sets.");
 		CLogger.info("\n-loadImages: Load the different alternative images from Flickr data sets.");
 		CLogger.info("\n-all: Load all the Dbpedia data sets.");
+		CLogger.info("\nThe load operations accept the maximum number of records and the number of workers as optional arguments.");
 	}
 }
 
@@ -155,6 +155,20 @@ public final class CDbpediaTaxonomyApp {
 	
 	private CDbpediaTaxonomyApp() { }
 	
+		/*
+		 * The taxonomy columns are updated one record at a time so the updates
+		 * are recorded before and after the scan of the table: the files exported
+		 * before or during the scan are stale.
+		 */
+	private static void recordTaxonomyUpdates() {
+		try {
+			CDbpediaSql.recordTaxonomyUpdate();
+		}
+		catch( SQLException e) {
+			CLogger.error("Cannot record the taxonomy updates " + e.toString());
+		}
+	}
+	
 	private void close() {
 		if( _pStmt != null) {
 			_pStmt.close();
@@ -343,9 +357,11 @@ public final class CDbpediaTaxonomyApp {
 		 * Iterates through the entire DBpedia table
 		 */
 		int maxId = CDbpediaSql.getInstance().getNumEntries();
+		recordTaxonomyUpdates();
 		for(int id = 1; id < maxId; id++) {
 			addCategoriesTaxonomy(id);
 		}
+		recordTaxonomyUpdates();
 			
 		close();
 	}
@@ -367,9 +383,11 @@ public final class CDbpediaTaxonomyApp {
 		}
 		
 		int maxId = CDbpediaSql.getInstance().getNumEntries();
+		recordTaxonomyUpdates();
 		for(int id = 1; id < maxId; id++) {
 			addHypernymsSubGraphs(id);
 		}
+		recordTaxonomyUpdates();
 			
 		close();
 	}
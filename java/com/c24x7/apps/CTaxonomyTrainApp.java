@@ -2,6 +2,7 @@
 package com.c24x7.apps;
 
 
+import com.c24x7.exception.ClassifierException;
 import com.c24x7.exception.InitException;
 import com.c24x7.models.taxonomy.CTaxonomyClassifier;
 import com.c24x7.models.taxonomy.CTaxonomyModel;
@@ -20,6 +21,7 @@ import com.c24x7.util.logs.CLogger;
 		 * @date 02/02/2012
 		 */
 public final class CTaxonomyTrainApp {
+	private final static int NUM_THREADS = Runtime.getRuntime().availableProcessors();
 	
 	
 	private final static int[] TRAINING_RANGE = {
@@ -55,8 +57,9 @@ public final class CTaxonomyTrainApp {
 
 					CTaxonomyModel.getInstance(modelParams);
 					
-					classifier = new CTaxonomyClassifier(1);
+					classifier = new CTaxonomyClassifier(NUM_THREADS);
 					classifier.train();
+					CTaxonomyModel.init(modelParams);
 				}
 				
 				/*
@@ -67,7 +70,7 @@ public final class CTaxonomyTrainApp {
 					
 					try {
 						CTaxonomyModel.init(modelParams);
-						classifier = new CTaxonomyClassifier(1);
+						classifier = new CTaxonomyClassifier(NUM_THREADS);
 						classifier.validate(VALIDATION_RANGE);
 						int numSamples = classifier.getNumSamples();
 						CLogger.info("Taxonomy validation done with " + numSamples + " samples", CLogger.TAXONOMY_TRAIN_TRACE);
@@ -86,7 +89,7 @@ public final class CTaxonomyTrainApp {
 					
 					try {
 						CTaxonomyModel.init(modelParams);
-						classifier = new CTaxonomyClassifier(1);
+						classifier = new CTaxonomyClassifier(NUM_THREADS);
 						classifier.test(TEST_RANGE);
 						int numSamples = classifier.getNumSamples();
 						CLogger.info("Taxonomy validation done with " + numSamples + " samples", CLogger.TAXONOMY_TRAIN_TRACE);
@@ -104,6 +107,9 @@ public final class CTaxonomyTrainApp {
 		catch( InitException e) {
 			CLogger.error(e.toString());
 		}
+		catch( ClassifierException e) {
+			CLogger.error(e.toString());
+		}
 	}
 	
 	public static NModelParams initModelParams(String arg, String arg2) {
@@ -0,0 +1,49 @@
+// Copyright (C) 2010-2012 Patrick Nicolas
+package com.c24x7.benchmarks;
+
+
+
+			/**
+			 * <p>Generic micro-benchmark of a single operation. The fixtures are
+			 * created once by setUp, the state of the operation is restored before
+			 * each invocation by reset, outside the measurement, and the operation
+			 * itself is executed by execute.</p>
+			 * @author Patrick Nicolas
+			 * @date 06/26/2012
+			 */
+public abstract class ABenchmark {
+	private String _name = null;
+
+		/**
+		 * <p>Create a benchmark with a unique name.</p>
+		 * @param name name of the benchmark used in reports and filters
+		 */
+	protected ABenchmark(final String name) {
+		_name = name;
+	}
+
+	public final String getName() {
+		return _name;
+	}
+
+		/**
+		 * <p>Create the fixtures used in this benchmark. This method is invoked
+		 * once before the warm up iterations.</p>
+		 * @throws Exception if the fixtures cannot be created
+		 */
+	public void setUp() throws Exception { }
+
+		/**
+		 * <p>Restore the state of the fixtures before each invocation of
+		 * the measured operation. The duration of this method is not measured.</p>
+		 */
+	public void reset() { }
+
+		/**
+		 * <p>Execute the operation to be measured.</p>
+		 * @return any value computed by the operation, so the operation cannot be eliminated by the compiler
+		 */
+	public abstract Object execute();
+}
+
+// ---------------------------  EOF -----------------------------------
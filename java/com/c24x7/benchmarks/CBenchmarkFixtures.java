@@ -0,0 +1,253 @@
+// Copyright (C) 2010-2012 Patrick Nicolas
+package com.c24x7.benchmarks;
+
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import com.c24x7.math.clustering.CDataPoint;
+import com.c24x7.models.CTaxonomyObject;
+import com.c24x7.models.CText;
+import com.c24x7.semantics.CTaxonomyConnectionsPool.NTaxonomiesConn;
+import com.c24x7.semantics.CTaxonomyExtractor;
+import com.c24x7.semantics.lookup.CLookup;
+import com.c24x7.semantics.lookup.CLookupRecord;
+
+
+
+			/**
+			 * <p>Fixtures shared by the micro-benchmarks. The fixtures are generated
+			 * from a fixed local corpus and a seeded random generator so the results
+			 * are reproducible across runs and do not require any access to the
+			 * reference database. The taxonomy lineages are provided by a stubbed
+			 * taxonomy connection.</p>
+			 * @author Patrick Nicolas
+			 * @date 06/26/2012
+			 */
+public final class CBenchmarkFixtures {
+	public static final long 	SEED 				= 24071L;
+	public static final int 	NUM_OBJECTS 		= 64;
+	public static final int 	NUM_SENTENCES 		= 24;
+
+	public static final String[] CORPUS = {
+		"The European Central Bank raised its main interest rate by a quarter point on Thursday. " +
+		"Analysts in Frankfurt expected the decision after inflation in the euro zone climbed above the target of the bank. " +
+		"The president of the bank said that the governing council will monitor the price of oil and the wages very closely.",
+
+		"Apple introduced a new version of its operating system for the iPhone and the iPad at a conference in San Francisco. " +
+		"The company also announced a music streaming service that competes with Spotify and Pandora. " +
+		"Developers will be able to download a beta version of the software today, while consumers will get the update in the fall.",
+
+		"The Golden State Warriors defeated the Los Angeles Lakers in overtime at the Oracle Arena. " +
+		"Stephen Curry scored forty points and made nine three-point shots. " +
+		"The coach of the Lakers blamed the defense and the turnovers in the fourth quarter for the loss.",
+
+		"Researchers at Stanford University published a study on the effect of sleep on memory in the journal Nature. " +
+		"The experiment showed that students who slept eight hours remembered more words than students who stayed awake. " +
+		"The authors plan to extend the study to older adults and patients with Alzheimer disease."
+	};
+
+	private static final String[] TAXONOMY_CLASSES = {
+		"entity", "physical_entity", "abstraction", "object", "whole", "living_thing", "organism", "person",
+		"artifact", "instrumentality", "device", "organization", "institution", "company", "group", "social_group",
+		"event", "act", "activity", "sport", "location", "region", "district", "city", "measure", "quantity",
+		"attribute", "state", "condition", "communication", "message", "publication", "science", "discipline"
+	};
+
+
+
+			/**
+			 * <p>Stubbed connection to the taxonomy source which generates deterministic
+			 * taxonomy lineages for any label, so the taxonomy extraction can be measured
+			 * without the JDBC overhead and without any reference database.</p>
+			 */
+	public static final class NStubTaxonomiesConn extends NTaxonomiesConn {
+		private static final int MAX_NUM_LINEAGES 	= 3;
+		private static final int MAX_LINEAGE_LENGTH = 7;
+		private static final int MIN_LINEAGE_LENGTH = 3;
+
+		public NStubTaxonomiesConn() {
+			super();
+		}
+
+		@Override
+		public boolean isBatchEnabled() {
+			return true;
+		}
+
+		@Override
+		public boolean isValid(int timeout) {
+			return true;
+		}
+
+		@Override
+		public Map<String, String[]> retrieve(int tableIndex, final Set<String> encodedLabels) {
+			Map<String, String[]> taxonomyLineagesMap = new HashMap<String, String[]>();
+
+			for( String encodedLabel : encodedLabels) {
+				taxonomyLineagesMap.put(encodedLabel, createLineages(encodedLabel));
+			}
+			return taxonomyLineagesMap;
+		}
+
+		@Override
+		public String[] retrieve(final ResultSet rs) {
+			return null;
+		}
+
+
+			/**
+			 * <p>Generate the taxonomy lineages of a label, seeded by the hash
+			 * code of the label so the same label always has the same lineages.</p>
+			 * @param label label of the taxonomy object
+			 * @return array of taxonomy lineages using the Wikipedia lineage format.
+			 */
+		public static String[] createLineages(final String label) {
+			Random random = new Random(SEED ^ label.hashCode());
+			String[] taxonomyLineages = new String[1 + random.nextInt(MAX_NUM_LINEAGES)];
+
+			StringBuilder buf = null;
+			int lineageLength = 0;
+			for( int k = 0; k < taxonomyLineages.length; k++) {
+				buf = new StringBuilder(TAXONOMY_CLASSES[0]);
+				lineageLength = MIN_LINEAGE_LENGTH + random.nextInt(MAX_LINEAGE_LENGTH - MIN_LINEAGE_LENGTH);
+
+				for( int j = 1; j < lineageLength; j++) {
+					buf.append("/");
+					buf.append(TAXONOMY_CLASSES[1 + random.nextInt(TAXONOMY_CLASSES.length-1)]);
+				}
+				taxonomyLineages[k] = buf.toString();
+			}
+
+			return taxonomyLineages;
+		}
+	}
+
+
+	private CBenchmarkFixtures() { }
+
+
+			/**
+			 * <p>Retrieve the whole fixture corpus as a single text.</p>
+			 * @return concatenated paragraphs of the fixture corpus.
+			 */
+	public static String getCorpus() {
+		StringBuilder buf = new StringBuilder();
+		for( String paragraph : CORPUS) {
+			buf.append(paragraph);
+			buf.append(" ");
+		}
+		return buf.toString().trim();
+	}
+
+
+			/**
+			 * <p>Create a document with a deterministic set of taxonomy objects ordered
+			 * by decreasing weight, as generated by the N-Grams extractor.</p>
+			 * @param numObjects number of taxonomy objects in the document
+			 * @return document with its taxonomy objects and sentences.
+			 */
+	public static CText createDocument(int numObjects) {
+		if( numObjects < 1) {
+			throw new IllegalArgumentException("Cannot create a document fixture with " + numObjects + " objects");
+		}
+		Random random = new Random(SEED);
+
+		String[] sentences = new String[NUM_SENTENCES];
+		for( int k = 0; k < NUM_SENTENCES; k++) {
+			sentences[k] = "sentence " + k;
+		}
+
+		Map<String, CTaxonomyObject> objectsMap = new LinkedHashMap<String, CTaxonomyObject>();
+		CTaxonomyObject taxonomyObject = null;
+		String label = null;
+		char type = CLookup.DBPEDIA_UNDEFINED;
+		int numOccurrences = 0;
+
+		for( int k = 0; k < numObjects; k++) {
+			label = "label " + k;
+			type = (random.nextInt(4) == 0) ? CLookup.DPBEDIA_ENTRY_ALIAS : CLookup.DBPEDIA_ENTRY;
+			taxonomyObject = new CTaxonomyObject(new CLookupRecord(type, 10.0F - 0.05F*k), label);
+
+			numOccurrences = 1 + random.nextInt(4);
+			for( int j = 0; j < numOccurrences; j++) {
+				taxonomyObject.addSentenceIndex(random.nextInt(NUM_SENTENCES));
+			}
+			objectsMap.put(label, taxonomyObject);
+		}
+
+		CText document = new CText("benchmark");
+		document.setSentences(sentences);
+		document.setObjectsMap(objectsMap);
+
+		return document;
+	}
+
+
+			/**
+			 * <p>Create a document with taxonomy objects for which the taxonomy lineages
+			 * have been extracted from the stubbed taxonomy source.</p>
+			 * @param numObjects number of taxonomy objects in the document
+			 * @return document with taxonomy objects and classes.
+			 */
+	public static CText createTaxonomyDocument(int numObjects) {
+		CText document = createDocument(numObjects);
+		CTaxonomyExtractor taxonomyExtractor = new CTaxonomyExtractor(new NStubTaxonomiesConn());
+		taxonomyExtractor.extract(document);
+
+		return document;
+	}
+
+
+			/**
+			 * <p>Create an array of data points randomly distributed around a
+			 * predefined number of centers.</p>
+			 * @param numPoints number of data points
+			 * @param numVariables number of variables of each data point
+			 * @param numCenters number of centers of the distribution
+			 * @return array of data points.
+			 */
+	public static CDataPoint[] createDataPoints(int numPoints, int numVariables, int numCenters) {
+		Random random = new Random(SEED);
+
+		double[][] centers = new double[numCenters][numVariables];
+		for( int k = 0; k < numCenters; k++) {
+			for( int j = 0; j < numVariables; j++) {
+				centers[k][j] = random.nextDouble();
+			}
+		}
+
+		CDataPoint[] dataPoints = new CDataPoint[numPoints];
+		double[] x = null;
+		for( int k = 0; k < numPoints; k++) {
+			x = new double[numVariables];
+			for( int j = 0; j < numVariables; j++) {
+				x[j] = centers[k % numCenters][j] + 0.05*random.nextGaussian();
+			}
+			dataPoints[k] = new CDataPoint(x, k);
+		}
+
+		return dataPoints;
+	}
+
+
+			/**
+			 * <p>Create an array of random integers in the range [0, maxValue[.</p>
+			 * @param size number of values
+			 * @param maxValue upper bound (exclusive) of the values
+			 * @return array of integers.
+			 */
+	public static int[] createValues(int size, int maxValue) {
+		Random random = new Random(SEED);
+		int[] values = new int[size];
+		for( int k = 0; k < size; k++) {
+			values[k] = random.nextInt(maxValue);
+		}
+		return values;
+	}
+}
+
+// ---------------------------  EOF -----------------------------------
@@ -0,0 +1,174 @@
+// Copyright (C) 2010-2012 Patrick Nicolas
+package com.c24x7.benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+import com.c24x7.util.logs.CLogger;
+
+
+
+			/**
+			 * <p>Runner of micro-benchmarks. Each benchmark is executed for a number
+			 * of warm up iterations, so the code is compiled by the JIT, then measured
+			 * with the monotonic clock of the JVM for a number of iterations. The runner
+			 * reports the mean, median, 99th percentile and minimum durations of the operation
+			 * as well as the number of bytes allocated per operation when the JVM supports it.</p>
+			 * @author Patrick Nicolas
+			 * @date 06/26/2012
+			 */
+public final class CBenchmarkRunner {
+	public static final int DEFAULT_WARMUP_ITERATIONS 	= 2000;
+	public static final int DEFAULT_ITERATIONS 			= 5000;
+
+
+			/**
+			 * <p>Results of the measurement of a benchmark.</p>
+			 * @author Patrick Nicolas
+			 * @date 06/26/2012
+			 */
+	public static final class NResults {
+		private String 	_name 			= null;
+		private long[] 	_durations 		= null;
+		private long	_allocatedBytes = -1L;
+
+		private NResults(final String name, long[] durations, long allocatedBytes) {
+			_name = name;
+			_durations = durations;
+			_allocatedBytes = allocatedBytes;
+			Arrays.sort(_durations);
+		}
+
+		public final String getName() {
+			return _name;
+		}
+
+		public double getMean() {
+			double sum = 0.0;
+			for( long duration : _durations) {
+				sum += duration;
+			}
+			return sum/_durations.length;
+		}
+
+		public long getPercentile(double percentile) {
+			int index = (int)Math.ceil(percentile*_durations.length) - 1;
+			return _durations[(index < 0) ? 0 : index];
+		}
+
+		public long getMin() {
+			return _durations[0];
+		}
+
+			/**
+			 * <p>Retrieve the average number of bytes allocated per operation.</p>
+			 * @return number of bytes allocated per operation, -1 if the JVM does not support allocation counters.
+			 */
+		public long getAllocatedBytes() {
+			return (_allocatedBytes >= 0L) ? _allocatedBytes/_durations.length : -1L;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder buf = new StringBuilder(_name);
+			buf.append(": mean=");
+			buf.append(String.format("%.1f", getMean()*1E-3));
+			buf.append(" us, p50=");
+			buf.append(String.format("%.1f", getPercentile(0.5)*1E-3));
+			buf.append(" us, p99=");
+			buf.append(String.format("%.1f", getPercentile(0.99)*1E-3));
+			buf.append(" us, min=");
+			buf.append(String.format("%.1f", getMin()*1E-3));
+			buf.append(" us, alloc=");
+			buf.append(getAllocatedBytes());
+			buf.append(" bytes/op");
+
+			return buf.toString();
+		}
+	}
+
+
+	private int 	_warmupIterations 	= DEFAULT_WARMUP_ITERATIONS;
+	private int 	_iterations 		= DEFAULT_ITERATIONS;
+	private Object 	_sink 				= null;
+
+
+	public CBenchmarkRunner() {
+		this(DEFAULT_WARMUP_ITERATIONS, DEFAULT_ITERATIONS);
+	}
+
+		/**
+		 * <p>Create a benchmark runner with a specific number of iterations.</p>
+		 * @param warmupIterations number of invocations of the operation prior to the measurement
+		 * @param iterations number of measured invocations of the operation
+		 * @throws IllegalArgumentException if the number of iterations is out of range
+		 */
+	public CBenchmarkRunner(int warmupIterations, int iterations) {
+		if( warmupIterations < 0 || iterations < 1) {
+			throw new IllegalArgumentException("Incorrect number of iterations for benchmark");
+		}
+		_warmupIterations = warmupIterations;
+		_iterations = iterations;
+	}
+
+
+		/**
+		 * <p>Measure the duration of the operation of a benchmark.</p>
+		 * @param benchmark benchmark to execute
+		 * @return results of the measurement
+		 * @throws Exception if the fixtures of the benchmark cannot be created
+		 */
+	public NResults run(ABenchmark benchmark) throws Exception {
+		if( benchmark == null) {
+			throw new IllegalArgumentException("Cannot run undefined benchmark");
+		}
+
+		benchmark.setUp();
+		for( int k = 0; k < _warmupIterations; k++) {
+			benchmark.reset();
+			_sink = benchmark.execute();
+		}
+
+		ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		com.sun.management.ThreadMXBean allocationBean = (threadBean instanceof com.sun.management.ThreadMXBean) ?
+									(com.sun.management.ThreadMXBean)threadBean : null;
+		final long threadId = Thread.currentThread().getId();
+
+		long[] durations = new long[_iterations];
+		long allocatedBytes = 0L;
+		long startTime = 0L,
+			 startBytes = 0L;
+
+		for( int k = 0; k < _iterations; k++) {
+			benchmark.reset();
+			if( allocationBean != null) {
+				startBytes = allocationBean.getThreadAllocatedBytes(threadId);
+			}
+			startTime = System.nanoTime();
+			_sink = benchmark.execute();
+			durations[k] = System.nanoTime() - startTime;
+
+			if( allocationBean != null) {
+				allocatedBytes += allocationBean.getThreadAllocatedBytes(threadId) - startBytes;
+			}
+		}
+
+		NResults results = new NResults(benchmark.getName(), durations, (allocationBean != null) ? allocatedBytes : -1L);
+		CLogger.info(results.toString());
+
+		return results;
+	}
+
+
+		/**
+		 * <p>Retrieve the value returned by the last operation, so the JIT
+		 * compiler cannot discard the measured operations.</p>
+		 * @return last value computed by a benchmark.
+		 */
+	public final Object getSink() {
+		return _sink;
+	}
+}
+
+// ---------------------------  EOF -----------------------------------
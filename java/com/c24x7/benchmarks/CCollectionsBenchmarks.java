@@ -0,0 +1,329 @@
+// Copyright (C) 2010-2012 Patrick Nicolas
+package com.c24x7.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.c24x7.math.utils.CFreqArray;
+import com.c24x7.util.CDoubleMap;
+import com.c24x7.util.CIntMap;
+import com.c24x7.util.collections.CIntBitmap;
+import com.c24x7.util.collections.CIntSet;
+import com.c24x7.util.collections.CObjectDoubleMap;
+import com.c24x7.util.collections.CObjectIntMap;
+
+
+
+			/**
+			 * <p>Micro-benchmarks of the primitive collections compared with the
+			 * equivalent boxed collections of the JDK, counting terms and collecting
+			 * sentences indices as the N-Grams extraction and the topics extraction do.</p>
+			 * @author Patrick Nicolas
+			 * @date 06/30/2012
+			 */
+public final class CCollectionsBenchmarks {
+	private static final int NUM_TERMS 			= 8192;
+	private static final int NUM_DISTINCT_TERMS = 1024;
+	private static final int NUM_INDICES 		= 4096;
+	private static final int NUM_DOCUMENTS 		= 256;
+	private static final int NUM_SENTENCES 		= 64;
+
+	private CCollectionsBenchmarks() { }
+
+
+	public static List<ABenchmark> getBenchmarks() {
+		List<ABenchmark> benchmarks = new ArrayList<ABenchmark>();
+
+		benchmarks.add(new NBoxedIntMap());
+		benchmarks.add(new NObjectIntMap());
+		benchmarks.add(new NIntMap());
+		benchmarks.add(new NBoxedDoubleMap());
+		benchmarks.add(new NObjectDoubleMap());
+		benchmarks.add(new NDoubleMap());
+		benchmarks.add(new NIntSet());
+		benchmarks.add(new NFreqArray());
+		benchmarks.add(new NIntBitmap());
+		benchmarks.add(new NFreqArrayMerge());
+		benchmarks.add(new NIntBitmapMerge());
+
+		return benchmarks;
+	}
+
+
+	private static String[] createTerms() {
+		int[] values = CBenchmarkFixtures.createValues(NUM_TERMS, NUM_DISTINCT_TERMS);
+		String[] terms = new String[NUM_TERMS];
+		for( int k = 0; k < NUM_TERMS; k++) {
+			terms[k] = "term" + values[k];
+		}
+		return terms;
+	}
+
+
+	private static abstract class ATermsBenchmark extends ABenchmark {
+		protected String[] _terms = null;
+
+		protected ATermsBenchmark(final String name) {
+			super(name);
+		}
+
+		@Override
+		public void setUp() throws Exception {
+			_terms = createTerms();
+		}
+	}
+
+
+			/**
+			 * <p>Baseline: counting terms with a hash map of boxed integers.</p>
+			 */
+	public static final class NBoxedIntMap extends ATermsBenchmark {
+		public NBoxedIntMap() {
+			super("collections.int.boxed");
+		}
+
+		@Override
+		public Object execute() {
+			Map<String, Integer> counts = new HashMap<String, Integer>();
+			Integer count = null;
+			for( String term : _terms) {
+				count = counts.get(term);
+				counts.put(term, Integer.valueOf((count == null) ? 1 : count.intValue()+1));
+			}
+			return counts;
+		}
+	}
+
+	public static final class NObjectIntMap extends ATermsBenchmark {
+		public NObjectIntMap() {
+			super("collections.int.primitive");
+		}
+
+		@Override
+		public Object execute() {
+			CObjectIntMap<String> counts = new CObjectIntMap<String>();
+			for( String term : _terms) {
+				counts.adjust(term, 1);
+			}
+			return counts;
+		}
+	}
+
+	public static final class NIntMap extends ATermsBenchmark {
+		public NIntMap() {
+			super("collections.int.intmap");
+		}
+
+		@Override
+		public Object execute() {
+			CIntMap counts = new CIntMap();
+			for( String term : _terms) {
+				counts.put(term);
+			}
+			return counts;
+		}
+	}
+
+
+			/**
+			 * <p>Baseline: accumulating scores with a hash map of boxed double.</p>
+			 */
+	public static final class NBoxedDoubleMap extends ATermsBenchmark {
+		public NBoxedDoubleMap() {
+			super("collections.double.boxed");
+		}
+
+		@Override
+		public Object execute() {
+			Map<String, Double> scores = new HashMap<String, Double>();
+			Double score = null;
+			for( String term : _terms) {
+				score = scores.get(term);
+				scores.put(term, Double.valueOf((score == null) ? 0.5 : score.doubleValue()+0.5));
+			}
+			return scores;
+		}
+	}
+
+	public static final class NObjectDoubleMap extends ATermsBenchmark {
+		public NObjectDoubleMap() {
+			super("collections.double.primitive");
+		}
+
+		@Override
+		public Object execute() {
+			CObjectDoubleMap<String> scores = new CObjectDoubleMap<String>();
+			for( String term : _terms) {
+				scores.adjust(term, 0.5);
+			}
+			return scores;
+		}
+	}
+
+	public static final class NDoubleMap extends ATermsBenchmark {
+		public NDoubleMap() {
+			super("collections.double.doublemap");
+		}
+
+		@Override
+		public Object execute() {
+			CDoubleMap scores = new CDoubleMap();
+			for( String term : _terms) {
+				scores.put(term, 0.5);
+			}
+			return scores;
+		}
+	}
+
+
+			/**
+			 * <p>Collection of sentences indices in a sorted set of integers.</p>
+			 */
+	public static final class NIntSet extends ABenchmark {
+		private int[] _indices = null;
+
+		public NIntSet() {
+			super("collections.intset.add");
+		}
+
+		@Override
+		public void setUp() throws Exception {
+			_indices = CBenchmarkFixtures.createValues(NUM_INDICES, NUM_INDICES);
+		}
+
+		@Override
+		public Object execute() {
+			CIntSet intSet = new CIntSet();
+			for( int index : _indices) {
+				intSet.add(index);
+			}
+			return intSet;
+		}
+	}
+
+
+			/**
+			 * <p>Collection of sentences indices and their frequencies.</p>
+			 */
+	public static final class NFreqArray extends ABenchmark {
+		private int[] _indices = null;
+
+		public NFreqArray() {
+			super("collections.freqarray.add");
+		}
+
+		@Override
+		public void setUp() throws Exception {
+			_indices = CBenchmarkFixtures.createValues(NUM_INDICES, NUM_INDICES);
+		}
+
+		@Override
+		public Object execute() {
+			CFreqArray freqArray = new CFreqArray();
+			for( int index : _indices) {
+				freqArray.add(index);
+			}
+			return freqArray;
+		}
+	}
+
+
+			/**
+			 * <p>Collection of sentences indices in a compressed bitmap.</p>
+			 */
+	public static final class NIntBitmap extends ABenchmark {
+		private int[] _indices = null;
+
+		public NIntBitmap() {
+			super("collections.intbitmap.add");
+		}
+
+		@Override
+		public void setUp() throws Exception {
+			_indices = CBenchmarkFixtures.createValues(NUM_INDICES, NUM_INDICES);
+		}
+
+		@Override
+		public Object execute() {
+			CIntBitmap bitmap = new CIntBitmap();
+			for( int index : _indices) {
+				bitmap.add(index);
+			}
+			return bitmap;
+		}
+	}
+
+
+			/**
+			 * <p>Baseline: merge of the sentences indices of the documents of a
+			 * topography, each shifted by the index of its first sentence.</p>
+			 */
+	public static final class NFreqArrayMerge extends ABenchmark {
+		private int[] _indices = null;
+
+		public NFreqArrayMerge() {
+			super("collections.freqarray.merge");
+		}
+
+		@Override
+		public void setUp() throws Exception {
+			_indices = CBenchmarkFixtures.createValues(NUM_DOCUMENTS*NUM_SENTENCES/2, NUM_SENTENCES);
+		}
+
+		@Override
+		public Object execute() {
+			CFreqArray sentencesIndices = new CFreqArray();
+			CFreqArray documentIndices = null;
+			final int numIndices = NUM_SENTENCES >> 1;
+
+			for( int document = 0; document < NUM_DOCUMENTS; document++) {
+				documentIndices = new CFreqArray();
+				for( int k = document*numIndices; k < (document+1)*numIndices; k++) {
+					documentIndices.add(_indices[k]);
+				}
+				documentIndices.shiftValueBy(document*NUM_SENTENCES);
+				sentencesIndices.add(documentIndices);
+			}
+			return sentencesIndices;
+		}
+	}
+
+
+			/**
+			 * <p>Merge of the sentences indices of the documents of a topography
+			 * in compressed bitmaps.</p>
+			 */
+	public static final class NIntBitmapMerge extends ABenchmark {
+		private int[] _indices = null;
+
+		public NIntBitmapMerge() {
+			super("collections.intbitmap.merge");
+		}
+
+		@Override
+		public void setUp() throws Exception {
+			_indices = CBenchmarkFixtures.createValues(NUM_DOCUMENTS*NUM_SENTENCES/2, NUM_SENTENCES);
+		}
+
+		@Override
+		public Object execute() {
+			CIntBitmap sentencesIndices = new CIntBitmap();
+			CIntBitmap documentIndices = null;
+			final int numIndices = NUM_SENTENCES >> 1;
+
+			for( int document = 0; document < NUM_DOCUMENTS; document++) {
+				documentIndices = new CIntBitmap();
+				for( int k = document*numIndices; k < (document+1)*numIndices; k++) {
+					documentIndices.add(_indices[k]);
+				}
+				documentIndices.shift(document*NUM_SENTENCES);
+				sentencesIndices.add(documentIndices);
+			}
+			return sentencesIndices;
+		}
+	}
+}
+
+// ---------------------------  EOF -----------------------------------
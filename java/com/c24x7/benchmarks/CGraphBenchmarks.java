@@ -0,0 +1,241 @@
+// Copyright (C) 2010-2012 Patrick Nicolas
+package com.c24x7.benchmarks;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import com.c24x7.util.collections.CIntGraph;
+
+
+
+			/**
+			 * <p>Micro-benchmarks of the construction and traversals of a large taxonomy
+			 * graph in compressed sparse row representation, compared with the equivalent
+			 * graph of labels stored in maps of the JDK. The taxonomy has more than 100,000
+			 * classes, a depth of several thousands of levels that a recursive traversal
+			 * could not walk, and classes with more than one parent.</p>
+			 * @author Patrick Nicolas
+			 * @date 07/29/2012
+			 */
+public final class CGraphBenchmarks {
+	private static final int NUM_VERTICES 		= 131072;
+	private static final int MAX_PARENT_DISTANCE = 8;
+	private static final int EXTRA_PARENT_RATE 	= 8;
+	private static final long SEED 				= 17L;
+
+	private CGraphBenchmarks() { }
+
+
+	public static List<ABenchmark> getBenchmarks() {
+		List<ABenchmark> benchmarks = new ArrayList<ABenchmark>();
+
+		benchmarks.add(new NBuild());
+		benchmarks.add(new NBreadthFirst());
+		benchmarks.add(new NDepthFirst());
+		benchmarks.add(new NBestPath());
+		benchmarks.add(new NBoxedDepthFirst());
+
+		return benchmarks;
+	}
+
+
+		/**
+		 * <p>Create the labels of the taxonomy classes.</p>
+		 * @return array of labels indexed by class
+		 */
+	private static String[] createLabels() {
+		String[] labels = new String[NUM_VERTICES];
+		for( int k = 0; k < NUM_VERTICES; k++) {
+			labels[k] = "class" + k;
+		}
+		return labels;
+	}
+
+
+		/**
+		 * <p>Create the edges of the taxonomy as pairs {parent, child}. Each class
+		 * but the root has a parent close to it, so the taxonomy is deep, and one
+		 * class out of EXTRA_PARENT_RATE has a second parent anywhere above it.</p>
+		 * @return array of edges
+		 */
+	private static int[][] createEdges() {
+		Random random = new Random(SEED);
+		List<int[]> edges = new ArrayList<int[]>(NUM_VERTICES + NUM_VERTICES/EXTRA_PARENT_RATE);
+
+		for( int child = 1; child < NUM_VERTICES; child++) {
+			edges.add(new int[] { child - 1 - random.nextInt(Math.min(child, MAX_PARENT_DISTANCE)), child });
+			if( random.nextInt(EXTRA_PARENT_RATE) == 0) {
+				edges.add(new int[] { random.nextInt(child), child });
+			}
+		}
+		return edges.toArray(new int[edges.size()][]);
+	}
+
+
+	private static CIntGraph createGraph(final String[] labels, final int[][] edges) {
+		CIntGraph graph = new CIntGraph(labels.length);
+		for( int[] edge : edges) {
+			graph.addEdge(graph.addVertex(labels[edge[0]]), graph.addVertex(labels[edge[1]]));
+		}
+		return graph;
+	}
+
+
+	private static abstract class AGraphBenchmark extends ABenchmark {
+		protected CIntGraph _graph 	= null;
+		protected int 		_root 	= CIntGraph.UNDEFINED;
+
+		protected AGraphBenchmark(final String name) {
+			super(name);
+		}
+
+		@Override
+		public void setUp() throws Exception {
+			String[] labels = createLabels();
+			_graph = createGraph(labels, createEdges());
+			_root = _graph.getVertexId(labels[0]);
+		}
+	}
+
+
+			/**
+			 * <p>Construction of the graph from the labels of the classes, including
+			 * the compaction of the edges.</p>
+			 */
+	public static final class NBuild extends ABenchmark {
+		private String[] 	_labels = null;
+		private int[][] 	_edges 	= null;
+
+		public NBuild() {
+			super("graph.csr.build");
+		}
+
+		@Override
+		public void setUp() throws Exception {
+			_labels = createLabels();
+			_edges = createEdges();
+		}
+
+		@Override
+		public Object execute() {
+			CIntGraph graph = createGraph(_labels, _edges);
+			return Integer.valueOf(graph.getNumEdges());
+		}
+	}
+
+
+			/**
+			 * <p>Breadth first traversal of the graph from the root class.</p>
+			 */
+	public static final class NBreadthFirst extends AGraphBenchmark {
+		public NBreadthFirst() {
+			super("graph.csr.bfs");
+		}
+
+		@Override
+		public Object execute() {
+			return _graph.breadthFirst(_root);
+		}
+	}
+
+
+			/**
+			 * <p>Depth first traversal of the graph from the root class.</p>
+			 */
+	public static final class NDepthFirst extends AGraphBenchmark {
+		public NDepthFirst() {
+			super("graph.csr.dfs");
+		}
+
+		@Override
+		public Object execute() {
+			return _graph.depthFirst(_root);
+		}
+	}
+
+
+			/**
+			 * <p>Best path of steepest gradient from the root class.</p>
+			 */
+	public static final class NBestPath extends AGraphBenchmark {
+		private float[] _weights = null;
+
+		public NBestPath() {
+			super("graph.csr.bestpath");
+		}
+
+		@Override
+		public void setUp() throws Exception {
+			super.setUp();
+
+			Random random = new Random(SEED);
+			_weights = new float[_graph.size()];
+			for( int k = 0; k < _weights.length; k++) {
+				_weights[k] = random.nextFloat();
+			}
+		}
+
+		@Override
+		public Object execute() {
+			return _graph.bestPath(_root, _weights, 0.0F);
+		}
+	}
+
+
+			/**
+			 * <p>Baseline: depth first traversal of a graph of labels stored in a
+			 * hash map of lists of children, with an explicit stack.</p>
+			 */
+	public static final class NBoxedDepthFirst extends ABenchmark {
+		private Map<String, List<String>> 	_children 	= null;
+		private String 						_root 		= null;
+
+		public NBoxedDepthFirst() {
+			super("graph.boxed.dfs");
+		}
+
+		@Override
+		public void setUp() throws Exception {
+			String[] labels = createLabels();
+			_children = new HashMap<String, List<String>>();
+			for( int[] edge : createEdges()) {
+				List<String> children = _children.get(labels[edge[0]]);
+				if( children == null) {
+					children = new ArrayList<String>();
+					_children.put(labels[edge[0]], children);
+				}
+				children.add(labels[edge[1]]);
+			}
+			_root = labels[0];
+		}
+
+		@Override
+		public Object execute() {
+			Set<String> visited = new HashSet<String>();
+			Deque<String> stack = new ArrayDeque<String>();
+
+			stack.push(_root);
+			while( !stack.isEmpty() ) {
+				String label = stack.pop();
+				if( visited.add(label) ) {
+					List<String> children = _children.get(label);
+					if( children != null) {
+						for( int k = children.size()-1; k >= 0; k--) {
+							stack.push(children.get(k));
+						}
+					}
+				}
+			}
+			return Integer.valueOf(visited.size());
+		}
+	}
+}
+
+// ---------------------------  EOF -----------------------------------
@@ -0,0 +1,179 @@
+// Copyright (C) 2010-2012 Patrick Nicolas
+package com.c24x7.benchmarks;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.c24x7.math.clustering.CDataPoint;
+import com.c24x7.math.clustering.CKMeansCluster;
+import com.c24x7.math.clustering.CKMeansClustering;
+
+
+
+			/**
+			 * <p>Check that the Lloyd training of the K-Means clustering, seeded with
+			 * k-means++, agrees with the original incremental training on fixed fixtures
+			 * of well separated clusters generated by CBenchmarkFixtures. The partitions
+			 * of the data points are compared with the Rand index, which does not depend
+			 * on the order of the clusters, and the within-cluster sums of squares are
+			 * compared with a relative tolerance. The process exits with status 1 if the
+			 * trainings disagree on any fixture.</p>
+			 * @author Patrick Nicolas
+			 * @date 07/31/2012
+			 */
+public final class CKMeansAgreementCheck {
+	private static final double MIN_RAND_INDEX 			= 0.99;
+	private static final double SUM_SQUARES_TOLERANCE 	= 0.01;
+
+		/*
+		 * Fixtures as {number of data points, number of variables, number of clusters}
+		 */
+	private static final int[][] FIXTURES = {
+		{ 240, 2, 3 },
+		{ 320, 3, 4 },
+		{ 400, 5, 5 }
+	};
+
+
+	public static void main(String[] args) {
+		System.exit(run() ? 0 : 1);
+	}
+
+
+		/**
+		 * <p>Train the clusters of each fixture with both algorithms and compare the results.</p>
+		 * @return true if the trainings agree on all the fixtures, false otherwise
+		 */
+	public static boolean run() {
+		int numFailures = 0;
+
+		for( int[] fixture : FIXTURES) {
+			final int numPoints = fixture[0],
+			          numClusters = fixture[2];
+
+				/*
+				 * Each training gets its own copy of the data points.
+				 */
+			CKMeansClustering lloyd = new CKMeansClustering(numClusters, CBenchmarkFixtures.createDataPoints(numPoints, fixture[1], numClusters));
+			lloyd.train();
+			CKMeansClustering incremental = new CKMeansClustering(numClusters, CBenchmarkFixtures.createDataPoints(numPoints, fixture[1], numClusters));
+			incremental.trainIncremental();
+
+			int[] lloydAssignments = getAssignments(lloyd, numPoints),
+			      incrementalAssignments = getAssignments(incremental, numPoints);
+			final double randIndex = getRandIndex(lloydAssignments, incrementalAssignments);
+			final double lloydSumSquares = getSumSquares(lloyd),
+			             incrementalSumSquares = getSumSquares(incremental);
+			final double error = Math.abs(lloydSumSquares - incrementalSumSquares)/incrementalSumSquares;
+
+			boolean agree = (randIndex >= MIN_RAND_INDEX && error <= SUM_SQUARES_TOLERANCE);
+			if( !agree ) {
+				numFailures++;
+			}
+
+			StringBuilder buf = new StringBuilder(agree ? "passed: " : "FAILED: ");
+			buf.append(numPoints);
+			buf.append(" points, ");
+			buf.append(fixture[1]);
+			buf.append(" variables, ");
+			buf.append(numClusters);
+			buf.append(" clusters: rand index=");
+			buf.append(randIndex);
+			buf.append(" sum of squares train=");
+			buf.append(lloydSumSquares);
+			buf.append(" incremental=");
+			buf.append(incrementalSumSquares);
+			buf.append(" relative error=");
+			buf.append(error);
+			System.out.println(buf.toString());
+		}
+
+		System.out.println("K-Means agreement check: " + numFailures + " failures");
+		return (numFailures == 0);
+	}
+
+
+		/**
+		 * <p>Retrieve the index of the cluster of each data point.</p>
+		 * @throws IllegalStateException if a data point is not assigned to exactly one cluster
+		 */
+	private static int[] getAssignments(final CKMeansClustering clustering, int numPoints) {
+		int[] assignments = new int[numPoints];
+		Arrays.fill(assignments, -1);
+
+		List<List<CDataPoint>> dataPointsLists = clustering.getClusterResults();
+		for( int k = 0; k < dataPointsLists.size(); k++) {
+			for( CDataPoint point : dataPointsLists.get(k)) {
+				if( assignments[point.getIndex()] != -1) {
+					throw new IllegalStateException("Data point " + point.getIndex() + " is assigned to several clusters");
+				}
+				assignments[point.getIndex()] = k;
+			}
+		}
+		for( int k = 0; k < numPoints; k++) {
+			if( assignments[k] == -1) {
+				throw new IllegalStateException("Data point " + k + " is not assigned");
+			}
+		}
+		return assignments;
+	}
+
+
+		/**
+		 * <p>Compute the fraction of pairs of data points on which two partitions agree,
+		 * either both in the same cluster or both in different clusters.</p>
+		 */
+	private static double getRandIndex(final int[] assignments, final int[] otherAssignments) {
+		long numAgreements = 0L,
+		     numPairs = 0L;
+
+		for( int i = 0; i < assignments.length; i++) {
+			for( int j = i+1; j < assignments.length; j++) {
+				if( (assignments[i] == assignments[j]) == (otherAssignments[i] == otherAssignments[j]) ) {
+					numAgreements++;
+				}
+				numPairs++;
+			}
+		}
+		return (double)numAgreements/numPairs;
+	}
+
+
+		/**
+		 * <p>Compute the sum of the squared euclidean distances of the data points
+		 * to the mean of their cluster, independently of the distance metrics.</p>
+		 */
+	private static double getSumSquares(final CKMeansClustering clustering) {
+		double sumSquares = 0.0,
+		       diff = 0.0;
+
+		for( CKMeansCluster cluster : clustering.getClusters()) {
+			List<CDataPoint> dataPoints = cluster.getDataPoints();
+			if( dataPoints.size() > 0) {
+				final int numVariables = dataPoints.get(0).getNumVariables();
+				double[] mean = new double[numVariables];
+				for( CDataPoint point : dataPoints) {
+					for( int j = 0; j < numVariables; j++) {
+						mean[j] += point.get(j);
+					}
+				}
+				for( int j = 0; j < numVariables; j++) {
+					mean[j] /= dataPoints.size();
+				}
+
+				for( CDataPoint point : dataPoints) {
+					for( int j = 0; j < numVariables; j++) {
+						diff = point.get(j) - mean[j];
+						sumSquares += diff*diff;
+					}
+				}
+			}
+		}
+		return sumSquares;
+	}
+
+
+	private CKMeansAgreementCheck() { }
+}
+
+// ---------------------------  EOF -----------------------------------
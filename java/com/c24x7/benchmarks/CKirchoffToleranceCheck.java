@@ -0,0 +1,130 @@
+// Copyright (C) 2010-2012 Patrick Nicolas
+package com.c24x7.benchmarks;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import com.c24x7.models.ATaxonomyNode;
+import com.c24x7.models.CTaxonomyObject;
+import com.c24x7.models.CTextClasses;
+import com.c24x7.semantics.lookup.CLookup;
+import com.c24x7.semantics.lookup.CLookupRecord;
+
+
+
+			/**
+			 * <p>Check that the propagation of the weights of the taxonomy objects over the
+			 * flat lineage arrays of the classes of a document (CTextClasses.applyKirchoff)
+			 * matches the propagation along the lineages of each taxonomy object
+			 * (CTaxonomyObject.propagateLineageWeight) within a tolerance. Both propagations
+			 * are applied to identical documents generated from a seeded random generator, with
+			 * classes shared by several lineages, undefined classes in the lineages, objects
+			 * without lineages and lineages not recorded in the classes of the document. The
+			 * process exits with status 1 if any weight differs by more than the tolerance.</p>
+			 * @author Patrick Nicolas
+			 * @date 07/31/2012
+			 */
+public final class CKirchoffToleranceCheck {
+	private static final double TOLERANCE 			= 1.0e-5;
+	private static final int 	NUM_DOCUMENTS 		= 200;
+	private static final int 	MIN_NUM_OBJECTS 	= 50;
+	private static final int 	MAX_NUM_LINEAGES 	= 4;
+	private static final int 	MAX_LINEAGE_LENGTH 	= 7;
+	private static final int 	NUM_CLASSES_PER_LEVEL = 40;
+
+
+	public static void main(String[] args) {
+		System.exit(run() ? 0 : 1);
+	}
+
+
+		/**
+		 * <p>Apply both propagations to the generated documents and compare the
+		 * weights of the classes and taxonomy objects.</p>
+		 * @return true if the weights match within the tolerance, false otherwise
+		 */
+	public static boolean run() {
+		double maxError = 0.0;
+
+		for( int k = 0; k < NUM_DOCUMENTS; k++) {
+			final int numObjects = MIN_NUM_OBJECTS + 20*k;
+			CTextClasses classes = new CTextClasses(),
+			             referenceClasses = new CTextClasses();
+			CTaxonomyObject[] taxonomyObjects = createDocument(classes, CBenchmarkFixtures.SEED + k, numObjects),
+			                  referenceObjects = createDocument(referenceClasses, CBenchmarkFixtures.SEED + k, numObjects);
+
+			float maxWeight = 0.0F;
+			for( CTaxonomyObject taxonomyObject : taxonomyObjects) {
+				if( taxonomyObject.getWeight() > maxWeight) {
+					maxWeight = taxonomyObject.getWeight();
+				}
+			}
+
+			final float maxClassWeight = classes.applyKirchoff(Arrays.asList(taxonomyObjects), maxWeight);
+			classes.normalize(maxClassWeight);
+
+			float referenceMaxClassWeight = Float.MIN_VALUE,
+			      classWeight = 0.0F;
+			for( CTaxonomyObject taxonomyObject : referenceObjects) {
+				classWeight = taxonomyObject.applyKirchoff(maxWeight);
+				if( classWeight > referenceMaxClassWeight) {
+					referenceMaxClassWeight = classWeight;
+				}
+			}
+			referenceClasses.normalize(referenceMaxClassWeight);
+
+			if( classes.size() != referenceClasses.size()) {
+				System.out.println("FAILED: document " + k + " has " + classes.size() + " classes instead of " + referenceClasses.size());
+				return false;
+			}
+
+			maxError = Math.max(maxError, Math.abs(maxClassWeight - referenceMaxClassWeight)/referenceMaxClassWeight);
+			for( int j = 0; j < classes.size(); j++) {
+				maxError = Math.max(maxError, Math.abs(classes.getWeight(j) - referenceClasses.getWeight(j)));
+			}
+			for( int j = 0; j < numObjects; j++) {
+				maxError = Math.max(maxError, Math.abs(taxonomyObjects[j].getWeight() - referenceObjects[j].getWeight()));
+			}
+		}
+
+		final boolean passed = (maxError <= TOLERANCE);
+		System.out.println((passed ? "passed: " : "FAILED: ") + NUM_DOCUMENTS + " documents, maximum error " + maxError + " for a tolerance of " + TOLERANCE);
+		return passed;
+	}
+
+
+		/**
+		 * <p>Create the taxonomy objects of a document and their lineages. One object
+		 * out of 10 has no lineage, one class out of 30 is undefined in its lineage and
+		 * one lineage out of 50 is not recorded in the classes of the document.</p>
+		 */
+	private static CTaxonomyObject[] createDocument(CTextClasses classes, long seed, int numObjects) {
+		Random random = new Random(seed);
+		CTaxonomyObject[] taxonomyObjects = new CTaxonomyObject[numObjects];
+
+		for( int k = 0; k < numObjects; k++) {
+			taxonomyObjects[k] = new CTaxonomyObject(new CLookupRecord(CLookup.DBPEDIA_ENTRY, 0.1F + 5.0F*random.nextFloat()), "object" + k);
+
+			if( random.nextInt(10) != 0) {
+				final int numLineages = 1 + random.nextInt(MAX_NUM_LINEAGES);
+				for( int j = 0; j < numLineages; j++) {
+					ATaxonomyNode[] lineage = new ATaxonomyNode[2 + random.nextInt(MAX_LINEAGE_LENGTH - 1)];
+					for( short level = 0; level < lineage.length; level++) {
+						lineage[level] = (random.nextInt(30) == 0) ? null :
+							classes.add("class" + level + "_" + random.nextInt((level < 2) ? 3 : NUM_CLASSES_PER_LEVEL), level);
+					}
+					if( random.nextInt(50) != 0) {
+						classes.link(taxonomyObjects[k], lineage);
+					}
+					taxonomyObjects[k].addTaxonomyClasses(lineage);
+				}
+			}
+		}
+		return taxonomyObjects;
+	}
+
+
+	private CKirchoffToleranceCheck() { }
+}
+
+// ---------------------------  EOF -----------------------------------
@@ -0,0 +1,195 @@
+// Copyright (C) 2010-2012 Patrick Nicolas
+package com.c24x7.benchmarks;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.c24x7.models.CModelRegistry;
+import com.c24x7.models.CModelRegistry.NModelsVersion;
+import com.c24x7.semantics.lookup.CLookup;
+import com.c24x7.semantics.lookup.CLookupRecord;
+import com.c24x7.semantics.lookup.CMappedLookup;
+import com.c24x7.util.CEnv;
+import com.c24x7.util.collections.CBloomFilter;
+
+
+
+			/**
+			 * <p>Check that the lookup table can be swapped under concurrent load without
+			 * any failed request. Reader threads query a lookup table generated in a temporary
+			 * file, half of them through a version of the models acquired for each request and
+			 * half of them through the current version without acquiring it, while the main
+			 * thread reloads the lookup table continuously through the models registry. A request
+			 * fails if the lookup table or one of its labels cannot be found or if it throws
+			 * an exception. The process exits with status 1 if any request failed.</p>
+			 * @author Patrick Nicolas
+			 * @date 07/30/2012
+			 */
+public final class CModelSwapCheck {
+	private static final String USAGE 				= "Command line arguments:\nCModelSwapCheck [duration in seconds] [number of reader threads]";
+	private static final int 	DEFAULT_DURATION 	= 10;
+	private static final int 	DEFAULT_NUM_THREADS = 8;
+	private static final int 	NUM_LABELS 			= 4096;
+	private static final String LABEL_PREFIX 		= "label";
+
+
+			/**
+			 * <p>Reader of the lookup table which counts the requests and the failures.</p>
+			 */
+	private static final class NReader extends Thread {
+		private boolean 		_pinned 		= false;
+		private AtomicBoolean 	_stopped 		= null;
+		private AtomicLong		_numRequests 	= null;
+		private AtomicLong		_numFailures 	= null;
+
+		private NReader(boolean pinned, AtomicBoolean stopped, AtomicLong numRequests, AtomicLong numFailures) {
+			super("swap-reader");
+			_pinned = pinned;
+			_stopped = stopped;
+			_numRequests = numRequests;
+			_numFailures = numFailures;
+		}
+
+		@Override
+		public void run() {
+			int index = 0;
+			while( !_stopped.get() ) {
+				final String label = LABEL_PREFIX + (index++ % NUM_LABELS);
+				boolean success = false;
+
+				try {
+					if( _pinned ) {
+						NModelsVersion version = CModelRegistry.acquire();
+						try {
+							success = lookup(label);
+						}
+						finally {
+							CModelRegistry.release(version);
+						}
+					}
+					else {
+						success = lookup(label);
+					}
+				}
+				catch( RuntimeException e) {
+					System.out.println("Request for " + label + " failed " + e.toString());
+				}
+
+				_numRequests.incrementAndGet();
+				if( !success ) {
+					_numFailures.incrementAndGet();
+				}
+			}
+		}
+
+		private static boolean lookup(final String label) {
+			CLookup lookup = CLookup.getInstance();
+			CLookupRecord record = (lookup != null) ? lookup.getLookupRecord(label) : null;
+			return (record != null);
+		}
+	}
+
+
+	public static void main(String[] args) {
+		int duration = DEFAULT_DURATION,
+		    numThreads = DEFAULT_NUM_THREADS;
+
+		try {
+			if( args != null) {
+				if( args.length > 0) {
+					duration = Integer.parseInt(args[0]);
+				}
+				if( args.length > 1) {
+					numThreads = Integer.parseInt(args[1]);
+				}
+			}
+			System.exit(run(duration, numThreads) ? 0 : 1);
+		}
+		catch( NumberFormatException e) {
+			System.out.println(USAGE);
+		}
+		catch( Exception e) {
+			System.out.println("Swap check failed " + e.toString());
+			System.exit(1);
+		}
+	}
+
+
+		/**
+		 * <p>Run the swap check.</p>
+		 * @param duration duration of the check in seconds
+		 * @param numThreads number of reader threads
+		 * @return true if no request failed, false otherwise
+		 * @throws Exception if the lookup table cannot be created or reloaded
+		 */
+	public static boolean run(int duration, int numThreads) throws Exception {
+		final String lookupFile = createLookupFile();
+		CLookup.init(lookupFile);
+
+		AtomicBoolean stopped = new AtomicBoolean(false);
+		AtomicLong numRequests = new AtomicLong(0L),
+		           numFailures = new AtomicLong(0L);
+
+		NReader[] readers = new NReader[numThreads];
+		for( int k = 0; k < numThreads; k++) {
+			readers[k] = new NReader((k & 0x01) == 0, stopped, numRequests, numFailures);
+			readers[k].start();
+		}
+
+		int numSwaps = 0;
+		final long endTime = System.currentTimeMillis() + duration*1000L;
+		try {
+			while( System.currentTimeMillis() < endTime) {
+				CModelRegistry.reload(CModelRegistry.LOOKUP).get();
+				numSwaps++;
+			}
+		}
+		finally {
+			stopped.set(true);
+			for( NReader reader : readers) {
+				reader.join();
+			}
+		}
+
+		StringBuilder buf = new StringBuilder("Swap check: ");
+		buf.append(numSwaps);
+		buf.append(" swaps, ");
+		buf.append(numRequests.get());
+		buf.append(" requests, ");
+		buf.append(numFailures.get());
+		buf.append(" failed requests, ");
+		buf.append(CModelRegistry.getNumLiveVersions());
+		buf.append(" live versions");
+		System.out.println(buf.toString());
+
+		return (numFailures.get() == 0L);
+	}
+
+
+	private static String createLookupFile() throws IOException {
+		File file = File.createTempFile("swap", "labels");
+		file.deleteOnExit();
+		new File(file.getPath() + CMappedLookup.BINARY_EXTENSION).deleteOnExit();
+		new File(file.getPath() + CBloomFilter.EXTENSION).deleteOnExit();
+
+		PrintWriter writer = new PrintWriter(new FileWriter(file));
+		try {
+			for( int k = 0; k < NUM_LABELS; k++) {
+				writer.println(LABEL_PREFIX + k + CEnv.KEY_VALUE_DELIM + CLookup.DBPEDIA_ENTRY + CEnv.KEY_VALUE_DELIM + "0.5");
+			}
+		}
+		finally {
+			writer.close();
+		}
+		return file.getPath();
+	}
+
+
+	private CModelSwapCheck() { }
+}
+
+// ---------------------------  EOF -----------------------------------
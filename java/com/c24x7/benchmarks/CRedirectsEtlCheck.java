@@ -0,0 +1,271 @@
+// Copyright (C) 2010-2012 Patrick Nicolas
+package com.c24x7.benchmarks;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import com.c24x7.semantics.dbpedia.etl.ADbpediaEtl;
+import com.c24x7.semantics.dbpedia.etl.CDbpediaRedirectsEtl;
+import com.c24x7.semantics.dbpedia.etl.CTriple;
+import com.c24x7.semantics.dbpedia.etl.CTripleReader;
+import com.c24x7.util.db.ASqlRequest;
+import com.c24x7.util.db.CSqlPreparedStmt;
+import com.c24x7.util.string.CStringUtil;
+
+
+
+			/**
+			 * <p>Check of the load of the redirects of dbpedia into the aliases table against
+			 * an embedded, in-process database (H2 in memory by default) from a small N-Triples
+			 * fixture. The check covers the creation of the unique key of the aliases table, the
+			 * insertion of the aliases by batches and the replay of the fixture, complete or rolled
+			 * back, as done when an interrupted load resumes, which must not duplicate any alias.</p>
+			 * <p>The default embedded database requires the H2 jar, which is not part of the source
+			 * tree, in the class path. The database runs in MySQL mode for the INSERT IGNORE
+			 * statements of the ETL.</p>
+			 * @see com.c24x7.benchmarks.CTaxonomyPoolCheck.NEmbeddedDriver
+			 * @author Patrick Nicolas
+			 * @date 07/31/2012
+			 */
+public final class CRedirectsEtlCheck {
+	private static final String USAGE 			= "Command line arguments:\nCRedirectsEtlCheck [JDBC driver] [JDBC url] [user] [password]";
+	private static final String DEFAULT_DRIVER 	= "org.h2.Driver";
+	private static final String DEFAULT_URL 	= "jdbc:h2:mem:redirects;MODE=MySQL;DB_CLOSE_DELAY=-1";
+	private static final String DEFAULT_USER 	= "sa";
+	private static final String SCHEMA 			= "24x7c";
+	private static final String REDIRECT 		= " <http://dbpedia.org/ontology/wikiPageRedirects> ";
+	private static final int 	BATCH_SIZE 		= 4;
+
+	private static final String[] ENTRIES = {
+		"New York City", "San Francisco", "City of Paris"
+	};
+
+		/*
+		 * Redirects of the fixture, as alias and entry resources. The duplicated
+		 * redirect, the short alias and the redirect to an unknown entry are not loaded.
+		 */
+	private static final String[][] REDIRECTS = {
+		{ "Big_Apple", "New_York_City" },
+		{ "Gotham_City_(nickname)", "New_York_City" },
+		{ "Golden_Gate_City", "San_Francisco" },
+		{ "Big_Apple", "New_York_City" },
+		{ "City_of_Light", "City_of_Paris" },
+		{ "Ville_Lumiere", "City_of_Paris" },
+		{ "SF", "San_Francisco" },
+		{ "Lost_City", "Atlantis_Island" }
+	};
+	private static final int NUM_ALIASES = 5;
+
+	private static int numFailures = 0;
+
+
+	public static void main(String[] args) {
+		String driver = DEFAULT_DRIVER,
+		       url = DEFAULT_URL,
+		       user = DEFAULT_USER,
+		       pwd = "";
+
+		if( args != null) {
+			if( args.length == 1 || args.length > 4) {
+				System.out.println(USAGE);
+				return;
+			}
+			if( args.length > 1) {
+				driver = args[0];
+				url = args[1];
+			}
+			if( args.length > 2) {
+				user = args[2];
+			}
+			if( args.length > 3) {
+				pwd = args[3];
+			}
+		}
+
+		try {
+			System.exit(run(driver, url, user, pwd) ? 0 : 1);
+		}
+		catch( Exception e) {
+			System.out.println("Redirects ETL check failed " + e.toString());
+			System.exit(1);
+		}
+	}
+
+
+		/**
+		 * <p>Run the check of the load of the redirects.</p>
+		 * @param driver class name of the JDBC driver of the embedded database
+		 * @param url JDBC url of the embedded database
+		 * @param user user name
+		 * @param pwd password
+		 * @return true if all the checks passed, false otherwise
+		 * @throws Exception if the embedded database or the fixture cannot be created
+		 */
+	public static boolean run(final String driver, final String url, final String user, final String pwd) throws Exception {
+		Class.forName(driver);
+		Connection connection = DriverManager.getConnection(url, user, pwd);
+		File fixture = createFixture();
+		try {
+			createDatabase(connection);
+			ASqlRequest.setDatabase(CTaxonomyPoolCheck.NEmbeddedDriver.class.getName(), CTaxonomyPoolCheck.NEmbeddedDriver.URL_PREFIX + url, user, pwd);
+
+			CDbpediaRedirectsEtl redirectsEtl = new CDbpediaRedirectsEtl();
+			checkAliasKey(redirectsEtl);
+
+			ADbpediaEtl etl = redirectsEtl.create(BATCH_SIZE);
+			try {
+				load(etl, fixture, Integer.MAX_VALUE);
+				etl.flush();
+				check(countAliases(connection) == NUM_ALIASES, "aliases of the fixture are loaded once");
+
+				load(etl, fixture, Integer.MAX_VALUE);
+				etl.flush();
+				check(countAliases(connection) == NUM_ALIASES, "replayed fixture does not duplicate the aliases");
+
+				load(etl, fixture, REDIRECTS.length/2);
+				etl.rollback();
+				load(etl, fixture, Integer.MAX_VALUE);
+				etl.flush();
+				check(countAliases(connection) == NUM_ALIASES, "fixture replayed after a roll back does not duplicate the aliases");
+				check(countAliases(connection, "Big+Apple") == 1, "duplicated redirect of the fixture is loaded once");
+			}
+			finally {
+				etl.close();
+				redirectsEtl.close();
+			}
+		}
+		finally {
+			connection.close();
+			if( !fixture.delete() ) {
+				fixture.deleteOnExit();
+			}
+		}
+
+		System.out.println("Redirects ETL check: " + numFailures + " failures");
+		return (numFailures == 0);
+	}
+
+
+	private static void checkAliasKey(ADbpediaEtl etl) throws SQLException {
+		final String[] keyColumns = { "label", "resourceid" };
+		CSqlPreparedStmt pStmt = new CSqlPreparedStmt();
+		try {
+			check(!pStmt.hasUniqueIndex(SCHEMA, "dbpedia_aliases", keyColumns), "aliases table has no unique key before the load");
+			etl.prepare();
+			check(pStmt.hasUniqueIndex(SCHEMA, "dbpedia_aliases", keyColumns), "unique key of the aliases table is added");
+			etl.prepare();
+			check(pStmt.hasUniqueIndex(SCHEMA, "dbpedia_aliases", keyColumns), "unique key of the aliases table is added once");
+		}
+		finally {
+			pStmt.close();
+		}
+	}
+
+
+		/*
+		 * Map the first numRedirects triples of the fixture, as a chunk of the loader.
+		 */
+	private static void load(ADbpediaEtl etl, final File fixture, int numRedirects) throws IOException, SQLException {
+		CTripleReader reader = new CTripleReader(new FileInputStream(fixture));
+		try {
+			CTriple triple = null;
+			for( int k = 0; k < numRedirects && (triple = reader.next()) != null; k++) {
+				etl.map(triple);
+			}
+		}
+		finally {
+			reader.close();
+		}
+	}
+
+
+	private static int countAliases(final Connection connection) throws SQLException {
+		return countAliases(connection, null);
+	}
+
+	private static int countAliases(final Connection connection, final String encodedLabel) throws SQLException {
+		int count = 0;
+		PreparedStatement stmt = connection.prepareStatement("SELECT COUNT(*) FROM \"" + SCHEMA + "\".dbpedia_aliases" +
+				((encodedLabel != null) ? " WHERE label=?" : ""));
+		try {
+			if( encodedLabel != null) {
+				stmt.setString(1, encodedLabel);
+			}
+			ResultSet rs = stmt.executeQuery();
+			if( rs.next() ) {
+				count = rs.getInt(1);
+			}
+			rs.close();
+		}
+		finally {
+			stmt.close();
+		}
+		return count;
+	}
+
+
+	private static File createFixture() throws IOException {
+		File fixture = File.createTempFile("redirects_en", ".nt");
+		PrintWriter writer = new PrintWriter(fixture, "UTF-8");
+		try {
+			for( String[] redirect : REDIRECTS) {
+				writer.print(ADbpediaEtl.DBPEDIA_RES_MARKER);
+				writer.print(redirect[0]);
+				writer.print(">");
+				writer.print(REDIRECT);
+				writer.print(ADbpediaEtl.DBPEDIA_RES_MARKER);
+				writer.print(redirect[1]);
+				writer.print("> .\n");
+			}
+		}
+		finally {
+			writer.close();
+		}
+		return fixture;
+	}
+
+
+	private static void createDatabase(final Connection connection) throws SQLException {
+		Statement stmt = connection.createStatement();
+		try {
+			stmt.execute("CREATE SCHEMA \"" + SCHEMA + "\"");
+			stmt.execute("CREATE TABLE \"" + SCHEMA + "\".dbpedia (id INT AUTO_INCREMENT PRIMARY KEY, label VARCHAR(383))");
+			stmt.execute("CREATE TABLE \"" + SCHEMA + "\".dbpedia_aliases (id INT AUTO_INCREMENT PRIMARY KEY, label VARCHAR(383), resourceid INT, contexts VARCHAR(383))");
+		}
+		finally {
+			stmt.close();
+		}
+
+		PreparedStatement entryStmt = connection.prepareStatement("INSERT INTO \"" + SCHEMA + "\".dbpedia (label) VALUES (?)");
+		try {
+			for( String entry : ENTRIES) {
+				entryStmt.setString(1, CStringUtil.encodeLatin1(entry));
+				entryStmt.executeUpdate();
+			}
+		}
+		finally {
+			entryStmt.close();
+		}
+	}
+
+
+	private static void check(boolean condition, final String description) {
+		if( !condition ) {
+			numFailures++;
+		}
+		System.out.println((condition ? "passed: " : "FAILED: ") + description);
+	}
+
+
+	private CRedirectsEtlCheck() { }
+}
+
+// ---------------------------  EOF -----------------------------------
@@ -0,0 +1,213 @@
+// Copyright (C) 2010-2012 Patrick Nicolas
+package com.c24x7.benchmarks;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.c24x7.textanalyzer.CTagger;
+
+
+
+			/**
+			 * <p>Throughput benchmark of the concurrent tagging of the fixture corpus.
+			 * For each number of threads from 1 to N, the threads share a single tagger and
+			 * repeatedly extract the sentences, tokens and tags of the corpus for a fixed
+			 * duration, after a warm up phase which creates the decoders of each thread and
+			 * lets the JIT compile the decoding. The benchmark reports the number of
+			 * documents tagged per second, the speed up relative to a single thread and
+			 * the scaling efficiency, with the share of the measurement the threads spent
+			 * blocked on a monitor and the share spent in garbage collections, so a shared
+			 * lock or the allocation rate can be told from the number of cores as the limit
+			 * of the scaling. The OpenNLP models have to be available in the project directory.</p>
+			 * @author Patrick Nicolas
+			 * @date 07/31/2012
+			 */
+public final class CTaggerThroughputBenchmark {
+	private static final String USAGE 				= "Command line arguments:\nCTaggerThroughputBenchmark [max number of threads] [duration in seconds per number of threads]";
+	private static final int 	DEFAULT_DURATION 	= 5;
+	private static final long 	WARMUP_DURATION 	= 5000L;
+	private static final ThreadMXBean threadMXBean 	= ManagementFactory.getThreadMXBean();
+
+
+			/**
+			 * <p>Tagging thread which counts the number of documents tagged and
+			 * the time it is blocked on a monitor once the measurement started.</p>
+			 */
+	private static final class NTaggingThread extends Thread {
+		private CTagger 		_tagger 		= null;
+		private String 			_corpus 		= null;
+		private CountDownLatch 	_warmedUp 		= null;
+		private AtomicBoolean 	_measured 		= null;
+		private AtomicBoolean 	_stopped 		= null;
+		private AtomicLong 		_numDocuments 	= null;
+		private AtomicLong 		_blockedTime 	= null;
+
+		private NTaggingThread(final CTagger tagger, final String corpus, CountDownLatch warmedUp, AtomicBoolean measured, AtomicBoolean stopped, AtomicLong numDocuments, AtomicLong blockedTime) {
+			super("tagging");
+			_tagger = tagger;
+			_corpus = corpus;
+			_warmedUp = warmedUp;
+			_measured = measured;
+			_stopped = stopped;
+			_numDocuments = numDocuments;
+			_blockedTime = blockedTime;
+		}
+
+		@Override
+		public void run() {
+			final long warmupEndTime = System.currentTimeMillis() + WARMUP_DURATION;
+			while( System.currentTimeMillis() < warmupEndTime) {
+				tag();
+			}
+			final long blockedTime = getBlockedTime();
+			_warmedUp.countDown();
+
+			while( !_stopped.get() ) {
+				tag();
+				if( _measured.get() ) {
+					_numDocuments.incrementAndGet();
+				}
+			}
+			_blockedTime.addAndGet(getBlockedTime() - blockedTime);
+		}
+
+		private void tag() {
+			for( CTagger.NSentenceTokens sentenceTokens : _tagger.extractTokens(_corpus)) {
+				_tagger.extractTags(sentenceTokens);
+			}
+		}
+
+			/*
+			 * Accumulated time in milliseconds this thread was blocked on a monitor,
+			 * 0 if the contention monitoring is not supported.
+			 */
+		private long getBlockedTime() {
+			ThreadInfo threadInfo = threadMXBean.getThreadInfo(getId());
+			return (threadInfo != null && threadInfo.getBlockedTime() > 0L) ? threadInfo.getBlockedTime() : 0L;
+		}
+	}
+
+
+	public static void main(String[] args) {
+		int maxNumThreads = Runtime.getRuntime().availableProcessors(),
+		    duration = DEFAULT_DURATION;
+
+		try {
+			if( args != null) {
+				if( args.length > 0) {
+					maxNumThreads = Integer.parseInt(args[0]);
+				}
+				if( args.length > 1) {
+					duration = Integer.parseInt(args[1]);
+				}
+			}
+			CTagger.init();
+			run(maxNumThreads, duration);
+		}
+		catch( NumberFormatException e) {
+			System.out.println(USAGE);
+		}
+		catch( Exception e) {
+			System.out.println("Tagging throughput benchmark failed " + e.toString());
+			System.exit(1);
+		}
+	}
+
+
+		/**
+		 * <p>Measure the tagging throughput for 1 to maxNumThreads threads.</p>
+		 * @param maxNumThreads maximum number of tagging threads
+		 * @param duration duration of the measurement in seconds for each number of threads
+		 * @return array of the number of documents tagged per second, indexed by number of threads - 1
+		 * @throws InterruptedException if the benchmark is interrupted
+		 * @throws IllegalArgumentException if the number of threads or the duration is not positive
+		 */
+	public static double[] run(int maxNumThreads, int duration) throws InterruptedException {
+		if( maxNumThreads < 1 || duration < 1) {
+			throw new IllegalArgumentException("Cannot benchmark tagging with " + maxNumThreads + " threads for " + duration + " seconds");
+		}
+
+		final CTagger tagger = new CTagger();
+		final String corpus = CBenchmarkFixtures.getCorpus();
+		double[] throughputs = new double[maxNumThreads];
+		if( threadMXBean.isThreadContentionMonitoringSupported() ) {
+			threadMXBean.setThreadContentionMonitoringEnabled(true);
+		}
+
+		for( int numThreads = 1; numThreads <= maxNumThreads; numThreads++) {
+			CountDownLatch warmedUp = new CountDownLatch(numThreads);
+			AtomicBoolean measured = new AtomicBoolean(false),
+			              stopped = new AtomicBoolean(false);
+			AtomicLong numDocuments = new AtomicLong(0L),
+			           blockedTime = new AtomicLong(0L);
+
+			NTaggingThread[] threads = new NTaggingThread[numThreads];
+			for( int k = 0; k < numThreads; k++) {
+				threads[k] = new NTaggingThread(tagger, corpus, warmedUp, measured, stopped, numDocuments, blockedTime);
+				threads[k].start();
+			}
+
+			long elapsed = 0L,
+			     gcTime = 0L;
+			try {
+				warmedUp.await();
+				final long startTime = System.nanoTime(),
+				           startGcTime = getGcTime();
+				measured.set(true);
+				Thread.sleep(duration*1000L);
+				measured.set(false);
+				elapsed = System.nanoTime() - startTime;
+				gcTime = getGcTime() - startGcTime;
+			}
+			finally {
+				stopped.set(true);
+				for( NTaggingThread thread : threads) {
+					thread.join();
+				}
+			}
+
+			throughputs[numThreads-1] = numDocuments.get()*1E+9/elapsed;
+			final double speedUp = throughputs[numThreads-1]/throughputs[0];
+
+			StringBuilder buf = new StringBuilder("tagger.throughput ");
+			buf.append(numThreads);
+			buf.append(" threads: ");
+			buf.append(String.format("%.1f", throughputs[numThreads-1]));
+			buf.append(" documents/s, speed up=");
+			buf.append(String.format("%.2f", speedUp));
+			buf.append(", efficiency=");
+			buf.append(String.format("%.0f", 100.0*speedUp/numThreads));
+			buf.append("%, blocked=");
+			buf.append(String.format("%.1f", 100.0*blockedTime.get()*1E+6/(elapsed*numThreads)));
+			buf.append("%, gc=");
+			buf.append(String.format("%.1f", 100.0*gcTime*1E+6/elapsed));
+			buf.append("%");
+			System.out.println(buf.toString());
+		}
+		return throughputs;
+	}
+
+
+		/*
+		 * Accumulated time in milliseconds of the garbage collections of the process.
+		 */
+	private static long getGcTime() {
+		long gcTime = 0L;
+		for( GarbageCollectorMXBean gcMXBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+			if( gcMXBean.getCollectionTime() > 0L) {
+				gcTime += gcMXBean.getCollectionTime();
+			}
+		}
+		return gcTime;
+	}
+
+
+	private CTaggerThroughputBenchmark() { }
+}
+
+// ---------------------------  EOF -----------------------------------
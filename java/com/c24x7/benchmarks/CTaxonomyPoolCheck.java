@@ -0,0 +1,424 @@
+// Copyright (C) 2010-2012 Patrick Nicolas
+package com.c24x7.benchmarks;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import com.c24x7.exception.SemanticAnalysisException;
+import com.c24x7.semantics.CTaxonomyConnectionsPool;
+import com.c24x7.semantics.CTaxonomyConnectionsPool.NLabelsTaxonomiesConn;
+import com.c24x7.semantics.CTaxonomyConnectionsPool.NTaxonomiesConn;
+import com.c24x7.util.db.ASqlRequest;
+
+
+
+			/**
+			 * <p>Check of the taxonomy connections pool against an embedded, in-process
+			 * database (H2 in memory by default) loaded with a small reference database of
+			 * entries and aliases. The check covers the retrieval of taxonomy lineages one
+			 * label at a time and by batch, the number of JDBC connections per pooled object,
+			 * the prefill of the pool, the validation of the connections, the reuse of the
+			 * connections, the bound on the number of connections, the eviction of broken and
+			 * idle connections and concurrent leases.</p>
+			 * <p>The default embedded database requires the H2 jar, which is not part of
+			 * the source tree, in the class path.</p>
+			 * <p>The embedded databases do not accept the schema name of the reference database
+			 * (24x7c) as an unquoted identifier, so the connections are opened through a driver
+			 * which quotes the schema name in the prepared statements.</p>
+			 * @author Patrick Nicolas
+			 * @date 07/31/2012
+			 */
+public final class CTaxonomyPoolCheck {
+	private static final String USAGE 				= "Command line arguments:\nCTaxonomyPoolCheck [JDBC driver] [JDBC url] [user] [password]";
+	private static final String DEFAULT_DRIVER 		= "org.h2.Driver";
+	private static final String DEFAULT_URL 		= "jdbc:h2:mem:taxonomy;DB_CLOSE_DELAY=-1";
+	private static final String DEFAULT_USER 		= "sa";
+	private static final String SCHEMA 				= "24x7c";
+	private static final int 	NUM_ENTRIES 		= 128;
+	private static final int 	MIN_NUM_CONNECTIONS = 1;
+	private static final int 	MAX_NUM_CONNECTIONS = 2;
+	private static final long 	ACQUIRE_TIMEOUT 	= 1000L;
+	private static final long 	MAX_IDLE_TIME 		= 100L;
+	private static final int 	NUM_THREADS 		= 8;
+	private static final int 	NUM_LEASES 			= 200;
+
+	private static int numFailures = 0;
+
+
+			/**
+			 * <p>JDBC driver which delegates to the driver of the embedded database and
+			 * quotes the schema of the reference database in the prepared statements. The
+			 * driver counts the connections it opens and their validations.</p>
+			 */
+	public static final class NEmbeddedDriver implements Driver {
+		static final String URL_PREFIX = "jdbc:c24x7check:";
+		private static final AtomicInteger numConnections = new AtomicInteger(0);
+		private static final AtomicInteger numValidations = new AtomicInteger(0);
+
+		static {
+			try {
+				DriverManager.registerDriver(new NEmbeddedDriver());
+			}
+			catch( SQLException e) {
+				throw new ExceptionInInitializerError(e);
+			}
+		}
+
+		@Override
+		public Connection connect(final String url, final Properties info) throws SQLException {
+			Connection connection = null;
+			if( acceptsURL(url) ) {
+				final Connection delegate = DriverManager.getConnection(url.substring(URL_PREFIX.length()), info);
+				numConnections.incrementAndGet();
+				connection = (Connection)Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class },
+					new InvocationHandler() {
+						@Override
+						public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+							if( method.getName().startsWith("prepare") && args != null && args[0] instanceof String) {
+								args[0] = ((String)args[0]).replace(SCHEMA + ".", "\"" + SCHEMA + "\".");
+							}
+							else if( method.getName().equals("isValid") ) {
+								numValidations.incrementAndGet();
+							}
+							try {
+								return method.invoke(delegate, args);
+							}
+							catch( InvocationTargetException e) {
+								throw e.getCause();
+							}
+						}
+					});
+			}
+			return connection;
+		}
+
+		@Override
+		public boolean acceptsURL(final String url) {
+			return (url != null && url.startsWith(URL_PREFIX));
+		}
+
+		@Override
+		public DriverPropertyInfo[] getPropertyInfo(final String url, final Properties info) {
+			return new DriverPropertyInfo[0];
+		}
+
+		@Override
+		public int getMajorVersion() {
+			return 1;
+		}
+
+		@Override
+		public int getMinorVersion() {
+			return 0;
+		}
+
+		@Override
+		public boolean jdbcCompliant() {
+			return false;
+		}
+
+		@Override
+		public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+			throw new SQLFeatureNotSupportedException("No logger for the embedded check driver");
+		}
+	}
+
+
+	public static void main(String[] args) {
+		String driver = DEFAULT_DRIVER,
+		       url = DEFAULT_URL,
+		       user = DEFAULT_USER,
+		       pwd = "";
+
+		if( args != null) {
+			if( args.length == 1 || args.length > 4) {
+				System.out.println(USAGE);
+				return;
+			}
+			if( args.length > 1) {
+				driver = args[0];
+				url = args[1];
+			}
+			if( args.length > 2) {
+				user = args[2];
+			}
+			if( args.length > 3) {
+				pwd = args[3];
+			}
+		}
+
+		try {
+			System.exit(run(driver, url, user, pwd) ? 0 : 1);
+		}
+		catch( Exception e) {
+			System.out.println("Taxonomy pool check failed " + e.toString());
+			System.exit(1);
+		}
+	}
+
+
+		/**
+		 * <p>Run the check of the taxonomy connections pool.</p>
+		 * @param driver class name of the JDBC driver of the embedded database
+		 * @param url JDBC url of the embedded database
+		 * @param user user name
+		 * @param pwd password
+		 * @return true if all the checks passed, false otherwise
+		 * @throws Exception if the embedded database cannot be created
+		 */
+	public static boolean run(final String driver, final String url, final String user, final String pwd) throws Exception {
+		Class.forName(driver);
+		Connection connection = DriverManager.getConnection(url, user, pwd);
+		try {
+			createDatabase(connection);
+			ASqlRequest.setDatabase(NEmbeddedDriver.class.getName(), NEmbeddedDriver.URL_PREFIX + url, user, pwd);
+
+			checkConnections();
+			CTaxonomyConnectionsPool.init(MIN_NUM_CONNECTIONS, MAX_NUM_CONNECTIONS, ACQUIRE_TIMEOUT, MAX_IDLE_TIME);
+			CTaxonomyConnectionsPool pool = CTaxonomyConnectionsPool.getInstance();
+
+			checkPrefill(pool);
+			checkRetrieval(pool);
+			checkValidation(pool);
+			checkReuse(pool);
+			checkBound(pool);
+			checkBrokenConnection(pool);
+			checkIdleEviction(pool);
+			checkConcurrentLeases(pool);
+
+			System.out.println(pool.toString());
+			pool.close();
+		}
+		finally {
+			connection.close();
+		}
+
+		System.out.println("Taxonomy pool check: " + numFailures + " failures");
+		return (numFailures == 0);
+	}
+
+
+	private static void checkConnections() {
+		final int numConnections = NEmbeddedDriver.numConnections.get(),
+		          numValidations = NEmbeddedDriver.numValidations.get();
+		NTaxonomiesConn tConnection = new NLabelsTaxonomiesConn();
+		check(tConnection.isValid(1), "labels connection is valid");
+		check(NEmbeddedDriver.numConnections.get() - numConnections == 1, "labels connection opens a single JDBC connection");
+		check(NEmbeddedDriver.numValidations.get() - numValidations == 1, "labels connection is validated with a single request");
+		tConnection.close();
+	}
+
+
+	private static void checkPrefill(CTaxonomyConnectionsPool pool) {
+		check(pool.getNumCreatedConnections() == 2*MIN_NUM_CONNECTIONS, "labels and categories connections are prefilled");
+	}
+
+
+	private static void checkValidation(CTaxonomyConnectionsPool pool) throws SemanticAnalysisException {
+		pool.release(pool.getLabelsConnection());
+		final int numValidations = NEmbeddedDriver.numValidations.get();
+		for( int k = 0; k < 16; k++) {
+			pool.release(pool.getLabelsConnection());
+		}
+		check(NEmbeddedDriver.numValidations.get() == numValidations, "recently released connections are not validated");
+	}
+
+
+	private static void checkRetrieval(CTaxonomyConnectionsPool pool) throws SemanticAnalysisException, SQLException {
+		NTaxonomiesConn tConnection = pool.getLabelsConnection();
+		try {
+			String[] lineages = tConnection.retrieve(CTaxonomyConnectionsPool.ENTRY_TABLE, "Entry3");
+			check(lineages != null && lineages.length == 2, "lineages of an entry");
+			lineages = tConnection.retrieve(CTaxonomyConnectionsPool.ALIAS_TABLE, "Alias5");
+			check(lineages != null && lineages.length == 2, "lineages of an alias");
+			check(tConnection.retrieve(CTaxonomyConnectionsPool.ENTRY_TABLE, "Missing") == null, "no lineages for a missing entry");
+
+			Set<String> labels = new HashSet<String>();
+			for( int k = 0; k < NUM_ENTRIES; k += 2) {
+				labels.add("Entry" + k);
+			}
+			labels.add("Missing");
+			Map<String, String[]> lineagesMap = tConnection.retrieve(CTaxonomyConnectionsPool.ENTRY_TABLE, labels);
+			check(lineagesMap.size() == NUM_ENTRIES/2, "lineages of a batch of entries");
+		}
+		finally {
+			pool.release(tConnection);
+		}
+
+		tConnection = pool.getLabelsAndCatsConnection();
+		try {
+			String[] lineages = tConnection.retrieve(CTaxonomyConnectionsPool.ENTRY_TABLE, "Entry7");
+			check(lineages != null && lineages.length == 3, "lineages of an entry and its categories");
+		}
+		finally {
+			pool.release(tConnection);
+		}
+	}
+
+
+	private static void checkReuse(CTaxonomyConnectionsPool pool) throws SemanticAnalysisException {
+		final int numCreated = pool.getNumCreatedConnections();
+		for( int k = 0; k < 16; k++) {
+			pool.release(pool.getLabelsConnection());
+		}
+		check(pool.getNumCreatedConnections() == numCreated, "released connections are reused");
+	}
+
+
+	private static void checkBound(CTaxonomyConnectionsPool pool) throws SemanticAnalysisException {
+		NTaxonomiesConn[] tConnections = new NTaxonomiesConn[MAX_NUM_CONNECTIONS];
+		for( int k = 0; k < MAX_NUM_CONNECTIONS; k++) {
+			tConnections[k] = pool.getLabelsConnection();
+		}
+
+		boolean timedOut = false;
+		final long startTime = System.currentTimeMillis();
+		try {
+			pool.release(pool.getLabelsConnection());
+		}
+		catch( SemanticAnalysisException e) {
+			timedOut = true;
+		}
+		check(timedOut && System.currentTimeMillis() - startTime >= ACQUIRE_TIMEOUT, "lease beyond the maximum number of connections times out");
+		check(pool.getNumActiveConnections() == MAX_NUM_CONNECTIONS, "active connections are counted");
+
+		for( NTaxonomiesConn tConnection : tConnections) {
+			pool.release(tConnection);
+		}
+
+		boolean rejected = false;
+		try {
+			pool.release(tConnections[0]);
+		}
+		catch( IllegalStateException e) {
+			rejected = true;
+		}
+		check(rejected, "connection cannot be released twice");
+	}
+
+
+	private static void checkBrokenConnection(CTaxonomyConnectionsPool pool) throws SemanticAnalysisException {
+		final int numEvicted = pool.getNumEvictedConnections();
+		NTaxonomiesConn tConnection = pool.getLabelsConnection();
+		tConnection.close();
+		pool.release(tConnection);
+		check(pool.getNumEvictedConnections() == numEvicted + 1, "broken connection is evicted");
+	}
+
+
+	private static void checkIdleEviction(CTaxonomyConnectionsPool pool) throws SemanticAnalysisException, InterruptedException {
+		NTaxonomiesConn[] tConnections = new NTaxonomiesConn[MAX_NUM_CONNECTIONS];
+		for( int k = 0; k < MAX_NUM_CONNECTIONS; k++) {
+			tConnections[k] = pool.getLabelsConnection();
+		}
+		for( NTaxonomiesConn tConnection : tConnections) {
+			pool.release(tConnection);
+		}
+
+		Thread.sleep(MAX_IDLE_TIME*2);
+		final int numEvicted = pool.getNumEvictedConnections();
+		NTaxonomiesConn tConnection = pool.getLabelsConnection();
+		check(pool.getNumEvictedConnections() > numEvicted, "idle connections are evicted on lease");
+		pool.release(tConnection);
+	}
+
+
+	private static void checkConcurrentLeases(final CTaxonomyConnectionsPool pool) throws InterruptedException {
+		final AtomicInteger numErrors = new AtomicInteger(0);
+		Thread[] threads = new Thread[NUM_THREADS];
+
+		for( int k = 0; k < NUM_THREADS; k++) {
+			threads[k] = new Thread() {
+				@Override
+				public void run() {
+					for( int j = 0; j < NUM_LEASES; j++) {
+						try {
+							NTaxonomiesConn tConnection = pool.getLabelsConnection();
+							try {
+								if( tConnection.retrieve(CTaxonomyConnectionsPool.ENTRY_TABLE, "Entry" + (j % NUM_ENTRIES)) == null) {
+									numErrors.incrementAndGet();
+								}
+							}
+							finally {
+								pool.release(tConnection);
+							}
+						}
+						catch( Exception e) {
+							numErrors.incrementAndGet();
+						}
+					}
+				}
+			};
+			threads[k].start();
+		}
+		for( Thread thread : threads) {
+			thread.join();
+		}
+
+		check(numErrors.get() == 0, "concurrent leases");
+		check(pool.getNumActiveConnections() == 0, "all the connections are released");
+	}
+
+
+	private static void createDatabase(final Connection connection) throws SQLException {
+		Statement stmt = connection.createStatement();
+		try {
+			stmt.execute("CREATE SCHEMA \"" + SCHEMA + "\"");
+			stmt.execute("CREATE TABLE \"" + SCHEMA + "\".dbpedia (id INT PRIMARY KEY, label VARCHAR(255), taxonomy VARCHAR(1024), sub_taxonomy VARCHAR(1024))");
+			stmt.execute("CREATE TABLE \"" + SCHEMA + "\".dbpedia_aliases (id INT PRIMARY KEY, label VARCHAR(255), resourceid INT)");
+		}
+		finally {
+			stmt.close();
+		}
+
+		PreparedStatement entryStmt = connection.prepareStatement("INSERT INTO \"" + SCHEMA + "\".dbpedia VALUES (?,?,?,?)"),
+		                  aliasStmt = connection.prepareStatement("INSERT INTO \"" + SCHEMA + "\".dbpedia_aliases VALUES (?,?,?)");
+		try {
+			for( int k = 0; k < NUM_ENTRIES; k++) {
+				entryStmt.setInt(1, k);
+				entryStmt.setString(2, "Entry" + k);
+				entryStmt.setString(3, "entity/class" + k + "#entity/thing");
+				entryStmt.setString(4, "entity/category" + k);
+				entryStmt.executeUpdate();
+
+				aliasStmt.setInt(1, k);
+				aliasStmt.setString(2, "Alias" + k);
+				aliasStmt.setInt(3, k);
+				aliasStmt.executeUpdate();
+			}
+		}
+		finally {
+			entryStmt.close();
+			aliasStmt.close();
+		}
+	}
+
+
+	private static void check(boolean condition, final String description) {
+		if( !condition ) {
+			numFailures++;
+		}
+		System.out.println((condition ? "passed: " : "FAILED: ") + description);
+	}
+
+
+	private CTaxonomyPoolCheck() { }
+}
+
+// ---------------------------  EOF -----------------------------------
@@ -0,0 +1,428 @@
+// Copyright (C) 2010-2012 Patrick Nicolas
+package com.c24x7.benchmarks;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import com.c24x7.math.clustering.CDataPoint;
+import com.c24x7.math.clustering.CKMeansClustering;
+import com.c24x7.math.utils.CFreqArray;
+import com.c24x7.models.ATaxonomyNode;
+import com.c24x7.models.CText;
+import com.c24x7.models.taxonomy.CTaxonomyModel;
+import com.c24x7.semantics.lookup.CLookup;
+import com.c24x7.textanalyzer.CChunker;
+import com.c24x7.textanalyzer.CTaggedNGramsExtractor;
+import com.c24x7.textanalyzer.CTagger;
+import com.c24x7.textanalyzer.ngrams.CTaggedWord;
+import com.c24x7.textanalyzer.ngrams.CTaggedWord.ETAG_TYPES;
+import com.c24x7.topics.CTopicsExtractor;
+import com.c24x7.topics.CTopicsMap;
+import com.c24x7.util.CIntMap;
+
+
+
+			/**
+			 * <p>Micro-benchmarks of the hot paths of the text analysis: tagging,
+			 * chunking, N-Grams extraction, lookup, taxonomy normalization, topics
+			 * extraction, taxonomy likelihood, clustering and the frequency containers.
+			 * The benchmarks which depend on NLP models or lookup tables fail at
+			 * setUp if the models are not available in the environment.</p>
+			 * @author Patrick Nicolas
+			 * @date 06/26/2012
+			 */
+public final class CTextAnalysisBenchmarks {
+
+	private CTextAnalysisBenchmarks() { }
+
+
+			/**
+			 * <p>Retrieve the list of all the text analysis benchmarks.</p>
+			 * @return list of benchmarks
+			 */
+	public static List<ABenchmark> getBenchmarks() {
+		List<ABenchmark> benchmarks = new ArrayList<ABenchmark>();
+
+		benchmarks.add(new NSentenceDetection());
+		benchmarks.add(new NTagging());
+		benchmarks.add(new NChunking());
+		benchmarks.add(new NNGramsExtraction());
+		benchmarks.add(new NLookup());
+		benchmarks.add(new NNormalize());
+		benchmarks.add(new NTopicsExtraction());
+		benchmarks.add(new NTaxonomyLikelihood());
+		benchmarks.add(new NKMeansTraining());
+		benchmarks.add(NKMeansTraining.createMiniBatch());
+		benchmarks.add(NKMeansTraining.createIncremental());
+		benchmarks.add(new NFreqArray());
+		benchmarks.add(new NIntMap());
+
+		return benchmarks;
+	}
+
+
+			/**
+			 * <p>Sentence detection and tokenization of the fixture corpus.</p>
+			 */
+	public static final class NSentenceDetection extends ABenchmark {
+		private CTagger _tagger = null;
+		private String	_corpus = null;
+
+		public NSentenceDetection() {
+			super("tagger.sentences");
+		}
+
+		@Override
+		public void setUp() throws Exception {
+			CTagger.init();
+			_tagger = new CTagger();
+			_corpus = CBenchmarkFixtures.getCorpus();
+		}
+
+		@Override
+		public Object execute() {
+			return _tagger.extractTokens(_corpus);
+		}
+	}
+
+
+			/**
+			 * <p>Part of speech tagging of the tokenized sentences of the fixture corpus.</p>
+			 */
+	public static final class NTagging extends ABenchmark {
+		private CTagger 					_tagger = null;
+		private CTagger.NSentenceTokens[] 	_tokens = null;
+
+		public NTagging() {
+			super("tagger.tags");
+		}
+
+		@Override
+		public void setUp() throws Exception {
+			CTagger.init();
+			_tagger = new CTagger();
+			_tokens = _tagger.extractTokens(CBenchmarkFixtures.getCorpus());
+		}
+
+		@Override
+		public Object execute() {
+			String[] tags = null;
+			for( CTagger.NSentenceTokens sentenceTokens : _tokens) {
+				tags = _tagger.extractTags(sentenceTokens);
+			}
+			return tags;
+		}
+	}
+
+
+			/**
+			 * <p>Chunking of the sequences of tagged words of the fixture corpus.</p>
+			 */
+	public static final class NChunking extends ABenchmark {
+		private CChunker 				_chunker 		= null;
+		private List<List<CTaggedWord>> _termsLists 	= null;
+
+		public NChunking() {
+			super("chunker");
+		}
+
+		@Override
+		public void setUp() throws Exception {
+			CTaggedNGramsExtractor.init();
+			CTagger tagger = new CTagger();
+			_chunker = new CChunker();
+			_termsLists = new ArrayList<List<CTaggedWord>>();
+
+			String[] tokens = null,
+			         tags = null;
+			List<CTaggedWord> termsList = null;
+			ETAG_TYPES tagType = null;
+
+			for( CTagger.NSentenceTokens sentenceTokens : tagger.extractTokens(CBenchmarkFixtures.getCorpus())) {
+				tokens = sentenceTokens.getTokens();
+				tags = tagger.extractTags(sentenceTokens);
+
+				for( int k = 0; k < tokens.length; k++) {
+					tagType = ETAG_TYPES.getTagType(tags[k], tokens[k]);
+					if( tagType != null) {
+						if( termsList == null) {
+							termsList = new LinkedList<CTaggedWord>();
+							_termsLists.add(termsList);
+						}
+						termsList.add(new CTaggedWord(tokens[k], tagType));
+					}
+					else {
+						termsList = null;
+					}
+				}
+				termsList = null;
+			}
+		}
+
+		@Override
+		public Object execute() {
+			Object nGramsList = null;
+			for( List<CTaggedWord> termsList : _termsLists) {
+				nGramsList = _chunker.extract(termsList);
+			}
+			return nGramsList;
+		}
+	}
+
+
+			/**
+			 * <p>Extraction of the tagged N-Grams (tagging, chunking and creation of
+			 * the N-Grams) from the fixture corpus.</p>
+			 */
+	public static final class NNGramsExtraction extends ABenchmark {
+		private String _corpus = null;
+
+		public NNGramsExtraction() {
+			super("ngrams.extract");
+		}
+
+		@Override
+		public void setUp() throws Exception {
+			CTaggedNGramsExtractor.init();
+			CLookup.init();
+			_corpus = CBenchmarkFixtures.getCorpus();
+		}
+
+		@Override
+		public Object execute() {
+			CText document = new CText();
+			new CTaggedNGramsExtractor().extract(document, _corpus);
+			return document;
+		}
+	}
+
+
+			/**
+			 * <p>Retrieval of the lookup records for all the tokens of the fixture corpus.</p>
+			 */
+	public static final class NLookup extends ABenchmark {
+		private CLookup 	_lookup = null;
+		private String[] 	_labels = null;
+
+		public NLookup() {
+			super("lookup.get");
+		}
+
+		@Override
+		public void setUp() throws Exception {
+			CLookup.init();
+			_lookup = CLookup.getInstance();
+			_labels = CBenchmarkFixtures.getCorpus().split("[ ,.]+");
+		}
+
+		@Override
+		public Object execute() {
+			Object record = null;
+			for( String label : _labels) {
+				record = _lookup.get(label);
+			}
+			return record;
+		}
+	}
+
+
+			/**
+			 * <p>Normalization of the taxonomy objects and classes of a document,
+			 * using the Kirchoff law. The document is recreated before each invocation.</p>
+			 */
+	public static final class NNormalize extends ABenchmark {
+		private CText _document = null;
+
+		public NNormalize() {
+			super("text.normalize");
+		}
+
+		@Override
+		public void reset() {
+			_document = CBenchmarkFixtures.createTaxonomyDocument(CBenchmarkFixtures.NUM_OBJECTS);
+		}
+
+		@Override
+		public Object execute() {
+			_document.normalize();
+			return _document;
+		}
+	}
+
+
+			/**
+			 * <p>Extraction of the topics from a document with taxonomy lineages
+			 * provided by the stubbed taxonomy source.</p>
+			 */
+	public static final class NTopicsExtraction extends ABenchmark {
+		private CText 				_document 			= null;
+		private CTopicsExtractor 	_topicsExtractor 	= null;
+
+		public NTopicsExtraction() {
+			super("topics.extract");
+		}
+
+		@Override
+		public void setUp() throws Exception {
+			_topicsExtractor = new CTopicsExtractor();
+		}
+
+		@Override
+		public void reset() {
+			_document = CBenchmarkFixtures.createTaxonomyDocument(CBenchmarkFixtures.NUM_OBJECTS);
+		}
+
+		@Override
+		public Object execute() {
+			CTopicsMap topicsMap = new CTopicsMap();
+			_topicsExtractor.extract(_document, topicsMap, (short)0);
+			return topicsMap;
+		}
+	}
+
+
+			/**
+			 * <p>Computation of the likelihood of the taxonomy lineages of a document
+			 * for the classes of the taxonomy model.</p>
+			 */
+	public static final class NTaxonomyLikelihood extends ABenchmark {
+		private CTaxonomyModel 			_taxonomyModel 	= null;
+		private List<ATaxonomyNode[]> 	_lineages 		= null;
+
+		public NTaxonomyLikelihood() {
+			super("taxonomy.likelihood");
+		}
+
+		@Override
+		public void setUp() throws Exception {
+			CTaxonomyModel.init();
+			_taxonomyModel = CTaxonomyModel.getInstance();
+			_lineages = CBenchmarkFixtures.createTaxonomyDocument(CBenchmarkFixtures.NUM_OBJECTS).getTaxonomyClassesList();
+		}
+
+		@Override
+		public Object execute() {
+			Object likelihood = null;
+			for( ATaxonomyNode[] lineage : _lineages) {
+				likelihood = _taxonomyModel.computeLikelihood(lineage);
+			}
+			return likelihood;
+		}
+	}
+
+
+			/**
+			 * <p>Training of a K-means model on a fixed set of data points, with
+			 * the Lloyd iterations, the mini-batch iterations or the original
+			 * incremental algorithm.</p>
+			 */
+	public static final class NKMeansTraining extends ABenchmark {
+		private static final int NUM_POINTS 	= 2000;
+		private static final int NUM_VARIABLES 	= 8;
+		private static final int NUM_CLUSTERS 	= 6;
+		private static final int MINI_BATCH_SIZE = 200;
+
+		private CDataPoint[] _dataPoints 	= null;
+		private int			 _miniBatchSize = 0;
+		private boolean		 _incremental 	= false;
+
+		public NKMeansTraining() {
+			this("kmeans.train", 0, false);
+		}
+
+		private NKMeansTraining(final String name, int miniBatchSize, boolean incremental) {
+			super(name);
+			_miniBatchSize = miniBatchSize;
+			_incremental = incremental;
+		}
+
+		public static NKMeansTraining createMiniBatch() {
+			return new NKMeansTraining("kmeans.train.minibatch", MINI_BATCH_SIZE, false);
+		}
+
+		public static NKMeansTraining createIncremental() {
+			return new NKMeansTraining("kmeans.train.incremental", 0, true);
+		}
+
+		@Override
+		public void setUp() throws Exception {
+			_dataPoints = CBenchmarkFixtures.createDataPoints(NUM_POINTS, NUM_VARIABLES, NUM_CLUSTERS);
+		}
+
+		@Override
+		public Object execute() {
+			CKMeansClustering kMeans = new CKMeansClustering(NUM_CLUSTERS, _dataPoints);
+			if( _incremental) {
+				kMeans.trainIncremental();
+			}
+			else {
+				kMeans.setMiniBatchSize(_miniBatchSize);
+				kMeans.train();
+			}
+			return kMeans;
+		}
+	}
+
+
+			/**
+			 * <p>Insertion of values in a frequency array.</p>
+			 */
+	public static final class NFreqArray extends ABenchmark {
+		private static final int NUM_VALUES = 4096;
+
+		private int[] _values = null;
+
+		public NFreqArray() {
+			super("freqarray.add");
+		}
+
+		@Override
+		public void setUp() throws Exception {
+			_values = CBenchmarkFixtures.createValues(NUM_VALUES, CBenchmarkFixtures.NUM_SENTENCES*16);
+		}
+
+		@Override
+		public Object execute() {
+			CFreqArray freqArray = new CFreqArray();
+			for( int value : _values) {
+				freqArray.add(value);
+			}
+			return freqArray;
+		}
+	}
+
+
+			/**
+			 * <p>Counting and ordering of keys in a map of counters.</p>
+			 */
+	public static final class NIntMap extends ABenchmark {
+		private static final int NUM_KEYS = 4096;
+
+		private String[] _keys = null;
+
+		public NIntMap() {
+			super("intmap.put");
+		}
+
+		@Override
+		public void setUp() throws Exception {
+			int[] values = CBenchmarkFixtures.createValues(NUM_KEYS, NUM_KEYS/8);
+			_keys = new String[NUM_KEYS];
+			for( int k = 0; k < NUM_KEYS; k++) {
+				_keys[k] = "key" + values[k];
+			}
+		}
+
+		@Override
+		public Object execute() {
+			CIntMap intMap = new CIntMap();
+			for( String key : _keys) {
+				intMap.put(key);
+			}
+			return intMap.order();
+		}
+	}
+}
+
+// ---------------------------  EOF -----------------------------------
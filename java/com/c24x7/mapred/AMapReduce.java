@@ -1,24 +1,315 @@
+// Copyright (C) 2010-2012 Patrick Nicolas
 package com.c24x7.mapred;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import com.c24x7.exception.ClassifierException;
+import com.c24x7.util.logs.CLogger;
 
+
+
+			/**
+			 * <p>Generic local map/reduce engine. The range of record identifiers is split
+			 * into partitions by a partitioner; each partition is mapped by its own data sets
+			 * on a pool of threads. The reduce step waits for all the partitions, propagates
+			 * the first failure and combines the results of the partitions.</p>
+			 * @author Patrick Nicolas
+			 * @date 07/02/2012
+			 */
 public abstract class AMapReduce {
-	protected int 			_numThreads 	= 1;
-	protected IDataSets[] 	_setsArray 		= null;
-	protected Thread[]		_mapReduceThreads = null;
-	
+	private final static long TERMINATION_TIMEOUT = 60L;
+
+
+			/**
+			 * <p>Interface to split a range of record identifiers into partitions.</p>
+			 */
+	public interface NPartitioner {
+			/**
+			 * <p>Split a range of identifiers into partitions.</p>
+			 * @param range first (inclusive) and last (exclusive) identifiers
+			 * @param numPartitions requested number of partitions
+			 * @return array of {start, end} ranges, one per partition
+			 */
+		public int[][] partition(int[] range, int numPartitions);
+	}
+
+
+			/**
+			 * <p>Interface to report the progress of the map tasks.</p>
+			 */
+	public interface NProgressListener {
+		public void progress(final String name, int numCompletedPartitions, int numPartitions);
+	}
+
+
+			/**
+			 * <p>Default partitioner that splits the range into contiguous
+			 * partitions of equal size. The last partitions are shorter by
+			 * one identifier if the range cannot be split evenly.</p>
+			 */
+	public static final NPartitioner RANGE_PARTITIONER = new NPartitioner() {
+		@Override
+		public int[][] partition(int[] range, int numPartitions) {
+			int size = range[1] - range[0];
+			if( numPartitions > size) {
+				numPartitions = size;
+			}
+
+			int[][] partitions = new int[numPartitions][];
+			int start = range[0],
+			    remainder = size % numPartitions;
+			for( int k = 0; k < numPartitions; k++) {
+				int end = start + size/numPartitions + ((k < remainder) ? 1 : 0);
+				partitions[k] = new int[] { start, end };
+				start = end;
+			}
+			return partitions;
+		}
+	};
+
+
+			/**
+			 * <p>Default progress listener that logs the number of partitions completed.</p>
+			 */
+	public static final NProgressListener LOG_LISTENER = new NProgressListener() {
+		@Override
+		public void progress(final String name, int numCompletedPartitions, int numPartitions) {
+			CLogger.info(name + " " + numCompletedPartitions + "/" + numPartitions + " partitions completed");
+		}
+	};
+
+
+	private static class NWorkerFactory implements ThreadFactory {
+		private String 			_prefix 		= null;
+		private AtomicInteger 	_threadIndex 	= new AtomicInteger(0);
+
+		private NWorkerFactory(final String prefix) {
+			_prefix = prefix;
+		}
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, _prefix + _threadIndex.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+
+			/**
+			 * <p>Map task for a single partition. The data sets are mapped then
+			 * collected by the map/reduce job in the worker thread.</p>
+			 */
+	private final class NMapTask implements Callable<IDataSets> {
+		private int 		_partition 	= -1;
+		private IDataSets 	_dataSets 	= null;
+
+		private NMapTask(int partition, IDataSets dataSets) {
+			_partition = partition;
+			_dataSets = dataSets;
+		}
+
+		@Override
+		public IDataSets call() throws Exception {
+			_dataSets.map();
+			collect(_partition, _dataSets);
+
+			if( _listener != null) {
+				_listener.progress(getName(), _numCompletedPartitions.incrementAndGet(), _setsArray.length);
+			}
+			return _dataSets;
+		}
+	}
+
+
+	protected int 				_numThreads 	= 1;
+	protected int 				_numPartitions 	= 1;
+	protected IDataSets[] 		_setsArray 		= null;
+	private NPartitioner		_partitioner 	= RANGE_PARTITIONER;
+	private NProgressListener	_listener 		= LOG_LISTENER;
+	private ExecutorService		_executor 		= null;
+	private List<Future<IDataSets>> _futures 	= null;
+	private CompletionService<IDataSets> _completionService = null;
+	private AtomicInteger		_numCompletedPartitions = new AtomicInteger(0);
+
+
 	public AMapReduce() {
 		this(1);
 	}
-	
+
+		/**
+		 * <p>Create a map/reduce job with a given number of threads. The
+		 * range of identifiers is split in as many partitions as threads.</p>
+		 * @param numThreads number of threads used to map the partitions
+		 * @throws IllegalArgumentException if the number of threads is not positive
+		 */
 	public AMapReduce(int numThreads) {
+		if( numThreads < 1) {
+			throw new IllegalArgumentException("Cannot create a map reduce job with " + numThreads + " threads");
+		}
 		_numThreads = numThreads;
+		_numPartitions = numThreads;
+	}
+
+
+		/**
+		 * <p>Set the number of partitions. A number of partitions larger than
+		 * the number of threads balances the load across threads.</p>
+		 * @param numPartitions number of partitions
+		 * @throws IllegalArgumentException if the number of partitions is not positive
+		 */
+	public void setNumPartitions(int numPartitions) {
+		if( numPartitions < 1) {
+			throw new IllegalArgumentException("Cannot split a map reduce job in " + numPartitions + " partitions");
+		}
+		_numPartitions = numPartitions;
+	}
+
+	public void setPartitioner(final NPartitioner partitioner) {
+		_partitioner = partitioner;
+	}
+
+	public void setProgressListener(final NProgressListener listener) {
+		_listener = listener;
+	}
+
+
+		/**
+		 * <p>Split the range of identifiers into partitions and submit one
+		 * map task per partition. This method does not block.</p>
+		 * @param range first (inclusive) and last (exclusive) identifiers
+		 * @param dataSets data sets used to create the data sets of each partition
+		 * @throws IllegalArgumentException if the range or the data sets are undefined
+		 */
+	public void map(int[] range, IDataSets dataSets) {
+		if( range == null || range.length < 2 || range[0] >= range[1] || dataSets == null) {
+			throw new IllegalArgumentException("Cannot map undefined data sets or range");
+		}
+
+		int[][] partitions = _partitioner.partition(range, _numPartitions);
+		_setsArray = new IDataSets[partitions.length];
+		_numCompletedPartitions.set(0);
+		for( int k = 0; k < partitions.length; k++) {
+			_setsArray[k] = dataSets.create(partitions[k][0], partitions[k][1]);
+		}
+
+		initialize(partitions.length);
+		int numThreads = (_numThreads < partitions.length) ? _numThreads : partitions.length;
+		_executor = Executors.newFixedThreadPool(numThreads, new NWorkerFactory(getName() + "-map-"));
+		_completionService = new ExecutorCompletionService<IDataSets>(_executor);
+		_futures = new ArrayList<Future<IDataSets>>(partitions.length);
+		for( int k = 0; k < partitions.length; k++) {
+			_futures.add(_completionService.submit(new NMapTask(k, _setsArray[k])));
+		}
+		_executor.shutdown();
 	}
-	
+
+
+		/**
+		 * <p>Wait for the completion of all the map tasks then combine the
+		 * results of the partitions. The map tasks are collected in order of
+		 * completion so the remaining map tasks are cancelled as soon as one
+		 * of them fails.</p>
+		 * @throws ClassifierException if a map task or the reduce step failed
+		 */
+	public void reduce() throws ClassifierException {
+		if( _futures == null) {
+			throw new ClassifierException(getName() + " reduce called before map");
+		}
+
+		try {
+			for( int k = 0; k < _futures.size(); k++) {
+				_completionService.take().get();
+			}
+			reduce(_setsArray);
+		}
+		catch( InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ClassifierException(getName() + " interrupted");
+		}
+		catch( ExecutionException e) {
+			throw new ClassifierException(getName() + " map task failed: " + e.getCause().toString());
+		}
+		finally {
+			for( Future<IDataSets> future : _futures) {
+				future.cancel(true);
+			}
+			_executor.shutdownNow();
+			if( awaitTermination() ) {
+				for( IDataSets dataSets : _setsArray) {
+					dataSets.close();
+				}
+			}
+			_futures = null;
+			_completionService = null;
+		}
+	}
+
+
+		/**
+		 * <p>Wait for the worker threads to complete the map tasks cancelled
+		 * by the reduce step, so the data sets are not closed while a map
+		 * task still uses them. The interrupt status of the calling thread,
+		 * set when the reduce step is interrupted, is cleared during the
+		 * wait and restored afterward.</p>
+		 * @return true if all the worker threads terminated, false otherwise
+		 */
+	private boolean awaitTermination() {
+		boolean interrupted = Thread.interrupted(),
+		        terminated = false;
+		try {
+			terminated = _executor.awaitTermination(TERMINATION_TIMEOUT, TimeUnit.SECONDS);
+			if( !terminated ) {
+				CLogger.warn(getName() + " map tasks still running after " + TERMINATION_TIMEOUT + " seconds, data sets not closed");
+			}
+		}
+		catch( InterruptedException e) {
+			interrupted = true;
+			CLogger.warn(getName() + " interrupted while waiting for the map tasks, data sets not closed");
+		}
+		finally {
+			if( interrupted ) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return terminated;
+	}
+
+
 	abstract protected String getName();
-	abstract public void map(int[] range, IDataSets dataSets);
-	abstract public void reduce();
 
+		/**
+		 * <p>Prepare the job for a number of partitions before the map tasks are submitted.</p>
+		 * @param numPartitions number of partitions
+		 */
+	protected void initialize(int numPartitions) { }
+
+		/**
+		 * <p>Collect the results of a partition once it has been mapped. This method
+		 * is executed in the worker thread of the partition.</p>
+		 * @param partition index of the partition
+		 * @param dataSets data sets of the partition
+		 */
+	protected void collect(int partition, IDataSets dataSets) { }
+
+		/**
+		 * <p>Combine the results of all the partitions, once all
+		 * the partitions have been mapped.</p>
+		 * @param setsArray data sets of the partitions
+		 * @throws ClassifierException if the results cannot be combined
+		 */
+	abstract protected void reduce(IDataSets[] setsArray) throws ClassifierException;
 }
 
-// -------------------------  EOF --------------------------------
\ No newline at end of file
+// -------------------------  EOF --------------------------------
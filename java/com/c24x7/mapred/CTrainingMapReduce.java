@@ -1,12 +1,18 @@
 package com.c24x7.mapred;
 
 
-import com.c24x7.util.logs.CLogger;
+import com.c24x7.exception.ClassifierException;
 
 
 
+			/**
+			 * <p>Map/reduce job for the training of a model. Each partition collects
+			 * its own statistics in the worker thread; the statistics of all the partitions
+			 * are combined into the model statistics during the reduce step.</p>
+			 */
 public class CTrainingMapReduce extends AMapReduce {
-	private IModelStats _record = null;
+	private IModelStats 	_record 		= null;
+	private IModelStats[] 	_partitionStats = null;
 	
 	public CTrainingMapReduce(IModelStats record) {
 		this(record, 1);
@@ -23,65 +29,48 @@ public class CTrainingMapReduce extends AMapReduce {
 	}
 	
 
-	public void map(int[] range, IDataSets dataSets) {
-		
-		IDataSets dataSet = null;
-		if( _numThreads == 1) {
-			dataSet = dataSets.create(range[0], range[1]);
-			_setsArray = new IDataSets[] { dataSet };
-			dataSet.map();
-		}
-		
-			/*
-			 * Launch all the threads used in training..
-			 */
-		else {
-			final int interval = (int)((float)(range[1]-range[0])/_numThreads);
-			_mapReduceThreads = new Thread[_numThreads];
-			_setsArray = new IDataSets[_numThreads];
-			
-			for( int k = 0; k < _numThreads; k++) {
-				range[1] = range[0] + interval;
-				_setsArray[k] = dataSets.create(range[0], range[1]);
-			
-				_mapReduceThreads[k] = new Thread(dataSet);
-				_mapReduceThreads[k].start();
-				range[0] += interval;
-			}
+	@Override
+	protected void initialize(int numPartitions) {
+		_partitionStats = new IModelStats[numPartitions];
+	}
+	
+	
+		/**
+		 * <p>Collect the statistics of a partition into its own model statistics.</p>
+		 */
+	@Override
+	protected void collect(int partition, IDataSets dataSets) {
+		if( _record != null) {
+			IModelStats partitionStats = _record.create();
+			partitionStats.collect(dataSets);
+			_partitionStats[partition] = partitionStats;
 		}
 	}
 	
+	
 		/**
 		 * <p>Aggregate and store the statistics for the training session.</p>
 		 */
-	public void reduce() {
+	@Override
+	protected void reduce(IDataSets[] setsArray) throws ClassifierException {
 		
 			/*
-			 * Aggregate or reduce the list of observations.
+			 * Combine the statistics of the partitions in order of partitions
+			 * and compute the statistics (mean, standard deviation) of the model 
+			 * features or parameters and save them into the model file.
 			 */
-		for( int k = 0; k < _numThreads; k++) {
-			try {
-				if(_numThreads > 1) {
-					_mapReduceThreads[k].join();
-				}
-				_setsArray[k].close();
+		if( _record != null) {
+			for( IModelStats partitionStats : _partitionStats) {
+				_record.combine(partitionStats);
 			}
-			catch( InterruptedException e) {
-				CLogger.error("Failed to generate Lookup Map " + e.toString());
-			}
-		}
+			_partitionStats = null;
 			
-		/*
-		 * If a minimum number of observations are valid, then compute
-		 * the statistics (mean, standard deviation) of the model features
-		 * or parameters and save them into the model file.
-		 */
-
-		if( _record != null && !_record.compute(_setsArray[0]) ) {
-			CLogger.error("Cannot create model");
+			if( !_record.compute() ) {
+				throw new ClassifierException("Cannot create model");
+			}
 		}
 	}
 
 }
 
-// ------------------------  EOF ------------------------------
\ No newline at end of file
+// ------------------------  EOF ------------------------------
@@ -1,9 +1,6 @@
 package com.c24x7.mapred;
 
 
-import com.c24x7.util.logs.CLogger;
-
-
 
 public class CValidationMapReduce extends CTrainingMapReduce {
 	
@@ -25,27 +22,13 @@ public class CValidationMapReduce extends CTrainingMapReduce {
 	 * <p>Aggregate and store the statistics for the validation session.</p>
 	 */
 	@Override
-	public void reduce() {
-		if( _setsArray != null && _setsArray.length > 0) {
-			int[] count = new int[2];	
-			
-			for( int k = 0; k < _numThreads; k++ ) {
-				try {
-					if( _numThreads > 1) {
-						_mapReduceThreads[k].join();
-					}
-					
-
-					_setsArray[k].collectResults(count);
-					_setsArray[k].close();
-				}
-				catch( InterruptedException e) {
-					CLogger.error("Failed to generate Lookup Map " + e.toString());
-				}
-			}
-			
-			_setsArray[0].saveResults(count);
+	protected void reduce(IDataSets[] setsArray) {
+		int[] count = new int[2];	
+		
+		for( IDataSets dataSets : setsArray) {
+			dataSets.collectResults(count);
 		}
+		setsArray[0].saveResults(count);
 	}
 }
 
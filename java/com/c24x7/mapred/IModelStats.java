@@ -2,8 +2,16 @@ package com.c24x7.mapred;
 
 
 
+		/**
+		 * <p>Interface for the statistics of a model computed by a map/reduce
+		 * training job. Each partition collects its observations into its own 
+		 * statistics which are combined once all the partitions have been mapped.</p>
+		 */
 public interface IModelStats {
-	public boolean compute(IDataSets dataSet);
+	public IModelStats create();
+	public void collect(IDataSets dataSet);
+	public void combine(IModelStats stats);
+	public boolean compute();
 }
 
 // -----------------------  EOF -----------------------------------
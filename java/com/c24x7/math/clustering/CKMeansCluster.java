@@ -179,6 +179,20 @@ public final class CKMeansCluster {
 	}
 
 
+		/**
+		 * <p>Set the centroid and the data points of this cluster in a single
+		 * step, once the assignment of the data points has been computed by
+		 * the Lloyd iterations. The sum of squares is computed only once.</p>
+		 * @param x coordinates of the centroid
+		 * @param dataPointsList data points assigned to this cluster
+		 */
+	protected void assign(double[] x, final List<CDataPoint> dataPointsList) {
+		_centroid = new NCentroid(x);
+		_dataPointsList = dataPointsList;
+		computeSumOfSquares();
+	}
+
+
 	public final List<CDataPoint> getDataPointsList() {
 		return _dataPointsList;
 	}
@@ -2,8 +2,15 @@
 package com.c24x7.math.clustering;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import com.c24x7.math.clustering.CKMeansCluster.NCentroid;
 
@@ -13,6 +20,12 @@ import com.c24x7.math.clustering.CKMeansCluster.NCentroid;
 		/**
 		 * <p>Class that implements the K-Means unsupervised learning algorithm. The algorithm
 		 * is composed of a list of cluster and initial set of normalized data points.</p>
+		 * <p>The clusters are trained with Lloyd iterations seeded with k-means++: the
+		 * assignment of the data points to the nearest centroid is executed in parallel
+		 * over chunks of data points and the centroids are updated once per iteration.
+		 * The training converges when the centroids shift less than a tolerance. A mini-batch
+		 * mode updates the centroids from a random sample of data points for large data sets.
+		 * The original incremental algorithm is still available through trainIncremental.</p>
 		 * 
 		 * @author Patrick Nicolas
 		 * @date 12/11/2011
@@ -21,6 +34,9 @@ public final class CKMeansClustering {
 	private final static int 	MAX_ITERATIONS 							= 1000;
 	private final static int 	MIN_NUM_CONVERGING_ITERATIONS 			= 12;
 	private final static float 	CONVERGENCE_CRITERIA 					= 0.015F; 
+	private final static double	CENTROID_SHIFT_TOLERANCE				= 1.0e-4;
+	private final static long	DEFAULT_SEED							= 24071L;
+	private final static int	MIN_NUM_POINTS_PER_TASK					= 1024;
 	
 	private CKMeansCluster[] 	_clusters				= null;
 	private int 				_maxIterations 			= MAX_ITERATIONS;
@@ -31,6 +47,81 @@ public final class CKMeansClustering {
 	private float				_convergenceCriteria 	= CONVERGENCE_CRITERIA;
 	private int					_minNumConvergingIterations = MIN_NUM_CONVERGING_ITERATIONS;
 	private NCentroid[]			_centroids				= null;
+	private double				_centroidShiftTolerance = CENTROID_SHIFT_TOLERANCE;
+	private int					_miniBatchSize			= 0;
+	private int					_numWorkers				= Runtime.getRuntime().availableProcessors();
+	private long				_seed					= DEFAULT_SEED;
+	
+	
+			/**
+			 * <p>Partial results of the assignment of a chunk of data points
+			 * to their nearest centroids: sum of the coordinates and number of
+			 * data points per cluster and number of data points which moved
+			 * to another cluster.</p>
+			 */
+	private static final class NPartialSums {
+		private double[][] 	_sums		= null;
+		private int[] 		_counts 	= null;
+		private int			_numChanges = 0;
+		
+		private NPartialSums(int numClusters, int numVariables) {
+			_sums = new double[numClusters][numVariables];
+			_counts = new int[numClusters];
+		}
+		
+		private void add(final NPartialSums partialSums) {
+			for( int k = 0; k < _sums.length; k++) {
+				for( int j = 0; j < _sums[k].length; j++) {
+					_sums[k][j] += partialSums._sums[k][j];
+				}
+				_counts[k] += partialSums._counts[k];
+			}
+			_numChanges += partialSums._numChanges;
+		}
+	}
+	
+	
+			/**
+			 * <p>Assignment of a range of data points to their nearest centroid. Each
+			 * task writes the cluster index of its own range of data points.</p>
+			 */
+	private final class NAssignment implements Callable<NPartialSums> {
+		private NCentroid[] _centroids 	= null;
+		private int[]		_assignments = null;
+		private int			_from 		= 0;
+		private int			_to 		= 0;
+		
+		private NAssignment(final NCentroid[] centroids, int[] assignments, int from, int to) {
+			_centroids = centroids;
+			_assignments = assignments;
+			_from = from;
+			_to = to;
+		}
+		
+		@Override
+		public NPartialSums call() {
+			int numVariables = _dataPointsList[0].getNumVariables();
+			NPartialSums partialSums = new NPartialSums(_centroids.length, numVariables);
+			
+			CDataPoint point = null;
+			int bestIndex = 0;
+			for( int k = _from; k < _to; k++) {
+				point = _dataPointsList[k];
+				bestIndex = nearest(point, _centroids);
+				
+				if( _assignments[k] != bestIndex) {
+					_assignments[k] = bestIndex;
+					partialSums._numChanges++;
+				}
+				for( int j = 0; j < numVariables; j++) {
+					partialSums._sums[bestIndex][j] += point.get(j);
+				}
+				partialSums._counts[bestIndex]++;
+			}
+			
+			return partialSums;
+		}
+	}
 	
 	
 		/**
@@ -153,15 +244,103 @@ public final class CKMeansClustering {
 	public void setMinNumConvergingIterations(int minNumConvergingIterations) {
 		_minNumConvergingIterations = minNumConvergingIterations;
 	}
+	
+		/**
+		 * <p>Set the maximum shift of the centroids between two iterations
+		 * below which the training is considered converged.</p>
+		 * @param centroidShiftTolerance maximum shift of the centroids
+		 */
+	public void setCentroidShiftTolerance(double centroidShiftTolerance) {
+		_centroidShiftTolerance = centroidShiftTolerance;
+	}
+	
+		/**
+		 * <p>Set the number of data points sampled at each iteration of the 
+		 * mini-batch training. The mini-batch training is disabled if the size
+		 * is 0 or is larger than the number of data points.</p>
+		 * @param miniBatchSize number of data points per iteration
+		 * @throws IllegalArgumentException if the size of the mini-batch is negative
+		 */
+	public void setMiniBatchSize(int miniBatchSize) {
+		if( miniBatchSize < 0) {
+			throw new IllegalArgumentException("Cannot train K-Means with a mini-batch of size " + miniBatchSize);
+		}
+		_miniBatchSize = miniBatchSize;
+	}
+	
+		/**
+		 * <p>Set the number of threads used to assign the data points to the clusters.</p>
+		 * @param numWorkers number of threads
+		 * @throws IllegalArgumentException if the number of threads is not positive
+		 */
+	public void setNumWorkers(int numWorkers) {
+		if( numWorkers < 1) {
+			throw new IllegalArgumentException("Cannot train K-Means with " + numWorkers + " threads");
+		}
+		_numWorkers = numWorkers;
+	}
+	
+		/**
+		 * <p>Set the seed of the random generator used by the k-means++
+		 * seeding and the sampling of the mini-batches.</p>
+		 * @param seed seed of the random generator
+		 */
+	public void setSeed(long seed) {
+		_seed = seed;
+	}
 
 	
 	
 		/**
-		 * <p>Implements the K-Means unsupervised learning algorithms. The algorithm
+		 * <p>Implements the K-Means unsupervised learning algorithms with Lloyd iterations
+		 * seeded with k-means++. The assignment step is executed in parallel and the training
+		 * stops when the centroids shift by less than the tolerance or after the maximum
+		 * number of iterations. The mini-batch mode is used if a size of mini-batch has been set.</p>
+		 * @return number of iterations
+		 * @throws IllegalArgumentException if there are less data points than clusters
+		 */
+	public int train() {
+		if( _dataPointsList == null || _dataPointsList.length < _clusters.length) {
+			throw new IllegalArgumentException("Cannot create " + _clusters.length + " clusters from less data points");
+		}
+		
+		double[][] centroids = seed();
+		int[] assignments = new int[_dataPointsList.length];
+		Arrays.fill(assignments, -1);
+		
+		int numIterations = 0;
+		ExecutorService executor = (getNumTasks() > 1) ? Executors.newFixedThreadPool(_numWorkers) : null;
+		try {
+			numIterations = (_miniBatchSize > 0 && _miniBatchSize < _dataPointsList.length) ?
+					trainMiniBatch(centroids) :
+					trainLloyd(centroids, assignments, executor);
+			
+				/*
+				 * Final assignment so the centroids of the clusters are 
+				 * the mean of their data points.
+				 */
+			NPartialSums sums = assign(centroids, assignments, executor);
+			update(centroids, sums);
+		}
+		finally {
+			if( executor != null) {
+				executor.shutdown();
+			}
+		}
+		createClusters(centroids, assignments);
+		
+		return numIterations;
+	}
+	
+	
+		/**
+		 * <p>Implements the original K-Means algorithm which moves one data point at
+		 * a time to its nearest cluster and recomputes all the centroids. The algorithm
 		 * iterates to minimize the total sum of squares of distance between each cluster
 		 * data points and its centroid.</p>
+		 * @return number of iterations
 		 */
-	public int train() {
+	public int trainIncremental() {
 		int numIterations = _maxIterations;
 		initialize();
 		
@@ -298,6 +477,264 @@ public final class CKMeansClustering {
 						// Private Supporting Methods
 						// ----------------------------
 				
+	private int trainLloyd(double[][] centroids, int[] assignments, ExecutorService executor) {
+		NPartialSums sums = null;
+		double shift = 0.0;
+		int numIterations = _maxIterations;
+		
+		for( int i = 0; i < _maxIterations; i++) {
+			sums = assign(centroids, assignments, executor);
+			shift = update(centroids, sums);
+			
+			if( sums._numChanges == 0 || shift < _centroidShiftTolerance) {
+				numIterations = i+1;
+				break;
+			}
+		}
+		
+		return numIterations;
+	}
+	
+	
+		/**
+		 * <p>Mini-batch training: each iteration assigns a random sample of data points
+		 * to the nearest centroid then moves the centroid towards the data point with a 
+		 * learning rate which decreases with the number of data points of the cluster.</p>
+		 */
+	private int trainMiniBatch(double[][] centroids) {
+		Random random = new Random(_seed);
+		int numVariables = centroids[0].length;
+		int[] counts = new int[centroids.length];
+		double[][] previous = new double[centroids.length][];
+		
+		NCentroid[] cursors = toCentroids(centroids);
+		CDataPoint point = null;
+		int bestIndex = 0, 
+		    numConvergingIterations = 0,
+		    numIterations = _maxIterations;
+		double learningRate = 0.0;
+		
+		for( int i = 0; i < _maxIterations; i++) {
+			for( int k = 0; k < centroids.length; k++) {
+				previous[k] = Arrays.copyOf(centroids[k], numVariables);
+			}
+			
+			for( int k = 0; k < _miniBatchSize; k++) {
+				point = _dataPointsList[random.nextInt(_dataPointsList.length)];
+				bestIndex = nearest(point, cursors);
+				learningRate = 1.0/(++counts[bestIndex]);
+				for( int j = 0; j < numVariables; j++) {
+					centroids[bestIndex][j] += learningRate*(point.get(j) - centroids[bestIndex][j]);
+				}
+			}
+			
+				/*
+				 * The centroids of a mini-batch are noisy, so the 
+				 * training stops only after several converging iterations.
+				 */
+			if( getShift(previous, centroids) < _centroidShiftTolerance) {
+				if( ++numConvergingIterations >= _minNumConvergingIterations) {
+					numIterations = i+1;
+					break;
+				}
+			}
+			else {
+				numConvergingIterations = 0;
+			}
+		}
+		
+		return numIterations;
+	}
+	
+	
+		/**
+		 * <p>Select the initial centroids with k-means++: each new centroid is
+		 * a data point drawn with a probability proportional to the square of its 
+		 * distance to the nearest centroid already selected.</p>
+		 */
+	private double[][] seed() {
+		Random random = new Random(_seed);
+		double[][] centroids = new double[_clusters.length][];
+		double[] minDistances = new double[_dataPointsList.length];
+		Arrays.fill(minDistances, Double.MAX_VALUE);
+		
+		int index = random.nextInt(_dataPointsList.length);
+		NCentroid centroid = new NCentroid();
+		double distance = 0.0,
+		       total = 0.0,
+		       threshold = 0.0;
+		
+		for( int c = 0; c < centroids.length; c++) {
+			if( c > 0) {
+				total = 0.0;
+				for( double minDistance : minDistances) {
+					total += minDistance;
+				}
+				
+				if( total > 0.0) {
+					threshold = random.nextDouble()*total;
+					index = 0;
+					while( index < minDistances.length-1 && (threshold -= minDistances[index]) > 0.0) {
+						index++;
+					}
+				}
+				else {
+					index = random.nextInt(_dataPointsList.length);
+				}
+			}
+			
+			centroids[c] = getValues(_dataPointsList[index]);
+			centroid.set(centroids[c]);
+			for( int k = 0; k < _dataPointsList.length; k++) {
+				distance = _dataPointsList[k].computeDistance(centroid);
+				distance *= distance;
+				if( distance < minDistances[k]) {
+					minDistances[k] = distance;
+				}
+			}
+		}
+		
+		return centroids;
+	}
+	
+	
+		/**
+		 * <p>Assign each data point to its nearest centroid. The data points are split 
+		 * in chunks processed concurrently if an executor is provided.</p>
+		 */
+	private NPartialSums assign(double[][] centroids, int[] assignments, ExecutorService executor) {
+		NCentroid[] cursors = toCentroids(centroids);
+		int numTasks = (executor != null) ? getNumTasks() : 1;
+		
+		if( numTasks == 1) {
+			return new NAssignment(cursors, assignments, 0, _dataPointsList.length).call();
+		}
+		
+		List<Future<NPartialSums>> futures = new ArrayList<Future<NPartialSums>>(numTasks);
+		int chunkSize = (_dataPointsList.length + numTasks -1)/numTasks;
+		for( int from = 0; from < _dataPointsList.length; from += chunkSize) {
+			futures.add(executor.submit(new NAssignment(cursors, assignments, from, Math.min(from + chunkSize, _dataPointsList.length))));
+		}
+		
+		NPartialSums sums = new NPartialSums(centroids.length, centroids[0].length);
+		try {
+			for( Future<NPartialSums> future : futures) {
+				sums.add(future.get());
+			}
+		}
+		catch( InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("K-Means training interrupted");
+		}
+		catch( ExecutionException e) {
+			throw new IllegalStateException("K-Means assignment failed " + e.getCause().toString());
+		}
+		
+		return sums;
+	}
+	
+	
+		/**
+		 * <p>Update the centroids as the mean of their data points. The centroid
+		 * of an empty cluster is left unchanged.</p>
+		 * @return maximum shift of the centroids
+		 */
+	private double update(double[][] centroids, final NPartialSums sums) {
+		double[][] previous = new double[centroids.length][];
+		
+		for( int k = 0; k < centroids.length; k++) {
+			previous[k] = centroids[k];
+			if( sums._counts[k] > 0) {
+				centroids[k] = new double[centroids[k].length];
+				for( int j = 0; j < centroids[k].length; j++) {
+					centroids[k][j] = sums._sums[k][j]/sums._counts[k];
+				}
+			}
+		}
+		
+		return getShift(previous, centroids);
+	}
+	
+	
+	private void createClusters(double[][] centroids, int[] assignments) {
+		List<List<CDataPoint>> dataPointsLists = new ArrayList<List<CDataPoint>>(_clusters.length);
+		for( int k = 0; k < _clusters.length; k++) {
+			dataPointsLists.add(new ArrayList<CDataPoint>());
+		}
+		for( int k = 0; k < _dataPointsList.length; k++) {
+			dataPointsLists.get(assignments[k]).add(_dataPointsList[k]);
+		}
+		
+		_totalDistance = 0.0;
+		for( int k = 0; k < _clusters.length; k++) {
+			_clusters[k].assign(centroids[k], dataPointsLists.get(k));
+			_totalDistance += _clusters[k].getSumSquares();
+		}
+	}
+	
+	
+	private int getNumTasks() {
+		int numTasks = _dataPointsList.length/MIN_NUM_POINTS_PER_TASK;
+		return (numTasks < 1) ? 1 : ((numTasks > _numWorkers) ? _numWorkers : numTasks);
+	}
+	
+	
+	private static int nearest(final CDataPoint point, final NCentroid[] centroids) {
+		double minDistance = Double.MAX_VALUE,
+		       distance = 0.0;
+		int bestIndex = 0;
+		
+		for( int k = 0; k < centroids.length; k++) {
+			distance = point.computeDistance(centroids[k]);
+			if( distance < minDistance) {
+				minDistance = distance;
+				bestIndex = k;
+			}
+		}
+		
+		return bestIndex;
+	}
+	
+	
+	private static double getShift(double[][] previous, double[][] centroids) {
+		double maxShift = 0.0,
+		       shift = 0.0,
+		       diff = 0.0;
+		
+		for( int k = 0; k < centroids.length; k++) {
+			shift = 0.0;
+			for( int j = 0; j < centroids[k].length; j++) {
+				diff = centroids[k][j] - previous[k][j];
+				shift += diff*diff;
+			}
+			if( shift > maxShift) {
+				maxShift = shift;
+			}
+		}
+		
+		return Math.sqrt(maxShift);
+	}
+	
+	
+	private static NCentroid[] toCentroids(double[][] centroids) {
+		NCentroid[] cursors = new NCentroid[centroids.length];
+		for( int k = 0; k < centroids.length; k++) {
+			cursors[k] = new NCentroid();
+			cursors[k].set(centroids[k]);
+		}
+		return cursors;
+	}
+	
+	
+	private static double[] getValues(final CDataPoint point) {
+		double[] values = new double[point.getNumVariables()];
+		for( int k = 0; k < values.length; k++) {
+			values[k] = point.get(k);
+		}
+		return values;
+	}
+	
+	
 	private void computeTotalDistance() {
 		float totalDistance = 0.0F;
 		for(CKMeansCluster cluster : _clusters ) {
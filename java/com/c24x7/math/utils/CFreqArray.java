@@ -5,13 +5,17 @@ package com.c24x7.math.utils;
 
 import java.util.Arrays;
 
+import com.c24x7.util.collections.CIntSet;
+
 
 
 
 
 		/**
-		 * <p>Class that implements a dynamic array of integers or indices. The array
-		 * can only expand but not shrink.</p>
+		 * <p>Class that implements a dynamic array of integers or indices with their
+		 * frequencies. The values are stored in a sorted set of integers so a value
+		 * is found with a binary search and the insertion of increasing indices is
+		 * an append. The array can only expand but not shrink.</p>
 		 * 
 		 * @author Patrick Nicolas         24x7c 
 		 * @date June 02, 2012 9:01:40 PM
@@ -19,8 +23,8 @@ import java.util.Arrays;
 public final class CFreqArray extends AArray {	
 	protected final static int EXPANSION_SIZE = 6;
 
-	protected int[] _values 	 = null;
-	protected int[] _frequencies = null;
+	protected CIntSet _values 	 = null;
+	protected int[]   _frequencies = null;
 	
 		/**
 		 * <p>Default constructor for the array of frequencies which
@@ -29,7 +33,7 @@ public final class CFreqArray extends AArray {
 		 */
 	public CFreqArray() {
 		super();
-		_values = new int[EXPANSION_SIZE];
+		_values = new CIntSet(EXPANSION_SIZE);
 		_frequencies = new int[EXPANSION_SIZE];
 	}
 
@@ -38,12 +42,8 @@ public final class CFreqArray extends AArray {
 		 * @param value first value in the dynamic array
 		 */
 	public CFreqArray(int value) {	
-		super();
-		_values = new int[EXPANSION_SIZE];
-		_frequencies = new int[EXPANSION_SIZE];
-		_values[0] = value;
-		_frequencies[0] = 1;
-		_index = 0;
+		this();
+		add(value);
 	}
 	
 	/**
@@ -51,8 +51,9 @@ public final class CFreqArray extends AArray {
 	 * @param values array of integers used to initialize the dynamic array.
 	 */
 	public CFreqArray(int[] values) {
+		super();
 		final int newSize = values.length + (EXPANSION_SIZE>>1);
-		_values = new int[newSize];
+		_values = new CIntSet(newSize);
 		_frequencies = new int[newSize];
 		
 		for( int k = 0; k < values.length; k++) {
@@ -68,7 +69,7 @@ public final class CFreqArray extends AArray {
 		 */
 	@Override
 	public CFreqArray clone() {
-		return new CFreqArray(_values, _index);
+		return new CFreqArray(_values.clone(), Arrays.copyOf(_frequencies, _values.capacity()));
 	}
 	
 	
@@ -79,7 +80,7 @@ public final class CFreqArray extends AArray {
 	 * @return current capacity of the array.
 	 */
 	public int capacity() {
-		return _values.length;
+		return _values.capacity();
 	}
 	
 	
@@ -93,11 +94,11 @@ public final class CFreqArray extends AArray {
 	
 	
 	public int[] getValues() {
-		return Arrays.copyOf(_values, _index+1);
+		return _values.toArray();
 	}
 	
 	public int[] values() {
-		return _values;
+		return _values.values();
 	}
 	
 	public int[] frequencies() {
@@ -117,33 +118,40 @@ public final class CFreqArray extends AArray {
 		 * @param shiftValue value of the shift to be applied to all the values of the frequency table.
 		 */
 	public void shiftValueBy(int shiftValue) {
-		for( int k = 0; k <= _index; k++) {
-			_values[k] += shiftValue;
-		}
+		_values.shift(shiftValue);
 	}
 	
 		
 		/**
-		 * <p>Add a new value to this array of integer.
+		 * <p>Add a new value to this array of integer, or increment the 
+		 * frequency of the value if it is already in the array.</p>
 		 * @param value value added to the array of integers.
+		 * @param frequency frequency of the value
 		 */
 	public void add(int value, int frequency) {
-		if( !hasValue(value)) {
-			if( _index >= _values.length-1) {
-				final int newSize = _index + (EXPANSION_SIZE>>1);
-				_values = Arrays.copyOf(_values, newSize);
-				_frequencies = Arrays.copyOf(_frequencies, newSize);
-			}
+		int index = _values.add(value);
+		
+		if( index < 0) {
+			_frequencies[-index-1] += frequency;
+		}
+		else {
 			_index++;
-			_values[_index] = value;
-			_frequencies[_index] += frequency;
+			if( _frequencies.length < _values.capacity()) {
+				_frequencies = Arrays.copyOf(_frequencies, _values.capacity());
+			}
+			if( index < _index) {
+				System.arraycopy(_frequencies, index, _frequencies, index+1, _index - index);
+			}
+			_frequencies[index] = frequency;
 		}
 	}
 	
 	
 	
 		/**
-		 * <p>Extends this dynamic array with a new one.</p>
+		 * <p>Extends this dynamic array with a new one. The values of the two
+		 * arrays are merged in a single pass and the frequencies of the values
+		 * defined in both arrays are added.</p>
 		 * @param intArray dynamic array to be added.
 		 */
 	public void add(final CFreqArray intArray) {
@@ -153,21 +161,34 @@ public final class CFreqArray extends AArray {
 		
 		int[] values = intArray.values();
 		int[] frequencies = intArray.frequencies();
-		final int newIndex = _index + intArray.index();
-			/*
-			 * Re-allocate (expand) the current array, by being
-			 * conservative in our assumption.
-			 */
-		if( newIndex >= _values.length-1) {
-			_values = Arrays.copyOf(_values, newIndex + 1);
-			_frequencies = Arrays.copyOf(_frequencies, newIndex + 1);
-		}
-			/*
-			 * Initialize the content of the newly resized array
-			 */
-		for( int k = 0; k <= intArray.index(); k++) {
-			this.add(values[k], frequencies[k]);
+		int[] thisValues = _values.values();
+		final int size = _index + 1,
+		          otherSize = intArray.size();
+		
+		CIntSet newValues = new CIntSet(size + otherSize);
+		int[] newFrequencies = new int[newValues.capacity()];
+		
+		int i = 0, 
+		    j = 0,
+		    k = 0;
+		while( i < size || j < otherSize) {
+			if( j >= otherSize || (i < size && thisValues[i] < values[j])) {
+				newValues.add(thisValues[i]);
+				newFrequencies[k++] = _frequencies[i++];
+			}
+			else if( i >= size || thisValues[i] > values[j]) {
+				newValues.add(values[j]);
+				newFrequencies[k++] = frequencies[j++];
+			}
+			else {
+				newValues.add(thisValues[i]);
+				newFrequencies[k++] = _frequencies[i++] + frequencies[j++];
+			}
 		}
+		
+		_values = newValues;
+		_frequencies = newFrequencies;
+		_index = k-1;
 	}
 	
 	/**
@@ -218,7 +239,7 @@ public final class CFreqArray extends AArray {
 	 */
 	@Override
 	protected double getValue(int k) {
-		return _values[k];
+		return _values.get(k);
 	}
 	
 	/**
@@ -235,7 +256,7 @@ public final class CFreqArray extends AArray {
 	public String toString() {
 		StringBuilder buf = new StringBuilder();
 		for(int k = 0; k <= _index; k++) {
-			buf.append(_values[k]);
+			buf.append(_values.get(k));
 			buf.append(",");
 			buf.append(_frequencies[k]);
 			buf.append(" ");
@@ -249,31 +270,10 @@ public final class CFreqArray extends AArray {
 							// Private Methods
 							// -----------------
 	
-	private boolean hasValue(int value) {
-		boolean found = false;
-		
-		for(int k = 0; k <= _index; k++) {
-			if(_values[k] == value) {
-				_frequencies[k]++;
-				found = true;
-				break;
-			}
-		}
-		
-		return found;
-	}
-	
-	
-	private CFreqArray(int[] values, int index){
-		super(index);
-
-		final int arraySize = values.length + (EXPANSION_SIZE>>1);
-		_values = Arrays.copyOf(values, arraySize);
-		_frequencies = new int[arraySize];
-		
-		for( int k = 0; k < arraySize; k++) {
-			_frequencies[k] = 1;
-		}
+	private CFreqArray(final CIntSet values, final int[] frequencies){
+		super(values.size()-1);
+		_values = values;
+		_frequencies = frequencies;
 	}
 }
 
@@ -18,9 +18,25 @@ package com.c24x7.models;
 			 * @date 10/23/2011
 			 */
 public class AModel {
-	
+	protected static final int OBJECT_SIZE 	= 64;
+	protected static final int NODE_SIZE 	= 128;
 
 	public AModel() { }
+	
+	
+			/**
+			 * <p>Estimate the memory footprint of this model in bytes. The
+			 * estimate is used to bound the memory used by caches of models.</p>
+			 * @return approximate size of the model in bytes
+			 */
+	public long getApproximateSize() {
+		return OBJECT_SIZE;
+	}
+	
+	
+	protected static long getApproximateSize(final String str) {
+		return (str != null) ? OBJECT_SIZE + (str.length() << 1) : 0L;
+	}
 }
 
 // ---------------------  EOF ---------------------------------------------
@@ -0,0 +1,357 @@
+// Copyright (C) 2010-2012 Patrick Nicolas
+package com.c24x7.models;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.c24x7.exception.InitException;
+import com.c24x7.util.logs.CLogger;
+
+
+
+			/**
+			 * <p>Registry of the versions of the lookup dictionaries and models used
+			 * in the semantic analysis. A version is an immutable set of models; a new
+			 * version of a model is loaded and warmed up by a background thread then
+			 * becomes active through an atomic swap of the current version, without
+			 * restarting the application.</p>
+			 * <p>A request acquires the current version, which is pinned to its thread
+			 * so the models it retrieves are not swapped until the request releases the
+			 * version. The versions are reference counted to report the versions still in
+			 * use; the models hold no resource other than memory, so a model replaced by a
+			 * reload is reclaimed by the garbage collector once no version or thread refers
+			 * to it. The threads which do not acquire a version use the current version and
+			 * keep reading a consistent model across a swap.</p>
+			 * @author Patrick Nicolas
+			 * @date 07/12/2012
+			 */
+public final class CModelRegistry {
+	public static final int LOOKUP 				= 0;
+	public static final int TAGGED_WORD_LOOKUP 	= 1;
+	public static final int TAGS_MODEL 			= 2;
+	public static final int NGRAMS_MODEL 		= 3;
+	public static final int TAXONOMY_MODEL 		= 4;
+
+	private static final String[] MODEL_NAMES = {
+		"lookup", "taggedWordLookup", "tags", "ngrams", "taxonomy"
+	};
+
+
+			/**
+			 * <p>Immutable set of the models active at a given time. The version
+			 * holds one reference as long as it is the current version and one for
+			 * each request which acquired it.</p>
+			 */
+	public static final class NModelsVersion {
+		private int 			_version 	= 0;
+		private Object[] 		_models 	= null;
+		private AtomicInteger	_refCount 	= new AtomicInteger(1);
+
+		private NModelsVersion(int version, final Object[] models) {
+			_version = version;
+			_models = models;
+			numLiveVersions.incrementAndGet();
+		}
+
+		public final int getVersion() {
+			return _version;
+		}
+
+			/**
+			 * <p>Retrieve a model of this version.</p>
+			 * @param modelId identifier of the model
+			 * @return model, null if the model is not loaded
+			 */
+		public Object get(int modelId) {
+			return _models[modelId];
+		}
+
+		private boolean retain() {
+			int refCount = 0;
+			do {
+				refCount = _refCount.get();
+				if( refCount == 0) {
+					return false;
+				}
+			} while( !_refCount.compareAndSet(refCount, refCount+1));
+
+			return true;
+		}
+
+		private void release() {
+			if( _refCount.decrementAndGet() == 0) {
+				numLiveVersions.decrementAndGet();
+			}
+		}
+	}
+
+
+	private static final class NPin {
+		private NModelsVersion 	_version 	= null;
+		private NPin			_previous 	= null;
+
+		private NPin(final NModelsVersion version, final NPin previous) {
+			_version = version;
+			_previous = previous;
+		}
+	}
+
+
+	private static final class NReloadFactory implements ThreadFactory {
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "models-reload");
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+
+	private static AtomicInteger 					numLiveVersions = new AtomicInteger(0);
+	private static AtomicReference<NModelsVersion> 	current 		=
+				new AtomicReference<NModelsVersion>(new NModelsVersion(0, new Object[MODEL_NAMES.length]));
+	private static ThreadLocal<NPin>				pinnedVersion 	= new ThreadLocal<NPin>();
+	private static IModelLoader<?>[]				loaders 		= new IModelLoader<?>[MODEL_NAMES.length];
+	private static ExecutorService					reloadExecutor 	= null;
+
+
+
+			/**
+			 * <p>Retrieve a model of the version pinned to the current thread, or of
+			 * the current version if the thread has not acquired a version.</p>
+			 * @param modelId identifier of the model
+			 * @return model, null if the model is not loaded
+			 */
+	public static Object get(int modelId) {
+		NPin pin = pinnedVersion.get();
+		return ((pin != null) ? pin._version : current.get()).get(modelId);
+	}
+
+
+			/**
+			 * <p>Register the loader used to reload a model.</p>
+			 * @param modelId identifier of the model
+			 * @param loader loader of the versions of the model
+			 * @throws IllegalArgumentException if the model identifier or the loader is undefined
+			 */
+	public static synchronized void register(int modelId, final IModelLoader<?> loader) {
+		if( loader == null) {
+			throw new IllegalArgumentException("Cannot register undefined loader for model " + getModelName(modelId));
+		}
+		loaders[modelId] = loader;
+	}
+
+
+			/**
+			 * <p>Activate a model loaded by the application, synchronously.</p>
+			 * @param modelId identifier of the model
+			 * @param model instance of the model
+			 * @return number of the new version
+			 * @throws IllegalArgumentException if the model is undefined
+			 */
+	public static int publish(int modelId, final Object model) {
+		if( model == null) {
+			throw new IllegalArgumentException("Cannot publish undefined model " + getModelName(modelId));
+		}
+		return activate(modelId, model);
+	}
+
+
+			/**
+			 * <p>Load a new version of a model in the background. The model is loaded and
+			 * warmed up by its registered loader, then activated. The current version is
+			 * not modified if the model cannot be loaded or validated. The reloads are
+			 * executed one at a time.</p>
+			 * @param modelId identifier of the model
+			 * @return future of the number of the new version
+			 * @throws IllegalArgumentException if no loader is registered for this model
+			 */
+	public static Future<Integer> reload(final int modelId) {
+		final IModelLoader<?> loader;
+		synchronized(CModelRegistry.class) {
+			loader = loaders[modelId];
+			if( loader == null) {
+				throw new IllegalArgumentException("No loader registered for model " + getModelName(modelId));
+			}
+			if( reloadExecutor == null) {
+				reloadExecutor = Executors.newSingleThreadExecutor(new NReloadFactory());
+			}
+		}
+
+		return reloadExecutor.submit(new Callable<Integer>() {
+			@Override
+			public Integer call() throws InitException {
+				return loadVersion(modelId, loader);
+			}
+		});
+	}
+
+
+			/**
+			 * <p>Acquire the version of the models for a request and pin it to
+			 * the current thread. A thread which has already acquired a version
+			 * acquires the same version again.</p>
+			 * @return version of the models to be released at the end of the request
+			 */
+	public static NModelsVersion acquire() {
+		NPin pin = pinnedVersion.get();
+		NModelsVersion version = (pin != null) ? pin._version : null;
+
+		if( version == null || !version.retain()) {
+			do {
+				version = current.get();
+			} while( !version.retain() );
+		}
+		pinnedVersion.set(new NPin(version, pin));
+
+		return version;
+	}
+
+
+			/**
+			 * <p>Acquire a version of the models already acquired by a request and pin it to
+			 * the current thread, so the tasks of a request executed by worker threads use
+			 * the version the request started with.</p>
+			 * @param version version of the models acquired by the request
+			 * @return version of the models to be released at the end of the task
+			 * @throws IllegalStateException if the version has already been released
+			 */
+	public static NModelsVersion acquire(final NModelsVersion version) {
+		if( version == null || !version.retain()) {
+			throw new IllegalStateException("Cannot acquire a released version of models");
+		}
+		pinnedVersion.set(new NPin(version, pinnedVersion.get()));
+
+		return version;
+	}
+
+
+			/**
+			 * <p>Release a version of the models acquired by the current thread.</p>
+			 * @param version version of the models acquired by this thread
+			 * @throws IllegalStateException if the version is not the last version acquired by this thread
+			 */
+	public static void release(final NModelsVersion version) {
+		NPin pin = pinnedVersion.get();
+		if( pin == null || pin._version != version) {
+			throw new IllegalStateException("Cannot release a version of models not acquired by this thread");
+		}
+
+		if( pin._previous != null) {
+			pinnedVersion.set(pin._previous);
+		}
+		else {
+			pinnedVersion.remove();
+		}
+		version.release();
+	}
+
+
+	public static int getVersion() {
+		return current.get().getVersion();
+	}
+
+			/**
+			 * <p>Retrieve the number of versions still in use, the current version
+			 * included. The versions replaced by a reload are released once the
+			 * requests which acquired them complete.</p>
+			 * @return number of versions not released
+			 */
+	public static int getNumLiveVersions() {
+		return numLiveVersions.get();
+	}
+
+
+	public static String getModelName(int modelId) {
+		if( modelId < 0 || modelId >= MODEL_NAMES.length) {
+			throw new IllegalArgumentException("Incorrect model identifier " + modelId);
+		}
+		return MODEL_NAMES[modelId];
+	}
+
+			/**
+			 * <p>Retrieve the identifier of a model from its name.</p>
+			 * @param name name of the model
+			 * @return identifier of the model, -1 if the name is not defined
+			 */
+	public static int getModelId(final String name) {
+		int modelId = -1;
+		for( int k = 0; modelId == -1 && k < MODEL_NAMES.length; k++) {
+			if( MODEL_NAMES[k].equals(name)) {
+				modelId = k;
+			}
+		}
+		return modelId;
+	}
+
+
+	public static String getStatus() {
+		NModelsVersion version = current.get();
+
+		StringBuilder buf = new StringBuilder("Version ");
+		buf.append(version.getVersion());
+		buf.append(" (");
+		buf.append(getNumLiveVersions());
+		buf.append(" live versions)");
+		for( int k = 0; k < MODEL_NAMES.length; k++) {
+			buf.append("\n");
+			buf.append(MODEL_NAMES[k]);
+			buf.append(": ");
+			buf.append((version.get(k) != null) ? "loaded" : "not loaded");
+		}
+		return buf.toString();
+	}
+
+
+
+							// ---------------------------
+							//  Supporting Private Methods
+							// ---------------------------
+
+	private static <T> int loadVersion(int modelId, final IModelLoader<T> loader) throws InitException {
+		long startTime = System.currentTimeMillis();
+		T model = loader.load();
+
+		try {
+			loader.warmUp(model);
+		}
+		catch( InitException e) {
+			CLogger.error("Model " + getModelName(modelId) + " rejected by warm-up " + e.toString());
+			throw e;
+		}
+
+		int version = activate(modelId, model);
+		CLogger.info("Model " + getModelName(modelId) + " activated in version " + version + " after " + (System.currentTimeMillis() - startTime) + " msecs.");
+
+		return version;
+	}
+
+
+			/**
+			 * <p>Create a new version which replaces a model of the current version and
+			 * swap it with the current version. The reference held by the previous version
+			 * as current version is released.</p>
+			 */
+	private static synchronized int activate(int modelId, final Object model) {
+		NModelsVersion previousVersion = current.get();
+
+		Object[] models = previousVersion._models.clone();
+		models[modelId] = model;
+		NModelsVersion newVersion = new NModelsVersion(previousVersion.getVersion()+1, models);
+
+		current.set(newVersion);
+		previousVersion.release();
+
+		return newVersion.getVersion();
+	}
+
+
+	private CModelRegistry() { }
+}
+
+// ----------------------------  EOF ------------------------------------
@@ -59,6 +59,17 @@ public final class CSummaryModel extends AModel {
 	}
 
 
+	@Override
+	public long getApproximateSize() {
+		long size = OBJECT_SIZE + getApproximateSize(_title) + getApproximateSize(_abstract) + 
+					getApproximateSize(_url) + getApproximateSize(_content);
+		if( _contentMap != null) {
+			size += _contentMap.size()*NODE_SIZE;
+		}
+		return size;
+	}
+	
+
 	@Override
 	public String toString() {
 		StringBuilder buf = new StringBuilder("\nModel for ");
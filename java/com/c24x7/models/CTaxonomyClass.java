@@ -5,16 +5,29 @@ package com.c24x7.models;
 
 		/**
 		 * <p>Class that defines a taxonomy instance. A taxonomy is associated with either
-		 * a taxonomyInstance noun or a category keyword.</p>
+		 * a taxonomyInstance noun or a category keyword. A taxonomy class is a view on
+		 * the arrays of classes of a document: its weight, level and text index are
+		 * stored by the document, its label is shared through the taxonomy dictionary.</p>
 		 * 
+		 * @see com.c24x7.models.CTextClasses
 		 * @author Patrick Nicolas
 		 * @date 03/11/2012
 		 */
 public final class CTaxonomyClass extends ATaxonomyNode  {
-	private short _level = -1;
+	private CTextClasses 	_textClasses 	= null;
+	private int				_index 			= -1;
 	
-	public CTaxonomyClass(String label) {
+	
+		/**
+		 * <p>Create a view on a class of a document.</p>
+		 * @param textClasses classes of the document
+		 * @param index index of this class in the document
+		 * @param label label of the class, shared through the taxonomy dictionary
+		 */
+	CTaxonomyClass(final CTextClasses textClasses, int index, final String label) {
 		super(label, 0.0F);
+		_textClasses = textClasses;
+		_index = index;
 	}
 	
 	
@@ -26,20 +39,53 @@ public final class CTaxonomyClass extends ATaxonomyNode  {
 	 */
 	@Override
 	public float applyKirchoff(float weight) {
-		_weight += weight;
-		return _weight;
+		return _textClasses.addWeight(_index, weight);
 	}
 	
+	@Override
+	public void normalize(float maxWeight) {
+		_textClasses.normalize(_index, maxWeight);
+	}
 	
+	@Override
+	public float getWeight() {
+		return _textClasses.getWeight(_index);
+	}
 	
 	@Override
 	public void setLevel(short level) {
-		_level = level;
+		_textClasses.setLevel(_index, level);
 	}
 	
 	@Override
 	public int getLevel() {
-		return _level;
+		return _textClasses.getLevel(_index);
+	}
+	
+	@Override
+	public void setTextIndex(short textIndex) {
+		_textClasses.setTextIndex(_index, textIndex);
+	}
+	
+	@Override
+	public short getTextIndex() {
+		return _textClasses.getTextIndex(_index);
+	}
+	
+	public final int getIndex() {
+		return _index;
+	}
+	
+	public final boolean isClassOf(final CTextClasses textClasses) {
+		return (_textClasses == textClasses);
+	}
+	
+	public final int getClassId() {
+		return _textClasses.getClassId(_index);
+	}
+	
+	public final int getCount() {
+		return _textClasses.getCount(_index);
 	}
 
 	
@@ -57,6 +103,17 @@ public final class CTaxonomyClass extends ATaxonomyNode  {
 		return buf.toString();
 	}
 	
+	
+	@Override
+	public String toString() {
+		StringBuilder buf = new StringBuilder();
+		buf.append(_label);
+		buf.append("(");
+		buf.append(getWeight());
+		buf.append(")");
+
+		return buf.toString();
+	}
 }
 
 
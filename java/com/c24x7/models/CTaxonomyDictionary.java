@@ -0,0 +1,124 @@
+// Copyright (C) 2010-2012 Patrick Nicolas
+package com.c24x7.models;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+
+
+		/**
+		 * <p>Process wide dictionary of the labels of the taxonomy classes shared by all
+		 * the documents. Each class label is assigned a dense integer identifier the first
+		 * time it is added and the label is stored in an array indexed by the identifier.
+		 * The dictionary only grows: an identifier is never reassigned or removed, so the
+		 * documents refer to the classes by identifier and share a single instance of each
+		 * label.</p>
+		 * <p>The lookup of a label or of an identifier does not lock. The labels are added
+		 * under the lock of the dictionary and published through volatile references.</p>
+		 * @see com.c24x7.models.CTextClasses
+		 * @author Patrick Nicolas
+		 * @date 07/25/2012
+		 */
+public final class CTaxonomyDictionary {
+	public final static int UNDEFINED = -1;
+
+	private final static int 		INITIAL_CAPACITY 	= 1024;
+	private final static CTaxonomyDictionary instance 	= new CTaxonomyDictionary();
+
+
+	public static CTaxonomyDictionary getInstance() {
+		return instance;
+	}
+
+
+	private ConcurrentHashMap<String, Integer> _classIds = new ConcurrentHashMap<String, Integer>(INITIAL_CAPACITY);
+	private volatile String[] 	_labels 	= new String[INITIAL_CAPACITY];
+	private volatile int		_numClasses = 0;
+
+
+		/**
+		 * <p>Retrieve the identifier of a class, adding the label of the class to the
+		 * dictionary if it has not been seen before.</p>
+		 * @param label label of the taxonomy class
+		 * @return identifier of the class
+		 * @throws IllegalArgumentException if the label is undefined
+		 */
+	public int add(final String label) {
+		if( label == null) {
+			throw new IllegalArgumentException("Cannot add undefined taxonomy class");
+		}
+
+		Integer classId = _classIds.get(label);
+		return (classId != null) ? classId.intValue() : addClass(label);
+	}
+
+
+		/**
+		 * <p>Retrieve the identifier of a class.</p>
+		 * @param label label of the taxonomy class
+		 * @return identifier of the class, UNDEFINED if the class is not in the dictionary
+		 */
+	public int getClassId(final String label) {
+		Integer classId = (label != null) ? _classIds.get(label) : null;
+		return (classId != null) ? classId.intValue() : UNDEFINED;
+	}
+
+
+	public final String getLabel(int classId) {
+		return _labels[checkClassId(classId)];
+	}
+
+
+	public final int size() {
+		return _numClasses;
+	}
+
+
+	@Override
+	public String toString() {
+		StringBuilder buf = new StringBuilder("Taxonomy dictionary classes=");
+		buf.append(_numClasses);
+		return buf.toString();
+	}
+
+
+
+						// ---------------------------
+						//  Supporting Private Methods
+						// ---------------------------
+
+	private CTaxonomyDictionary() { }
+
+
+		/*
+		 * The array of labels is updated before the identifier is published in
+		 * the concurrent map, so any thread that reads the identifier sees its label.
+		 */
+	private synchronized int addClass(final String label) {
+		Integer classId = _classIds.get(label);
+
+		if( classId == null) {
+			final int id = _numClasses;
+			if( id == _labels.length) {
+				String[] labels = new String[id << 1];
+				System.arraycopy(_labels, 0, labels, 0, id);
+				_labels = labels;
+			}
+			_labels[id] = label;
+			_numClasses = id+1;
+
+			classId = Integer.valueOf(id);
+			_classIds.put(label, classId);
+		}
+		return classId.intValue();
+	}
+
+
+	private int checkClassId(int classId) {
+		if( classId < 0 || classId >= _numClasses) {
+			throw new IllegalArgumentException("Incorrect taxonomy class identifier " + classId);
+		}
+		return classId;
+	}
+}
+
+// -------------------------------  EOF ------------------------------------
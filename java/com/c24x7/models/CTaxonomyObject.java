@@ -8,7 +8,7 @@ import com.c24x7.semantics.lookup.CLookup;
 import com.c24x7.semantics.lookup.CLookupRecord;
 import com.c24x7.textanalyzer.tfidf.CTfIdfScore;
 import com.c24x7.util.CEnv;
-import com.c24x7.math.utils.CFreqArray;
+import com.c24x7.util.collections.CIntBitmap;
 
 
 
@@ -24,7 +24,7 @@ public class CTaxonomyObject extends ATaxonomyNode {
 	private int		_count 		= 1;
 	
 	private List<ATaxonomyNode[]> 	_taxonomyNodesList = null;
-	private CFreqArray 				_sentencesIndices = null;
+	private CIntBitmap 				_sentencesIndices = null;
 	
 	
 			/**
@@ -108,13 +108,13 @@ public class CTaxonomyObject extends ATaxonomyNode {
 	
 	public void addSentenceIndex(int sentenceIndex) {
 		if( _sentencesIndices == null) {
-			_sentencesIndices = new CFreqArray(sentenceIndex);
+			_sentencesIndices = new CIntBitmap();
 		}
 
 		_sentencesIndices.add(sentenceIndex);
 	}
 	
-	public final CFreqArray getSentencesIndices() {
+	public final CIntBitmap getSentencesIndices() {
 		return _sentencesIndices;
 	}
 	
@@ -131,12 +131,21 @@ public class CTaxonomyObject extends ATaxonomyNode {
 		 */
 	@Override
 	public float applyKirchoff(final float maxWeight) {
+		final float weight = normalizeLineageWeight(maxWeight);
+		return Float.isNaN(weight) ? Float.MIN_VALUE : propagateLineageWeight(weight);
+	}	
+	
+	
+		/**
+		 * <p>Add the weight of a lineage to each taxonomy class of the
+		 * lineages of this taxonomy object.</p>
+		 * @param weight weight propagated along each lineage
+		 * @return maximum weight of the taxonomy classes of the lineages
+		 */
+	public float propagateLineageWeight(final float weight) {
 		float maxTaxonomyClassWeight = Float.MIN_VALUE;
 		
-		if( _taxonomyNodesList != null && maxWeight > MIN_COMPOSITE_WEIGHT) {
-			_weight /= maxWeight;
-			final float weight = _weight/_taxonomyNodesList.size();
-			
+		if( _taxonomyNodesList != null) {
 			float taxonomyClassWeight = 0.0F;
 			for( ATaxonomyNode[] taxonomyClasses : _taxonomyNodesList) {
 				for( ATaxonomyNode taxonomyClass : taxonomyClasses) {
@@ -152,7 +161,25 @@ public class CTaxonomyObject extends ATaxonomyNode {
 		}
 		
 		return maxTaxonomyClassWeight;
-	}	
+	}
+	
+	
+		/**
+		 * <p>Normalize the weight of this taxonomy object by the maximum weight of any
+		 * taxonomy object in the document and compute the weight propagated along each
+		 * of its lineages.</p>
+		 * @param maxWeight maximum weight of any taxonomy object within this document.
+		 * @return weight propagated along each lineage, NaN if the weight is not propagated
+		 */
+	public float normalizeLineageWeight(final float maxWeight) {
+		float weight = Float.NaN;
+		
+		if( _taxonomyNodesList != null && maxWeight > MIN_COMPOSITE_WEIGHT) {
+			_weight /= maxWeight;
+			weight = _weight/_taxonomyNodesList.size();
+		}
+		return weight;
+	}
 		
 
 
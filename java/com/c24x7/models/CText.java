@@ -4,7 +4,6 @@
 package com.c24x7.models;
 
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -23,7 +22,7 @@ import com.c24x7.util.CEnv;
 		 * @author Patrick Nicolas
 		 * @date 02/10/2012
 		 */
-public class CText {
+public class CText extends AModel {
 	
 		/**
 		 * <p>Implements the Document document analysis life cycle. The enumeration
@@ -51,7 +50,7 @@ public class CText {
 	private float		_maxClassWeight = 0;
 	
 	private Map<String, CTaxonomyObject>  _instancesMap 	= null;
-	private Map<String, ATaxonomyNode> 	  _classesMap 	= null;
+	private CTextClasses 				  _textClasses 	= null;
 
 
 	public CText() {
@@ -65,7 +64,7 @@ public class CText {
 		 */
 	public CText(final String title) {
 		_title = title;
-		_classesMap = new HashMap<String, ATaxonomyNode>();
+		_textClasses = new CTextClasses();
 	}
 	
 	
@@ -105,13 +104,22 @@ public class CText {
 	}
 	
 
+		/**
+		 * <p>Retrieve the map of labels to the taxonomy classes of this document. The
+		 * map is created from the classes of the document at each call.</p>
+		 * @return map of labels to taxonomy classes
+		 */
 	public final Map<String, ATaxonomyNode> getClassesMap() {
-		return _classesMap;
+		return _textClasses.toMap();
+	}
+	
+	public final CTextClasses getTextClasses() {
+		return _textClasses;
 	}
 	
 	
 	public final ATaxonomyNode getClass(final String label) {
-		return _classesMap.get(label);
+		return _textClasses.get(label);
 	}
 			
 	
@@ -129,20 +137,13 @@ public class CText {
 		}
 		
 		ATaxonomyNode[] taxonomyNodes = new ATaxonomyNode[taxonomyClassesLabels.length];
-		ATaxonomyNode thisClass = null;
 			
 		short level = 0;
 		for( String taxonomyClassLabel : taxonomyClassesLabels) {
-			if(_classesMap.containsKey(taxonomyClassLabel)) {
-				thisClass = _classesMap.get(taxonomyClassLabel);
-			}
-			else {
-				thisClass = new CTaxonomyClass(taxonomyClassLabel);
-				thisClass.setLevel(level);
-				_classesMap.put(taxonomyClassLabel, thisClass);
-			}
-			taxonomyNodes[level++] = thisClass;
+			taxonomyNodes[level] = _textClasses.add(taxonomyClassLabel, level);
+			level++;
 		}
+		_textClasses.link(instance, taxonomyNodes);
 		instance.addTaxonomyClasses(taxonomyNodes);
 	}
 
@@ -198,9 +199,10 @@ public class CText {
 							
 							for( int j = 0; j < taxonomyNodes.length; j++) {
 								derivedTaxonomyLineage[j] = (taxonomyNodes[j] == null)  ?
-															_classesMap.get(multipleFieldsClass[i]) :
+															_textClasses.get(multipleFieldsClass[i]) :
 															taxonomyNodes[j];
 							}
+							_textClasses.link(instance, derivedTaxonomyLineage);
 							instance.addTaxonomyClasses(derivedTaxonomyLineage);
 						}
 
@@ -212,7 +214,7 @@ public class CText {
 						int i = 0;
 						for( ; i < taxonomyNodes.length; i++) {
 							if(taxonomyNodes[i] == null) {
-								taxonomyNodes[i] = _classesMap.get(multipleFieldsClass[0]);
+								taxonomyNodes[i] = _textClasses.get(multipleFieldsClass[0]);
 							}
 						}
 					}
@@ -222,23 +224,13 @@ public class CText {
 				}
 			}
 		}
+		_textClasses.link(instance, taxonomyNodes);
 		instance.addTaxonomyClasses(taxonomyNodes);	
 	}
 	
 	
 	private ATaxonomyNode updateClassesMap(final String taxonomyClassLabel, short level) {
-		ATaxonomyNode thisClass = null;
-		
-		if(_classesMap.containsKey(taxonomyClassLabel)) {
-			thisClass = _classesMap.get(taxonomyClassLabel);
-		}
-		else {
-			thisClass = new CTaxonomyClass(taxonomyClassLabel);
-			thisClass.setLevel(level);
-			_classesMap.put(taxonomyClassLabel, thisClass);
-		}
-
-		return thisClass;
+		return _textClasses.add(taxonomyClassLabel, level);
 	}
 		
 	
@@ -290,7 +282,7 @@ public class CText {
 	public final int getTaxonomyClassOrder(final String label) {
 		int order = -1;
 		
-		if(_classesMap.containsKey(label) ) {
+		if(_textClasses.get(label) != null) {
 			
 			if( _instancesMap != null) {	
 				String tClassLabel = null;
@@ -352,19 +344,38 @@ public class CText {
 		 * Propagate the weight along all the taxonomy classes 
 		 * associated with each of the taxonomyObjects in this document document..
 		 */
-		for( CTaxonomyObject taxonomyObject : _instancesMap.values()) {
-			maxTaxonomyWeight = taxonomyObject.applyKirchoff(maxWeight);
-			if( maxTaxonomyWeight > _maxClassWeight) {
-				_maxClassWeight = maxTaxonomyWeight;
-			}
+		maxTaxonomyWeight = _textClasses.applyKirchoff(_instancesMap.values(), maxWeight);
+		if( maxTaxonomyWeight > _maxClassWeight) {
+			_maxClassWeight = maxTaxonomyWeight;
 		}
 		
-		for( ATaxonomyNode taxonomyClass : _classesMap.values()) {
-			taxonomyClass.normalize(_maxClassWeight);
-		}
+		_textClasses.normalize(_maxClassWeight);
 	}
 
 
+		/**
+		 * <p>Estimate the memory footprint of this document from the number
+		 * of sentences, taxonomy objects and taxonomy classes.</p>
+		 * @return approximate size of the document in bytes
+		 */
+	@Override
+	public long getApproximateSize() {
+		long size = OBJECT_SIZE + getApproximateSize(_title);
+		
+		if( _sentences != null) {
+			for( String sentence : _sentences) {
+				size += getApproximateSize(sentence);
+			}
+		}
+		if( _instancesMap != null) {
+			size += _instancesMap.size()*NODE_SIZE;
+		}
+		size += _textClasses.size()*NODE_SIZE;
+		
+		return size;
+	}
+	
+	
 		/**
 		 * <p>Test if the analysis of this document document has been completed.</p>
 		 * @return true if the analysis was completed, false otherwise.
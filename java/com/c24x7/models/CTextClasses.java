@@ -0,0 +1,311 @@
+// Copyright (C) 2010-2012 Patrick Nicolas
+package com.c24x7.models;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import com.c24x7.util.collections.CObjectIntMap;
+
+
+
+		/**
+		 * <p>Taxonomy classes of a document. The labels of the classes are shared through
+		 * the process wide taxonomy dictionary; the document only keeps, for each of its classes,
+		 * the identifier of the class in the dictionary, its level, weight, number of
+		 * lineages and text index, in arrays indexed by the order in which the classes
+		 * are added to the document. The taxonomy classes referenced by the lineages of
+		 * the taxonomy objects are views on these arrays.</p>
+		 * <p>The lineages of the taxonomy objects are recorded as sequences of indices
+		 * of classes, so the weights of the taxonomy objects are propagated to the classes
+		 * in a single pass over arrays of integers.</p>
+		 * @see com.c24x7.models.CTaxonomyDictionary
+		 * @author Patrick Nicolas
+		 * @date 07/25/2012
+		 */
+public final class CTextClasses {
+	private final static int MIN_CAPACITY = 16;
+
+
+	private CObjectIntMap<String> 	_indices 		= new CObjectIntMap<String>();
+	private CTaxonomyClass[]		_classes 		= new CTaxonomyClass[MIN_CAPACITY];
+	private int[]					_classIds 		= new int[MIN_CAPACITY];
+	private short[]					_levels 		= new short[MIN_CAPACITY];
+	private float[]					_weights 		= new float[MIN_CAPACITY];
+	private int[]					_counts 		= new int[MIN_CAPACITY];
+	private short[]					_textIndices 	= new short[MIN_CAPACITY];
+	private int						_size 			= 0;
+	
+	private Map<CTaxonomyObject, Integer> _objectIndices = new IdentityHashMap<CTaxonomyObject, Integer>();
+	private int[]					_objectNumLineages 	= new int[MIN_CAPACITY];
+	private int[]					_lineageObjects 	= new int[MIN_CAPACITY];
+	private int[]					_lineageEnds 		= new int[MIN_CAPACITY];
+	private int[]					_lineageClasses 	= new int[MIN_CAPACITY << 2];
+	private int						_numLineages 		= 0;
+
+
+		/**
+		 * <p>Retrieve a class of the document, adding it to the document and to the
+		 * taxonomy dictionary if it has not been seen before. The number of lineages of the
+		 * class is incremented.</p>
+		 * @param label label of the taxonomy class
+		 * @param level level of the class in the lineage
+		 * @return taxonomy class of this document
+		 */
+	public CTaxonomyClass add(final String label, short level) {
+		int index = _indices.get(label, -1);
+
+		if( index == -1) {
+			final CTaxonomyDictionary taxonomyDictionary = CTaxonomyDictionary.getInstance();
+			final int classId = taxonomyDictionary.add(label);
+
+			if( _size == _classIds.length) {
+				grow(_size << 1);
+			}
+			index = _size++;
+			_classIds[index] = classId;
+			_levels[index] = level;
+			_weights[index] = 0.0F;
+			_counts[index] = 0;
+			_textIndices[index] = 0;
+			_classes[index] = new CTaxonomyClass(this, index, taxonomyDictionary.getLabel(classId));
+			_indices.put(_classes[index].getLabel(), index);
+		}
+		_counts[index]++;
+
+		return _classes[index];
+	}
+
+
+		/**
+		 * <p>Record a lineage of taxonomy classes of a taxonomy object of this document.
+		 * The classes of the lineage which are not classes of this document are skipped.</p>
+		 * @param instance taxonomy object the lineage is attached to
+		 * @param taxonomyNodes lineage of taxonomy classes, from the root class
+		 */
+	public void link(final CTaxonomyObject instance, final ATaxonomyNode[] taxonomyNodes) {
+		Integer objectIndex = _objectIndices.get(instance);
+		if( objectIndex == null) {
+			objectIndex = Integer.valueOf(_objectIndices.size());
+			_objectIndices.put(instance, objectIndex);
+			_objectNumLineages = ensureCapacity(_objectNumLineages, objectIndex.intValue()+1, objectIndex.intValue());
+		}
+		_objectNumLineages[objectIndex.intValue()]++;
+		
+		final int start = (_numLineages > 0) ? _lineageEnds[_numLineages-1] : 0;
+		_lineageObjects = ensureCapacity(_lineageObjects, _numLineages+1, _numLineages);
+		_lineageEnds = ensureCapacity(_lineageEnds, _numLineages+1, _numLineages);
+		_lineageClasses = ensureCapacity(_lineageClasses, start + taxonomyNodes.length, start);
+		
+		int end = start;
+		for( int k = 0; k < taxonomyNodes.length; k++) {
+			if( taxonomyNodes[k] instanceof CTaxonomyClass && ((CTaxonomyClass)taxonomyNodes[k]).isClassOf(this) ) {
+				_lineageClasses[end++] = ((CTaxonomyClass)taxonomyNodes[k]).getIndex();
+			}
+		}
+		_lineageObjects[_numLineages] = objectIndex.intValue();
+		_lineageEnds[_numLineages++] = end;
+	}
+
+
+	public final CTaxonomyClass get(final String label) {
+		int index = _indices.get(label, -1);
+		return (index != -1) ? _classes[index] : null;
+	}
+
+	public final CTaxonomyClass get(int index) {
+		return _classes[checkIndex(index)];
+	}
+
+	public final int size() {
+		return _size;
+	}
+
+	public final int getClassId(int index) {
+		return _classIds[checkIndex(index)];
+	}
+
+	public final short getLevel(int index) {
+		return _levels[checkIndex(index)];
+	}
+
+	public void setLevel(int index, short level) {
+		_levels[checkIndex(index)] = level;
+	}
+
+	public final float getWeight(int index) {
+		return _weights[checkIndex(index)];
+	}
+
+	public final int getCount(int index) {
+		return _counts[checkIndex(index)];
+	}
+
+	public final short getTextIndex(int index) {
+		return _textIndices[checkIndex(index)];
+	}
+
+	public void setTextIndex(int index, short textIndex) {
+		_textIndices[checkIndex(index)] = textIndex;
+	}
+
+
+		/**
+		 * <p>Add a contribution to the weight of a class.</p>
+		 * @param index index of the class in this document
+		 * @param weight contribution to add to the weight of the class
+		 * @return updated weight of the class
+		 */
+	public float addWeight(int index, float weight) {
+		_weights[checkIndex(index)] += weight;
+		return _weights[index];
+	}
+
+
+	public void normalize(int index, float maxWeight) {
+		_weights[checkIndex(index)] /= maxWeight;
+	}
+
+
+		/**
+		 * <p>Normalize the weights of all the classes of the document.</p>
+		 * @param maxWeight maximum weight of any class of the document
+		 */
+	public void normalize(float maxWeight) {
+		for( int k = 0; k < _size; k++) {
+			_weights[k] /= maxWeight;
+		}
+	}
+
+
+		/**
+		 * <p>Propagate the weights of the taxonomy objects of the document to the
+		 * classes of their lineages using the Kirchoff's law. The weight of each object
+		 * is normalized by the maximum weight of any object and divided among its lineages.
+		 * The weight of each lineage is then added to its classes in a single pass over
+		 * the recorded lineages. The objects which lineages were not all recorded through
+		 * this document propagate their weight themselves.</p>
+		 * @param taxonomyObjects taxonomy objects of the document
+		 * @param maxWeight maximum weight of any taxonomy object within the document
+		 * @return maximum weight of the classes of the lineages, Float.MIN_VALUE if no weight was propagated
+		 */
+	public float applyKirchoff(final Collection<CTaxonomyObject> taxonomyObjects, float maxWeight) {
+		float maxClassWeight = Float.MIN_VALUE;
+		
+			/*
+			 * Weight of a lineage for each of the recorded taxonomy objects,
+			 * NaN if the object does not propagate its weight.
+			 */
+		float[] lineageWeights = new float[_objectIndices.size()];
+		Arrays.fill(lineageWeights, Float.NaN);
+		
+		float weight = 0.0F,
+			  classWeight = 0.0F;
+		Integer objectIndex = null;
+		for( CTaxonomyObject taxonomyObject : taxonomyObjects) {
+			weight = taxonomyObject.normalizeLineageWeight(maxWeight);
+			
+			if( !Float.isNaN(weight) ) {
+				objectIndex = _objectIndices.get(taxonomyObject);
+				if( objectIndex != null && 
+					_objectNumLineages[objectIndex.intValue()] == taxonomyObject.getTaxonomyNodesList().size()) {
+					lineageWeights[objectIndex.intValue()] = weight;
+				}
+				else {
+					classWeight = taxonomyObject.propagateLineageWeight(weight);
+					if( classWeight > maxClassWeight) {
+						maxClassWeight = classWeight;
+					}
+				}
+			}
+		}
+		
+		final float[] weights = _weights;
+		final int[] lineageClasses = _lineageClasses;
+		for( int lineage = 0, start = 0; lineage < _numLineages; lineage++) {
+			final int end = _lineageEnds[lineage];
+			weight = lineageWeights[_lineageObjects[lineage]];
+			if( !Float.isNaN(weight) ) {
+				for( int k = start; k < end; k++) {
+					weights[lineageClasses[k]] += weight;
+				}
+			}
+			start = end;
+		}
+		
+		for( int k = 0; k < _size; k++) {
+			if( weights[k] > maxClassWeight) {
+				maxClassWeight = weights[k];
+			}
+		}
+		
+		return maxClassWeight;
+	}
+
+
+		/**
+		 * <p>Create a map of the labels to the classes of this document.</p>
+		 * @return map of labels to taxonomy classes
+		 */
+	public Map<String, ATaxonomyNode> toMap() {
+		Map<String, ATaxonomyNode> classesMap = new HashMap<String, ATaxonomyNode>(_size << 1);
+		for( int k = 0; k < _size; k++) {
+			classesMap.put(_classes[k].getLabel(), _classes[k]);
+		}
+		return classesMap;
+	}
+
+
+
+						// ---------------------------
+						//  Supporting Private Methods
+						// ---------------------------
+
+	private void grow(int capacity) {
+		CTaxonomyClass[] classes = new CTaxonomyClass[capacity];
+		System.arraycopy(_classes, 0, classes, 0, _size);
+		_classes = classes;
+
+		int[] classIds = new int[capacity];
+		System.arraycopy(_classIds, 0, classIds, 0, _size);
+		_classIds = classIds;
+
+		short[] levels = new short[capacity];
+		System.arraycopy(_levels, 0, levels, 0, _size);
+		_levels = levels;
+
+		float[] weights = new float[capacity];
+		System.arraycopy(_weights, 0, weights, 0, _size);
+		_weights = weights;
+
+		int[] counts = new int[capacity];
+		System.arraycopy(_counts, 0, counts, 0, _size);
+		_counts = counts;
+
+		short[] textIndices = new short[capacity];
+		System.arraycopy(_textIndices, 0, textIndices, 0, _size);
+		_textIndices = textIndices;
+	}
+
+
+	private static int[] ensureCapacity(final int[] values, int capacity, int size) {
+		int[] newValues = values;
+		if( capacity > values.length) {
+			newValues = new int[Math.max(capacity, values.length << 1)];
+			System.arraycopy(values, 0, newValues, 0, size);
+		}
+		return newValues;
+	}
+
+
+	private int checkIndex(int index) {
+		if( index < 0 || index >= _size) {
+			throw new ArrayIndexOutOfBoundsException("Incorrect index " + index + " for " + _size + " taxonomy classes");
+		}
+		return index;
+	}
+}
+
+// -------------------------------  EOF ------------------------------------
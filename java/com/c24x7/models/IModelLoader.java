@@ -0,0 +1,35 @@
+// Copyright (C) 2010-2012 Patrick Nicolas
+package com.c24x7.models;
+
+import com.c24x7.exception.InitException;
+
+
+			/**
+			 * <p>Generic interface to load and validate a version of a
+			 * model or dictionary managed by the models registry. A new version is
+			 * loaded and warmed up by a background thread while the current version
+			 * serves the requests. The replaced version is reclaimed by the garbage
+			 * collector, so the models must not hold resources other than memory.</p>
+			 * @see com.c24x7.models.CModelRegistry
+			 * @author Patrick Nicolas
+			 * @date 07/12/2012
+			 */
+public interface IModelLoader<T> {
+
+		/**
+		 * <p>Load a new version of the model from its files.</p>
+		 * @return new instance of the model
+		 * @throws InitException if the model cannot be loaded
+		 */
+	public T load() throws InitException;
+
+		/**
+		 * <p>Validate a new version of the model before it becomes active,
+		 * by exercising it on a few queries.</p>
+		 * @param model new version of the model
+		 * @throws InitException if the model is invalid and should not be activated
+		 */
+	public void warmUp(T model) throws InitException;
+}
+
+// ----------------------------  EOF ------------------------------------
@@ -754,7 +754,14 @@ public final class CNGramsClassifier {
 			if( nGramsFrequencyStats != null) {
 				NTaxonomiesConn taxonomyConnection = CTaxonomyConnectionsPool.getInstance().getLabelsAndCatsConnection();
 				CTaxonomyExtractor taxonomyExtractor = new CTaxonomyExtractor(taxonomyConnection);
-				if( taxonomyExtractor.extract(document) ) {
+				boolean extracted = false;
+				try {
+					extracted = taxonomyExtractor.extract(document);
+				}
+				finally {
+					CTaxonomyConnectionsPool.getInstance().release(taxonomyConnection);
+				}
+				if( extracted ) {
 					
 						/*
 						 * Walk through the list of taxonomyInstance nouns from
@@ -5,6 +5,9 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
+import com.c24x7.exception.InitException;
+import com.c24x7.models.CModelRegistry;
+import com.c24x7.models.IModelLoader;
 import com.c24x7.util.CEnv;
 import com.c24x7.util.CFileUtil;
 import com.c24x7.util.logs.CLogger;
@@ -37,43 +40,71 @@ public final class CNGramsModel {
 	private float _minNGramFreq 		= CEnv.UNINITIALIZED_FLOAT;
 	private float _maxNGramFreq 		= CEnv.UNINITIALIZED_FLOAT;
 	
-	private static CNGramsModel instance = null;
+
+		/**
+		 * <p>Loader of the versions of the N-Grams frequency model managed by the models registry.</p>
+		 * @see com.c24x7.models.CModelRegistry
+		 */
+	private static class NNGramsModelLoader implements IModelLoader<CNGramsModel> {
+		@Override
+		public CNGramsModel load() throws InitException {
+			CNGramsModel model = new CNGramsModel();
+			try {
+				if( !model.loadModel() ) {
+					throw new InitException("Improper NGrams Frequency Model Format");
+				}
+			}
+			catch (NumberFormatException e) {
+				throw new InitException(e);
+			}
+			catch(IOException e) {
+				throw new InitException(e);
+			}
+			return model;
+		}
+		
+		@Override
+		public void warmUp(CNGramsModel model) throws InitException {
+			if( model._minNGramFreq > model._maxNGramFreq) {
+				throw new InitException("Incorrect range of NGrams frequency " + model._minNGramFreq + ", " + model._maxNGramFreq);
+			}
+		}
+	}
 	
 	
 		/**
 		 * <p>Method to initialize the N-Grams frequency model, loaded as launch time.
-		 * This method is called by the initialization routine, CEnv.init()</p>
+		 * This method is called by the initialization routine, CEnv.init(). The model
+		 * is registered so it can be reloaded through the models registry.</p>
 		 *  
 		 * @see com.c24x7.util.CEnv.init()
 		 * @return true if initialize of the model succeeds, false otherwise
 		 */
 	
 	public static boolean init() {
-		instance = new CNGramsModel();
+		boolean succeed = false;
+		
 		try {
-			if( !instance.loadModel() ) {
-				throw new IOException("Improper NGrams Frequency Model Format");
-			}
-		}
-		catch (NumberFormatException e) {
-			CLogger.error("Cannot initialize N-Grams frequency model " + e.toString());
-			instance = null;
+			NNGramsModelLoader loader = new NNGramsModelLoader();
+			CModelRegistry.register(CModelRegistry.NGRAMS_MODEL, loader);
+			CModelRegistry.publish(CModelRegistry.NGRAMS_MODEL, loader.load());
+			succeed = true;
 		}
-		catch(IOException e) {
+		catch(InitException e) {
 			CLogger.error("Cannot initialize N-Grams frequency model " + e.toString());
-			instance = null;
 		}
 		
-		return (instance != null);
+		return succeed;
 	}
 	
 	
 		/**
-		 * <p>Method to retrieve the N-Grams Frequency Model singleton</p>
-		 * @return singleton instance if initialization was successful, null otherwise
+		 * <p>Method to retrieve the N-Grams Frequency Model of the version of models used
+		 * by the current request.</p>
+		 * @return N-Grams Frequency Model if initialization was successful, null otherwise
 		 */
 	public static CNGramsModel getInstance() {
-		return instance;
+		return (CNGramsModel)CModelRegistry.get(CModelRegistry.NGRAMS_MODEL);
 	}
 	
 
@@ -6,6 +6,9 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 
+import com.c24x7.exception.InitException;
+import com.c24x7.models.CModelRegistry;
+import com.c24x7.models.IModelLoader;
 import com.c24x7.util.CEnv;
 import com.c24x7.util.CFileUtil;
 import com.c24x7.util.logs.CLogger;
@@ -34,36 +37,71 @@ public final class CTagsModel {
 		private static final long serialVersionUID = 8573712763479234387L;
 	}
 	
-	private static CTagsModel instance = null;
+	private static final String[] WARM_UP_TAGS = { "NN", "NNP", "JJ NN" };
+	
+		/**
+		 * <p>Loader of the versions of the tags model managed by the models registry.</p>
+		 * @see com.c24x7.models.CModelRegistry
+		 */
+	private static class NTagsModelLoader implements IModelLoader<CTagsModel> {
+		@Override
+		public CTagsModel load() throws InitException {
+			CTagsModel model = null;
+			try {
+				model = new CTagsModel();
+				model.loadModel();
+			}
+			catch( IOException e) {
+				throw new InitException(e);
+			}
+			catch( NumberFormatException e) {
+				throw new InitException(e);
+			}
+			return model;
+		}
+		
+		@Override
+		public void warmUp(CTagsModel model) throws InitException {
+			if( model._tagsDistribution[0].isEmpty()) {
+				throw new InitException("NGrams tag model is empty");
+			}
+			for( String tag : WARM_UP_TAGS) {
+				model.rank(tag);
+			}
+		}
+	}
 	
 	private NTagsDistribution[] _tagsDistribution = null;
 	
+	
 			/**
 			 * <p>Initialize the NGrams tag model. This static method is called
-			 * during the initialization of the application.</p>
+			 * during the initialization of the application. The model is registered 
+			 * so it can be reloaded through the models registry.</p>
 			 * @see com.c24x7.util.CEnv.init()
 			 * @return true if the model is correctly loaded and initialized, false otherwise.
 			 */
 	public static boolean init() {
+		boolean succeed = false;
+		
 		try {
-			instance = new CTagsModel();
-			instance.loadModel();
-		}
-		catch( IOException e) {
-			CLogger.error("Cannot load the NGrams tag model");
+			NTagsModelLoader loader = new NTagsModelLoader();
+			CModelRegistry.register(CModelRegistry.TAGS_MODEL, loader);
+			CModelRegistry.publish(CModelRegistry.TAGS_MODEL, loader.load());
+			succeed = true;
 		}
-		catch( NumberFormatException e) {
-			CLogger.error("Cannot load the NGrams tag model");
+		catch( InitException e) {
+			CLogger.error("Cannot load the NGrams tag model " + e.toString());
 		}
-		return (instance != null);
+		return succeed;
 	}
 	
 			/**
-			 * <p>Access the unique instance (Singleton) of the NGrams tag model.</p>
-			 * @return singleton for the NGrams tag model
+			 * <p>Access the NGrams tag model of the version of models used by the current request.</p>
+			 * @return NGrams tag model
 			 */
 	public static CTagsModel getInstance() {
-		return instance;
+		return (CTagsModel)CModelRegistry.get(CModelRegistry.TAGS_MODEL);
 	}
 	
 	
@@ -1,6 +1,7 @@
 // Copyright (C) 2010-2012 Patrick Nicolas
 package com.c24x7.models.taxonomy;
 
+import com.c24x7.exception.ClassifierException;
 import com.c24x7.mapred.AMapReduce;
 import com.c24x7.mapred.CTestMapReduce;
 import com.c24x7.mapred.CTrainingMapReduce;
@@ -23,16 +24,16 @@ import com.c24x7.util.logs.CLogger;
 			 * @date 02/02/2012
 			 * @see com.c24x7.models.learners.taxonomy.CTaxonomyModel
 			 */
-public final class CTaxonomyClassifier implements Runnable  {
+public final class CTaxonomyClassifier {
 	
 	
 	private AMapReduce		_mapReducer = null;
 	private int				_numThreads = 1;
-	private static boolean	completionFlag = false;
 
 	/**
 	 * <p>Create a classifier to generate a model for extracting the
 	 * taxonomy from content.</p>
+	 * @param numThreads number of threads used in the map/reduce jobs
 	 */
 	public CTaxonomyClassifier(int numThreads) { 
 		_numThreads = numThreads;
@@ -47,17 +48,17 @@ public final class CTaxonomyClassifier implements Runnable  {
 	
 	
 	
-	public void train() {
+	public void train() throws ClassifierException {
 		int maxid = (int)CDbpediaSql.getInstance().getNumEntries();
 		train(new int[] { 1, maxid-1 });
 	}
 	
 		/**
 		 * <p>Create a taxonomy model through supervised training using a list of Wikipedia records</p>
-		 * @param indexStart index of the first Wikipedia record used in the training
-		 * @param indexEnd index of the last Wikipedia record used during training
+		 * @param range indices of the first and last Wikipedia records used in the training
+		 * @throws ClassifierException if one of the partitions of the training failed
 		 */
-	public void train(int[] range) {
+	public void train(int[] range) throws ClassifierException {
 		if( range == null || range.length < 2 || range[0] >= range[1]) {
 			throw new IllegalArgumentException("Ending index < Start index!");
 		}
@@ -73,24 +74,16 @@ public final class CTaxonomyClassifier implements Runnable  {
 		
 		CTaxonomyTrainingSets dataSets = new CTaxonomyTrainingSets(range[0], range[1]);
 		_mapReducer.map(range, dataSets);
-		/*
-		 * start the controlling thread
-		 */
-		if( _numThreads > 1 ) {
-			new Thread(this).start();
-		}
-		else {
-			_mapReducer.reduce();
-		}
+		_mapReducer.reduce();
 	}
 		
 
 		/**
 		 * <p>Validate the taxonomy model using a list of Wikipedia records</p>
-		 * @param indexStart index of the first Wikipedia record used in the validation process.
-		 * @param indexEnd index of the last Wikipedia record used during validation.
+		 * @param range indices of the first and last Wikipedia records used in the validation process.
+		 * @throws ClassifierException if one of the partitions of the validation failed
 		 */
-	public void validate(int[] range) {
+	public void validate(int[] range) throws ClassifierException {
 		if( range == null || range.length < 2 || range[0] >= range[1]) {
 			throw new IllegalArgumentException("Ending index < Start index!");
 		}
@@ -100,34 +93,17 @@ public final class CTaxonomyClassifier implements Runnable  {
 		CTaxonomyValidationSets dataSets = new CTaxonomyValidationSets(range[0], range[1]);
 		
 		_mapReducer.map(range, dataSets);
-		
-		if( _numThreads > 1) {
-			new Thread(this).start();
-			
-			while( !completionFlag ) {
-				try {
-					Thread.sleep(10000);
-				}
-				catch( InterruptedException e) {
-					CLogger.error(e.toString());
-				}
-			}
-			
-			completionFlag = false;
-		}
-		else {
-			_mapReducer.reduce();
-		}
+		_mapReducer.reduce();
 	}
 	
 	
 
 		/**
-		 * <p>Validate the taxonomy model using a list of Wikipedia records</p>
-		 * @param indexStart index of the first Wikipedia record used in the validation process.
-		 * @param indexEnd index of the last Wikipedia record used during validation.
+		 * <p>Test the taxonomy model using a list of Wikipedia records</p>
+		 * @param range indices of the first and last Wikipedia records used in the test.
+		 * @throws ClassifierException if one of the partitions of the test failed
 		 */
-	public void test(int[] range) {
+	public void test(int[] range) throws ClassifierException {
 		if( range == null || range.length < 2 || range[0] >= range[1]) {
 			throw new IllegalArgumentException("Ending index < Start index!");
 		}
@@ -139,18 +115,6 @@ public final class CTaxonomyClassifier implements Runnable  {
 		_mapReducer.reduce();
 	}
 
-
-		
-	
-	/**
-	 * <p>Main thread for executing the reduce task for training, clustering
-	 * and validation of the taxonomy model.</p>
-	 */
-	public void run() {
-		_mapReducer.reduce();
-		completionFlag = true;
-	}
-	
 	
 	private void loggingSetup() {
 		CLogger.setLoggerInfo(CLogger.TAXONOMY_TRAIN_TRACE);
@@ -7,6 +7,8 @@ import java.util.List;
 
 import com.c24x7.exception.InitException;
 import com.c24x7.models.ATaxonomyNode;
+import com.c24x7.models.CModelRegistry;
+import com.c24x7.models.IModelLoader;
 import com.c24x7.models.metrics.CLineagePathDistance;
 import com.c24x7.models.metrics.ILineageDistance;
 import com.c24x7.util.CEnv;
@@ -42,7 +44,6 @@ public final class CTaxonomyModel {
 	private static final int AVE_LENGH_INDEX		= 2;
 	private static final int WEIGHTS_MEAN_INDEX 	= 3;
 	
-	private static CTaxonomyModel instance = null;
 	public static int numClasses = NUM_CLASSES;
 	
 	
@@ -180,36 +181,96 @@ public final class CTaxonomyModel {
 		}
 	}
 	
+		/**
+		 * <p>Loader of the versions of the taxonomy model managed by the models registry.</p>
+		 * @see com.c24x7.models.CModelRegistry
+		 */
+	private static class NTaxonomyModelLoader implements IModelLoader<CTaxonomyModel> {
+		private NModelParams _modelParams = null;
+		
+		private NTaxonomyModelLoader(NModelParams modelParams) {
+			_modelParams = modelParams;
+		}
+		
+		@Override
+		public CTaxonomyModel load() throws InitException {
+			CTaxonomyModel model = new CTaxonomyModel(_modelParams);
+			try {
+				if( !model.loadModel() ) {
+					throw new InitException("Cannot load Wordnet model " + model.getModelFileName());
+				}
+			}
+			catch( ArrayIndexOutOfBoundsException e) {
+				throw new InitException("Cannot initialize Wordnet model");
+			}
+			return model;
+		}
+		
+			/**
+			 * <p>Validate a new version of the taxonomy model, which requires
+			 * at least one class of lineage.</p>
+			 */
+		@Override
+		public void warmUp(CTaxonomyModel model) throws InitException {
+			boolean loaded = false;
+			for( int k = 0; !loaded && k < model._lineageModelClasses.length; k++) {
+				loaded = (model._lineageModelClasses[k] != null);
+			}
+			if( !loaded || model._weightsRange == null) {
+				throw new InitException("Wordnet model " + model.getModelFileName() + " has no lineage class");
+			}
+		}
+	}
+	
+	
 	public static void init() throws InitException {
 		init(null);
 	}
 	
 		/**
 		 * <p>Initialize the features for the taxonomy model by loading 
-		 * the parameters from files.
-		 * @return true if the parameters are properly loaded, false otherwise
+		 * the parameters from files. The model is published in the models
+		 * registry once loaded and validated, and registered so it can be
+		 * reloaded through the registry. The model in training, if any, is
+		 * replaced by the loaded model.</p>
+		 * @throws InitException if the parameters cannot be loaded or are invalid
 		 */
 	public static void init(NModelParams modelParams) throws InitException {
-			instance = new CTaxonomyModel(modelParams);
-		try {
-			instance.loadModel();
-		}
-		catch( ArrayIndexOutOfBoundsException e) {
-			throw new InitException("Cannot initialize Wordnet model");
-		}	
+		NTaxonomyModelLoader loader = new NTaxonomyModelLoader(modelParams);
+		CTaxonomyModel model = loader.load();
+		loader.warmUp(model);
+		CModelRegistry.register(CModelRegistry.TAXONOMY_MODEL, loader);
+		CModelRegistry.publish(CModelRegistry.TAXONOMY_MODEL, model);
+		trainingModel = null;
 	}
 	
-	
+		/**
+		 * <p>Retrieve the taxonomy model in training, or the taxonomy model of the
+		 * version of models used by the current request.</p>
+		 * @return taxonomy model, null if the model is not initialized
+		 */
 	public static CTaxonomyModel getInstance() {
-		return instance;
+		CTaxonomyModel model = trainingModel;
+		return (model != null) ? model : (CTaxonomyModel)CModelRegistry.get(CModelRegistry.TAXONOMY_MODEL);
 	}
 	
+		/**
+		 * <p>Create a new taxonomy model, to be trained, for a set of parameters. The
+		 * model is used by the training only and is not published in the models registry;
+		 * the trained model is published by loading it once saved.</p>
+		 * @param modelParams parameters of the model
+		 * @return new taxonomy model
+		 * @see com.c24x7.models.taxonomy.CTaxonomyModel#init(NModelParams)
+		 */
 	public static CTaxonomyModel getInstance(NModelParams modelParams) {
-		instance = new CTaxonomyModel(modelParams);
-		return instance;
+		CTaxonomyModel model = new CTaxonomyModel(modelParams);
+		trainingModel = model;
+		return model;
 	}
 	
 
+	private static volatile CTaxonomyModel trainingModel = null;
+
 	private NModelParams 			_modelParams 		= null;
 	private NTaxonomyLineageModel[] _lineageModelClasses = null;
 	private float[]		 			_weightsRange		= null; 
@@ -323,6 +323,7 @@ public final class CTaxonomyModelStats implements IModelStats {
 	
 	
 	private Map<Integer, List<NTaxonomyClassStats>> _taxonomyClassesMap = null;
+	private List<NTaxonomyClassStats> 				_observationsList 	= null;
 	
 
 	/**
@@ -333,6 +334,38 @@ public final class CTaxonomyModelStats implements IModelStats {
 	public CTaxonomyModelStats() {
 		super();
 		_taxonomyClassesMap = new HashMap<Integer, List<NTaxonomyClassStats>>();
+		_observationsList = new ArrayList<NTaxonomyClassStats>();
+	}
+	
+	
+		/**
+		 * <p>Create an empty statistics set for a partition of the training sets.</p>
+		 * @return new statistics set
+		 */
+	public IModelStats create() {
+		return new CTaxonomyModelStats();
+	}
+	
+		/**
+		 * <p>Collect the observations generated by a partition of the training sets.</p>
+		 * @param dataSet training sets of a partition
+		 * @exception IllegalArgumentException if the data set is not a taxonomy training set.
+		 */
+	public void collect(IDataSets dataSet) {
+		if( !(dataSet instanceof CTaxonomyTrainingSets)) {
+			throw new IllegalArgumentException("Cannot collect taxonomy model statistics from " + dataSet);
+		}
+		_observationsList.addAll(((CTaxonomyTrainingSets)dataSet).getObservationsList());
+	}
+	
+		/**
+		 * <p>Combine the observations of the statistics set of another partition.</p>
+		 * @param stats statistics set of a partition
+		 */
+	public void combine(IModelStats stats) {
+		if( stats != null) {
+			_observationsList.addAll(((CTaxonomyModelStats)stats)._observationsList);
+		}
 	}
 	
 			/**
@@ -342,16 +375,10 @@ public final class CTaxonomyModelStats implements IModelStats {
 			 * the normalized frequencies of the taxonomy classes and the normalized
 			 * weights of the taxonomy classes.</p>
 			 * 
-			 * @param observationsList list of observations collect during the training or validation.
-			 * @exception IllegalArgumentException if the observations list is undefined.
 			 */
 	
-	public boolean compute(IDataSets dataSet) {
-		List<NTaxonomyClassStats> observationsList = CTaxonomyTrainingSets.getObservationsList();
-			
-		if( observationsList == null) {
-			throw new IllegalArgumentException("Cannot compute model parameters from undefined observations");
-		}
+	public boolean compute() {
+		List<NTaxonomyClassStats> observationsList = _observationsList;
 		
 		NTaxonomyClassStats[] modelStats = null;
 		if( observationsList.size() >= MIN_NUM_OBSERVATIONS ) {
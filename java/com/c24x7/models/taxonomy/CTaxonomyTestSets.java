@@ -162,6 +162,7 @@ public class CTaxonomyTestSets extends ATaxonomyDataSets {
 			
 				NLikelihood selection = new NLikelihood();
 				ATaxonomyNode[] bestTaxonomyLineage = hypernymsGenerator.getRelevantClasses(title, content, categoriesList, selection);
+				hypernymsGenerator.close();
 				
 				StringBuilder results = null;
 				if( bestTaxonomyLineage != null) {
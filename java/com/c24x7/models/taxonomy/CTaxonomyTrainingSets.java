@@ -4,7 +4,7 @@ package com.c24x7.models.taxonomy;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 import com.c24x7.exception.SemanticAnalysisException;
@@ -28,13 +28,16 @@ public class CTaxonomyTrainingSets extends ATaxonomyDataSets {
 	private static final String CATEGORY_PREPARED_STATEMENT = "SELECT lgAbstract FROM 24x7c.dbpedia WHERE label=?;";
 		
 	protected CSqlPreparedStmt		  		_pCatStmt 	= null;
-	private static List<NTaxonomyClassStats> observationsList = null;
+	private List<NTaxonomyClassStats> 		_observationsList = new ArrayList<NTaxonomyClassStats>();
 
 	
 
-
-	public static List<NTaxonomyClassStats> getObservationsList() {
-		return observationsList;
+		/**
+		 * <p>Retrieve the observations collected by this partition of the training sets.</p>
+		 * @return list of statistics for the taxonomy classes
+		 */
+	public List<NTaxonomyClassStats> getObservationsList() {
+		return _observationsList;
 	}
 	
 	public IDataSets create(int startIndex, int endIndex) {
@@ -61,10 +64,6 @@ public class CTaxonomyTrainingSets extends ATaxonomyDataSets {
 		 */
 	protected CTaxonomyTrainingSets(int startIndex, int endIndex) {
 		super(startIndex, endIndex);
-		
-		if( observationsList == null) {
-			observationsList = new LinkedList<NTaxonomyClassStats>();
-		}
 		_pCatStmt =  new CSqlPreparedStmt(CATEGORY_PREPARED_STATEMENT);
 	}
 
@@ -94,6 +93,7 @@ public class CTaxonomyTrainingSets extends ATaxonomyDataSets {
 		
 
 			CText document = semService.extract(lgAbstract, label, categoriesList);	
+			semService.close();
 			if( document != null) {
 				List<ATaxonomyNode[]> taxonomyClassesList = document.getTaxonomyClassesList();
 				
@@ -148,9 +148,7 @@ public class CTaxonomyTrainingSets extends ATaxonomyDataSets {
 		
 		for( ATaxonomyNode[] taxonomyClasses : taxonomyClassesList) {
 			int classNumber = CTaxonomyModel.getInstance().computeClass(taxonomyClasses, labeledTaxonomyLineage);
-			synchronized (lock ) {
-				observationsList.add(new NTaxonomyClassStats(taxonomyClasses, classNumber));
-			}
+			_observationsList.add(new NTaxonomyClassStats(taxonomyClasses, classNumber));
 		}
 				
 		//INFO
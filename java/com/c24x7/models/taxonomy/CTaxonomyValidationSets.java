@@ -183,6 +183,7 @@ public class CTaxonomyValidationSets extends ATaxonomyDataSets {
 				
 				NLikelihood selection = new NLikelihood();
 				ATaxonomyNode[] bestTaxonomyLineage = hypernymsGenerator.getRelevantClasses(title, content, categoriesList, selection);
+				hypernymsGenerator.close();
 				
 				double similarity = 0.0,
 				       maxSimilarity = -1.0;
@@ -159,13 +159,14 @@ public final class CTopicLabelsGeneration {
 	public int createLabels() throws ClassifierException {
 		int samples = 0;
 		List<String[]> fieldsList = new ArrayList<String[]>();
+		CTextSemanticService analyzer = null;
 		
 		try {
 				/*
 				 * Extract the fields of the training sets..
 				 */
 			CFileUtil.readBufferedFields(TOPICS_RAW_TRAINING_SETS_FILE, CEnv.ENTRIES_DELIM, fieldsList, 3);
-			CTextSemanticService analyzer = new CTextSemanticService();
+			analyzer = new CTextSemanticService();
 			CText document = null;
 			
 			StringBuilder buf = new StringBuilder();
@@ -209,6 +210,11 @@ public final class CTopicLabelsGeneration {
 		catch( SemanticAnalysisException e) {
 			throw new ClassifierException(e.toString());
 		}
+		finally {
+			if( analyzer != null) {
+				analyzer.close();
+			}
+		}
 
 		return samples;
 	}
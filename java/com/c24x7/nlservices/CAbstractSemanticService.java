@@ -69,6 +69,17 @@ public final class CAbstractSemanticService {
 
 	}
 	
+	
+	/**
+	 * <p>Release the taxonomy connection used in this service to the taxonomy connections pool.</p>
+	 */
+	public void close() {
+		if( _taxonomyConnection != null) {
+			CTaxonomyConnectionsPool.getInstance().release(_taxonomyConnection);
+			_taxonomyConnection = null;
+		}
+	}
+	
 	public void setTaxonomyLineages(String 	wordnetLineage,
 									String[] categoriesLineages) {
 		_wordnetLineage = wordnetLineage;
@@ -4,7 +4,6 @@
 package com.c24x7.nlservices;
 
 import java.io.IOException;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.LinkedList;
 import java.util.List;
@@ -29,14 +28,21 @@ import com.c24x7.util.string.CStringUtil;
 
 
 
+			/**
+			 * <p>Service that generates the taxonomy lineages of the Wikipedia entries. The
+			 * range of entries is scanned with a single query; only the entries without
+			 * taxonomy lineage are retrieved and their lineages are updated by batches.</p>
+			 * @author Patrick Nicolas
+			 */
 public class CDbpediaSemanticService implements Runnable {
-	private static final String PREPARED_STATEMENT 				= "SELECT label,wnet,lgabstract,categories FROM 24x7c.dbpedia WHERE id=?;";
+	private static final String[] QUERY_FIELDS 					= { "label", "lgabstract", "categories" };
+	private static final String QUERY_FILTER 					= "wnet=0 OR wnet IS NULL";
 	private static final String ADD_TAXONOMY_PREPARED_STATEMENT = "UPDATE 24x7c.dbpedia SET wordnet = ? WHERE id=?;";
 	
 	private static final String TAXONOMY_DUMP 					= CEnv.debugDir + "taxonomy_dump";
 	private static final int 	DISPLAY_FREQUENCY				= 500;
+	private static final int 	UPDATE_BATCH_SIZE				= 250;
 
-	private CSqlPreparedStmt	_pStmt 			= null;
 	private CSqlPreparedStmt	_pUpdateStmt 	= null;
 	private NTaxonomiesConn		_taxonomyCon	= null;
 	private	boolean				_excludeTitle	= false;
@@ -117,17 +123,24 @@ public class CDbpediaSemanticService implements Runnable {
 			 * taxonomy lineage associated to the label and abstract.
 			 */
 	public void run() {
-		String taxonomyLineage = null;
-		
 		System.out.println("Start thread at " + _startIndex);
-		for( int id = _startIndex; id <= _endIndex; id++) {
-			try {
-				taxonomyLineage = extractTaxonomy(id);
+		
+		final int[] count = new int[1];
+		CDbpediaSql.NRecordHandler handler = new CDbpediaSql.NRecordHandler() {
+			@Override
+			public void process(int id, final String[] record) throws SQLException {
+				String taxonomyLineage = extractTaxonomy(record[0], record[1], record[2]);
 				if( taxonomyLineage != null) {
 					writeTaxonomy(taxonomyLineage, id);
 				}
-				if(id % DISPLAY_FREQUENCY == 0) {
+				
+					/*
+					 * Record the last identifier processed once
+					 * the pending updates are committed.
+					 */
+				if(++count[0] % DISPLAY_FREQUENCY == 0) {
 					System.out.println(id);
+					_pUpdateStmt.flush();
 					try {
 						CFileUtil.write(TAXONOMY_DUMP + String.valueOf(_startIndex), String.valueOf(id));
 					}
@@ -136,9 +149,13 @@ public class CDbpediaSemanticService implements Runnable {
 					}
 				}
 			}
-			catch( SQLException e) {
-				CLogger.error("Failed to add taxonomy to Dbpedia " + e.toString());
-			}
+		};
+		
+		try {
+			CDbpediaSql.getInstance().scan(QUERY_FIELDS, QUERY_FILTER, _startIndex, _endIndex, false, handler);
+		}
+		catch( SQLException e) {
+			CLogger.error("Failed to add taxonomy to Dbpedia " + e.toString());
 		}
 		
 			/*
@@ -157,6 +174,18 @@ public class CDbpediaSemanticService implements Runnable {
 			 * Do not leave dangling sockets connection to Database.
 			 */
 		closeDbConnections();
+		close();
+	}
+	
+	
+	/**
+	 * <p>Release the taxonomy connection used in this service to the taxonomy connections pool.</p>
+	 */
+	public void close() {
+		if( _taxonomyCon != null) {
+			CTaxonomyConnectionsPool.getInstance().release(_taxonomyCon);
+			_taxonomyCon = null;
+		}
 	}
 	
 	
@@ -262,27 +291,14 @@ public class CDbpediaSemanticService implements Runnable {
 						//  Private Supporting Methods
 						// -----------------------------
 	
-	private String extractTaxonomy(int id) throws SQLException {		
+	private String extractTaxonomy(final String keyword, final String lgAbstract, final String categoriesStr) {		
 		String taxonomyLineageStr = null;
 		
-		_pStmt.set(1, id);		
-		ResultSet rs = _pStmt.query();
-		int wordnetHypernyms = -1;
-		String categoriesStr = null;
-		String lgAbstract = null;
-		String keyword = null;
-
-		if( rs.next() ) {
-			keyword = rs.getString("label");
-			wordnetHypernyms = rs.getInt("wnet");
-			categoriesStr = rs.getString("categories");
-			lgAbstract = rs.getString("lgabstract");
-		}
-		
 			/*
-			 * We only consider the Wikipedia records which do not have a taxonomy lineage
+			 * We only consider the Wikipedia records which do not have a taxonomy lineage, 
+			 * as selected by the filter of the scan.
 			 */
-		if(wordnetHypernyms == 0 ) {
+		if( keyword != null ) {
 			final String decodedKeyword = CStringUtil.decodeLatin1(keyword);
 			final String decodedLgAbstract = CStringUtil.decodeLatin1(lgAbstract);
 		
@@ -343,21 +359,17 @@ public class CDbpediaSemanticService implements Runnable {
 		_pUpdateStmt.set(1, encodedTaxonomyStr);
 		_pUpdateStmt.set(2, id);
 		
-		_pUpdateStmt.update();
+		_pUpdateStmt.addBatch();
 	}
 	
 
 
 	private void setDBConnections() {
-		_pStmt = new CSqlPreparedStmt(PREPARED_STATEMENT);
-		_pUpdateStmt =  new CSqlPreparedStmt(ADD_TAXONOMY_PREPARED_STATEMENT);
+		_pUpdateStmt =  new CSqlPreparedStmt(ADD_TAXONOMY_PREPARED_STATEMENT, UPDATE_BATCH_SIZE);
 	}
 	
 	
 	private void closeDbConnections() {
-		if( _pStmt != null ) {
-			_pStmt.close();
-		}
 		if( _pUpdateStmt != null ) {
 			_pUpdateStmt.close();
 		}
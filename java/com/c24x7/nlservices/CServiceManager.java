@@ -9,74 +9,282 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.c24x7.exception.SemanticAnalysisException;
+import com.c24x7.models.CModelRegistry;
+import com.c24x7.models.CModelRegistry.NModelsVersion;
 import com.c24x7.models.CTopicPoint;
+import com.c24x7.semantics.CTaxonomyConnectionsPool;
 import com.c24x7.topics.CTopicsMap;
+import com.c24x7.util.logs.CLogger;
 
 
 
+			/**
+			 * <p>Manager for the semantic analysis of a batch of documents. Each document
+			 * is analyzed by a task executed by a bounded pool of worker threads shared by all
+			 * the managers. The tasks lease their taxonomy connection from the shared taxonomy
+			 * connections pool for the duration of the analysis and use the version of the models
+			 * acquired when the batch started, even if the models are reloaded in the meantime.
+			 * The topics maps of the documents are merged either in the order the documents
+			 * were added or in the order the analyses complete. A task which exceeds the
+			 * per-document timeout is cancelled.</p>
+			 * @author Patrick Nicolas
+			 * @date 06/27/2012
+			 */
 public class CServiceManager implements Runnable {
-	private List<String> _inputTextList 	= null;
-	private List<String> _errorsList		= null;
-	
+	public static final long DEFAULT_DOCUMENT_TIMEOUT = 30000L;
+
+	private static ExecutorService 			executor 			= null;
+	private static ScheduledExecutorService timeoutScheduler 	= null;
+
+
+			/**
+			 * <p>Initialize the pool of worker threads shared by all the service managers.
+			 * This method has to be invoked before the first batch is executed.</p>
+			 * @param numWorkers number of worker threads
+			 * @throws IllegalArgumentException if the number of worker threads is out of range
+			 */
+	public static synchronized void init(int numWorkers) {
+		if( numWorkers < 1) {
+			throw new IllegalArgumentException("Incorrect number of workers for service manager " + String.valueOf(numWorkers));
+		}
+		if( executor == null) {
+			executor = Executors.newFixedThreadPool(numWorkers, new NWorkerFactory("semantic-worker-"));
+			timeoutScheduler = Executors.newSingleThreadScheduledExecutor(new NWorkerFactory("semantic-timeout-"));
+		}
+	}
+
+
+			/**
+			 * <p>Shutdown the pool of worker threads. The documents being analyzed
+			 * are interrupted.</p>
+			 */
+	public static synchronized void shutdown() {
+		if( executor != null) {
+			executor.shutdownNow();
+			timeoutScheduler.shutdownNow();
+			executor = null;
+			timeoutScheduler = null;
+		}
+	}
+
+
+	private static synchronized ScheduledExecutorService getTimeoutScheduler() {
+		return timeoutScheduler;
+	}
+
+	private static synchronized ExecutorService getExecutor() {
+		if( executor == null) {
+			int numWorkers = Math.min(Runtime.getRuntime().availableProcessors()*2,
+									  CTaxonomyConnectionsPool.getInstance().getMaxNumConnections());
+			init(numWorkers);
+		}
+		return executor;
+	}
+
+
+			/**
+			 * <p>Factory of daemon worker threads, so the pool of workers does not
+			 * prevent the application from terminating.</p>
+			 */
+	private static class NWorkerFactory implements ThreadFactory {
+		private String 			_prefix 		= null;
+		private AtomicInteger 	_threadIndex 	= new AtomicInteger(0);
+
+		private NWorkerFactory(final String prefix) {
+			_prefix = prefix;
+		}
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, _prefix + _threadIndex.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+
+			/**
+			 * <p>Task which extracts the topics map of a single document. The
+			 * task is cancelled if its execution exceeds the per-document timeout.</p>
+			 */
+	private final class NDocumentTask extends FutureTask<CTopicsMap> {
+		private int								_index 			 = -1;
+		private BlockingQueue<NDocumentTask> 	_completedQueue  = null;
+		private ScheduledExecutorService		_timeoutScheduler = null;
+
+		private NDocumentTask(	final String 					inputText, 
+								int 							index, 
+								BlockingQueue<NDocumentTask> 	completedQueue,
+								ScheduledExecutorService		timeoutScheduler,
+								final NModelsVersion			modelsVersion) {
+			super(new NDocumentAnalysis(inputText, modelsVersion));
+			_index = index;
+			_completedQueue = completedQueue;
+			_timeoutScheduler = timeoutScheduler;
+		}
+
+		@Override
+		public void run() {
+			final NDocumentTask thisTask = this;
+			ScheduledFuture<?> timeout = _timeoutScheduler.schedule(new Runnable() {
+				@Override
+				public void run() {
+					thisTask.cancel(true);
+				}
+			}, _documentTimeout, TimeUnit.MILLISECONDS);
+
+			try {
+				super.run();
+			}
+			finally {
+				timeout.cancel(false);
+			}
+		}
+
+		@Override
+		protected void done() {
+			_completedQueue.add(this);
+		}
+	}
+
+
+			/**
+			 * <p>Analysis of a document with the version of the models acquired
+			 * by the batch, so a reload of the models does not affect the documents
+			 * of a batch being analyzed.</p>
+			 */
+	private final class NDocumentAnalysis implements Callable<CTopicsMap> {
+		private String 			_inputText 		= null;
+		private NModelsVersion 	_modelsVersion 	= null;
+
+		private NDocumentAnalysis(final String inputText, final NModelsVersion modelsVersion) {
+			_inputText = inputText;
+			_modelsVersion = modelsVersion;
+		}
+
+		@Override
+		public CTopicsMap call() throws SemanticAnalysisException {
+			CTopicsMap topicsMap = new CTopicsMap();
+			CModelRegistry.acquire(_modelsVersion);
+			CTextSemanticService semanticService = null;
+
+			try {
+				semanticService = new CTextSemanticService();
+				semanticService.execute(_inputText, topicsMap);
+			}
+			finally {
+				if( semanticService != null) {
+					semanticService.close();
+				}
+				CModelRegistry.release(_modelsVersion);
+			}
+			return topicsMap;
+		}
+	}
+
+
+
+	private List<String> 		_inputTextList 		= null;
+	private List<String> 		_errorsList			= null;
+	private volatile List<NDocumentTask> _tasksList = null;
+	private CTopicsMap			_topicsMap			= null;
+	private long				_documentTimeout 	= DEFAULT_DOCUMENT_TIMEOUT;
+	private boolean				_ordered			= true;
+	private volatile boolean	_cancelled			= false;
+
 	public CServiceManager() {
 		_inputTextList = new ArrayList<String>();
 	}
-	
+
+		/**
+		 * <p>Create a service manager with a specific per-document timeout and
+		 * merge policy for the topics maps.</p>
+		 * @param documentTimeout maximum duration in milliseconds of the analysis of a document
+		 * @param ordered true if the topics maps are merged in the order of the documents, false if they are merged as the analyses complete.
+		 * @throws IllegalArgumentException if the timeout is not positive
+		 */
+	public CServiceManager(long documentTimeout, boolean ordered) {
+		this();
+		if( documentTimeout <= 0L) {
+			throw new IllegalArgumentException("Incorrect timeout for document analysis " + String.valueOf(documentTimeout));
+		}
+		_documentTimeout = documentTimeout;
+		_ordered = ordered;
+	}
+
 	public void addInputText(final String inputText) {
 		_inputTextList.add(inputText);
 	}
-	
+
+	public final List<String> getErrorsList() {
+		return _errorsList;
+	}
+
+	public final CTopicsMap getTopicsMap() {
+		return _topicsMap;
+	}
+
+
+		/**
+		 * <p>Analyze the batch of documents and merge their topics map.</p>
+		 */
 	public void run() {
-		CTextSemanticService semanticService = null;
-		
-		for(String inputText : _inputTextList) {
-			try {
-				semanticService = new CTextSemanticService();
-			}
-			catch( SemanticAnalysisException e) {
+		_topicsMap = extractTopicsMap();
+	}
+
+
+		/**
+		 * <p>Cancel the analysis of the batch of documents. The documents
+		 * being analyzed are interrupted and the pending documents are discarded.</p>
+		 */
+	public void cancel() {
+		_cancelled = true;
+
+		List<NDocumentTask> tasksList = _tasksList;
+		if( tasksList != null) {
+			for( NDocumentTask task : tasksList) {
+				task.cancel(true);
 			}
 		}
 	}
-	
-	
-	
+
+
+
 	public Collection<CTopicPoint> execute() {
 		return execute(null, null, null);
 	}
-			
-	
-	public Collection<CTopicPoint> execute(	StringBuilder matrixDimBuf, 
-											StringBuilder sentencesBuf, 
+
+
+	public Collection<CTopicPoint> execute(	StringBuilder matrixDimBuf,
+											StringBuilder sentencesBuf,
 											StringBuilder topicsBuf) {
-	
-		CTextSemanticService semanticService = null;
-		CTopicsMap topicsMap = new CTopicsMap();
+
+		CTopicsMap topicsMap = extractTopicsMap();
 		Map<String, CTopicPoint> topicPointsMap = null;
-		
-		int index = 0;
-		for(String inputText : _inputTextList) {
-			try {
-				semanticService = new CTextSemanticService();
-				semanticService.execute(inputText, topicsMap);
-				index++;
-			}
-			catch( SemanticAnalysisException e) {
-				if( _errorsList == null ) {
-					_errorsList = new LinkedList<String>();
-				}
-				_errorsList.add(new String(e.toString()));
-			}
-		}
-		
+		_topicsMap = topicsMap;
+
 		/*
 		 * Execute the topography service.
 		 */
 		CTopographyService topographicService = new CTopographyService();
 		topicPointsMap = new HashMap<String, CTopicPoint>();
 		topographicService.execute(topicsMap, topicPointsMap);
-	
+
 		/*
 		 * Collect the dimension of the XY matrix.
 		 */
@@ -85,12 +293,12 @@ public class CServiceManager implements Runnable {
 			matrixDimBuf.append(",");
 			matrixDimBuf.append(topographicService.getNumTopicsIndexes());
 		}
-		
+
 		if( sentencesBuf != null ) {
 			List<String> sentenceAbstractList = topographicService.getSentences();
 			int lastSentenceIndex = sentenceAbstractList.size()-1;
-			
-			index = 0;
+
+			int index = 0;
 			for(String sentenceAbstract : sentenceAbstractList) {
 				sentencesBuf.append(sentenceAbstract);
 				if( ++index < lastSentenceIndex) {
@@ -98,16 +306,99 @@ public class CServiceManager implements Runnable {
 				}
 			}
 		}
-			
+
 		if( topicsBuf != null ) {
 			for(String topic : topographicService.getTopics()) {
 				topicsBuf.append(topic);
 				topicsBuf.append("#");
 			}
 		}
-		
+
 		return topicPointsMap.values();
 	}
+
+
+
+						// ---------------------------
+						//  Supporting Private Methods
+						// ---------------------------
+
+		/**
+		 * <p>Submit the analysis of each document to the pool of workers and
+		 * merge the topics maps of the documents.</p>
+		 * @return topics map for the batch of documents.
+		 */
+	private CTopicsMap extractTopicsMap() {
+		CTopicsMap topicsMap = new CTopicsMap();
+		final int numDocuments = _inputTextList.size();
+
+		if( numDocuments > 0 && !_cancelled) {
+			NModelsVersion modelsVersion = CModelRegistry.acquire();
+			ExecutorService workers = getExecutor();
+			ScheduledExecutorService scheduler = getTimeoutScheduler();
+			BlockingQueue<NDocumentTask> completedQueue = new LinkedBlockingQueue<NDocumentTask>();
+			List<NDocumentTask> tasksList = new ArrayList<NDocumentTask>(numDocuments);
+
+			int index = 0;
+			for(String inputText : _inputTextList) {
+				tasksList.add(new NDocumentTask(inputText, index++, completedQueue, scheduler, modelsVersion));
+			}
+			_tasksList = tasksList;
+
+			for( NDocumentTask task : tasksList) {
+				workers.execute(task);
+			}
+			if( _cancelled) {
+				cancel();
+			}
+
+			try {
+				if( _ordered ) {
+					for( NDocumentTask task : tasksList) {
+						merge(topicsMap, task);
+					}
+				}
+				else {
+					for( index = 0; index < numDocuments; index++) {
+						merge(topicsMap, completedQueue.take());
+					}
+				}
+			}
+			catch( InterruptedException e) {
+				cancel();
+				Thread.currentThread().interrupt();
+				addError("Analysis of documents interrupted");
+			}
+			finally {
+				_tasksList = null;
+				CModelRegistry.release(modelsVersion);
+			}
+		}
+
+		return topicsMap;
+	}
+
+
+	private void merge(CTopicsMap topicsMap, final NDocumentTask task) throws InterruptedException {
+		try {
+			topicsMap.merge(task.get());
+		}
+		catch( CancellationException e) {
+			addError("Analysis of document " + task._index + " cancelled or timed out");
+		}
+		catch( ExecutionException e) {
+			addError("Analysis of document " + task._index + " failed " + e.getCause().toString());
+		}
+	}
+
+
+	private void addError(final String error) {
+		CLogger.error(error);
+		if( _errorsList == null ) {
+			_errorsList = new LinkedList<String>();
+		}
+		_errorsList.add(error);
+	}
 }
 
 // -----------------------------------  EOF ---------------------------------------
@@ -1,33 +1,386 @@
 // Copyright (C) 2010-2012 Patrick Nicolas
 package com.c24x7.nlservices;
 
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.c24x7.exception.SemanticAnalysisException;
 import com.c24x7.models.AModel;
 
-public class CSessionCache extends ConcurrentHashMap<String, AModel> {
-	/**
-	 * 
-	 */
-	protected static final long serialVersionUID = 7508031199549344849L;
+
+
+			/**
+			 * <p>Bounded cache of the models of documents analyzed during a session. The
+			 * models are evicted in least recently used order once the number of models or
+			 * their total weight exceeds the capacity of the cache, and once they have not been
+			 * accessed for longer than the idle timeout. The weight of a model is computed by
+			 * a weigher, by default the approximate memory footprint of the model. Concurrent
+			 * requests to load the same model are coalesced so a model is computed only once.</p>
+			 * @author Patrick Nicolas
+			 * @date 06/28/2012
+			 */
+public class CSessionCache {
+	public static final int 	DEFAULT_MAX_NUM_MODELS 	= 1024;
+	public static final long 	DEFAULT_MAX_WEIGHT 		= 64L*1024L*1024L;
+	public static final long 	DEFAULT_IDLE_TIMEOUT 	= 1800000L;
+
 	protected static CSessionCache sessionCache = null;
-	
-	public static CSessionCache getInstance() {
+
+
+			/**
+			 * <p>Function that computes the weight of a model in the cache.</p>
+			 */
+	public interface NWeigher {
+		public long weigh(final AModel model);
+	}
+
+			/**
+			 * <p>Function that computes a model which is not in the cache.</p>
+			 */
+	public interface NModelLoader {
+		public AModel load(final String sessionKey) throws SemanticAnalysisException;
+	}
+
+			/**
+			 * <p>Weigher that uses the approximate memory footprint of the model in bytes.</p>
+			 */
+	public static final NWeigher SIZE_WEIGHER = new NWeigher() {
+		@Override
+		public long weigh(final AModel model) {
+			return model.getApproximateSize();
+		}
+	};
+
+			/**
+			 * <p>Weigher that assigns the same weight to each model, so the
+			 * cache is bounded by its number of models only.</p>
+			 */
+	public static final NWeigher UNIT_WEIGHER = new NWeigher() {
+		@Override
+		public long weigh(final AModel model) {
+			return 1L;
+		}
+	};
+
+
+			/**
+			 * <p>Initialize the singleton of session cache with a specific configuration.
+			 * This method has to be invoked before the first call to getInstance.</p>
+			 * @param maxNumModels maximum number of models in the cache
+			 * @param maxWeight maximum total weight of the models in the cache
+			 * @param idleTimeout time in milliseconds after which a model which has not been accessed is evicted
+			 * @param weigher function that computes the weight of a model
+			 * @throws IllegalArgumentException if the configuration is out of bounds
+			 */
+	public static synchronized void init(int maxNumModels, long maxWeight, long idleTimeout, NWeigher weigher) {
+		if( maxNumModels < 1 || maxWeight < 1L || idleTimeout < 1L) {
+			throw new IllegalArgumentException("Incorrect capacity for session cache " + String.valueOf(maxNumModels) + "," + String.valueOf(maxWeight));
+		}
+		if( weigher == null) {
+			throw new IllegalArgumentException("Cannot create a session cache with undefined weigher");
+		}
+		if( sessionCache == null ) {
+			sessionCache = new CSessionCache(maxNumModels, maxWeight, idleTimeout, weigher);
+		}
+	}
+
+	public static synchronized CSessionCache getInstance() {
 		if( sessionCache == null ) {
-			sessionCache = new  CSessionCache();
+			sessionCache = new CSessionCache(DEFAULT_MAX_NUM_MODELS, DEFAULT_MAX_WEIGHT, DEFAULT_IDLE_TIMEOUT, SIZE_WEIGHER);
 		}
 		return sessionCache;
 	}
-	
-	
+
+
+	private static final class NEntry {
+		private AModel	_model 			= null;
+		private long 	_weight 		= 0L;
+		private long	_lastAccessTime = 0L;
+
+		private NEntry(final AModel model, long weight, long accessTime) {
+			_model = model;
+			_weight = weight;
+			_lastAccessTime = accessTime;
+		}
+	}
+
+
+	private LinkedHashMap<String, NEntry> 					_entriesMap 	= null;
+	private ConcurrentMap<String, FutureTask<AModel>> 	_loadingTasks 	= null;
+	private NWeigher 	_weigher 		= null;
+	private int 		_maxNumModels 	= DEFAULT_MAX_NUM_MODELS;
+	private long 		_maxWeight 		= DEFAULT_MAX_WEIGHT;
+	private long 		_idleTimeout 	= DEFAULT_IDLE_TIMEOUT;
+	private long 		_weight 		= 0L;
+	private AtomicLong	_numHits 		= new AtomicLong(0L);
+	private AtomicLong	_numMisses 		= new AtomicLong(0L);
+	private AtomicLong	_numLoads 		= new AtomicLong(0L);
+	private AtomicLong	_numEvictions 	= new AtomicLong(0L);
+
+
+	protected CSessionCache(int maxNumModels, long maxWeight, long idleTimeout, NWeigher weigher) {
+		_entriesMap = new LinkedHashMap<String, NEntry>(16, 0.75F, true);
+		_loadingTasks = new ConcurrentHashMap<String, FutureTask<AModel>>();
+		_maxNumModels = maxNumModels;
+		_maxWeight = maxWeight;
+		_idleTimeout = idleTimeout;
+		_weigher = weigher;
+	}
+
+
+		/**
+		 * <p>Retrieve the model associated with a session key.</p>
+		 * @param sessionKey key of the model
+		 * @return model if it is in the cache and has not expired, null otherwise.
+		 */
 	public AModel get(final String sessionKey) {
-		CSessionCache session = getInstance(); 
-		return session.get(sessionKey);
+		AModel model = lookup(sessionKey);
+		if( model != null) {
+			_numHits.incrementAndGet();
+		}
+		else {
+			_numMisses.incrementAndGet();
+		}
+		return model;
+	}
+
+
+		/**
+		 * <p>Retrieve the model associated with a session key, or compute and cache it
+		 * if it is not in the cache. Threads requesting the same missing model wait for
+		 * the first thread to compute it, so a model is never computed twice.</p>
+		 * @param sessionKey key of the model
+		 * @param loader function that computes the model if it is not in the cache
+		 * @return model associated with the session key
+		 * @throws SemanticAnalysisException if the model cannot be computed
+		 */
+	public AModel get(final String sessionKey, final NModelLoader loader) throws SemanticAnalysisException {
+		if( sessionKey == null || loader == null) {
+			throw new IllegalArgumentException("Cannot load model with undefined key or loader");
+		}
+
+		AModel model = get(sessionKey);
+		if( model == null) {
+			FutureTask<AModel> loadingTask = new FutureTask<AModel>(new Callable<AModel>() {
+				@Override
+				public AModel call() throws SemanticAnalysisException {
+					AModel loadedModel = lookup(sessionKey);
+					if( loadedModel == null) {
+						loadedModel = loader.load(sessionKey);
+						_numLoads.incrementAndGet();
+						if( loadedModel != null) {
+							put(sessionKey, loadedModel);
+						}
+					}
+					return loadedModel;
+				}
+			});
+
+			FutureTask<AModel> existingTask = _loadingTasks.putIfAbsent(sessionKey, loadingTask);
+			if( existingTask == null) {
+				existingTask = loadingTask;
+				loadingTask.run();
+			}
+
+			try {
+				model = existingTask.get();
+			}
+			catch( ExecutionException e) {
+				if( e.getCause() instanceof SemanticAnalysisException) {
+					throw (SemanticAnalysisException)e.getCause();
+				}
+				throw new SemanticAnalysisException("Cannot load model " + sessionKey + " " + e.getCause().toString());
+			}
+			catch( InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new SemanticAnalysisException("Loading of model " + sessionKey + " interrupted");
+			}
+			finally {
+				if( existingTask == loadingTask) {
+					_loadingTasks.remove(sessionKey, loadingTask);
+				}
+			}
+		}
+
+		return model;
 	}
-	
-	protected CSessionCache() {
-		super();
+
+
+		/**
+		 * <p>Add or replace a model in the cache. The least recently used and idle
+		 * models are evicted if the capacity of the cache is exceeded. A model which
+		 * is heavier than the capacity of the cache is not cached.</p>
+		 * @param sessionKey key of the model
+		 * @param model model to cache
+		 * @return previous model associated with this key, null if none.
+		 */
+	public AModel put(final String sessionKey, final AModel model) {
+		if( sessionKey == null || model == null) {
+			throw new IllegalArgumentException("Cannot cache undefined model");
+		}
+
+		long weight = _weigher.weigh(model);
+		AModel previousModel = null;
+
+		synchronized(this) {
+			long now = System.currentTimeMillis();
+			NEntry previousEntry = _entriesMap.remove(sessionKey);
+			if( previousEntry != null) {
+				_weight -= previousEntry._weight;
+				previousModel = previousEntry._model;
+			}
+
+			if( weight <= _maxWeight) {
+				_entriesMap.put(sessionKey, new NEntry(model, weight, now));
+				_weight += weight;
+			}
+			else {
+				_numEvictions.incrementAndGet();
+			}
+			evict(now);
+		}
+
+		return previousModel;
+	}
+
+
+	public synchronized AModel remove(final String sessionKey) {
+		NEntry entry = _entriesMap.remove(sessionKey);
+		AModel model = null;
+
+		if( entry != null) {
+			_weight -= entry._weight;
+			model = entry._model;
+		}
+		return model;
+	}
+
+
+	public synchronized boolean containsKey(final String sessionKey) {
+		return (lookup(sessionKey) != null);
+	}
+
+	public synchronized void clear() {
+		_entriesMap.clear();
+		_weight = 0L;
+	}
+
+	public synchronized int size() {
+		return _entriesMap.size();
+	}
+
+	public synchronized long getWeight() {
+		return _weight;
+	}
+
+	public long getNumHits() {
+		return _numHits.get();
+	}
+
+	public long getNumMisses() {
+		return _numMisses.get();
+	}
+
+	public long getNumLoads() {
+		return _numLoads.get();
+	}
+
+	public long getNumEvictions() {
+		return _numEvictions.get();
+	}
+
+
+		/**
+		 * <p>Evict all the models which have not been accessed for longer
+		 * than the idle timeout.</p>
+		 */
+	public synchronized void evictIdle() {
+		evict(System.currentTimeMillis());
+	}
+
+
+	@Override
+	public String toString() {
+		long numHits = _numHits.get(),
+		     numRequests = numHits + _numMisses.get();
+
+		StringBuilder buf = new StringBuilder("Session cache models=");
+		buf.append(size());
+		buf.append(" weight=");
+		buf.append(getWeight());
+		buf.append(" hits=");
+		buf.append(numHits);
+		buf.append(" misses=");
+		buf.append(_numMisses.get());
+		buf.append(" hit ratio=");
+		buf.append((numRequests > 0L) ? String.format("%.3f", (double)numHits/numRequests) : "0");
+		buf.append(" loads=");
+		buf.append(_numLoads.get());
+		buf.append(" evictions=");
+		buf.append(_numEvictions.get());
+
+		return buf.toString();
+	}
+
+
+						// ---------------------------
+						//  Supporting Private Methods
+						// ---------------------------
+
+	private synchronized AModel lookup(final String sessionKey) {
+		AModel model = null;
+
+		if( sessionKey != null) {
+			long now = System.currentTimeMillis();
+			NEntry entry = _entriesMap.get(sessionKey);
+
+			if( entry != null) {
+				if( now - entry._lastAccessTime > _idleTimeout) {
+					_entriesMap.remove(sessionKey);
+					_weight -= entry._weight;
+					_numEvictions.incrementAndGet();
+				}
+				else {
+					entry._lastAccessTime = now;
+					model = entry._model;
+				}
+			}
+		}
+		return model;
+	}
+
+
+		/**
+		 * <p>Evict the idle models then the least recently used models until
+		 * the number and weight of the models are within the capacity of the cache.
+		 * The entries map is ordered by access, so the least recently used and the
+		 * idle models are at the head of the map.</p>
+		 * @param now current time in milliseconds
+		 */
+	private void evict(long now) {
+		Iterator<Map.Entry<String, NEntry>> entriesIt = _entriesMap.entrySet().iterator();
+		NEntry entry = null;
+		boolean overCapacity = false;
+
+		while( entriesIt.hasNext() ) {
+			entry = entriesIt.next().getValue();
+			overCapacity = _entriesMap.size() > _maxNumModels || _weight > _maxWeight;
+
+			if( !overCapacity && now - entry._lastAccessTime <= _idleTimeout) {
+				break;
+			}
+			entriesIt.remove();
+			_weight -= entry._weight;
+			_numEvictions.incrementAndGet();
+		}
 	}
-	
 }
 
-// ----------------------------  EOF ---------------------------------
\ No newline at end of file
+// ----------------------------  EOF ---------------------------------
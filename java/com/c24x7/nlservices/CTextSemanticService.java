@@ -132,10 +132,13 @@ public final class CTextSemanticService {
 	
 	
 	/**
-	 * <p>Close all the connections used in this service.</p>
+	 * <p>Release the connections used in this service to the taxonomy connections pool.</p>
 	 */
 	public void close() {
-		_taxonomyConnection.close();
+		if( _taxonomyConnection != null) {
+			CTaxonomyConnectionsPool.getInstance().release(_taxonomyConnection);
+			_taxonomyConnection = null;
+		}
 	}
 
 }
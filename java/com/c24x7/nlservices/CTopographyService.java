@@ -8,13 +8,13 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
-import com.c24x7.math.utils.CFreqArray;
 import com.c24x7.models.ATaxonomyNode;
 import com.c24x7.models.CTopicPoint;
 import com.c24x7.topics.CTopicsMap;
 import com.c24x7.util.CEnv;
 import com.c24x7.util.CIntMap;
 import com.c24x7.util.collections.CGraph;
+import com.c24x7.util.collections.CIntBitmap;
 import com.c24x7.util.string.CStringUtil;
 
 
@@ -217,9 +217,9 @@ public final class CTopographyService {
 			nodeLabel = node.getLabel();
 			newTopicPoint = new CTopicPoint(node);
 			
-			CFreqArray freqArray = topicsMap.updateSentenceIndices(node);
-			if( freqArray != null ) {
-				newTopicPoint.setSentencesIndexes(freqArray.getValues()); 
+			CIntBitmap sentencesIndices = topicsMap.updateSentenceIndices(node);
+			if( sentencesIndices != null ) {
+				newTopicPoint.setSentencesIndexes(sentencesIndices.toArray()); 
 			}
 			
 			if( _topicsDistribution.containsKey(nodeLabel)) {
@@ -3,10 +3,16 @@ package com.c24x7.semantics;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.c24x7.exception.SemanticAnalysisException;
 import com.c24x7.util.CEnv;
@@ -20,20 +26,52 @@ import com.c24x7.util.string.CStringUtil;
 			 * @date 05/14/2012
 			 */
 public final class CTaxonomyConnectionsPool {
-	public final static int MAX_NUM_CONNECTIONS = 64;
+	public final static int 	DEFAULT_MIN_NUM_CONNECTIONS = 4;
+	public final static int 	MAX_NUM_CONNECTIONS 		= 64;
+	public final static long 	DEFAULT_ACQUIRE_TIMEOUT 	= 10000L;
+	public final static long 	DEFAULT_MAX_IDLE_TIME 		= 600000L;
+	public final static int 	VALIDATION_TIMEOUT 			= 2;
+	public final static long 	VALIDATION_IDLE_TIME 		= 30000L;
 	public final static int ENTRY_TABLE = 0;
 	public final static int ALIAS_TABLE = 1;
+	public final static int BATCH_SIZE	= 48;
 
 	private static CTaxonomyConnectionsPool connectionsPool = null;
 
+	
+			/**
+			 * <p>Initialize the singleton of taxonomy connection pool with
+			 * a specific configuration. This method has to be invoked before
+			 * the first call to getInstance.</p>
+			 * @param minNumConnections minimum number of connections maintained in the pool.
+			 * @param maxNumConnections maximum number of connections, leased or idle, of each type.
+			 * @param acquireTimeout maximum time in milliseconds a client waits for a connection.
+			 * @param maxIdleTime time in milliseconds after which an idle connection is evicted.
+			 * @throws IllegalArgumentException if the configuration is out of bounds
+			 */
+	public static synchronized void init(	int 	minNumConnections, 
+											int 	maxNumConnections, 
+											long 	acquireTimeout, 
+											long 	maxIdleTime) {
+		if( minNumConnections < 0 || maxNumConnections < 1 || minNumConnections > maxNumConnections) {
+			throw new IllegalArgumentException("Incorrect size for taxonomy connections pool " + String.valueOf(minNumConnections) + "," + String.valueOf(maxNumConnections));
+		}
+		if( acquireTimeout < 0L || maxIdleTime < 0L) {
+			throw new IllegalArgumentException("Incorrect timeout for taxonomy connections pool");
+		}
+		if( connectionsPool == null) {
+			connectionsPool = new CTaxonomyConnectionsPool(minNumConnections, maxNumConnections, acquireTimeout, maxIdleTime);
+		}
+	}
+
 			/**
 			 * <p>Retrieve the singleton of taxonomy connection pool. The connection
 			 * pool is shared between multiple clients of threads.</p>
 			 * @return reference to the singleton
 			 */
-	public static CTaxonomyConnectionsPool getInstance() {
+	public static synchronized CTaxonomyConnectionsPool getInstance() {
 		if( connectionsPool == null) {
-			connectionsPool = new CTaxonomyConnectionsPool();
+			connectionsPool = new CTaxonomyConnectionsPool(DEFAULT_MIN_NUM_CONNECTIONS, MAX_NUM_CONNECTIONS, DEFAULT_ACQUIRE_TIMEOUT, DEFAULT_MAX_IDLE_TIME);
 		}
 		return connectionsPool;
 	}
@@ -48,6 +86,17 @@ public final class CTaxonomyConnectionsPool {
 				 */
 	public static abstract class NTaxonomiesConn {
 		protected CSqlPreparedStmt[] 	_sqlPreparedStmts 	= null;
+		protected CSqlPreparedStmt[] 	_sqlBatchStmts 		= null;
+		private boolean					_leased 			= false;
+		private long					_lastReleaseTime 	= -1L;
+		
+		
+			/**
+			 * <p>Create a connection object for retrieving taxonomy information
+			 * from a source other than the Wikipedia reference database. The subclasses
+			 * have to override the retrieval of multiple labels.</p>
+			 */
+		protected NTaxonomiesConn() { }
 		
 		
 			/**
@@ -57,10 +106,33 @@ public final class CTaxonomyConnectionsPool {
 			 * @param aliasStmt SQL prepared statement for the accessing the aliases table
 			 */
 		public NTaxonomiesConn(final String entryStmt, final String aliasStmt) {
+			this(entryStmt, aliasStmt, null, null);
+		}
+		
+		
+			/**
+			 * <p>Create a connection object for retrieving taxonomy
+			 * information from the Wikipedia reference database, one label
+			 * at a time or through multi-rows queries. All the statements are
+			 * prepared on a single JDBC connection.</p>
+			 * @param entryStmt SQL prepared statement for the accessing the entry table
+			 * @param aliasStmt SQL prepared statement for the accessing the aliases table
+			 * @param entryBatchStmt prefix of the multi-labels query on the entry table (up to IN)
+			 * @param aliasBatchStmt prefix of the multi-labels query on the aliases table (up to IN)
+			 */
+		public NTaxonomiesConn(	final String entryStmt, 
+								final String aliasStmt,
+								final String entryBatchStmt,
+								final String aliasBatchStmt) {
 			_sqlPreparedStmts = new CSqlPreparedStmt[2];
 			_sqlPreparedStmts[ENTRY_TABLE] = new CSqlPreparedStmt(entryStmt);
-			_sqlPreparedStmts[ALIAS_TABLE]  = new CSqlPreparedStmt(aliasStmt);
-
+			_sqlPreparedStmts[ALIAS_TABLE]  = new CSqlPreparedStmt(_sqlPreparedStmts[ENTRY_TABLE], aliasStmt);
+			
+			if( entryBatchStmt != null && aliasBatchStmt != null) {
+				_sqlBatchStmts = new CSqlPreparedStmt[2];
+				_sqlBatchStmts[ENTRY_TABLE] = new CSqlPreparedStmt(_sqlPreparedStmts[ENTRY_TABLE], getBatchStmt(entryBatchStmt));
+				_sqlBatchStmts[ALIAS_TABLE]  = new CSqlPreparedStmt(_sqlPreparedStmts[ENTRY_TABLE], getBatchStmt(aliasBatchStmt));
+			}
 		}
 		
 		
@@ -81,21 +153,239 @@ public final class CTaxonomyConnectionsPool {
 
 			/**
 			 * <p>Close all JDBC connections and statements used in retrieving
-			 * taxonomy lineages from Wikipedia data base.</p>
+			 * taxonomy lineages from Wikipedia data base. The statements sharing
+			 * the connection of the entry table statement are closed first.</p>
 			 */
 		public void close() {
-			for( int k = 0; k <= ALIAS_TABLE; k++) {
-				if( _sqlPreparedStmts[k] != null ) {
+			for( int k = ALIAS_TABLE; k >= ENTRY_TABLE; k--) {
+				if( _sqlBatchStmts != null && _sqlBatchStmts[k] != null ) {
+					_sqlBatchStmts[k].close();
+				}
+				if( _sqlPreparedStmts != null && _sqlPreparedStmts[k] != null ) {
 					_sqlPreparedStmts[k].close();
 				}
 			}
 		}
 		
+		
+			/**
+			 * <p>Test if the JDBC statements used to retrieve the taxonomy lineages
+			 * are opened and their connection is still valid. The statements share
+			 * a single connection which is validated once, through the database.</p>
+			 * @param timeout time in seconds to wait for the validation of the connection
+			 * @return true if the connection is valid, false otherwise
+			 */
+		public boolean isValid(int timeout) {
+			return isOpen() && _sqlPreparedStmts[ENTRY_TABLE].isValid(timeout);
+		}
+		
+		
+			/**
+			 * <p>Test if the JDBC statements used to retrieve the taxonomy lineages
+			 * and their connection are opened, without querying the database.</p>
+			 * @return true if all the statements are opened, false otherwise
+			 */
+		public boolean isOpen() {
+			boolean open = (_sqlPreparedStmts != null);
+			for( int k = 0; open && k <= ALIAS_TABLE; k++) {
+				open = _sqlPreparedStmts[k].isOpen() &&
+						(_sqlBatchStmts == null || _sqlBatchStmts[k].isOpen());
+			}
+			return open;
+		}
+		
+		
+			/**
+			 * <p>Test if this connection supports the resolution of multiple
+			 * labels per query.</p>
+			 * @return true if the multi-labels statements are defined, false otherwise
+			 */
+		public boolean isBatchEnabled() {
+			return (_sqlBatchStmts != null);
+		}
+		
+		
+			/**
+			 * <p>Retrieve the taxonomy lineages for a set of encoded labels of a
+			 * specific table through a sequence of multi-rows queries of BATCH_SIZE labels. 
+			 * The labels rejected by the taxonomy filter of the table are not queried.
+			 * The last, partial, batch is padded with its last label so the same prepared 
+			 * statement can be reused. Labels for which the database does not return
+			 * an exact match (i.e. case insensitive collation) are resolved one at a time.</p>
+			 * @param tableIndex index or identifier of the DBpedia table used to retrieve the taxonomy lineages
+			 * @param encodedLabels set of Latin1 encoded labels
+			 * @return map of encoded labels to their taxonomy lineages. Labels without lineages are not included.
+			 * @throws SQLException if any of the queries fails
+			 */
+		public Map<String, String[]> retrieve(int tableIndex, final Set<String> encodedLabels) throws SQLException {
+			if( encodedLabels == null) {
+				throw new IllegalArgumentException("Cannot retrieve taxonomy lineages for undefined labels");
+			}
+			
+			Map<String, String[]> taxonomyLineagesMap = new HashMap<String, String[]>();
+			List<String> labelsList = new ArrayList<String>(encodedLabels.size());
+			for( String encodedLabel : encodedLabels) {
+				if( CTaxonomyFilters.mightContain(tableIndex, encodedLabel.toLowerCase()) ) {
+					labelsList.add(encodedLabel);
+				}
+			}
+			
+			if( labelsList.size() > 0) {
+				String[] labels = labelsList.toArray(new String[labelsList.size()]);
+				
+				if( isBatchEnabled() ) {
+					for( int start = 0; start < labels.length; start += BATCH_SIZE) {
+						int end = (start + BATCH_SIZE < labels.length) ? start + BATCH_SIZE : labels.length;
+						retrieveBatch(tableIndex, labels, start, end, taxonomyLineagesMap);
+					}
+				}
+				else {
+					retrieveEach(tableIndex, labels, 0, labels.length, taxonomyLineagesMap);
+				}
+			}
+			
+			return taxonomyLineagesMap;
+		}
+		
+		
+			/**
+			 * <p>Retrieve the taxonomy lineages of a single encoded label of a
+			 * specific table.</p>
+			 * @param tableIndex index or identifier of the DBpedia table used to retrieve the taxonomy lineages
+			 * @param encodedLabel Latin1 encoded label
+			 * @return array of taxonomy lineages, null if the label has none
+			 * @throws SQLException if the query fails
+			 */
+		public String[] retrieve(int tableIndex, final String encodedLabel) throws SQLException {
+			String[] taxonomyLineages = null;
+			
+			CSqlPreparedStmt preparedStmt = getPreparedStmt(tableIndex);
+			preparedStmt.set(1, encodedLabel);
+			ResultSet rs = preparedStmt.query();
+			try {
+				if( rs.next() ) {
+					taxonomyLineages = retrieve(rs);
+				}
+			}
+			finally {
+				rs.close();
+			}
+			return taxonomyLineages;
+		}
+		
+		
 		/**
 		 * <p>Retrieve an array of taxonomy lineages for a defined entry.</p>
 		 * @param rs Result set from the query to dbpedia.
 		 */
 		public abstract String[] retrieve(final ResultSet rs) throws SQLException;	
+		
+		
+		private CSqlPreparedStmt getBatchStmt(int tableIndex) {
+			if( tableIndex != ENTRY_TABLE && tableIndex != ALIAS_TABLE) {
+				throw new IllegalArgumentException("Incorrect index for taxonomy connections pool");
+			}
+			return _sqlBatchStmts[tableIndex];
+		}
+		
+		
+		private void retrieveBatch(	int 					tableIndex,
+									final String[] 			labels, 
+									int 					start, 
+									int 					end,
+									Map<String, String[]> 	taxonomyLineagesMap) throws SQLException {
+			
+			CSqlPreparedStmt batchStmt = getBatchStmt(tableIndex);
+			for( int k = 0; k < BATCH_SIZE; k++) {
+				batchStmt.set(k+1, labels[(start + k < end) ? start + k : end-1]);
+			}
+			
+			ResultSet rs = batchStmt.query();
+			boolean unmatchedRow = false;
+			String label = null;
+			String[] taxonomyLineages = null;
+			
+			try {
+				while( rs.next() ) {
+					label = rs.getString("label");
+					
+					if( !taxonomyLineagesMap.containsKey(label) ) {
+						if( !isInRange(label, labels, start, end) ) {
+							unmatchedRow = true;
+						}
+						else {
+							taxonomyLineages = retrieve(rs);
+							if( taxonomyLineages != null) {
+								taxonomyLineagesMap.put(label, taxonomyLineages);
+							}
+						}
+					}
+				}
+			}
+			finally {
+				rs.close();
+			}
+			
+				/*
+				 * The database returned a label that differs from the requested 
+				 * ones, so the remaining labels of this batch are resolved one at a time
+				 */
+			if( unmatchedRow ) {
+				retrieveEach(tableIndex, labels, start, end, taxonomyLineagesMap);
+			}
+		}
+		
+		
+		private void retrieveEach(	int 					tableIndex,
+									final String[] 			labels, 
+									int 					start, 
+									int 					end,
+									Map<String, String[]> 	taxonomyLineagesMap) throws SQLException {
+			CSqlPreparedStmt stmt = getPreparedStmt(tableIndex);
+			String[] taxonomyLineages = null;
+			
+			for( int k = start; k < end; k++) {
+				if( !taxonomyLineagesMap.containsKey(labels[k]) ) {
+					stmt.set(1, labels[k]);
+					ResultSet rs = stmt.query();
+					try {
+						if( rs.next() ) {
+							taxonomyLineages = retrieve(rs);
+							if( taxonomyLineages != null) {
+								taxonomyLineagesMap.put(labels[k], taxonomyLineages);
+							}
+						}
+					}
+					finally {
+						rs.close();
+					}
+				}
+			}
+		}
+		
+		
+		private static boolean isInRange(final String label, final String[] labels, int start, int end) {
+			boolean found = false;
+			for( int k = start; !found && k < end; k++) {
+				found = labels[k].equals(label);
+			}
+			return found;
+		}
+		
+		
+		private static String getBatchStmt(final String stmtPrefix) {
+			StringBuilder buf = new StringBuilder(stmtPrefix);
+			buf.append(" (");
+			for( int k = 0; k < BATCH_SIZE; k++) {
+				if( k > 0) {
+					buf.append(",");
+				}
+				buf.append("?");
+			}
+			buf.append(");");
+			
+			return buf.toString();
+		}
 	}
 	
 	
@@ -111,6 +401,11 @@ public final class CTaxonomyConnectionsPool {
 				"SELECT taxonomy FROM 24x7c.dbpedia WHERE label=?;",
 				"SELECT db.taxonomy FROM 24x7c.dbpedia db JOIN  24x7c.dbpedia_aliases da ON db.id = da.resourceid WHERE da.label=?;"
 			};
+		private final static String[] SELECT_BATCH_TAXONOMY_SOURCES = 
+			new String[] { 
+				"SELECT label, taxonomy FROM 24x7c.dbpedia WHERE label IN",
+				"SELECT da.label, db.taxonomy FROM 24x7c.dbpedia db JOIN  24x7c.dbpedia_aliases da ON db.id = da.resourceid WHERE da.label IN"
+			};
 
 				
 			/**
@@ -118,7 +413,8 @@ public final class CTaxonomyConnectionsPool {
 			 * taxonomy lineages from Wikipedia labels.</p>
 			 */
 		public NLabelsTaxonomiesConn() {
-			super(SELECT_TAXONOMY_SOURCES[ENTRY_TABLE], SELECT_TAXONOMY_SOURCES[ALIAS_TABLE]);
+			super(SELECT_TAXONOMY_SOURCES[ENTRY_TABLE], SELECT_TAXONOMY_SOURCES[ALIAS_TABLE],
+				  SELECT_BATCH_TAXONOMY_SOURCES[ENTRY_TABLE], SELECT_BATCH_TAXONOMY_SOURCES[ALIAS_TABLE]);
 		}
 		
 			
@@ -129,7 +425,17 @@ public final class CTaxonomyConnectionsPool {
 		 */
 		@Override
 		public String[] retrieve(final ResultSet rs) throws SQLException {
-			String taxonomyRecord = rs.getString("taxonomy");
+			return getLineages(rs.getString("taxonomy"));
+		}
+		
+		
+		/**
+		 * <p>Extract the array of taxonomy lineages from the encoded taxonomy
+		 * record of an entry.</p>
+		 * @param taxonomyRecord Latin1 encoded taxonomy record
+		 * @return a set of taxonomy lineages, null if the record is undefined or empty
+		 */
+		public static String[] getLineages(final String taxonomyRecord) {
 			String decodedTaxonomyRecord = null;
 			String[] taxonomiesLineagesArray = null;
 			
@@ -159,6 +465,11 @@ public final class CTaxonomyConnectionsPool {
 				"SELECT taxonomy, sub_taxonomy FROM 24x7c.dbpedia WHERE label=?;",
 				"SELECT db.taxonomy, db.sub_taxonomy FROM 24x7c.dbpedia db JOIN  24x7c.dbpedia_aliases da ON db.id = da.resourceid WHERE da.label=?;"
 			};
+		private final static String[] SELECT_BATCH_TAXONOMY_SOURCES = 
+			new String[] { 
+				"SELECT label, taxonomy, sub_taxonomy FROM 24x7c.dbpedia WHERE label IN",
+				"SELECT da.label, db.taxonomy, db.sub_taxonomy FROM 24x7c.dbpedia db JOIN  24x7c.dbpedia_aliases da ON db.id = da.resourceid WHERE da.label IN"
+			};
 
 				
 		
@@ -168,7 +479,8 @@ public final class CTaxonomyConnectionsPool {
 		 * taxonomy lineages of the categories associated to this label</p>
 		 */
 		public NLabelsAndCatTaxonomiesConn() {
-			super(SELECT_TAXONOMY_SOURCES[ENTRY_TABLE], SELECT_TAXONOMY_SOURCES[ALIAS_TABLE]);
+			super(SELECT_TAXONOMY_SOURCES[ENTRY_TABLE], SELECT_TAXONOMY_SOURCES[ALIAS_TABLE],
+				  SELECT_BATCH_TAXONOMY_SOURCES[ENTRY_TABLE], SELECT_BATCH_TAXONOMY_SOURCES[ALIAS_TABLE]);
 		}
 
 		
@@ -180,10 +492,19 @@ public final class CTaxonomyConnectionsPool {
 			 */
 		@Override
 		public String[] retrieve(final ResultSet rs) throws SQLException {
+			return getLineages(rs.getString("taxonomy"), rs.getString("sub_taxonomy"));
+		}
+		
+		
+			/**
+			 * <p>Extract the array of taxonomy lineages from the encoded taxonomy
+			 * record of an entry and the record of the taxonomy of its categories.</p>
+			 * @param taxonomyRecord Latin1 encoded taxonomy record
+			 * @param subTaxonomyRecord Latin1 encoded taxonomy record of the categories
+			 * @return a set of taxonomy lineages, null if both records are undefined or empty
+			 */
+		public static String[] getLineages(final String taxonomyRecord, final String subTaxonomyRecord) {
 			String[] TaxonomyLineagesSet = null;
-			
-			String taxonomyRecord = rs.getString("taxonomy");
-			String subTaxonomyRecord = rs.getString("sub_taxonomy");
 			String decodedTaxonomyRecord = null;
 			String[] labelTaxonomyLineages = null;
 			
@@ -236,52 +557,447 @@ public final class CTaxonomyConnectionsPool {
 	}
 	
 	
-	
-	private List<NTaxonomiesConn> _connectionsPool = null;
+		/**
+		 * <p>Nested class that extracts the taxonomy lineages of Wikipedia entries
+		 * or aliases from the read only taxonomy stores exported from the reference
+		 * database, instead of querying the database. The lineages of the categories
+		 * of the entries are extracted if the categories are requested.</p>
+		 * @see com.c24x7.semantics.CTaxonomyStore
+		 * @author Patrick Nicolas         24x7c 
+		 * @date July 24, 2012 10:12:40 AM
+		 */
+	public static class NStoreTaxonomiesConn extends NTaxonomiesConn {
+		private CTaxonomyStore[] 	_taxonomyStores = null;
+		private boolean				_categories 	= false;
+		
+		
+			/**
+			 * <p>Create an instance of the class that extract the
+			 * taxonomy lineages from the taxonomy stores.</p>
+			 * @param taxonomyStores stores of the entries and aliases tables
+			 * @param categories true to add the taxonomy lineages of the categories of the entries
+			 * @throws IllegalArgumentException if the stores are undefined
+			 */
+		public NStoreTaxonomiesConn(final CTaxonomyStore[] taxonomyStores, boolean categories) {
+			super();
+			if( taxonomyStores == null || taxonomyStores.length <= ALIAS_TABLE) {
+				throw new IllegalArgumentException("Cannot create connection to undefined taxonomy stores");
+			}
+			_taxonomyStores = taxonomyStores;
+			_categories = categories;
+		}
+		
+		
+		public final boolean hasCategories() {
+			return _categories;
+		}
+		
+		@Override
+		public boolean isBatchEnabled() {
+			return true;
+		}
+
+		@Override
+		public boolean isValid(int timeout) {
+			return true;
+		}
 
+		@Override
+		public boolean isOpen() {
+			return true;
+		}
+		
+		
+			/**
+			 * <p>Retrieve the taxonomy lineages for a set of encoded labels of a
+			 * specific table from its store. The labels rejected by the taxonomy filter 
+			 * of the table are not looked up.</p>
+			 * @param tableIndex index or identifier of the DBpedia table used to retrieve the taxonomy lineages
+			 * @param encodedLabels set of Latin1 encoded labels
+			 * @return map of encoded labels to their taxonomy lineages. Labels without lineages are not included.
+			 */
+		@Override
+		public Map<String, String[]> retrieve(int tableIndex, final Set<String> encodedLabels) {
+			if( encodedLabels == null) {
+				throw new IllegalArgumentException("Cannot retrieve taxonomy lineages for undefined labels");
+			}
+			
+			Map<String, String[]> taxonomyLineagesMap = new HashMap<String, String[]>();
+			String[] taxonomyLineages = null;
+			for( String encodedLabel : encodedLabels) {
+				taxonomyLineages = retrieve(tableIndex, encodedLabel);
+				if( taxonomyLineages != null) {
+					taxonomyLineagesMap.put(encodedLabel, taxonomyLineages);
+				}
+			}
+			
+			return taxonomyLineagesMap;
+		}
+		
+		
+		@Override
+		public String[] retrieve(int tableIndex, final String encodedLabel) {
+			if( tableIndex != ENTRY_TABLE && tableIndex != ALIAS_TABLE) {
+				throw new IllegalArgumentException("Incorrect index for taxonomy connections pool");
+			}
+			
+			String[] taxonomyLineages = null;
+			final String lowerCaseLabel = encodedLabel.toLowerCase();
+			if( CTaxonomyFilters.mightContain(tableIndex, lowerCaseLabel) ) {
+				String[] taxonomyRecord = _taxonomyStores[tableIndex].get(lowerCaseLabel);
+				if( taxonomyRecord != null) {
+					taxonomyLineages = _categories ? 
+							NLabelsAndCatTaxonomiesConn.getLineages(taxonomyRecord[0], taxonomyRecord[1]) :
+							NLabelsTaxonomiesConn.getLineages(taxonomyRecord[0]);
+				}
+			}
+			return taxonomyLineages;
+		}
+		
+		
+			/**
+			 * <p>Retrieve an array of taxonomy lineages from a result set of a
+			 * query to the reference database, as the other connections.</p>
+			 * @param rs Result set from the query to dbpedia.
+			 */
+		@Override
+		public String[] retrieve(final ResultSet rs) throws SQLException {
+			return _categories ? 
+					NLabelsAndCatTaxonomiesConn.getLineages(rs.getString("taxonomy"), rs.getString("sub_taxonomy")) :
+					NLabelsTaxonomiesConn.getLineages(rs.getString("taxonomy"));
+		}
+	}
 	
-	public void close() {
-		if( _connectionsPool.size() > 0) {
-			for( NTaxonomiesConn taxonomyConnection : _connectionsPool) {
-				taxonomyConnection.close();
+	
+	
+
+			/**
+			 * <p>Bounded queue of connections of a given type. Connections are leased 
+			 * (borrowed) and released (returned) by the clients. The number of leased and
+			 * idle connections is bounded by a semaphore. The connections are validated through
+			 * the database when created and when leased after being idle for more than
+			 * VALIDATION_IDLE_TIME; otherwise they are only tested for closure, when leased and
+			 * released. Idle connections are evicted, on every lease and release, once idle for
+			 * more than the maximum idle time as long as the minimum number of connections is maintained.</p>
+			 * @author Patrick Nicolas         24x7c 
+			 * @date June 24, 2012 10:12:41 AM
+			 */
+	private abstract class NConnectionsQueue {
+		private Semaphore 				_permits 			= null;
+		private LinkedList<NTaxonomiesConn> _idleConnections = null;
+		private AtomicInteger			_numActive 			= new AtomicInteger(0);
+		private AtomicInteger			_numCreated 		= new AtomicInteger(0);
+		private AtomicInteger			_numEvicted 		= new AtomicInteger(0);
+		private AtomicLong				_numLeases 			= new AtomicLong(0L);
+		private AtomicLong				_totalWaitTime 		= new AtomicLong(0L);
+		private AtomicLong				_maxWaitTime 		= new AtomicLong(0L);
+		
+		private NConnectionsQueue() {
+			_permits = new Semaphore(_maxNumConnections, true);
+			_idleConnections = new LinkedList<NTaxonomiesConn>();
+		}
+		
+		
+		protected abstract NTaxonomiesConn create();
+		
+		
+		private void prefill() {
+			for( int k = 0; k < _minNumConnections; k++) {
+				NTaxonomiesConn tConnection = create();
+				if( tConnection.isValid(VALIDATION_TIMEOUT) ) {
+					_numCreated.incrementAndGet();
+					tConnection._lastReleaseTime = System.currentTimeMillis();
+					synchronized(_idleConnections) {
+						_idleConnections.addLast(tConnection);
+					}
+				}
+				else {
+					tConnection.close();
+					break;
+				}
+			}
+		}
+		
+		
+		private NTaxonomiesConn lease() throws SemanticAnalysisException {
+			if( _closed ) {
+				throw new SemanticAnalysisException("Taxonomy connections pool is closed");
+			}
+			evictIdle();
+			final long startTime = System.currentTimeMillis();
+			
+			try {
+				if( !_permits.tryAcquire(_acquireTimeout, TimeUnit.MILLISECONDS) ) {
+					throw new SemanticAnalysisException("Cannot lease a taxonomy connection within " + String.valueOf(_acquireTimeout) + " ms");
+				}
+			}
+			catch( InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new SemanticAnalysisException("Lease of taxonomy connection interrupted");
+			}
+			
+			NTaxonomiesConn tConnection = null;
+			try {
+					/*
+					 * Reuse the most recently released connection, discarding the
+					 * broken ones, then create a new connection if none is available.
+					 */
+				while( tConnection == null && (tConnection = pollIdle()) != null) {
+					if( !isUsable(tConnection) ) {
+						tConnection.close();
+						_numEvicted.incrementAndGet();
+						tConnection = null;
+					}
+				}
+				
+				if( tConnection == null) {
+					tConnection = create();
+					if( !tConnection.isValid(VALIDATION_TIMEOUT) ) {
+						tConnection.close();
+						throw new SemanticAnalysisException("Cannot create a taxonomy connection");
+					}
+					_numCreated.incrementAndGet();
+				}
 			}
+			catch( RuntimeException e) {
+				_permits.release();
+				throw e;
+			}
+			catch( SemanticAnalysisException e) {
+				_permits.release();
+				throw e;
+			}
+			
+			synchronized(tConnection) {
+				tConnection._leased = true;
+			}
+			_numActive.incrementAndGet();
+			updateWaitTime(System.currentTimeMillis() - startTime);
+			
+			return tConnection;
+		}
+		
+		
+		private void release(NTaxonomiesConn tConnection) {
+			synchronized(tConnection) {
+				if( !tConnection._leased ) {
+					throw new IllegalStateException("Taxonomy connection is not leased");
+				}
+				tConnection._leased = false;
+			}
+			_numActive.decrementAndGet();
+			
+			if( !_closed && tConnection.isOpen() ) {
+				tConnection._lastReleaseTime = System.currentTimeMillis();
+				synchronized(_idleConnections) {
+					_idleConnections.addLast(tConnection);
+				}
+			}
+			else {
+				tConnection.close();
+				_numEvicted.incrementAndGet();
+			}
+			_permits.release();
+			evictIdle();
 		}
+		
+		
+		private void evictIdle() {
+			final long expirationTime = System.currentTimeMillis() - _maxIdleTime;
+			List<NTaxonomiesConn> evictedConnections = null;
+			
+				/*
+				 * The oldest idle connections are at the head of the queue.
+				 */
+			synchronized(_idleConnections) {
+				while( _idleConnections.size() > 0 && 
+					   _idleConnections.size() + _numActive.get() > _minNumConnections &&
+					   _idleConnections.getFirst()._lastReleaseTime < expirationTime) {
+					
+					if( evictedConnections == null) {
+						evictedConnections = new LinkedList<NTaxonomiesConn>();
+					}
+					evictedConnections.add(_idleConnections.removeFirst());
+				}
+			}
+			
+			if( evictedConnections != null) {
+				for( NTaxonomiesConn tConnection : evictedConnections) {
+					tConnection.close();
+					_numEvicted.incrementAndGet();
+				}
+			}
+		}
+		
+		
+		private void close() {
+			synchronized(_idleConnections) {
+				for( NTaxonomiesConn tConnection : _idleConnections) {
+					tConnection.close();
+				}
+				_idleConnections.clear();
+			}
+		}
+		
+		
+			/*
+			 * The connection of an idle connection is validated through the
+			 * database only if it has been idle long enough to be dropped by the
+			 * server or the network; otherwise it is only tested for closure.
+			 */
+		private boolean isUsable(final NTaxonomiesConn tConnection) {
+			return (System.currentTimeMillis() - tConnection._lastReleaseTime > VALIDATION_IDLE_TIME) ?
+					tConnection.isValid(VALIDATION_TIMEOUT) :
+					tConnection.isOpen();
+		}
+		
+		
+		private NTaxonomiesConn pollIdle() {
+			synchronized(_idleConnections) {
+				return _idleConnections.pollLast();
+			}
+		}
+		
+		private void updateWaitTime(long waitTime) {
+			_numLeases.incrementAndGet();
+			_totalWaitTime.addAndGet(waitTime);
+			
+			long maxWaitTime = _maxWaitTime.get();
+			while( waitTime > maxWaitTime && !_maxWaitTime.compareAndSet(maxWaitTime, waitTime)) {
+				maxWaitTime = _maxWaitTime.get();
+			}
+		}
+		
+		
+		@Override
+		public String toString() {
+			final long numLeases = _numLeases.get();
+			int numIdle = 0;
+			synchronized(_idleConnections) {
+				numIdle = _idleConnections.size();
+			}
+			
+			StringBuilder buf = new StringBuilder("active=");
+			buf.append(_numActive.get());
+			buf.append(" idle=");
+			buf.append(numIdle);
+			buf.append(" created=");
+			buf.append(_numCreated.get());
+			buf.append(" evicted=");
+			buf.append(_numEvicted.get());
+			buf.append(" leases=");
+			buf.append(numLeases);
+			buf.append(" avg wait=");
+			buf.append((numLeases > 0L) ? _totalWaitTime.get()/numLeases : 0L);
+			buf.append(" ms max wait=");
+			buf.append(_maxWaitTime.get());
+			buf.append(" ms");
+			
+			return buf.toString();
+		}
+	}
+	
+	
+	private NConnectionsQueue 	_labelsConnections 			= null;
+	private NConnectionsQueue 	_labelsAndCatsConnections 	= null;
+	private int					_minNumConnections 	= DEFAULT_MIN_NUM_CONNECTIONS;
+	private int					_maxNumConnections 	= MAX_NUM_CONNECTIONS;
+	private long				_acquireTimeout 	= DEFAULT_ACQUIRE_TIMEOUT;
+	private long				_maxIdleTime 		= DEFAULT_MAX_IDLE_TIME;
+	private volatile boolean	_closed 			= false;
+
+	
+		/**
+		 * <p>Close all the idle connections of the pool. Leased connections
+		 * are closed once they are released.</p>
+		 */
+	public void close() {
+		_closed = true;
+		_labelsConnections.close();
+		_labelsAndCatsConnections.close();
 	}
 
 	
 		/**
-		 * <p>Retrieve the connection and statement that retrieve
-		 * the taxonomy information for a Wikipedia entry.</p>
-		 * @return new connection to the Wikipedia reference database
+		 * <p>Lease the connection and statement that retrieve
+		 * the taxonomy information for a Wikipedia entry. The connection
+		 * has to be returned to the pool through the release method.</p>
+		 * @return connection to the Wikipedia reference database
+		 * @throws SemanticAnalysisException if no connection is available within the acquisition timeout.
 		 */
 	public NTaxonomiesConn getLabelsConnection() throws SemanticAnalysisException {
-		if(_connectionsPool.size() > MAX_NUM_CONNECTIONS) {
-			throw new SemanticAnalysisException("Connections pool exceeds " + String.valueOf(MAX_NUM_CONNECTIONS));
-		}
-		
-		NTaxonomiesConn tConnection = new NLabelsTaxonomiesConn();
-		_connectionsPool.add(tConnection);
-		
-		return tConnection;
+		return _labelsConnections.lease();
 	}
 	
 		/**
-		 * <p>Retrieve the connection and statement that retrieve
+		 * <p>Lease the connection and statement that retrieve
 		 * the taxonomy information for a Wikipedia entry and
-		 * its categories</p>
-		 * @return new connection to the Wikipedia reference database
+		 * its categories. The connection has to be returned to 
+		 * the pool through the release method.</p>
+		 * @return connection to the Wikipedia reference database
+		 * @throws SemanticAnalysisException if no connection is available within the acquisition timeout.
 		 */
 	public NTaxonomiesConn getLabelsAndCatsConnection() throws SemanticAnalysisException {
-		if(_connectionsPool.size() > MAX_NUM_CONNECTIONS) {
-			throw new SemanticAnalysisException("Connections pool exceeds " + String.valueOf(MAX_NUM_CONNECTIONS));
+		return _labelsAndCatsConnections.lease();
+	}
+	
+	
+		/**
+		 * <p>Return a leased connection to the pool. Broken connections
+		 * are closed and discarded.</p>
+		 * @param taxonomyConnection connection previously leased from this pool
+		 * @throws IllegalArgumentException if the connection is undefined
+		 * @throws IllegalStateException if the connection is not currently leased
+		 */
+	public void release(NTaxonomiesConn taxonomyConnection) {
+		if( taxonomyConnection == null) {
+			throw new IllegalArgumentException("Cannot release an undefined taxonomy connection");
 		}
-
-		NTaxonomiesConn tConnection = new NLabelsAndCatTaxonomiesConn();
-		_connectionsPool.add(tConnection);
 		
-		return tConnection;
+		if( taxonomyConnection instanceof NLabelsAndCatTaxonomiesConn ||
+		   (taxonomyConnection instanceof NStoreTaxonomiesConn && ((NStoreTaxonomiesConn)taxonomyConnection).hasCategories()) ) {
+			_labelsAndCatsConnections.release(taxonomyConnection);
+		}
+		else {
+			_labelsConnections.release(taxonomyConnection);
+		}
+	}
+	
+	
+	public final int getMaxNumConnections() {
+		return _maxNumConnections;
 	}
 	
+	public int getNumActiveConnections() {
+		return _labelsConnections._numActive.get() + _labelsAndCatsConnections._numActive.get();
+	}
+	
+	public int getNumCreatedConnections() {
+		return _labelsConnections._numCreated.get() + _labelsAndCatsConnections._numCreated.get();
+	}
+	
+	public int getNumEvictedConnections() {
+		return _labelsConnections._numEvicted.get() + _labelsAndCatsConnections._numEvicted.get();
+	}
+	
+	public long getMaxWaitTime() {
+		return Math.max(_labelsConnections._maxWaitTime.get(), _labelsAndCatsConnections._maxWaitTime.get());
+	}
+	
+	public long getTotalWaitTime() {
+		return _labelsConnections._totalWaitTime.get() + _labelsAndCatsConnections._totalWaitTime.get();
+	}
+	
+	
+	@Override
+	public String toString() {
+		StringBuilder buf = new StringBuilder("Labels connections: ");
+		buf.append(_labelsConnections.toString());
+		buf.append("\nLabels and categories connections: ");
+		buf.append(_labelsAndCatsConnections.toString());
+		
+		return buf.toString();
+	}
 	
 	
 	
@@ -289,8 +1005,39 @@ public final class CTaxonomyConnectionsPool {
 						//  Private Methods
 						// ------------------
 	
-	private CTaxonomyConnectionsPool() {
-		_connectionsPool = new LinkedList<NTaxonomiesConn>();
+	private CTaxonomyConnectionsPool(	int 	minNumConnections, 
+										int 	maxNumConnections, 
+										long 	acquireTimeout, 
+										long 	maxIdleTime) {
+		_minNumConnections = minNumConnections;
+		_maxNumConnections = maxNumConnections;
+		_acquireTimeout = acquireTimeout;
+		_maxIdleTime = maxIdleTime;
+		
+			/*
+			 * The taxonomy lineages are retrieved from the taxonomy
+			 * stores, if exported, instead of the reference database.
+			 */
+		final CTaxonomyStore[] taxonomyStores = CTaxonomyStore.open();
+		_labelsConnections = new NConnectionsQueue() {
+			@Override
+			protected NTaxonomiesConn create() {
+				return (taxonomyStores != null) ? 
+						new NStoreTaxonomiesConn(taxonomyStores, false) : 
+						new NLabelsTaxonomiesConn();
+			}
+		};
+		_labelsAndCatsConnections = new NConnectionsQueue() {
+			@Override
+			protected NTaxonomiesConn create() {
+				return (taxonomyStores != null) ? 
+						new NStoreTaxonomiesConn(taxonomyStores, true) : 
+						new NLabelsAndCatTaxonomiesConn();
+			}
+		};
+		_labelsConnections.prefill();
+		_labelsAndCatsConnections.prefill();
+		CTaxonomyFilters.load();
 	}
 
 }
@@ -10,9 +10,15 @@ import com.c24x7.util.CEnv;
 import com.c24x7.util.logs.CLogger;
 import com.c24x7.util.string.CStringUtil;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.sql.ResultSet;
+import java.util.Set;
 import java.sql.SQLException;
 
 
@@ -27,6 +33,7 @@ public class CTaxonomyExtractor {
 	public final static String 	DBPEDIA_DATASET_COUNTER_FILE = CEnv.configDir + "/dbpedia/counter";
 
 	private static final float 	NGRAMS_SELECT_RATIO_PARAM	= 0.35F;
+	private static final int 	NUM_LOOKAHEAD_INSTANCES		= 4;
 	
 			/**
 			 * <p>Structure for the dbpedia/wikipedia information. At a minimum a DBpedia entry
@@ -66,6 +73,13 @@ public class CTaxonomyExtractor {
 		}
 		
 		
+		private boolean extract(final CText document, 
+								CTaxonomyObject taxonomyInstance,
+								final String[] taxonomyLineages) {
+			return setElements(taxonomyLineages) && update(document, taxonomyInstance);
+		}
+		
+		
 		private boolean update(final CText document, CTaxonomyObject taxonomyInstance) {
 			boolean success = false;
 			
@@ -115,19 +129,29 @@ public class CTaxonomyExtractor {
 				String[] taxonomyLineages = (isAliasRecord(recordType) ) ?
 											retrieveTaxonomies(CTaxonomyConnectionsPool.ALIAS_TABLE, encodedLabel) :
 											retrieveTaxonomies(CTaxonomyConnectionsPool.ENTRY_TABLE,encodedLabel);
-				
-								
+				setElements(taxonomyLineages);
+			}
+			
+			return (_taxonomyLineages != null && _taxonomyLineages.size() > 0);
+		}
+		
+		
+				/**
+				 * <p>Set the taxonomy lineages of this label, previously extracted from the database.</p>
+				 * @param taxonomyLineages array of taxonomy lineages, null if none was found
+				 * @return true if at least one element is set.
+				 */
+		private boolean setElements(final String[] taxonomyLineages) {
 				/*
 				 * If one or more taxonomy lineages have been found..
 				 */
-				if( taxonomyLineages != null) {
-					if( _taxonomyLineages == null) {
-						_taxonomyLineages = new HashMap<String, Object>();
-					}
-					for(int k = 0; k < taxonomyLineages.length; k++) {
-						if(taxonomyLineages[k].length() > 1) {
-							_taxonomyLineages.put(taxonomyLineages[k], null);
-						}
+			if( taxonomyLineages != null) {
+				if( _taxonomyLineages == null) {
+					_taxonomyLineages = new HashMap<String, Object>();
+				}
+				for(int k = 0; k < taxonomyLineages.length; k++) {
+					if(taxonomyLineages[k].length() > 1) {
+						_taxonomyLineages.put(taxonomyLineages[k], null);
 					}
 				}
 			}
@@ -140,10 +164,8 @@ public class CTaxonomyExtractor {
 											final String encodedLabel) throws SQLException {
 			String[] taxonomyLineages = null;
 			
-			_taxonomyConnection.getPreparedStmt(index).set(1, encodedLabel);
-			ResultSet rs = _taxonomyConnection.getPreparedStmt(index).query();
-			if(rs.next() ) {
-				taxonomyLineages = _taxonomyConnection.retrieve(rs);
+			if( CTaxonomyFilters.mightContain(index, encodedLabel.toLowerCase()) ) {
+				taxonomyLineages = _taxonomyConnection.retrieve(index, encodedLabel);
 			}
 
 			return taxonomyLineages;
@@ -204,18 +226,36 @@ public class CTaxonomyExtractor {
 		
 			NLabelTaxonomy semanticLabel = null;	
 			Map<String, CTaxonomyObject> reducedTaxonomyInstancesMap = new HashMap<String, CTaxonomyObject>(); 
+			Map<String, String[]>[] taxonomyLineagesMaps = null;
 			
 			/*
-			 * Walk through the list of taxonomyInstances to extract the taxonomy
-			 * lineages associated with the label or N-Gram
+			 * Walk through the list of taxonomyInstances, ranked by decreasing
+			 * weight, to extract the taxonomy lineages associated with the label or N-Gram.
+			 * The walk stops at the first instance which weight is below the selection
+			 * ratio of the weight of the first instance extracted.
 			 */
+			List<CTaxonomyObject> rankedInstances = rank(taxonomyInstancesMap.values());
 			double maxWeight = -1.0;
+			int windowEnd = 0;
 
-			for( CTaxonomyObject taxonomyInstance  : taxonomyInstancesMap.values()) {	
+			for( int k = 0; k < rankedInstances.size(); k++) {	
+				CTaxonomyObject taxonomyInstance = rankedInstances.get(k);
+				
+				/*
+				 * Resolve the taxonomy lineages of the next window of ranked labels
+				 * through a limited number of multi-rows queries.
+				 */
+				if( k == windowEnd) {
+					windowEnd = getWindowEnd(rankedInstances, k, maxWeight);
+					taxonomyLineagesMaps = retrieveTaxonomies(rankedInstances.subList(k, windowEnd));
+				}
 				semanticLabel = new NLabelTaxonomy(taxonomyInstance.getLabel());
 							
 				try {
-					if( semanticLabel.extract(document, taxonomyInstance) ) {
+					boolean extracted = (taxonomyLineagesMaps != null) ?
+										semanticLabel.extract(document, taxonomyInstance, getTaxonomies(taxonomyLineagesMaps, taxonomyInstance)) :
+										semanticLabel.extract(document, taxonomyInstance);
+					if( extracted ) {
 						if( maxWeight < 0.0) {
 							maxWeight = taxonomyInstance.getWeight();
 						}
@@ -256,6 +296,106 @@ public class CTaxonomyExtractor {
 	private static boolean isAliasRecord(Character type) {
 		return (type.charValue() == CLookup.DPBEDIA_ENTRY_ALIAS);
 	}
+	
+	
+		/**
+		 * <p>Rank the taxonomy objects by decreasing weight (tf-idf). The sort is stable
+		 * so the objects of a map already ordered by weight keep their order.</p>
+		 */
+	private static List<CTaxonomyObject> rank(final Collection<CTaxonomyObject> taxonomyInstances) {
+		List<CTaxonomyObject> rankedInstances = new ArrayList<CTaxonomyObject>(taxonomyInstances);
+		Collections.sort(rankedInstances, new Comparator<CTaxonomyObject>() {
+			@Override
+			public int compare(CTaxonomyObject instance1, CTaxonomyObject instance2) {
+				return Float.compare(instance2.getWeight(), instance1.getWeight());
+			}
+		});
+		
+		return rankedInstances;
+	}
+	
+	
+		/**
+		 * <p>Compute the end of the window of ranked taxonomy objects to resolve next. The 
+		 * window contains all the objects which weight is above the selection ratio of the
+		 * maximum weight, or of the weight of the first object of the window if no object has
+		 * been extracted yet, followed by a few objects below the ratio.</p>
+		 * @param rankedInstances taxonomy objects ranked by decreasing weight
+		 * @param start index of the first object of the window
+		 * @param maxWeight weight of the first object extracted, -1 if none has been extracted
+		 * @return index of the object following the window
+		 */
+	private static int getWindowEnd(final List<CTaxonomyObject> rankedInstances, int start, double maxWeight) {
+		final double minWeight = NGRAMS_SELECT_RATIO_PARAM*((maxWeight < 0.0) ? rankedInstances.get(start).getWeight() : maxWeight);
+		
+		int end = start;
+		while( end < rankedInstances.size() && rankedInstances.get(end).getWeight() >= minWeight) {
+			end++;
+		}
+		end += NUM_LOOKAHEAD_INSTANCES;
+		
+		return (end < rankedInstances.size()) ? end : rankedInstances.size();
+	}
+	
+	
+		/**
+		 * <p>Retrieve the taxonomy lineages of a collection of taxonomy objects, grouped
+		 * by table (entries or aliases) in batches of multiple labels.</p>
+		 * @param taxonomyInstances collection of taxonomy objects extracted from the document
+		 * @return array of maps of encoded labels to taxonomy lineages indexed by table, null if the 
+		 * connection does not support batch queries or the queries failed.
+		 */
+	@SuppressWarnings("unchecked")
+	private Map<String, String[]>[] retrieveTaxonomies(final Collection<CTaxonomyObject> taxonomyInstances) {
+		Map<String, String[]>[] taxonomyLineagesMaps = null;
+		
+		if( _taxonomyConnection.isBatchEnabled() ) {
+			Set<String> entryLabels = new HashSet<String>();
+			Set<String> aliasLabels = new HashSet<String>();
+			String encodedLabel = null;
+			
+			for( CTaxonomyObject taxonomyInstance  : taxonomyInstances) {
+				encodedLabel = CStringUtil.encodeLatin1(taxonomyInstance.getLabel());
+				if( encodedLabel != null ) {
+					if( isAliasRecord(taxonomyInstance.getType()) ) {
+						aliasLabels.add(encodedLabel);
+					}
+					else {
+						entryLabels.add(encodedLabel);
+					}
+				}
+			}
+			
+			try {
+				taxonomyLineagesMaps = new Map[CTaxonomyConnectionsPool.ALIAS_TABLE+1];
+				taxonomyLineagesMaps[CTaxonomyConnectionsPool.ENTRY_TABLE] = 
+					_taxonomyConnection.retrieve(CTaxonomyConnectionsPool.ENTRY_TABLE, entryLabels);
+				taxonomyLineagesMaps[CTaxonomyConnectionsPool.ALIAS_TABLE] = 
+					_taxonomyConnection.retrieve(CTaxonomyConnectionsPool.ALIAS_TABLE, aliasLabels);
+			}
+			catch (SQLException e) {
+				CLogger.error("Cannot extract semantic in batch " + e.toString());
+				taxonomyLineagesMaps = null;
+			}
+		}
+		
+		return taxonomyLineagesMaps;
+	}
+	
+	
+	private static String[] getTaxonomies(	final Map<String, String[]>[] taxonomyLineagesMaps, 
+											final CTaxonomyObject taxonomyInstance) {
+		String[] taxonomyLineages = null;
+		
+		String encodedLabel = CStringUtil.encodeLatin1(taxonomyInstance.getLabel());
+		if( encodedLabel != null ) {
+			taxonomyLineages = isAliasRecord(taxonomyInstance.getType()) ?
+							   taxonomyLineagesMaps[CTaxonomyConnectionsPool.ALIAS_TABLE].get(encodedLabel) :
+							   taxonomyLineagesMaps[CTaxonomyConnectionsPool.ENTRY_TABLE].get(encodedLabel);
+		}
+		
+		return taxonomyLineages;
+	}
 }
 
 // ------------------------------- EOF ----------------------------------------------
\ No newline at end of file
@@ -0,0 +1,177 @@
+// Copyright (C) 2010-2012 Patrick Nicolas
+package com.c24x7.semantics;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import com.c24x7.semantics.dbpedia.CDbpediaSql;
+import com.c24x7.util.CEnv;
+import com.c24x7.util.collections.CBloomFilter;
+import com.c24x7.util.db.CSqlPreparedStmt;
+import com.c24x7.util.logs.CLogger;
+
+
+
+			/**
+			 * <p>Bloom filters of the labels of the Wikipedia entries and aliases, indexed by
+			 * table (ENTRY_TABLE, ALIAS_TABLE). The connections of the taxonomy pool test the
+			 * labels against the filters before querying the database, so the labels which are
+			 * not recorded in the reference tables never reach the database.</p>
+			 * <p>The filters record the presence of the labels regardless of their taxonomy, as
+			 * the taxonomy columns are updated in place by the taxonomy generation jobs while the
+			 * labels are only added. The labels are stored Latin1 encoded and in lower case, as the
+			 * database compares labels regardless of their case. The filters are created from the
+			 * database with the lookup tables and loaded when the connections pool is created.
+			 * The filters are stamped with the fingerprint of the database at their creation
+			 * and ignored once records are added to the database. No label is rejected if the
+			 * filters are not available or stale.</p>
+			 * @see com.c24x7.semantics.CTaxonomyConnectionsPool
+			 * @author Patrick Nicolas
+			 * @date 07/21/2012
+			 */
+public final class CTaxonomyFilters {
+	public final static String[] FILTER_FILES = {
+		CEnv.configDir + "taxonomy_entries" + CBloomFilter.EXTENSION,
+		CEnv.configDir + "taxonomy_aliases" + CBloomFilter.EXTENSION
+	};
+
+	private final static String[] LABEL_FIELDS = { "label" };
+	private final static String SELECT_ALIASES_LABELS = "SELECT label FROM 24x7c.dbpedia_aliases WHERE id <= ?;";
+
+	private static volatile CBloomFilter[] filters = null;
+
+
+		/**
+		 * <p>Load the filters of the taxonomy tables from their files. The
+		 * labels are not filtered if any of the files is missing, invalid or
+		 * stale. The filters are used without check if the fingerprint of the
+		 * database cannot be retrieved.</p>
+		 * @return true if the filters are loaded, false otherwise
+		 */
+	public static synchronized boolean load() {
+		CBloomFilter[] loadedFilters = new CBloomFilter[FILTER_FILES.length];
+		Long fingerprint = null;
+
+		try {
+			fingerprint = Long.valueOf(CDbpediaSql.getFingerprint());
+		}
+		catch( SQLException e) {
+			CLogger.warn("Cannot check the taxonomy filters against the database " + e.toString());
+		}
+
+		for( int k = 0; loadedFilters != null && k < FILTER_FILES.length; k++) {
+			if( new File(FILTER_FILES[k]).exists() ) {
+				try {
+					loadedFilters[k] = CBloomFilter.read(FILTER_FILES[k]);
+					if( fingerprint != null && loadedFilters[k].getStamp() != fingerprint.longValue()) {
+						CLogger.warn("Taxonomy filter " + FILTER_FILES[k] + " is stale and ignored, the taxonomy filters have to be created again");
+						loadedFilters = null;
+					}
+				}
+				catch( IOException e) {
+					CLogger.error("Cannot read taxonomy filter " + FILTER_FILES[k] + " " + e.toString());
+					loadedFilters = null;
+				}
+			}
+			else {
+				loadedFilters = null;
+			}
+		}
+		filters = loadedFilters;
+
+		return (loadedFilters != null);
+	}
+
+
+		/**
+		 * <p>Test if a label may be recorded in a taxonomy table. The label is expected
+		 * in lower case so the callers convert it once for all the tests of a label.</p>
+		 * @param tableIndex index of the table (ENTRY_TABLE or ALIAS_TABLE)
+		 * @param lowerCaseLabel Latin1 encoded label in lower case
+		 * @return false if the label is not in the table, true if it may be or the filters are not loaded
+		 */
+	public static boolean mightContain(int tableIndex, final String lowerCaseLabel) {
+		CBloomFilter[] currentFilters = filters;
+		return (currentFilters == null || currentFilters[tableIndex].mightContain(lowerCaseLabel));
+	}
+
+
+		/**
+		 * <p>Create the filters of the labels of the entries and aliases tables
+		 * by scanning the database, save them and make them active.</p>
+		 * @param falsePositiveRate rate of false positives of the filters
+		 * @return number of labels added to the filters
+		 * @throws SQLException if the database cannot be scanned
+		 * @throws IOException if the filters cannot be saved
+		 */
+	public static long create(double falsePositiveRate) throws SQLException, IOException {
+		CDbpediaSql dbpediaSql = CDbpediaSql.getInstance();
+		final CBloomFilter[] newFilters = new CBloomFilter[FILTER_FILES.length];
+
+			/*
+			 * The fingerprint is taken before the scan so the records
+			 * added during the scan make the filters stale.
+			 */
+		final long fingerprint = CDbpediaSql.getFingerprint();
+		final int lastEntryIndex = CDbpediaSql.getLastEntryIndex(fingerprint),
+		          lastAliasIndex = CDbpediaSql.getLastAliasIndex(fingerprint);
+
+		newFilters[CTaxonomyConnectionsPool.ENTRY_TABLE] = new CBloomFilter(lastEntryIndex, falsePositiveRate);
+		dbpediaSql.scan(LABEL_FIELDS, null, 0, lastEntryIndex, false,
+			new CDbpediaSql.NRecordHandler() {
+				@Override
+				public void process(int id, final String[] record) {
+					add(newFilters[CTaxonomyConnectionsPool.ENTRY_TABLE], record[0]);
+				}
+			});
+
+		newFilters[CTaxonomyConnectionsPool.ALIAS_TABLE] = new CBloomFilter(lastAliasIndex, falsePositiveRate);
+		CSqlPreparedStmt pStmt = new CSqlPreparedStmt();
+		pStmt.setStreamingStmt(SELECT_ALIASES_LABELS);
+		try {
+			pStmt.set(1, lastAliasIndex);
+			ResultSet rs = pStmt.query();
+			try {
+				while( rs.next() ) {
+					add(newFilters[CTaxonomyConnectionsPool.ALIAS_TABLE], rs.getString(1));
+				}
+			}
+			finally {
+				rs.close();
+			}
+		}
+		finally {
+			pStmt.close();
+		}
+
+		long numLabels = 0L;
+		for( int k = 0; k < FILTER_FILES.length; k++) {
+			newFilters[k].setStamp(fingerprint);
+			newFilters[k].write(FILTER_FILES[k]);
+			numLabels += newFilters[k].size();
+			CLogger.info("Taxonomy filter " + FILTER_FILES[k] + " " + newFilters[k].toString());
+		}
+		filters = newFilters;
+
+		return numLabels;
+	}
+
+
+
+						// ---------------------------
+						//  Supporting Private Methods
+						// ---------------------------
+
+	private static void add(CBloomFilter filter, final String encodedLabel) {
+		if( encodedLabel != null) {
+			filter.put(encodedLabel.toLowerCase());
+		}
+	}
+
+
+	private CTaxonomyFilters() { }
+}
+
+// ----------------------------  EOF ------------------------------------
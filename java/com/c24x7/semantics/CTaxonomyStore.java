@@ -0,0 +1,648 @@
+// Copyright (C) 2010-2012 Patrick Nicolas
+package com.c24x7.semantics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+import com.c24x7.semantics.dbpedia.CDbpediaSql;
+import com.c24x7.util.CEnv;
+import com.c24x7.util.db.CSqlPreparedStmt;
+import com.c24x7.util.logs.CLogger;
+
+
+
+			/**
+			 * <p>Read only store of the taxonomy records of the Wikipedia entries or aliases,
+			 * exported from the reference database into a memory mapped file, so the taxonomy
+			 * lineages are retrieved without querying the database. The labels are Latin1
+			 * encoded and converted to lower case, as the database compares labels regardless
+			 * of their case; the aliases are resolved to the taxonomy of their entry.</p>
+			 * <p>The records are sorted by label and grouped into blocks of ENTRIES_PER_BLOCK
+			 * records. The key of a record is stored as the length of the prefix shared with the
+			 * previous key of the block followed by the remaining bytes. A sparse index of the
+			 * first key of each block, loaded in memory, selects the block which is scanned
+			 * sequentially.</p>
+			 * <p>Layout: magic, version, number of records, number of blocks, offset of the
+			 * index, fingerprint of the database and number of updates of the taxonomy columns
+			 * at the export, followed by the blocks and the index (offset and first key of each
+			 * block). The lengths are encoded as variable length integers. The stores exported
+			 * before records were added to the database or their taxonomy updated are stale and
+			 * not opened.</p>
+			 * @see com.c24x7.semantics.CTaxonomyConnectionsPool.NStoreTaxonomiesConn
+			 * @author Patrick Nicolas
+			 * @date 07/24/2012
+			 */
+public final class CTaxonomyStore {
+	public final static String[] STORE_FILES = {
+		CEnv.configDir + "taxonomy_entries.store",
+		CEnv.configDir + "taxonomy_aliases.store"
+	};
+	public final static int 	ENTRIES_PER_BLOCK 	= 32;
+	public final static int 	RUN_SIZE 			= 250000;
+
+	private final static int 	MAGIC 			= 0x32345453;
+	private final static int 	VERSION 		= 3;
+	private final static int 	HEADER_SIZE 	= 36;
+	private final static String ENCODING		= "UTF-8";
+
+	private final static String[] TAXONOMY_FIELDS = { "label", "taxonomy", "sub_taxonomy" };
+	private final static String SELECT_ALIASES_TAXONOMY =
+		"SELECT a.label,d.taxonomy,d.sub_taxonomy FROM 24x7c.dbpedia_aliases a INNER JOIN 24x7c.dbpedia d ON d.id=a.resourceid WHERE a.resourceid > 0 ORDER BY a.id;";
+
+
+
+			/**
+			 * <p>Sorted run of records written into a temporary file during
+			 * the export. The records of a table are sorted by batches of RUN_SIZE
+			 * records which are merged into the store file.</p>
+			 */
+	private static class NSortedRuns {
+		private TreeMap<String, String[]> 	_records 	= new TreeMap<String, String[]>();
+		private List<File>					_runFiles 	= new ArrayList<File>();
+		private String						_fileName 	= null;
+
+		private NSortedRuns(final String fileName) {
+			_fileName = fileName;
+		}
+
+			/*
+			 * The first record of a label, in the order of the database, is kept.
+			 */
+		private void add(final String encodedLabel, final String taxonomy, final String subTaxonomy) throws IOException {
+			if( encodedLabel != null &&
+			   ((taxonomy != null && taxonomy.length() > 2) || (subTaxonomy != null && subTaxonomy.length() > 2)) ) {
+				final String key = encodedLabel.toLowerCase();
+				if( !_records.containsKey(key) ) {
+					_records.put(key, new String[] { taxonomy, subTaxonomy });
+					if( _records.size() >= RUN_SIZE) {
+						flush();
+					}
+				}
+			}
+		}
+
+		private void flush() throws IOException {
+			if( _records.size() > 0) {
+				File runFile = new File(_fileName + ".run" + _runFiles.size());
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(runFile), 65536));
+				try {
+					for( Map.Entry<String, String[]> record : _records.entrySet()) {
+						writeBytes(out, toBytes(record.getKey()));
+						writeBytes(out, toBytes(record.getValue()[0]));
+						writeBytes(out, toBytes(record.getValue()[1]));
+					}
+				}
+				finally {
+					out.close();
+				}
+				_runFiles.add(runFile);
+				_records.clear();
+			}
+		}
+
+		private void delete() {
+			for( File runFile : _runFiles) {
+				if( !runFile.delete() ) {
+					CLogger.error("Cannot delete temporary taxonomy file " + runFile.getName());
+				}
+			}
+		}
+	}
+
+
+			/**
+			 * <p>Reader of a sorted run during the merge. The runs are ordered by their
+			 * current key then by their rank, so the record of the earliest run is kept
+			 * when several runs contain the same key.</p>
+			 */
+	private static class NRunReader implements Comparable<NRunReader> {
+		private DataInputStream _in 		= null;
+		private int				_rank 		= 0;
+		private byte[]			_key 		= null;
+		private byte[]			_taxonomy 	= null;
+		private byte[]			_subTaxonomy = null;
+
+		private NRunReader(final File runFile, int rank) throws IOException {
+			_in = new DataInputStream(new BufferedInputStream(new FileInputStream(runFile), 65536));
+			_rank = rank;
+		}
+
+		private boolean next() throws IOException {
+			try {
+				_key = readBytes(_in);
+				_taxonomy = readBytes(_in);
+				_subTaxonomy = readBytes(_in);
+			}
+			catch( EOFException e) {
+				_key = null;
+				_in.close();
+			}
+			return (_key != null);
+		}
+
+		@Override
+		public int compareTo(NRunReader reader) {
+			int diff = compare(_key, 0, _key.length, reader._key);
+			return (diff != 0) ? diff : _rank - reader._rank;
+		}
+	}
+
+
+			/**
+			 * <p>Writer of the blocks and the sparse index of a store file.</p>
+			 */
+	private static class NStoreWriter {
+		private DataOutputStream 	_out 			= null;
+		private List<byte[]>		_firstKeys 		= new ArrayList<byte[]>();
+		private List<Integer>		_blockOffsets 	= new ArrayList<Integer>();
+		private byte[]				_previousKey 	= null;
+		private long				_offset 		= HEADER_SIZE;
+		private int					_numEntries 	= 0;
+
+		private NStoreWriter(final File file) throws IOException {
+			_out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 65536));
+			_out.write(new byte[HEADER_SIZE]);
+		}
+
+		private void add(final byte[] key, final byte[] taxonomy, final byte[] subTaxonomy) throws IOException {
+			int sharedLength = 0;
+			if( _numEntries % ENTRIES_PER_BLOCK == 0) {
+				_firstKeys.add(key);
+				_blockOffsets.add(Integer.valueOf(checkOffset(_offset)));
+			}
+			else {
+				final int maxLength = (key.length < _previousKey.length) ? key.length : _previousKey.length;
+				while( sharedLength < maxLength && key[sharedLength] == _previousKey[sharedLength]) {
+					sharedLength++;
+				}
+			}
+
+			_offset += writeVarInt(_out, sharedLength);
+			_offset += writeVarInt(_out, key.length - sharedLength);
+			_out.write(key, sharedLength, key.length - sharedLength);
+			_offset += key.length - sharedLength;
+			_offset += writeBytes(_out, taxonomy);
+			_offset += writeBytes(_out, subTaxonomy);
+
+			_previousKey = key;
+			_numEntries++;
+		}
+
+		private void close(final File file, long fingerprint, long taxonomyUpdates) throws IOException {
+			final int indexOffset = checkOffset(_offset);
+			for( int k = 0; k < _firstKeys.size(); k++) {
+				_out.writeInt(_blockOffsets.get(k).intValue());
+				_offset += 4 + writeBytes(_out, _firstKeys.get(k));
+			}
+			checkOffset(_offset);
+			_out.close();
+
+			RandomAccessFile header = new RandomAccessFile(file, "rw");
+			try {
+				header.writeInt(MAGIC);
+				header.writeInt(VERSION);
+				header.writeInt(_numEntries);
+				header.writeInt(_firstKeys.size());
+				header.writeInt(indexOffset);
+				header.writeLong(fingerprint);
+				header.writeLong(taxonomyUpdates);
+			}
+			finally {
+				header.close();
+			}
+		}
+
+		private static int checkOffset(long offset) throws IOException {
+			if( offset > Integer.MAX_VALUE) {
+				throw new IOException("Taxonomy store exceeds 2 GB");
+			}
+			return (int)offset;
+		}
+	}
+
+
+
+		/**
+		 * <p>Open the stores of the entries and aliases tables, indexed by
+		 * table (ENTRY_TABLE, ALIAS_TABLE). The stores are stale if records were added
+		 * to the database or their taxonomy updated since the export. The stores are opened
+		 * without check if the fingerprint or the taxonomy updates of the database cannot
+		 * be retrieved.</p>
+		 * @return array of stores, null if any of the store files is missing, invalid or stale
+		 */
+	public static CTaxonomyStore[] open() {
+		CTaxonomyStore[] stores = new CTaxonomyStore[STORE_FILES.length];
+		Long fingerprint = null,
+		     taxonomyUpdates = null;
+
+		try {
+			fingerprint = Long.valueOf(CDbpediaSql.getFingerprint());
+		}
+		catch( SQLException e) {
+			CLogger.warn("Cannot check the taxonomy stores against the database " + e.toString());
+		}
+		try {
+			taxonomyUpdates = Long.valueOf(CDbpediaSql.getTaxonomyUpdates());
+		}
+		catch( SQLException e) {
+			CLogger.warn("Cannot check the taxonomy stores against the taxonomy updates " + e.toString());
+		}
+
+		for( int k = 0; stores != null && k < STORE_FILES.length; k++) {
+			if( new File(STORE_FILES[k]).exists() ) {
+				try {
+					stores[k] = new CTaxonomyStore(STORE_FILES[k]);
+					if( (fingerprint != null && stores[k].getFingerprint() != fingerprint.longValue()) ||
+						(taxonomyUpdates != null && stores[k].getTaxonomyUpdates() != taxonomyUpdates.longValue()) ) {
+						CLogger.warn("Taxonomy store " + STORE_FILES[k] + " is stale and ignored, the taxonomy stores have to be exported again");
+						stores = null;
+					}
+				}
+				catch( IOException e) {
+					CLogger.error("Cannot open taxonomy store " + STORE_FILES[k] + " " + e.toString());
+					stores = null;
+				}
+			}
+			else {
+				stores = null;
+			}
+		}
+
+		return stores;
+	}
+
+
+		/**
+		 * <p>Export the taxonomy records of a table of the reference database into
+		 * its store file. The records are sorted through temporary files so the
+		 * table is not loaded in memory. The store file is first written into a
+		 * temporary file then renamed so readers never map a partial file.</p>
+		 * @param tableIndex index of the table (ENTRY_TABLE or ALIAS_TABLE)
+		 * @return number of records exported
+		 * @throws SQLException if the table cannot be scanned
+		 * @throws IOException if the store file cannot be written
+		 */
+	public static int export(int tableIndex) throws SQLException, IOException {
+		if( tableIndex != CTaxonomyConnectionsPool.ENTRY_TABLE && tableIndex != CTaxonomyConnectionsPool.ALIAS_TABLE) {
+			throw new IllegalArgumentException("Incorrect index " + tableIndex + " for taxonomy store");
+		}
+
+		final String fileName = STORE_FILES[tableIndex];
+		final NSortedRuns sortedRuns = new NSortedRuns(fileName);
+		int numEntries = 0;
+
+			/*
+			 * The fingerprint and the taxonomy updates are taken before the scan
+			 * so the records added or updated during the scan make the store stale.
+			 */
+		final long fingerprint = CDbpediaSql.getFingerprint(),
+		           taxonomyUpdates = CDbpediaSql.getTaxonomyUpdates();
+
+		try {
+			if( tableIndex == CTaxonomyConnectionsPool.ENTRY_TABLE) {
+				CDbpediaSql dbpediaSql = CDbpediaSql.getInstance();
+				dbpediaSql.scan(TAXONOMY_FIELDS, "taxonomy IS NOT NULL OR sub_taxonomy IS NOT NULL", 0, CDbpediaSql.getLastEntryIndex(fingerprint), false,
+					new CDbpediaSql.NRecordHandler() {
+						@Override
+						public void process(int id, final String[] record) throws SQLException {
+							try {
+								sortedRuns.add(record[0], record[1], record[2]);
+							}
+							catch( IOException e) {
+								throw new SQLException("Cannot write sorted taxonomy records " + e.toString());
+							}
+						}
+					});
+			}
+			else {
+				exportAliases(sortedRuns);
+			}
+			sortedRuns.flush();
+
+			File tempFile = new File(fileName + ".tmp");
+			numEntries = merge(sortedRuns._runFiles, tempFile, fingerprint, taxonomyUpdates);
+
+			File storeFile = new File(fileName);
+			if( (storeFile.exists() && !storeFile.delete()) || !tempFile.renameTo(storeFile) ) {
+				throw new IOException("Cannot create taxonomy store " + fileName);
+			}
+		}
+		finally {
+			sortedRuns.delete();
+		}
+		CLogger.info("Taxonomy store " + fileName + " created with " + numEntries + " records");
+
+		return numEntries;
+	}
+
+
+
+	private MappedByteBuffer 	_buffer 		= null;
+	private int 				_numEntries		= 0;
+	private long				_fingerprint	= 0L;
+	private long				_taxonomyUpdates = 0L;
+	private byte[][]			_firstKeys		= null;
+	private int[]				_blockOffsets	= null;
+
+
+		/**
+		 * <p>Map a store file in memory and load its sparse index.</p>
+		 * @param fileName name of the store file
+		 * @throws IOException if the file cannot be mapped or is not a taxonomy store
+		 */
+	public CTaxonomyStore(final String fileName) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(fileName, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			_buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		finally {
+			file.close();
+		}
+
+		if( _buffer.capacity() < 8 || _buffer.getInt(0) != MAGIC) {
+			throw new IOException(fileName + " is not a taxonomy store");
+		}
+		if( _buffer.getInt(4) != VERSION) {
+			throw new IOException("Taxonomy store " + fileName + " has version " + _buffer.getInt(4) + " instead of " + VERSION + " and has to be exported again");
+		}
+		if( _buffer.capacity() < HEADER_SIZE) {
+			throw new IOException("Taxonomy store " + fileName + " is corrupted");
+		}
+		_numEntries = _buffer.getInt(8);
+		final int numBlocks = _buffer.getInt(12);
+		_fingerprint = _buffer.getLong(20);
+		_taxonomyUpdates = _buffer.getLong(28);
+
+		_firstKeys = new byte[numBlocks][];
+		_blockOffsets = new int[numBlocks];
+		int[] position = { _buffer.getInt(16) };
+		for( int k = 0; k < numBlocks; k++) {
+			_blockOffsets[k] = _buffer.getInt(position[0]);
+			position[0] += 4;
+			_firstKeys[k] = new byte[readVarInt(_buffer, position)];
+			for( int j = 0; j < _firstKeys[k].length; j++) {
+				_firstKeys[k][j] = _buffer.get(position[0]++);
+			}
+		}
+	}
+
+
+	public final int size() {
+		return _numEntries;
+	}
+
+	public final long getFingerprint() {
+		return _fingerprint;
+	}
+
+	public final long getTaxonomyUpdates() {
+		return _taxonomyUpdates;
+	}
+
+
+		/**
+		 * <p>Retrieve the taxonomy record of a label.</p>
+		 * @param encodedLabel Latin1 encoded label
+		 * @return array of the encoded taxonomy and taxonomy of the categories of the entry,
+		 * null if the label has no taxonomy. Any of the two taxonomies may be null.
+		 */
+	public String[] get(final String encodedLabel) {
+		String[] record = null;
+
+		if( encodedLabel != null && _firstKeys.length > 0) {
+			final byte[] key = toBytes(encodedLabel.toLowerCase());
+
+				/*
+				 * Binary search of the last block which first key
+				 * is not greater than the key.
+				 */
+			int low = 0,
+				high = _firstKeys.length-1;
+			while( low < high) {
+				int mid = (low + high + 1) >>> 1;
+				if( compare(_firstKeys[mid], 0, _firstKeys[mid].length, key) <= 0) {
+					low = mid;
+				}
+				else {
+					high = mid - 1;
+				}
+			}
+
+			final int numBlockEntries = (low < _firstKeys.length-1) ? ENTRIES_PER_BLOCK : _numEntries - low*ENTRIES_PER_BLOCK;
+			record = scanBlock(_blockOffsets[low], numBlockEntries, key);
+		}
+
+		return record;
+	}
+
+
+
+						// ---------------------------
+						//  Supporting Private Methods
+						// ---------------------------
+
+	private String[] scanBlock(int offset, int numBlockEntries, final byte[] key) {
+		String[] record = null;
+		byte[] currentKey = new byte[64];
+		int[] position = { offset };
+		int diff = -1;
+
+		for( int k = 0; diff < 0 && k < numBlockEntries; k++) {
+			final int sharedLength = readVarInt(_buffer, position);
+			final int suffixLength = readVarInt(_buffer, position);
+			final int keyLength = sharedLength + suffixLength;
+
+			if( keyLength > currentKey.length) {
+				byte[] newKey = new byte[keyLength << 1];
+				System.arraycopy(currentKey, 0, newKey, 0, sharedLength);
+				currentKey = newKey;
+			}
+			for( int j = sharedLength; j < keyLength; j++) {
+				currentKey[j] = _buffer.get(position[0]++);
+			}
+
+			diff = compare(currentKey, 0, keyLength, key);
+			if( diff == 0) {
+				record = new String[] { readString(position), readString(position) };
+			}
+			else {
+				for( int j = 0; j < 2; j++) {
+					final int length = readVarInt(_buffer, position);
+					position[0] += length;
+				}
+			}
+		}
+
+		return record;
+	}
+
+
+	private String readString(int[] position) {
+		final int length = readVarInt(_buffer, position);
+		String value = null;
+
+		if( length > 0) {
+			byte[] bytes = new byte[length];
+			for( int k = 0; k < length; k++) {
+				bytes[k] = _buffer.get(position[0]++);
+			}
+			try {
+				value = new String(bytes, ENCODING);
+			}
+			catch( UnsupportedEncodingException e) {
+				throw new IllegalStateException(e.toString());
+			}
+		}
+		return value;
+	}
+
+
+	private static void exportAliases(final NSortedRuns sortedRuns) throws SQLException, IOException {
+		CSqlPreparedStmt pStmt = new CSqlPreparedStmt();
+		pStmt.setStreamingStmt(SELECT_ALIASES_TAXONOMY);
+		try {
+			ResultSet rs = pStmt.query();
+			try {
+				while( rs.next() ) {
+					sortedRuns.add(rs.getString(1), rs.getString(2), rs.getString(3));
+				}
+			}
+			finally {
+				rs.close();
+			}
+		}
+		finally {
+			pStmt.close();
+		}
+	}
+
+
+	private static int merge(final List<File> runFiles, final File storeFile, long fingerprint, long taxonomyUpdates) throws IOException {
+		PriorityQueue<NRunReader> readersQueue = new PriorityQueue<NRunReader>();
+		NStoreWriter writer = new NStoreWriter(storeFile);
+		byte[] previousKey = null;
+
+		try {
+			for( int k = 0; k < runFiles.size(); k++) {
+				NRunReader reader = new NRunReader(runFiles.get(k), k);
+				if( reader.next() ) {
+					readersQueue.add(reader);
+				}
+			}
+
+			while( !readersQueue.isEmpty() ) {
+				NRunReader reader = readersQueue.poll();
+				if( previousKey == null || compare(previousKey, 0, previousKey.length, reader._key) != 0) {
+					writer.add(reader._key, reader._taxonomy, reader._subTaxonomy);
+					previousKey = reader._key;
+				}
+				if( reader.next() ) {
+					readersQueue.add(reader);
+				}
+			}
+		}
+		finally {
+			for( NRunReader reader : readersQueue) {
+				reader._in.close();
+			}
+		}
+		writer.close(storeFile, fingerprint, taxonomyUpdates);
+
+		return writer._numEntries;
+	}
+
+
+		/*
+		 * Comparison of keys encoded in UTF-8, using the unsigned
+		 * value of bytes.
+		 */
+	private static int compare(final byte[] key1, int offset, int length, final byte[] key2) {
+		final int minLength = (length < key2.length) ? length : key2.length;
+		int diff = 0;
+
+		for( int k = 0; diff == 0 && k < minLength; k++) {
+			diff = (key1[offset + k] & 0xFF) - (key2[k] & 0xFF);
+		}
+		return (diff != 0) ? diff : length - key2.length;
+	}
+
+
+	private static byte[] toBytes(final String value) {
+		try {
+			return (value != null) ? value.getBytes(ENCODING) : new byte[0];
+		}
+		catch( UnsupportedEncodingException e) {
+			throw new IllegalStateException(e.toString());
+		}
+	}
+
+
+	private static int writeBytes(DataOutputStream out, final byte[] bytes) throws IOException {
+		final int length = writeVarInt(out, bytes.length);
+		out.write(bytes);
+		return length + bytes.length;
+	}
+
+
+	private static byte[] readBytes(DataInputStream in) throws IOException {
+		int length = 0;
+		int shift = 0;
+		int value = 0;
+		do {
+			value = in.readUnsignedByte();
+			length |= (value & 0x7F) << shift;
+			shift += 7;
+		} while( (value & 0x80) != 0);
+
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return bytes;
+	}
+
+
+	private static int writeVarInt(DataOutputStream out, int value) throws IOException {
+		int numBytes = 1;
+		while( (value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+			numBytes++;
+		}
+		out.writeByte(value);
+		return numBytes;
+	}
+
+
+	private static int readVarInt(final MappedByteBuffer buffer, int[] position) {
+		int value = 0;
+		int shift = 0;
+		int current = 0;
+		do {
+			current = buffer.get(position[0]++);
+			value |= (current & 0x7F) << shift;
+			shift += 7;
+		} while( (current & 0x80) != 0);
+
+		return value;
+	}
+}
+
+// ----------------------------  EOF ------------------------------------
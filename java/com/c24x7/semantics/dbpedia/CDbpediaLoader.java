@@ -2,10 +2,28 @@
 package com.c24x7.semantics.dbpedia;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.FilterInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.c24x7.semantics.dbpedia.etl.ADbpediaEtl;
 import com.c24x7.semantics.dbpedia.etl.CDbpediaGeolocEtl;
@@ -14,21 +32,281 @@ import com.c24x7.semantics.dbpedia.etl.CDbpediaLgAbstractEtl;
 import com.c24x7.semantics.dbpedia.etl.CDbpediaOntologyEtl;
 import com.c24x7.semantics.dbpedia.etl.CDbpediaRedirectsEtl;
 import com.c24x7.semantics.dbpedia.etl.CDbpediaShAbstractEtl;
+import com.c24x7.semantics.dbpedia.etl.CTriple;
+import com.c24x7.semantics.dbpedia.etl.CTripleReader;
 import com.c24x7.util.logs.CLogger;
 
 
 
 
 			/**
-			 * <p>Utility class that build the dbpedia database from the datasets.</p>
+			 * <p>Utility class that build the dbpedia database from the datasets.<br>
+			 * If more than one worker is configured and the ETL supports it, the dbpedia
+			 * file is split into chunks of bytes aligned on line boundaries which are parsed
+			 * concurrently; each worker has its own instance of the ETL which inserts the
+			 * records by JDBC batches. The chunks completed are recorded into a checkpoint
+			 * file so an interrupted load resumes with the remaining chunks.<br>
+			 * The lines are read as bytes and tokenized in place as triples so the ETL
+			 * create strings only for the fields they extract.</p>
 			 * @author Patrick Nicolas
 			 * @date 09/28/2011
 			 */
 public final class CDbpediaLoader {
-	private final static long DISPLAY_INTERVAL = 10000L;
-	private long _maxNumRecords = Long.MAX_VALUE;
-	private long _startIndex = -1L;
+	private final static long 	DISPLAY_INTERVAL 	= 10000L;
+	public final static long 	DEFAULT_CHUNK_SIZE 	= 32L*1024L*1024L;
+	public final static int 	DEFAULT_BATCH_SIZE 	= 500;
+	private final static String CHECKPOINT_EXTENSION = ".checkpoint";
+	private final static int	SCAN_BUFFER_SIZE 	= 4096;
+	private final static long	TERMINATION_TIMEOUT = 60L;
 	
+	private long 	_maxNumRecords 	= Long.MAX_VALUE;
+	private long 	_startIndex 	= -1L;
+	private int		_numWorkers 	= 1;
+	private long	_chunkSize 		= DEFAULT_CHUNK_SIZE;
+	private int		_batchSize 		= DEFAULT_BATCH_SIZE;
+	private String	_checkpointFile = null;
+	
+	
+			/**
+			 * <p>Chunk of a dbpedia file defined by a range of bytes [start, end[.</p>
+			 */
+	private static final class NChunk {
+		private int  _index = -1;
+		private long _start = 0L;
+		private long _end 	= 0L;
+		
+		private NChunk(int index, long start, long end) {
+			_index = index;
+			_start = start;
+			_end = end;
+		}
+	}
+	
+	
+			/**
+			 * <p>Input stream which reads at most a given number of bytes.</p>
+			 */
+	private static final class NBoundedInputStream extends FilterInputStream {
+		private long _remaining = 0L;
+		
+		private NBoundedInputStream(InputStream in, long length) {
+			super(in);
+			_remaining = length;
+		}
+		
+		@Override
+		public int read() throws IOException {
+			int value = -1;
+			if( _remaining > 0L) {
+				value = super.read();
+				if( value != -1) {
+					_remaining--;
+				}
+			}
+			return value;
+		}
+		
+		@Override
+		public int read(byte[] buf, int offset, int length) throws IOException {
+			int numBytes = -1;
+			if( _remaining > 0L) {
+				numBytes = super.read(buf, offset, (int)Math.min(length, _remaining));
+				if( numBytes > 0) {
+					_remaining -= numBytes;
+				}
+			}
+			return numBytes;
+		}
+		
+		@Override
+		public long skip(long n) throws IOException {
+			long numBytes = super.skip(Math.min(n, _remaining));
+			_remaining -= numBytes;
+			return numBytes;
+		}
+		
+		@Override
+		public int available() throws IOException {
+			return (int)Math.min(super.available(), _remaining);
+		}
+	}
+	
+	
+			/**
+			 * <p>Checkpoint file which records the indices of the chunks already 
+			 * loaded. The header identifies the dbpedia file, its length and the size
+			 * of the chunks; a checkpoint with a different header is ignored.</p>
+			 */
+	private static final class NCheckpoint {
+		private String 	_fileName 	= null;
+		private String 	_header 	= null;
+		private BitSet	_completed 	= new BitSet();
+		
+		private NCheckpoint(final String fileName, final File dbpediaFile, long chunkSize) throws IOException {
+			_fileName = fileName;
+			_header = "# " + dbpediaFile.getPath() + " " + dbpediaFile.length() + " " + chunkSize;
+			
+			File file = new File(_fileName);
+			boolean valid = false;
+			if( file.exists()) {
+				BufferedReader reader = new BufferedReader(new FileReader(file));
+				try {
+					String line = reader.readLine();
+					if( _header.equals(line)) {
+						valid = true;
+						while( (line = reader.readLine()) != null) {
+							line = line.trim();
+							if( line.length() > 0) {
+								_completed.set(Integer.parseInt(line));
+							}
+						}
+					}
+				}
+				catch( NumberFormatException e) {
+					CLogger.error("Incorrect checkpoint " + _fileName + " " + e.toString());
+				}
+				finally {
+					reader.close();
+				}
+			}
+			
+			if( !valid) {
+				_completed.clear();
+				write(_header, false);
+			}
+		}
+		
+		private synchronized boolean isCompleted(int index) {
+			return _completed.get(index);
+		}
+		
+		private synchronized int getNumCompleted() {
+			return _completed.cardinality();
+		}
+		
+		private synchronized void complete(int index) throws IOException {
+			_completed.set(index);
+			write(String.valueOf(index), true);
+		}
+		
+		private void write(final String line, boolean append) throws IOException {
+			FileWriter writer = new FileWriter(_fileName, append);
+			try {
+				writer.write(line);
+				writer.write("\n");
+			}
+			finally {
+				writer.close();
+			}
+		}
+	}
+	
+	
+			/**
+			 * <p>Task which loads a chunk of the dbpedia file with one of the ETL
+			 * instances of the workers. The chunk is recorded into the checkpoint once
+			 * all its records have been committed. The records not committed yet are 
+			 * rolled back if the chunk is interrupted or fails, so the ETL instance
+			 * returned to the workers has no pending records.</p>
+			 */
+	private final class NChunkTask implements Callable<NChunk> {
+		private File						_file 		= null;
+		private NChunk 						_chunk 		= null;
+		private BlockingQueue<ADbpediaEtl> 	_etls 		= null;
+		private NCheckpoint					_checkpoint = null;
+		private AtomicLong					_counter 	= null;
+		private AtomicLong					_eCounter 	= null;
+		private long						_startTime 	= 0L;
+		
+		private NChunkTask(	final File 		file, 
+							final NChunk 	chunk, 
+							final BlockingQueue<ADbpediaEtl> etls, 
+							final NCheckpoint checkpoint, 
+							final AtomicLong counter, 
+							final AtomicLong eCounter, 
+							long startTime) {
+			_file = file;
+			_chunk = chunk;
+			_etls = etls;
+			_checkpoint = checkpoint;
+			_counter = counter;
+			_eCounter = eCounter;
+			_startTime = startTime;
+		}
+		
+		@Override
+		public NChunk call() throws IOException, SQLException, InterruptedException {
+			ADbpediaEtl etl = _etls.take();
+			boolean flushed = false;
+			
+			try {
+				FileInputStream fis = new FileInputStream(_file);
+				CTripleReader reader = null;
+				boolean completed = true,
+				        interrupted = false;
+				
+				try {
+					fis.getChannel().position(_chunk._start);
+					reader = new CTripleReader(new NBoundedInputStream(fis, _chunk._end - _chunk._start));
+					
+					CTriple triple = null;
+					long counter = 0L;
+					while ((triple = reader.next()) != null) {
+						counter = _counter.getAndIncrement();
+						interrupted = Thread.currentThread().isInterrupted();
+						if( interrupted || isCompleted(counter)) {
+							completed = false;
+							break;
+						}
+						if( !etl.map(triple) ) {
+							_eCounter.incrementAndGet();
+						}
+						displayProgress(counter, _startTime, _eCounter.get());
+					}
+				}
+				finally {
+					if( reader != null) {
+						reader.close();
+					}
+					else {
+						fis.close();
+					}
+				}
+				
+					/*
+					 * The pending records of an interrupted chunk are rolled
+					 * back, as the whole chunk is loaded again when the load resumes.
+					 */
+				if( !interrupted ) {
+					etl.flush();
+					flushed = true;
+					if( completed) {
+						_checkpoint.complete(_chunk._index);
+					}
+				}
+			}
+			finally {
+				if( !flushed ) {
+					rollback(etl);
+				}
+				_etls.put(etl);
+			}
+			
+			return _chunk;
+		}
+		
+		
+		private void rollback(ADbpediaEtl etl) {
+			try {
+				etl.rollback();
+			}
+			catch( SQLException e) {
+				CLogger.error("Cannot roll back chunk " + _chunk._index + " " + e.toString());
+			}
+		}
+	}
+	
+		
 	public CDbpediaLoader() {
 		this(Long.MAX_VALUE);
 	}
@@ -51,27 +329,168 @@ public final class CDbpediaLoader {
 		_startIndex = startIndex;
 	}
 	
+		/**
+		 * <p>Set the number of threads which load the chunks of the dbpedia file.</p>
+		 * @param numWorkers number of worker threads
+		 * @throws IllegalArgumentException if the number of workers is not positive
+		 */
+	public void setNumWorkers(int numWorkers) {
+		if( numWorkers < 1) {
+			throw new IllegalArgumentException("Cannot load dbpedia with " + numWorkers + " workers");
+		}
+		_numWorkers = numWorkers;
+	}
+	
+		/**
+		 * <p>Set the approximate size in bytes of the chunks of the dbpedia file.</p>
+		 * @param chunkSize size of the chunks in bytes
+		 * @throws IllegalArgumentException if the size of the chunks is not positive
+		 */
+	public void setChunkSize(long chunkSize) {
+		if( chunkSize < 1L) {
+			throw new IllegalArgumentException("Cannot split dbpedia file in chunks of " + chunkSize + " bytes");
+		}
+		_chunkSize = chunkSize;
+	}
+	
+		/**
+		 * <p>Set the number of insertions executed and committed in a single JDBC batch.</p>
+		 * @param batchSize size of the JDBC batches
+		 * @throws IllegalArgumentException if the size of the batches is not positive
+		 */
+	public void setBatchSize(int batchSize) {
+		if( batchSize < 1) {
+			throw new IllegalArgumentException("Cannot insert dbpedia records by batches of " + batchSize);
+		}
+		_batchSize = batchSize;
+	}
+	
+		/**
+		 * <p>Set the name of the checkpoint file. The default checkpoint file is the 
+		 * name of the dbpedia file with the extension .checkpoint</p>
+		 * @param checkpointFile name of the checkpoint file
+		 */
+	public void setCheckpointFile(final String checkpointFile) {
+		_checkpointFile = checkpointFile;
+	}
+	
 			/**
 			 * <p>Generic method top load the content of a file into dbpedia database</p>
 			 * @param extractor ETL object to extract fields to dbpedia data sets and populate database.
 			 * @throws IOException if the dbpedia data set files cannot be assessed.
 			 */
 	public void writeDbpediaDatabase(ADbpediaEtl etl) throws IOException {
+		try {
+			etl.prepare();
+		}
+		catch( SQLException e) {
+			throw new IOException("Cannot prepare the load of " + etl.getDbpediaFile() + " " + e.toString());
+		}
 		
-		BufferedReader reader = null;
+		ADbpediaEtl workerEtl = (_numWorkers > 1) ? etl.create(_batchSize) : null;
+		
+		if( workerEtl != null) {
+			writeDbpediaDatabase(etl, workerEtl);
+		}
+		else {
+			if( _numWorkers > 1) {
+				CLogger.info(etl.getClass().getSimpleName() + " depends on the order of lines and is loaded sequentially");
+			}
+			writeDbpediaDatabaseSequentially(etl);
+		}
+	}
+	
+	
+	
+			/**
+			 * <p>Load the content of a file into dbpedia database by chunks processed
+			 * concurrently. The chunks recorded in the checkpoint file are skipped.</p>
+			 * @param etl ETL used to reduce the results of the load
+			 * @param workerEtl first instance of the ETL used by the workers
+			 * @throws IOException if the dbpedia data set files cannot be accessed or a chunk failed.
+			 */
+	private void writeDbpediaDatabase(ADbpediaEtl etl, ADbpediaEtl workerEtl) throws IOException {
+		File file = new File(etl.getDbpediaFile());
+		CLogger.info("Load " + etl.getDbpediaFile() + " with " + _numWorkers + " workers");
+		if( _startIndex > -1L) {
+			CLogger.info("Start index is ignored, the checkpoint file is used to resume the load");
+		}
+		
+		NChunk[] chunks = split(file);
+		NCheckpoint checkpoint = new NCheckpoint((_checkpointFile != null) ? _checkpointFile : file.getPath() + CHECKPOINT_EXTENSION, file, _chunkSize);
+		CLogger.info(checkpoint.getNumCompleted() + " of " + chunks.length + " chunks already loaded");
+
+		BlockingQueue<ADbpediaEtl> etls = new ArrayBlockingQueue<ADbpediaEtl>(_numWorkers);
+		etls.add(workerEtl);
+		for( int k = 1; k < _numWorkers; k++) {
+			etls.add(etl.create(_batchSize));
+		}
+		
+		ExecutorService executor = Executors.newFixedThreadPool(_numWorkers);
+		CompletionService<NChunk> completionService = new ExecutorCompletionService<NChunk>(executor);
+		AtomicLong counter = new AtomicLong(0L),
+		           eCounter = new AtomicLong(0L);
+		long startTime = System.currentTimeMillis();
+		
+		try {
+			int numTasks = 0;
+			for( NChunk chunk : chunks) {
+				if( !checkpoint.isCompleted(chunk._index)) {
+					completionService.submit(new NChunkTask(file, chunk, etls, checkpoint, counter, eCounter, startTime));
+					numTasks++;
+				}
+			}
+			
+			for( int k = 0; k < numTasks; k++) {
+				completionService.take().get();
+			}
+			displayStats(counter.get(), startTime, eCounter.get());
+		}
+		catch( InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Load of " + etl.getDbpediaFile() + " interrupted");
+		}
+		catch( ExecutionException e) {
+			throw new IOException("Cannot load " + etl.getDbpediaFile() + " " + e.getCause().toString());
+		}
+		finally {
+			executor.shutdownNow();
+			try {
+				executor.awaitTermination(TERMINATION_TIMEOUT, TimeUnit.SECONDS);
+			}
+			catch( InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			for( ADbpediaEtl instance : etls) {
+				instance.close();
+			}
+			etl.reduce();
+		}
+	}
+	
+	
+	
+			/**
+			 * <p>Generic method to load the content of a file into dbpedia database
+			 * one line at a time</p>
+			 * @param extractor ETL object to extract fields to dbpedia data sets and populate database.
+			 * @throws IOException if the dbpedia data set files cannot be assessed.
+			 */
+	private void writeDbpediaDatabaseSequentially(ADbpediaEtl etl) throws IOException {
+		
+		CTripleReader reader = null;
 		CLogger.info("Load " + etl.getDbpediaFile());
 		
 		try {
 			String contentFile = etl.getDbpediaFile();
-			FileInputStream fis = new FileInputStream(contentFile);
-			reader = new BufferedReader(new InputStreamReader(fis));
+			reader = new CTripleReader(new FileInputStream(contentFile));
 			long counter = 0L, 
 				 eCounter =0L;
-			String newLine = null;
+			CTriple triple = null;
 			long startTime = System.currentTimeMillis();
 			boolean started = false;
 				
-			while ((newLine = reader.readLine()) != null) {
+			while ((triple = reader.next()) != null) {
 						/*
 						 * For local testing purpose, exit after few iterations only..
 						 */
@@ -86,7 +505,7 @@ public final class CDbpediaLoader {
 					started = true;
 				}
 					
-	 			if( started && !etl.map(newLine) ) {
+	 			if( started && !etl.map(triple) ) {
 					eCounter++;
 				}
 				displayProgress(counter++, startTime, 0);
@@ -115,6 +534,60 @@ public final class CDbpediaLoader {
 					// ----------------------------
 
 		
+		/**
+		 * <p>Split a file into chunks of approximately chunk size bytes. Each chunk
+		 * but the last ends right after a new line character.</p>
+		 */
+	private NChunk[] split(final File file) throws IOException {
+		List<NChunk> chunks = new ArrayList<NChunk>();
+		long length = file.length(),
+		     start = 0L,
+		     end = 0L;
+		
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			byte[] buf = new byte[SCAN_BUFFER_SIZE];
+			int numBytes = 0;
+			
+			while( start < length) {
+				end = start + _chunkSize;
+				if( end >= length) {
+					end = length;
+				}
+				else {
+						/*
+						 * Move the end of the chunk after the next new line
+						 */
+					raf.seek(end-1);
+					boolean found = false;
+					while( !found && (numBytes = raf.read(buf)) != -1) {
+						for( int k = 0; k < numBytes; k++) {
+							if( buf[k] == '\n') {
+								end += k;
+								found = true;
+								break;
+							}
+						}
+						if( !found) {
+							end += numBytes;
+						}
+					}
+					if( end > length) {
+						end = length;
+					}
+				}
+				chunks.add(new NChunk(chunks.size(), start, end));
+				start = end;
+			}
+		}
+		finally {
+			raf.close();
+		}
+		
+		return chunks.toArray(new NChunk[0]);
+	}
+	
+	
 	protected void displayProgress(long counter, long startTime, long eCounter) {		
 		if(counter % DISPLAY_INTERVAL  ==  0) {
 			displayStats(counter, startTime, eCounter);
@@ -17,16 +17,43 @@ import com.c24x7.util.string.CStringUtil;
 
 		/**
 		 * <p>Utility class to execute requests against the Wikipedia Reference database 
-		 * using either the row id or the indexed label.</p>
+		 * using either the row id or the indexed label.<br>
+		 * A range of rows is scanned with a single query on a forward-only cursor
+		 * whose records are delivered to a handler; the updates of a scan are executed
+		 * by batches.</p>
+		 * <p>The updates of the taxonomy columns are counted in the single row table
+		 * 24x7c.dbpedia_updates, created on demand, so the files exported from the
+		 * reference database can detect the records updated in place since the export.
+		 * The counter is incremented in the transaction of each batch of updates.</p>
 		 * 
 		 * @author Patrick Nicolas
 		 * @date 03/10/2012
 		 */
 public final class CDbpediaSql {	
-	private static final int DEFAULT_DISPLAY_INTERVAL 	= 250;
+	private static final int DEFAULT_DISPLAY_INTERVAL 	= 10000;
+	private static final String CREATE_UPDATES_TABLE 	= "CREATE TABLE IF NOT EXISTS 24x7c.dbpedia_updates (id INT NOT NULL PRIMARY KEY, counter BIGINT NOT NULL);";
+	private static final String INCREMENT_UPDATES 		= "UPDATE 24x7c.dbpedia_updates SET counter=counter+1 WHERE id=1;";
+	private static final String INSERT_UPDATES 			= "INSERT INTO 24x7c.dbpedia_updates (id, counter) VALUES(1, 1);";
+	private static final String SELECT_UPDATES 			= "SELECT counter FROM 24x7c.dbpedia_updates WHERE id=1;";
+	
+	
+			/**
+			 * <p>Interface to process the records of a range scan of the dbpedia table, in
+			 * the order of their identifier.</p>
+			 */
+	public interface NRecordHandler {
+			/**
+			 * <p>Process a record of the dbpedia table.</p>
+			 * @param id identifier of the record
+			 * @param record values of the fields of the record, in the order of the fields of the scan
+			 * @throws SQLException if the record cannot be processed or updated
+			 */
+		public void process(int id, final String[] record) throws SQLException;
+	}
 	
 	private static CDbpediaSql 		instance = null;
 	private static Map<String, Object> 	databaseFields = null;
+	private static boolean 				updatesTableCreated = false;
 	
 	private String[] _fields 			= null;
 	private int		 _displayInterval 	= DEFAULT_DISPLAY_INTERVAL;
@@ -35,6 +62,7 @@ public final class CDbpediaSql {
 	
 	private CSqlPreparedStmt _pStmt			= null;
 	private CSqlPreparedStmt _pUpdateStmt	= null;
+	private CSqlPreparedStmt _pCounterStmt	= null;
 	
 		/**
 		 * <p>Retrieve the singleton for querying dbpedia tables.</p>
@@ -50,6 +78,7 @@ public final class CDbpediaSql {
 			databaseFields.put("sub_taxonomy", null);
 			databaseFields.put("idf", null);
 			databaseFields.put("id", null);
+			databaseFields.put("wnet", null);
 			
 			instance = new CDbpediaSql();
 		}
@@ -95,6 +124,10 @@ public final class CDbpediaSql {
 			 * the Wikipedia reference tables.
 			 */
 	public void close() {
+		if( _pCounterStmt != null) {
+			_pCounterStmt.close();
+			_pCounterStmt = null;
+		}
 		if( _pUpdateStmt != null) {
 			_pUpdateStmt.close();
 			_pUpdateStmt = null;
@@ -123,10 +156,27 @@ public final class CDbpediaSql {
 		 * @throws IllegalArgumentException if the database fields are undefined or incorrect
 		 */
 	public void setUpdate(final String[] fields, final String condition) {
+		setUpdate(fields, condition, 1);
+	}
+	
+		/**
+		 * <p>Set the parameters of the prepared (compiled) update statement, executed
+		 * by batches. The pending updates are executed by flushUpdates or close. The
+		 * updates are counted in the table of the updates of the taxonomy columns.</p>
+		 * @param array of column names used in the update request
+		 * @param condition condition to be added on the update request (WHERE condition)
+		 * @param batchSize number of updates executed in a single JDBC batch
+		 * @throws IllegalArgumentException if the database fields are undefined or incorrect
+		 */
+	public void setUpdate(final String[] fields, final String condition, int batchSize) {
 		if( fields == null) {
 			throw new IllegalArgumentException("Wikipedia database fields undefined");
 		}
 
+		if( _pCounterStmt != null) {
+			_pCounterStmt.close();
+			_pCounterStmt = null;
+		}
 		if( _pUpdateStmt != null) {
 			_pUpdateStmt.close();
 			_pUpdateStmt = null;
@@ -150,7 +200,14 @@ public final class CDbpediaSql {
 			buf.append("id=?;");
 		}
 		
-		_pUpdateStmt = new CSqlPreparedStmt(buf.toString());
+		try {
+			createUpdatesTable();
+		}
+		catch( SQLException e) {
+			CLogger.error("Cannot create the table of the taxonomy updates " + e.toString());
+		}
+		_pUpdateStmt = new CSqlPreparedStmt(buf.toString(), batchSize);
+		_pCounterStmt = new CSqlPreparedStmt(_pUpdateStmt, INCREMENT_UPDATES);
 	}
 	
 	
@@ -238,7 +295,29 @@ public final class CDbpediaSql {
 		}
 		
 		_pUpdateStmt.set(fields.length+1, id);
-		_pUpdateStmt.update();
+		
+			/*
+			 * The counter is incremented with the first update of a batch so it is
+			 * committed with the batch, or after the update if it is not batched.
+			 */
+		final boolean batched = (_pUpdateStmt.getBatchSize() > 1);
+		if( batched && _pUpdateStmt.getBatchCount() == 0) {
+			incrementUpdates(_pCounterStmt);
+		}
+		_pUpdateStmt.addBatch();
+		if( !batched) {
+			incrementUpdates(_pCounterStmt);
+		}
+	}
+	
+		/**
+		 * <p>Execute and commit the pending batch of updates.</p>
+		 * @throws SQLException if the database is unavailable or the updates fail
+		 */
+	public void flushUpdates() throws SQLException {
+		if( _pUpdateStmt != null) {
+			_pUpdateStmt.flush();
+		}
 	}
 	
 	
@@ -286,34 +365,207 @@ public final class CDbpediaSql {
 		}
 
 		
-		List<String[]> recordsList = new ArrayList<String[]>();
-		String[] record = null;
+		final List<String[]> recordsList = new ArrayList<String[]>();
 			/*
 			 * walks through the database to extract labeled N-GRAM, content (or abstract) and
 			 * the pre-existence of a taxonomy.
 			 */
-		for( int id = startIndex; id < endIndex; id++) {
-			_pStmt.set(1, id);		
-			ResultSet rs = _pStmt.query();
-			record = new String[_fields.length];
+		if( endIndex > startIndex) {
+			scan(_fields, null, startIndex, endIndex-1, true, new NRecordHandler() {
+				@Override
+				public void process(int id, final String[] record) {
+					recordsList.add(record);
+				}
+			});
+		}
+			
+		_pStmt.close();
+		return recordsList;
+	}
+	
 	
-			if( rs.next() ) {
-				for( int k = 0; k < _fields.length; k++) {
-					record[k] = rs.getString(_fields[k]);
-					if( record[k] != null) {
-						record[k] = CStringUtil.decodeLatin1(record[k]);
+		/**
+		 * <p>Scan a range of rows of the dbpedia table for the fields of the current query.</p>
+		 * @param startIndex identifier of the first row of the range
+		 * @param endIndex identifier of the last row (inclusive) of the range
+		 * @param handler handler of the records
+		 * @return number of records processed
+		 * @throws SQLException if Wikipedia reference database is unavailable or the query fails.
+		 */
+	public long scan(int startIndex, int endIndex, final NRecordHandler handler) throws SQLException {
+		return scan(_fields, null, startIndex, endIndex, true, handler);
+	}
+	
+	
+		/**
+		 * <p>Scan a range of rows of the dbpedia table with a single query. The rows are 
+		 * streamed through a forward-only cursor and delivered to the handler in the order
+		 * of their identifier. This method does not modify the state of this instance so
+		 * several threads can scan the table concurrently.</p>
+		 * @param fields columns of the dbpedia table to retrieve
+		 * @param filter optional SQL condition on the rows, null if all the rows of the range are retrieved
+		 * @param startIndex identifier of the first row of the range
+		 * @param endIndex identifier of the last row (inclusive) of the range
+		 * @param decode true if the values of the fields are decoded, false if the encoded values are delivered
+		 * @param handler handler of the records
+		 * @return number of records processed
+		 * @throws SQLException if Wikipedia reference database is unavailable or the query fails.
+		 * @throws IllegalArgumentException if the fields, the range or the handler are undefined or incorrect
+		 */
+	public long scan(	final String[] fields, 
+						final String filter, 
+						int startIndex, 
+						int endIndex, 
+						boolean decode,
+						final NRecordHandler handler) throws SQLException {
+		if( fields == null || fields.length == 0 || handler == null) {
+			throw new IllegalArgumentException("Cannot scan Wikipedia database with undefined fields or handler");
+		}
+		if( endIndex < startIndex) {
+			throw new IllegalArgumentException("Incorrect Dbpedia row indices start: " + startIndex + " and end " + endIndex);
+		}
+		for( String field : fields) {
+			if(!databaseFields.containsKey(field)) {
+				throw new IllegalArgumentException("Wikipedia database field " + field + " undefined");
+			}
+		}
+		
+		StringBuilder buf = new StringBuilder("SELECT id");
+		for( String field : fields) {
+			buf.append(CEnv.FIELD_DELIM);
+			buf.append(field);
+		}
+		buf.append(" FROM 24x7c.dbpedia WHERE id BETWEEN ? AND ?");
+		if( filter != null) {
+			buf.append(" AND (");
+			buf.append(filter);
+			buf.append(")");
+		}
+		buf.append(" ORDER BY id;");
+		
+		CSqlPreparedStmt pStmt = new CSqlPreparedStmt();
+		pStmt.setStreamingStmt(buf.toString());
+		long count = 0L;
+		
+		try {
+			pStmt.set(1, startIndex);
+			pStmt.set(2, endIndex);
+			ResultSet rs = pStmt.query();
+			
+			try {
+				String[] record = null;
+				while( rs.next() ) {
+					record = new String[fields.length];
+					for( int k = 0; k < fields.length; k++) {
+						record[k] = rs.getString(k+2);
+						if( decode && record[k] != null) {
+							record[k] = CStringUtil.decodeLatin1(record[k]);
+						}
+					}
+					handler.process(rs.getInt(1), record);
+					
+					if( ++count % _displayInterval == 0) {
+						CLogger.info(count + " Dbpedia records scanned");
 					}
 				}
-				recordsList.add(record);
 			}
-			
-			if( id - startIndex % _displayInterval++ == 0) {
-				CLogger.info(_displayInterval + " database queries");
+			finally {
+				rs.close();
 			}
 		}
-			
-		_pStmt.close();
-		return recordsList;
+		finally {
+			pStmt.close();
+		}
+		
+		return count;
+	}
+	
+	
+		/**
+		 * <p>Compute a fingerprint of the Wikipedia entries and aliases tables from
+		 * their last identifiers, so the files exported from the reference database
+		 * can detect the records added since the export. The last identifiers are
+		 * queried from the database each time.</p>
+		 * @return fingerprint of the entries and aliases tables
+		 * @throws SQLException if the last identifiers cannot be retrieved
+		 */
+	public static long getFingerprint() throws SQLException {
+		final long lastEntryIndex = getTableLastIndex("24x7c.dbpedia"),
+		           lastAliasIndex = getTableLastIndex("24x7c.dbpedia_aliases");
+
+		return (lastEntryIndex << 32) | (lastAliasIndex & 0xFFFFFFFFL);
+	}
+	
+	
+		/**
+		 * <p>Extract the last identifier of the Wikipedia entries table from a fingerprint,
+		 * so an export scans the entries covered by the fingerprint it is stamped with.</p>
+		 * @param fingerprint fingerprint of the entries and aliases tables
+		 * @return last identifier of the entries table when the fingerprint was computed
+		 */
+	public static int getLastEntryIndex(long fingerprint) {
+		return (int)(fingerprint >>> 32);
+	}
+	
+	
+		/**
+		 * <p>Extract the last identifier of the Wikipedia aliases table from a fingerprint.</p>
+		 * @param fingerprint fingerprint of the entries and aliases tables
+		 * @return last identifier of the aliases table when the fingerprint was computed
+		 */
+	public static int getLastAliasIndex(long fingerprint) {
+		return (int)fingerprint;
+	}
+	
+	
+		/**
+		 * <p>Retrieve the number of updates of the taxonomy columns of the Wikipedia
+		 * entries table, so the files exported from the reference database can detect
+		 * the records updated in place since the export. The counter is queried from
+		 * the database each time.</p>
+		 * @return number of updates of the taxonomy columns, 0 if none was recorded
+		 * @throws SQLException if the counter cannot be retrieved
+		 */
+	public static long getTaxonomyUpdates() throws SQLException {
+		long updates = 0L;
+		createUpdatesTable();
+		
+		CSqlPreparedStmt pStmt = new CSqlPreparedStmt(SELECT_UPDATES);
+		try {
+			ResultSet rs = pStmt.query();
+			try {
+				if( rs.next() ) {
+					updates = rs.getLong(1);
+				}
+			}
+			finally {
+				rs.close();
+			}
+		}
+		finally {
+			pStmt.close();
+		}
+		
+		return updates;
+	}
+	
+	
+		/**
+		 * <p>Record an update of the taxonomy columns of the Wikipedia entries table
+		 * executed outside of the update statement of this class. The update has to be
+		 * recorded once it is committed.</p>
+		 * @throws SQLException if the counter cannot be incremented
+		 */
+	public static void recordTaxonomyUpdate() throws SQLException {
+		createUpdatesTable();
+		
+		CSqlPreparedStmt pStmt = new CSqlPreparedStmt(INCREMENT_UPDATES);
+		try {
+			incrementUpdates(pStmt);
+		}
+		finally {
+			pStmt.close();
+		}
 	}
 	
 	
@@ -345,6 +597,34 @@ public final class CDbpediaSql {
 
 				
 	
+	private static synchronized void createUpdatesTable() throws SQLException {
+		if( !updatesTableCreated) {
+			CSqlPreparedStmt pStmt = new CSqlPreparedStmt(CREATE_UPDATES_TABLE);
+			try {
+				pStmt.update();
+			}
+			finally {
+				pStmt.close();
+			}
+			updatesTableCreated = true;
+		}
+	}
+	
+		/*
+		 * The row of the counter is inserted by the first update.
+		 */
+	private static void incrementUpdates(CSqlPreparedStmt counterStmt) throws SQLException {
+		if( counterStmt.update() == 0) {
+			CSqlPreparedStmt pStmt = new CSqlPreparedStmt(counterStmt, INSERT_UPDATES);
+			try {
+				pStmt.update();
+			}
+			finally {
+				pStmt.close();
+			}
+		}
+	}
+	
 	private static int getTableLastIndex(String tableName) throws SQLException {
 		
 		int max_id = -1;
@@ -38,6 +38,57 @@ public abstract class ADbpediaEtl {
 		 * @throws SQLException
 		 */
 	public abstract boolean map(String newLine) throws SQLException;
+
+		/**
+		 * <p>Inserts or update the dbpedia artifact of a tokenized line. The ETL which
+		 * extract their fields from the triple override this method to avoid creating the
+		 * string of the line; by default the line is created and mapped.</p>
+		 * @param triple tokenized line extracted from the dbpedia data set
+		 * @return true if the database has been successfully updated, false otherwise
+		 * @throws SQLException
+		 */
+	public boolean map(CTriple triple) throws SQLException {
+		return map(triple.getLine());
+	}
+
+	
+		/**
+		 * <p>Create a new instance of this ETL with its own database connections so
+		 * chunks of the dbpedia file can be loaded concurrently. The ETL which depends
+		 * on the order of the lines (i.e. consecutive lines for the same label) cannot 
+		 * be loaded concurrently and return null.</p>
+		 * @param batchSize number of insertions executed in a single JDBC batch
+		 * @return new instance of this ETL for a worker thread, null if not supported
+		 */
+	public ADbpediaEtl create(int batchSize) {
+		return null;
+	}
+	
+		/**
+		 * <p>Prepare the database for the load of the dbpedia artifact, before the
+		 * instances of the ETL of the workers are created.</p>
+		 * @throws SQLException if the database cannot be prepared
+		 */
+	public void prepare() throws SQLException { }
+	
+		/**
+		 * <p>Execute and commit the pending insertions or updates of this ETL.</p>
+		 * @throws SQLException if the insertions cannot be committed
+		 */
+	public void flush() throws SQLException { }
+	
+		/**
+		 * <p>Discard the pending insertions or updates of this ETL which are
+		 * not committed yet.</p>
+		 * @throws SQLException if the insertions cannot be rolled back
+		 */
+	public void rollback() throws SQLException { }
+	
+		/**
+		 * <p>Release the database connections of an instance of ETL created 
+		 * for a worker thread.</p>
+		 */
+	public void close() { }
 	
 
 	
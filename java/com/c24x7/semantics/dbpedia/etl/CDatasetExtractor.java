@@ -26,6 +26,7 @@ public final class CDatasetExtractor {
 	protected int 				_markerLen = -1;
 	protected AResConverter 	_resConverter = null;
 	protected AResConverter 	_labelConverter = null;
+	protected byte[]			_uriPrefix = null;
 	
 			/**
 			 * <p>Base converter that extract NGrams from a sequence of contiguous characters.</p>
@@ -37,6 +38,26 @@ public final class CDatasetExtractor {
 			return CStringUtil.decodeLatin1(original);
 		}
 		
+			/**
+			 * <p>Convert a resource already decoded into a buffer of characters, 
+			 * as extracted from a triple.</p>
+			 * @param chars buffer of decoded characters, which can be modified by the converter
+			 * @param length number of characters in the buffer
+			 * @return converted resource
+			 */
+		public String convert(char[] chars, int length) {
+			return new String(chars, 0, length);
+		}
+		
+		protected static String replaceHyphens(char[] chars, int length) {
+			for( int k = 0; k < length; k++) {
+				if( chars[k] == '_') {
+					chars[k] = ' ';
+				}
+			}
+			return new String(chars, 0, length);
+		}
+		
 		protected static String convertAndDecodeCompound(final String original) {
 			String converted = null;
 			
@@ -51,34 +72,38 @@ public final class CDatasetExtractor {
 			String converted = null;
 
 			if( decodedOriginal != null ) {
-				char[] chars = decodedOriginal.toCharArray();
-				int hexChar = 0;
-							
+				converted = convertCompound(decodedOriginal.toCharArray(), decodedOriginal.length());
+			}
+			
+			return converted;
+		}
+		
+		protected static String convertCompound(char[] chars, int length) {
+			int hexChar = 0;
+						
+					/*
+					 * Detect a second upper case letter in the compound name
+					 */
+			StringBuilder extractedBuf = new StringBuilder(length + 4);
+			extractedBuf.append(chars[0]);
+				
+			int lastCharIndex = length-1;
+			for( int j = 1; j < lastCharIndex; j++) {
+				hexChar = chars[j];
+					
 						/*
-						 * Detect a second upper case letter in the compound name
+						 * If the parser encounter a Upper case character which
+						 * is not the last character... then create a compound
+						 * name by inserting a blank or space character.
 						 */
-				StringBuilder extractedBuf = new StringBuilder();
-				extractedBuf.append(chars[0]);
-					
-				int lastCharIndex = chars.length-1;
-				for( int j = 1; j < lastCharIndex; j++) {
-					hexChar = chars[j];
-						
-							/*
-							 * If the parser encounter a Upper case character which
-							 * is not the last character... then create a compound
-							 * name by inserting a blank or space character.
-							 */
-					if (hexChar > 0x40 && hexChar < 0x5B) {
-						extractedBuf.append(" ");
-					}
-					extractedBuf.append(chars[j]);
+				if (hexChar > 0x40 && hexChar < 0x5B) {
+					extractedBuf.append(" ");
 				}
-				extractedBuf.append(Character.toLowerCase(chars[lastCharIndex]));
-				converted = extractedBuf.toString();
+				extractedBuf.append(chars[j]);
 			}
+			extractedBuf.append(Character.toLowerCase(chars[lastCharIndex]));
 			
-			return converted;
+			return extractedBuf.toString();
 		}
 	}
 	
@@ -94,6 +119,10 @@ public final class CDatasetExtractor {
 			String decodedOriginal = CStringUtil.decodeLatin1(original);
 			return (decodedOriginal != null) ? decodedOriginal.replace("_", " ") : null;
 		}
+		
+		public String convert(char[] chars, int length) {
+			return replaceHyphens(chars, length);
+		}
 	}
 	
 			/**
@@ -106,6 +135,10 @@ public final class CDatasetExtractor {
 		public String convert(final String original) {
 			return convertAndDecodeCompound(original);
 		}
+		
+		public String convert(char[] chars, int length) {
+			return convertCompound(chars, length);
+		}
 	}
 	
 			/**
@@ -124,6 +157,14 @@ public final class CDatasetExtractor {
 			}
 			return decodedOriginal;
 		}
+		
+		public String convert(char[] chars, int length) {
+			int k = 0;
+			while( k < length && chars[k] != '_') {
+				k++;
+			}
+			return (k == length) ? convertCompound(chars, length) : replaceHyphens(chars, length);
+		}
 	}
 	
 	
@@ -142,6 +183,10 @@ public final class CDatasetExtractor {
 		_labelConverter = labelConverter;
 		_marker = ADbpediaEtl.DBPEDIA_RES_MARKER;
 		_markerLen = ADbpediaEtl.DBPEDIA_RES_MARKER.length();
+			/*
+			 * The URI of a triple does not include the angle bracket
+			 */
+		_uriPrefix = CTriple.toBytes(_marker.substring(1));
 	}
 	
 
@@ -157,16 +202,15 @@ public final class CDatasetExtractor {
 		long counter = -1L;
 		
 		if( fileName != null ) {
-			BufferedReader reader = null;
+			CTripleReader reader = null;
 				
 			try {
-				FileInputStream fis = new FileInputStream(fileName);
-				reader = new BufferedReader(new InputStreamReader(fis));
-				String newLine = null;
+				reader = new CTripleReader(new FileInputStream(fileName));
+				CTriple triple = null;
 				String extractedKeyword = null;
 					
-				while ((newLine = reader.readLine()) != null) {
-					extractedKeyword = extractLabel(newLine);
+				while ((triple = reader.next()) != null) {
+					extractedKeyword = extractLabel(triple);
 					if( extractedKeyword != null ) {
 						if( map != null ) {
 							map.put(extractedKeyword, null);
@@ -201,6 +245,25 @@ public final class CDatasetExtractor {
 	public String extractResource(final String newLine, boolean lastIndex) {
 		return extract(newLine, true, _resConverter);
 	}
+	
+		/**
+		 * <p>Extract the label from the first resource of a triple. The
+		 * label is created from the bytes of the triple without creating the line.</p>
+		 * @param triple tokenized line of the dbpedia data set
+		 * @return converted label or null if the triple has no resource
+		 */
+	public String extractLabel(final CTriple triple) {
+		return extract(triple, false, _labelConverter);
+	}
+	
+		/**
+		 * <p>Extract the resource from the last resource of a triple.</p>
+		 * @param triple tokenized line of the dbpedia data set
+		 * @return converted resource or null if the triple has no resource
+		 */
+	public String extractResource(final CTriple triple) {
+		return extract(triple, true, _resConverter);
+	}
 		
 	
 	
@@ -265,6 +328,22 @@ public final class CDatasetExtractor {
 		}
 		return extractedLabel;
 	}
+	
+	
+	protected String extract(final CTriple triple, boolean lastIndex, AResConverter converter) {
+		String extractedLabel = null;
+		
+		for( int k = 0; k < 3; k++) {
+			int field = (lastIndex) ? CTriple.OBJECT - k : CTriple.SUBJECT + k;
+			if( triple.startsWith(field, _uriPrefix)) {
+				if( triple.length(field) - _uriPrefix.length > 2) {
+					extractedLabel = triple.getUri(field, _uriPrefix.length, converter);
+				}
+				break;
+			}
+		}
+		return extractedLabel;
+	}
 }
 
 // -------------------------  EOF ------------------------------------------------
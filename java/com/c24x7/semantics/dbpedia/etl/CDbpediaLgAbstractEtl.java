@@ -3,6 +3,8 @@ package com.c24x7.semantics.dbpedia.etl;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Set;
 
 import com.c24x7.semantics.dbpedia.etl.CDatasetExtractor;
 import com.c24x7.util.CEnv;
@@ -28,13 +30,30 @@ public class CDbpediaLgAbstractEtl extends ADbpediaEtl {
 	
 	private CSqlPreparedStmt _preparedStmtEntry = null;
 	private CSqlPreparedStmt _preparedStmtAdd = null;
+	private Set<String>		 _pendingLabels = null;
 	
 	
 	public CDbpediaLgAbstractEtl() {
+		this(1);
+	}
+	
+		/**
+		 * <p>Create an ETL for long abstracts which inserts the new
+		 * entries by batches.</p>
+		 * @param batchSize number of insertions executed in a single JDBC batch
+		 */
+	public CDbpediaLgAbstractEtl(int batchSize) {
 		super();
 		_extractor = new CDatasetExtractor();
 		_preparedStmtEntry = new CSqlPreparedStmt(SELECT_DBPEDIA_LABEL);
-		_preparedStmtAdd = new CSqlPreparedStmt(ADD_DBPEDIA_LABEL);
+		_preparedStmtAdd = new CSqlPreparedStmt(ADD_DBPEDIA_LABEL, batchSize);
+		_pendingLabels = new HashSet<String>();
+	}
+	
+	
+	@Override
+	public ADbpediaEtl create(int batchSize) {
+		return new CDbpediaLgAbstractEtl(batchSize);
 	}
 	
 	   /**
@@ -54,17 +73,37 @@ public class CDbpediaLgAbstractEtl extends ADbpediaEtl {
 		 * @throws SQLException if the database table cannot be properly updated..
 		 */
 	public boolean map(String newLine) {
-		
+		return map(_extractor.extractLabel(newLine), newLine, null);
+	}
+	
+		/**
+		 * <p>Execute the SQL statement associated with a tokenized line. The label and the
+		 * abstract are extracted from the bytes of the triple, the abstract being decoded
+		 * only if no entry exists for the label.</p>
+		 * @param triple tokenized line extracted from the dbpedia data set
+		 */
+	@Override
+	public boolean map(CTriple triple) {
+		return map(_extractor.extractLabel(triple), null, triple);
+	}
+	
+	
+	private boolean map(String label, final String newLine, final CTriple triple) {
 		boolean success = false;
-		String label = _extractor.extractLabel(newLine);
 				/*
 				 * If the label was successfully extracted, then
 				 */
 		if( label != null) {
 			label = validate(label);
-			
 			if( label != null) {
 				label = CStringUtil.encodeLatin1(label);
+			}
+			
+				/*
+				 * The labels of the pending batch are not visible
+				 * to the query yet.
+				 */
+			if( label != null && !_pendingLabels.contains(label)) {
 				try {
 					_preparedStmtEntry.set(1, label);
 					ResultSet rs = _preparedStmtEntry.query();
@@ -78,7 +117,7 @@ public class CDbpediaLgAbstractEtl extends ADbpediaEtl {
 								 * extract the value or payload for the abstract, if the operation
 								 * consists of updating the database..
 								 */
-						String lgAbstract = extractAbstract(newLine);
+						String lgAbstract = (triple != null) ? triple.getLiteral() : extractAbstract(newLine);
 								/*
 								 * Insert label and abstract into the table..
 								 */
@@ -92,7 +131,13 @@ public class CDbpediaLgAbstractEtl extends ADbpediaEtl {
 							
 							_preparedStmtAdd.set(1,label);
 							_preparedStmtAdd.set(2, CStringUtil.encodeLatin1(lgAbstract));
-							_preparedStmtAdd.insert();	
+							_preparedStmtAdd.addBatch();
+							if( _preparedStmtAdd.getBatchCount() > 0) {
+								_pendingLabels.add(label);
+							}
+							else {
+								_pendingLabels.clear();
+							}
 						}
 					}
 				}
@@ -107,9 +152,27 @@ public class CDbpediaLgAbstractEtl extends ADbpediaEtl {
 	
 	
 	
-	public boolean reduce() {		
+	@Override
+	public void flush() throws SQLException {
+		_preparedStmtAdd.flush();
+		_pendingLabels.clear();
+	}
+	
+	@Override
+	public void rollback() throws SQLException {
+		_preparedStmtAdd.rollback();
+		_pendingLabels.clear();
+	}
+	
+	@Override
+	public void close() {
 		_preparedStmtEntry.close();
 		_preparedStmtAdd.close();
+		_pendingLabels.clear();
+	}
+	
+	public boolean reduce() {		
+		close();
 		return true;
 	}
 	
@@ -4,6 +4,7 @@ package com.c24x7.semantics.dbpedia.etl;
 import java.io.IOException;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -16,7 +17,11 @@ import com.c24x7.util.string.CStringUtil;
 
 		/**
 		 * <p>Extraction of redirects labels (or alias) from dbpedia dataset<br>
-		 * This class create the redirect or aliases table for the dbpedia data sets..</p>
+		 * This class create the redirect or aliases table for the dbpedia data sets..<br>
+		 * The aliases table has a unique key on the alias and its entry, added before the
+		 * load if missing, and an alias already in the table is ignored, so the chunks of
+		 * the redirects file replayed when a load resumes do not duplicate the aliases
+		 * committed before the interruption.</p>
 		 * @see com.c24x7.semantics.dbpedia.etl.ADbpediaEtl
 		 * @author Patrick Nicolas
 		 * @date 10/31/2011
@@ -25,7 +30,9 @@ public final class CDbpediaRedirectsEtl extends ADbpediaEtl {
 	protected static final String DBPEDIA_FILE 		= CEnv.datasetsDir + "/dbpedia/redirects_en.nt";
 	protected static final String ERROR_FILE 			= CEnv.outputDir + "debug/error_redirects";
 	protected static final String GET_ENTRY_RECORD 	= "SELECT id FROM 24x7c.dbpedia WHERE label=?";
-	protected static final String CREATE_ALIAS_RECORD = "INSERT INTO 24x7c.dbpedia_aliases (label, resourceid, contexts) VALUES (?,?,?);";
+	protected static final String CREATE_ALIAS_RECORD = "INSERT IGNORE INTO 24x7c.dbpedia_aliases (label, resourceid, contexts) VALUES(?,?,?);";
+	protected static final String ADD_ALIAS_KEY 		= "ALTER TABLE 24x7c.dbpedia_aliases ADD CONSTRAINT label_resourceid UNIQUE (label, resourceid);";
+	protected static final String[] ALIAS_KEY_COLUMNS 	= { "label", "resourceid" };
 	protected static final int 	FIELD_LABEL_LIMIT 	= 383;
 	
 	
@@ -34,12 +41,64 @@ public final class CDbpediaRedirectsEtl extends ADbpediaEtl {
 	protected CSqlPreparedStmt _preparedStmtEntry = null;
 
 	public CDbpediaRedirectsEtl() {
+		this(1, Collections.synchronizedMap(new HashMap<String, String>()));
+	}
+	
+		/**
+		 * <p>Create an ETL for redirects which inserts the aliases by batches and
+		 * records the labels which cannot be loaded into a shared map of errors.</p>
+		 * @param batchSize number of insertions executed in a single JDBC batch
+		 * @param errors map of labels which cannot be loaded
+		 */
+	private CDbpediaRedirectsEtl(int batchSize, Map<String, String> errors) {
 		super();			
-		_preparedStmtAlias = new CSqlPreparedStmt(CREATE_ALIAS_RECORD);
+		_preparedStmtAlias = new CSqlPreparedStmt(CREATE_ALIAS_RECORD, batchSize);
 		_preparedStmtEntry = new CSqlPreparedStmt(GET_ENTRY_RECORD);
 		_extractor = new CDatasetExtractor( new CDatasetExtractor.NHybridResConverter(), new CDatasetExtractor.NHybridResConverter());
-		_errors = new HashMap<String, String>();
-
+		_errors = errors;
+	}
+	
+	
+	@Override
+	public ADbpediaEtl create(int batchSize) {
+		return new CDbpediaRedirectsEtl(batchSize, _errors);
+	}
+	
+		/**
+		 * <p>Add the unique key on the alias and its entry to the aliases table if
+		 * it is not defined. The key cannot be added if the table already contains
+		 * duplicated aliases, which have to be removed first.</p>
+		 * @throws SQLException if the key cannot be added
+		 */
+	@Override
+	public void prepare() throws SQLException {
+		CSqlPreparedStmt pStmt = new CSqlPreparedStmt();
+		try {
+			if( !pStmt.hasUniqueIndex("24x7c", "dbpedia_aliases", ALIAS_KEY_COLUMNS) ) {
+				CLogger.info("Add unique key on the label and resource of the aliases table");
+				pStmt.setStmt(ADD_ALIAS_KEY);
+				pStmt.update();
+			}
+		}
+		finally {
+			pStmt.close();
+		}
+	}
+	
+	@Override
+	public void flush() throws SQLException {
+		_preparedStmtAlias.flush();
+	}
+	
+	@Override
+	public void rollback() throws SQLException {
+		_preparedStmtAlias.rollback();
+	}
+	
+	@Override
+	public void close() {
+		_preparedStmtAlias.close();
+		_preparedStmtEntry.close();
 	}
 
 	   /**
@@ -58,13 +117,25 @@ public final class CDbpediaRedirectsEtl extends ADbpediaEtl {
 		 * @param stmt SQL statement used to update the table
 		 */
 	public boolean map(String newLine) {
+		return map(_extractor.extractResource(newLine, true), _extractor.extractLabel(newLine));
+	}
+	
+		/**
+		 * <p>Execute the SQL statement associated with a tokenized line. The alias
+		 * and the resource are extracted from the bytes of the triple.</p>
+		 * @param triple tokenized line extracted from the dbpedia data set
+		 */
+	@Override
+	public boolean map(CTriple triple) {
+		return map(_extractor.extractResource(triple), _extractor.extractLabel(triple));
+	}
+	
+	
+	private boolean map(final String entry, final String aliasEntry) {
 		boolean success = false;
 				/*
 				 * If the label was successfully extracted, then
 				 */
-		String entry = _extractor.extractResource(newLine, true);
-		String aliasEntry = _extractor.extractLabel(newLine);
-		
 		if(aliasEntry != null && entry != null) {
 			String decodedAlias = CStringUtil.decodeLatin1(aliasEntry);
 			String decodedEntry  = CStringUtil.decodeLatin1(entry);
@@ -108,14 +179,17 @@ public final class CDbpediaRedirectsEtl extends ADbpediaEtl {
 		
 
 	public boolean reduce() {
+		close();
 
 		if( _errors.size() > 0) {
 			StringBuilder buf = new StringBuilder("alias:label\n");
-			for( String key : _errors.keySet()) {
-				buf.append("\n");
-				buf.append(key);
-				buf.append(CEnv.KEY_VALUE_DELIM);
-				buf.append(_errors.get(key));
+			synchronized(_errors) {
+				for( String key : _errors.keySet()) {
+					buf.append("\n");
+					buf.append(key);
+					buf.append(CEnv.KEY_VALUE_DELIM);
+					buf.append(_errors.get(key));
+				}
 			}
 			try {
 				CFileUtil.write(ERROR_FILE, buf.toString());
@@ -152,7 +226,7 @@ public final class CDbpediaRedirectsEtl extends ADbpediaEtl {
 						_preparedStmtAlias.set(2, labelId);
 						_preparedStmtAlias.set(3, context);
 						
-						_preparedStmtAlias.insert();
+						_preparedStmtAlias.addBatch();
 					}
 				}
 				else {
@@ -0,0 +1,367 @@
+// Copyright (C) 2010-2012 Patrick Nicolas
+package com.c24x7.semantics.dbpedia.etl;
+
+import java.nio.charset.Charset;
+
+import com.c24x7.semantics.dbpedia.etl.CDatasetExtractor.AResConverter;
+
+
+		/**
+		 * <p>Tokenizer of a N-Triples line stored in an array of bytes. The tokenizer
+		 * records the position of the subject, predicate and object in the array without
+		 * creating any object; the strings are created only for the fields an ETL retrieves.
+		 * The URI are percent-decoded and the escape sequences of the literals are decoded
+		 * into a reusable buffer of characters. The non ASCII bytes are decoded as UTF-8.</p>
+		 * @author Patrick Nicolas
+		 * @date 07/05/2012
+		 */
+public final class CTriple {
+	public static final int SUBJECT 	= 0;
+	public static final int PREDICATE 	= 1;
+	public static final int OBJECT 		= 2;
+
+	private static final Charset UTF8 	= Charset.forName("UTF-8");
+	private static final int 	 INITIAL_NUM_CHARS = 256;
+
+	private byte[] 	_buf 		= null;
+	private int		_lineStart 	= 0;
+	private int		_lineEnd 	= 0;
+	private boolean	_valid 		= false;
+	private int[] 	_start 		= new int[3];
+	private int[]	_end 		= new int[3];
+	private boolean[] _isUri 	= new boolean[3];
+	private int		_langStart 	= -1;
+	private int		_langEnd 	= -1;
+	private char[]	_chars 		= new char[INITIAL_NUM_CHARS];
+	private int		_numChars 	= 0;
+
+
+		/**
+		 * <p>Convert a marker or prefix into an array of bytes to be matched
+		 * against the fields of the triples.</p>
+		 * @param prefix prefix of URI
+		 * @return array of ASCII bytes
+		 */
+	public static byte[] toBytes(final String prefix) {
+		return prefix.getBytes(UTF8);
+	}
+
+
+		/**
+		 * <p>Tokenize a line of N-Triples. The spans of the subject, predicate and object
+		 * exclude the angle brackets of URI and the quotes of literals.</p>
+		 * @param buf array of bytes containing the line
+		 * @param start index of the first byte of the line
+		 * @param end index following the last byte of the line
+		 * @return true if the line is a valid triple, false for comments, blank or malformed lines
+		 */
+	public boolean parse(byte[] buf, int start, int end) {
+		_buf = buf;
+		_lineStart = start;
+		_lineEnd = end;
+		_langStart = -1;
+		_langEnd = -1;
+		_valid = false;
+
+		int pos = skipBlanks(start);
+		if( pos < end && buf[pos] != '#') {
+			_valid = true;
+			for( int field = SUBJECT; _valid && field <= OBJECT; field++) {
+				pos = parseTerm(field, skipBlanks(pos));
+				_valid = (pos != -1);
+			}
+		}
+		return _valid;
+	}
+
+
+	public boolean isValid() {
+		return _valid;
+	}
+
+	public boolean isUri(int field) {
+		return _valid && _isUri[field];
+	}
+
+	public boolean isLiteral() {
+		return _valid && !_isUri[OBJECT] && _buf[_start[OBJECT]-1] == '"';
+	}
+
+
+		/**
+		 * <p>Test if a URI field of the triple starts with a prefix.</p>
+		 * @param field SUBJECT, PREDICATE or OBJECT
+		 * @param prefix prefix as an array of bytes
+		 * @return true if the field is an URI which starts with the prefix
+		 */
+	public boolean startsWith(int field, final byte[] prefix) {
+		boolean match = isUri(field) && (_end[field] - _start[field]) >= prefix.length;
+
+		for( int k = 0, pos = _start[field]; match && k < prefix.length; k++, pos++) {
+			match = (_buf[pos] == prefix[k]);
+		}
+		return match;
+	}
+
+		/**
+		 * <p>Retrieve the number of bytes of a field.</p>
+		 * @param field SUBJECT, PREDICATE or OBJECT
+		 * @return length of the field in bytes
+		 */
+	public int length(int field) {
+		return _end[field] - _start[field];
+	}
+
+
+		/**
+		 * <p>Extract the percent-decoded suffix of a URI field that follows a prefix, converted
+		 * with a resource converter.</p>
+		 * @param field SUBJECT, PREDICATE or OBJECT
+		 * @param prefixLength number of bytes of the prefix to skip
+		 * @param converter converter applied to the decoded characters
+		 * @return converted suffix of the URI, null if the URI is incorrectly encoded
+		 */
+	public String getUri(int field, int prefixLength, final AResConverter converter) {
+		return decodeUri(_start[field] + prefixLength, _end[field]) ? converter.convert(_chars, _numChars) : null;
+	}
+
+		/**
+		 * <p>Extract the value of the literal of this triple with its escape
+		 * sequences decoded.</p>
+		 * @return value of the literal, null if the object of the triple is not a literal
+		 */
+	public String getLiteral() {
+		return (isLiteral() && decodeLiteral(_start[OBJECT], _end[OBJECT])) ? new String(_chars, 0, _numChars) : null;
+	}
+
+		/**
+		 * <p>Extract the language tag of the literal of this triple.</p>
+		 * @return language tag, null if the literal has no language tag
+		 */
+	public String getLanguage() {
+		return (_langStart != -1) ? new String(_buf, _langStart, _langEnd - _langStart, UTF8) : null;
+	}
+
+		/**
+		 * <p>Create the string of the line of this triple, for the ETL which parse lines.</p>
+		 * @return line of the triple
+		 */
+	public String getLine() {
+		return new String(_buf, _lineStart, _lineEnd - _lineStart, UTF8);
+	}
+
+	@Override
+	public String toString() {
+		return getLine();
+	}
+
+
+
+					// --------------------------
+					//  Private Supporting Methods
+					// ---------------------------
+
+	private int skipBlanks(int pos) {
+		while( pos < _lineEnd && (_buf[pos] == ' ' || _buf[pos] == '\t')) {
+			pos++;
+		}
+		return pos;
+	}
+
+
+	private int parseTerm(int field, int pos) {
+		int next = -1;
+
+		if( pos < _lineEnd) {
+			byte first = _buf[pos];
+
+				/*
+				 * URI <...>
+				 */
+			if( first == '<') {
+				_start[field] = pos+1;
+				_isUri[field] = true;
+				for( next = pos+1; next < _lineEnd && _buf[next] != '>'; next++) ;
+
+				if( next < _lineEnd) {
+					_end[field] = next++;
+				}
+				else {
+					next = -1;
+				}
+			}
+
+				/*
+				 * Blank node _:name
+				 */
+			else if( first == '_' && field != PREDICATE) {
+				_start[field] = pos;
+				_isUri[field] = false;
+				for( next = pos; next < _lineEnd && _buf[next] != ' ' && _buf[next] != '\t'; next++) ;
+				_end[field] = next;
+			}
+
+				/*
+				 * Literal "..."@lang or "..."^^<type>
+				 */
+			else if( first == '"' && field == OBJECT) {
+				_start[field] = pos+1;
+				_isUri[field] = false;
+				for( next = pos+1; next < _lineEnd && _buf[next] != '"'; next++) {
+					if( _buf[next] == '\\') {
+						next++;
+					}
+				}
+
+				if( next < _lineEnd) {
+					_end[field] = next++;
+					if( next < _lineEnd && _buf[next] == '@') {
+						_langStart = ++next;
+						while( next < _lineEnd && _buf[next] != ' ' && _buf[next] != '\t' && _buf[next] != '.') {
+							next++;
+						}
+						_langEnd = next;
+					}
+					else if( next+1 < _lineEnd && _buf[next] == '^' && _buf[next+1] == '^') {
+						for( next += 2; next < _lineEnd && _buf[next] != '>'; next++) ;
+						next = (next < _lineEnd) ? next+1 : -1;
+					}
+				}
+				else {
+					next = -1;
+				}
+			}
+		}
+
+		return next;
+	}
+
+
+	private boolean decodeUri(int start, int end) {
+		_numChars = 0;
+		ensureCapacity(end - start);
+
+		int hi = 0,
+		    lo = 0;
+		for( int pos = start; pos < end; ) {
+			byte value = _buf[pos];
+
+			if( value == '%') {
+				if( pos+2 >= end) {
+					return false;
+				}
+				hi = Character.digit(_buf[pos+1], 16);
+				lo = Character.digit(_buf[pos+2], 16);
+				if( hi == -1 || lo == -1) {
+					return false;
+				}
+				_chars[_numChars++] = (char)((hi << 4) | lo);
+				pos += 3;
+			}
+			else if( value == '+') {
+				_chars[_numChars++] = ' ';
+				pos++;
+			}
+			else if( value < 0) {
+				pos = decodeUtf8(pos, end);
+			}
+			else {
+				_chars[_numChars++] = (char)value;
+				pos++;
+			}
+		}
+		return true;
+	}
+
+
+	private boolean decodeLiteral(int start, int end) {
+		_numChars = 0;
+		ensureCapacity(end - start);
+
+		for( int pos = start; pos < end; ) {
+			byte value = _buf[pos];
+
+			if( value == '\\' && pos+1 < end) {
+				byte escaped = _buf[pos+1];
+				pos += 2;
+
+				switch(escaped) {
+				case 't': _chars[_numChars++] = '\t'; break;
+				case 'n': _chars[_numChars++] = '\n'; break;
+				case 'r': _chars[_numChars++] = '\r'; break;
+				case 'b': _chars[_numChars++] = '\b'; break;
+				case 'f': _chars[_numChars++] = '\f'; break;
+				case 'u':
+				case 'U':
+					int numDigits = (escaped == 'u') ? 4 : 8;
+					if( pos + numDigits > end) {
+						return false;
+					}
+					int codePoint = 0,
+					    digit = 0;
+					for( int k = 0; k < numDigits; k++) {
+						digit = Character.digit(_buf[pos++], 16);
+						if( digit == -1) {
+							return false;
+						}
+						codePoint = (codePoint << 4) | digit;
+					}
+					if( !Character.isValidCodePoint(codePoint)) {
+						return false;
+					}
+					_numChars += Character.toChars(codePoint, _chars, _numChars);
+					break;
+				default:
+					_chars[_numChars++] = (char)escaped;
+				}
+			}
+			else if( value < 0) {
+				pos = decodeUtf8(pos, end);
+			}
+			else {
+				_chars[_numChars++] = (char)value;
+				pos++;
+			}
+		}
+		return true;
+	}
+
+
+		/**
+		 * <p>Decode a multi-bytes UTF-8 character. An incorrect sequence
+		 * is decoded as a Latin-1 character.</p>
+		 */
+	private int decodeUtf8(int pos, int end) {
+		int value = _buf[pos] & 0xFF,
+		    numBytes = (value >= 0xF0) ? 4 : ((value >= 0xE0) ? 3 : ((value >= 0xC0) ? 2 : 1));
+
+		if( numBytes > 1 && pos + numBytes <= end) {
+			int codePoint = value & (0x3F >> (numBytes-1));
+			boolean valid = true;
+			for( int k = 1; valid && k < numBytes; k++) {
+				int next = _buf[pos+k] & 0xFF;
+				valid = (next & 0xC0) == 0x80;
+				codePoint = (codePoint << 6) | (next & 0x3F);
+			}
+			if( valid && Character.isValidCodePoint(codePoint)) {
+				_numChars += Character.toChars(codePoint, _chars, _numChars);
+				return pos + numBytes;
+			}
+		}
+		_chars[_numChars++] = (char)value;
+		return pos+1;
+	}
+
+
+	private void ensureCapacity(int numBytes) {
+			/*
+			 * A byte produces at most one character except
+			 * for \\U escape sequences (10 bytes for 2 characters).
+			 */
+		if( _chars.length < numBytes) {
+			_chars = new char[numBytes + (numBytes >> 1)];
+		}
+	}
+}
+
+// ---------------------------------  EOF ----------------------------------------
@@ -0,0 +1,127 @@
+// Copyright (C) 2010-2012 Patrick Nicolas
+package com.c24x7.semantics.dbpedia.etl;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+
+		/**
+		 * <p>Reader of N-Triples lines from a stream of bytes. The lines are
+		 * located in a reusable buffer of bytes and tokenized in place by a single
+		 * triple so no string is created while reading a dbpedia file.</p>
+		 * @author Patrick Nicolas
+		 * @date 07/05/2012
+		 * @see com.c24x7.semantics.dbpedia.etl.CTriple
+		 */
+public final class CTripleReader {
+	public static final int DEFAULT_BUFFER_SIZE = 64*1024;
+
+	private InputStream _in 	= null;
+	private byte[] 		_buf 	= null;
+	private int			_pos 	= 0;
+	private int			_limit 	= 0;
+	private boolean		_eof 	= false;
+	private CTriple		_triple = new CTriple();
+
+
+	public CTripleReader(InputStream in) {
+		this(in, DEFAULT_BUFFER_SIZE);
+	}
+
+		/**
+		 * <p>Create a reader of triples with an initial size of buffer. The
+		 * buffer grows if a line is longer than the buffer.</p>
+		 * @param in input stream of the N-Triples file
+		 * @param bufferSize initial size of the buffer in bytes
+		 * @throws IllegalArgumentException if the stream is undefined or the size of the buffer is not positive
+		 */
+	public CTripleReader(InputStream in, int bufferSize) {
+		if( in == null || bufferSize < 1) {
+			throw new IllegalArgumentException("Cannot read triples from undefined stream or with a buffer of " + bufferSize + " bytes");
+		}
+		_in = in;
+		_buf = new byte[bufferSize];
+	}
+
+
+		/**
+		 * <p>Read and tokenize the next line. The triple returned is reused
+		 * by the next call and is defined for comments or malformed lines as well,
+		 * with no valid fields.</p>
+		 * @return triple of the next line, null if the end of the stream is reached
+		 * @throws IOException if the stream cannot be read
+		 */
+	public CTriple next() throws IOException {
+		int lineEnd = -1,
+		    scanned = _pos;
+
+		while( lineEnd == -1) {
+			for( ; scanned < _limit; scanned++) {
+				if( _buf[scanned] == '\n') {
+					lineEnd = scanned;
+					break;
+				}
+			}
+
+			if( lineEnd == -1) {
+				if( _eof) {
+					if( _pos == _limit) {
+						return null;
+					}
+					lineEnd = _limit;
+				}
+				else {
+					scanned -= _pos;
+					fill();
+				}
+			}
+		}
+
+		int lineStart = _pos;
+		_pos = (lineEnd < _limit) ? lineEnd+1 : lineEnd;
+		if( lineEnd > lineStart && _buf[lineEnd-1] == '\r') {
+			lineEnd--;
+		}
+		_triple.parse(_buf, lineStart, lineEnd);
+
+		return _triple;
+	}
+
+
+	public void close() throws IOException {
+		_in.close();
+	}
+
+
+					// --------------------------
+					//  Private Supporting Methods
+					// ---------------------------
+
+		/**
+		 * <p>Move the current line at the beginning of the buffer, grow the
+		 * buffer if the line fills it then read the next bytes of the stream.</p>
+		 */
+	private void fill() throws IOException {
+		int numBytes = _limit - _pos;
+		if( _pos > 0) {
+			System.arraycopy(_buf, _pos, _buf, 0, numBytes);
+			_pos = 0;
+			_limit = numBytes;
+		}
+		if( _limit == _buf.length) {
+			byte[] buf = new byte[_buf.length << 1];
+			System.arraycopy(_buf, 0, buf, 0, _limit);
+			_buf = buf;
+		}
+
+		int numRead = _in.read(_buf, _limit, _buf.length - _limit);
+		if( numRead == -1) {
+			_eof = true;
+		}
+		else {
+			_limit += numRead;
+		}
+	}
+}
+
+// ---------------------------------  EOF ----------------------------------------
@@ -2,13 +2,25 @@
 package com.c24x7.semantics.lookup;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 import com.c24x7.exception.InitException;
+import com.c24x7.models.CModelRegistry;
+import com.c24x7.models.IModelLoader;
 import com.c24x7.util.CEnv;
+import com.c24x7.util.collections.CBloomFilter;
 import com.c24x7.util.logs.CLogger;
 
 
@@ -17,6 +29,13 @@ import com.c24x7.util.logs.CLogger;
 			 * unsafe (read only) hash table. The key defines the label 
 			 * entry in dbpedia table and the character specifies the
 			 * actual table in dbpedia database.</p>
+			 * <p>If a compiled binary version of the lookup file is available, the
+			 * table is memory mapped and queried in place through get and containsKey,
+			 * otherwise the text file is loaded and compiled for the next initialization.
+			 * A memory mapped table is read only: its keys, values and entries are iterated
+			 * in label order from the binary file and it cannot be modified.
+			 * A Bloom filter of the labels, persisted with the binary file, rejects most of
+			 * the labels missing from a memory mapped table before the binary search.</p>
 			 * 
 			 * @author Patrick Nicolas
 			 * @date 01/23/2012
@@ -44,7 +63,53 @@ public class CLookup extends HashMap<String, CLookupRecord> {
 	public static final char 	DBPEDIA_ENTRY 					= '3';
 	public static final char 	DPBEDIA_ENTRY_ALIAS 			= '4';
 		
-	protected static CLookup instance = null;
+	private static final String[] WARM_UP_LABELS 	= { "United States", "Music", "Computer", "London" };
+	
+	private static double falsePositiveRate = CBloomFilter.DEFAULT_FALSE_POSITIVE_RATE;
+
+	
+		/**
+		 * <p>Loader of the versions of a lookup table managed by the models registry.</p>
+		 * @see com.c24x7.models.CModelRegistry
+		 */
+	protected static class NLookupLoader implements IModelLoader<CLookup> {
+		private String _lookupType = null;
+		
+		protected NLookupLoader(final String lookupType) {
+			_lookupType = lookupType;
+		}
+		
+		protected CLookup create() {
+			return new CLookup();
+		}
+		
+		@Override
+		public CLookup load() throws InitException {
+			CLookup lookup = create();
+			try {
+				lookup.load(_lookupType);
+				lookup.setOriginalLabelCase(!isLowerCaseLookupType(_lookupType));
+			}
+			catch( IOException e) {
+				throw new InitException(e.toString());
+			}
+			return lookup;
+		}
+		
+			/**
+			 * <p>Validate a new version of the lookup table, which cannot be
+			 * empty, and touch the pages of the binary search for a few labels.</p>
+			 */
+		@Override
+		public void warmUp(CLookup lookup) throws InitException {
+			if( lookup.isEmpty() ) {
+				throw new InitException("Lookup table " + _lookupType + " is empty");
+			}
+			for( String label : WARM_UP_LABELS) {
+				lookup.getLookupRecord(label);
+			}
+		}
+	}
 
 	
 		/**
@@ -58,30 +123,40 @@ public class CLookup extends HashMap<String, CLookupRecord> {
 	
 		/**
 		 * <p>Initialize the lookup table in memory by loading the data from file keeping
-		 * the original case for all the labels.</p>
+		 * the original case for all the labels. The lookup table is registered so
+		 * it can be reloaded through the models registry.</p>
 		 * @param lookupType type of labels (lower or original case)
 		 * @throws InitException exception if the lookup table is not properly loaded
 		 */
 	public static void init(final String lookupType) throws InitException {
-		if( instance == null) {
-			instance = new CLookup();
-			try {
-				instance.load(lookupType);
-				instance.setOriginalLabelCase(!isLowerCaseLookupType(lookupType));
-				System.out.println("Semantic lookup table " + lookupType + " ready");
-			}
-			catch( IOException e) {
-				throw new InitException(e.toString());
-			}
+		if( getInstance() == null) {
+			NLookupLoader loader = new NLookupLoader(lookupType);
+			CModelRegistry.register(CModelRegistry.LOOKUP, loader);
+			CModelRegistry.publish(CModelRegistry.LOOKUP, loader.load());
+			System.out.println("Semantic lookup table " + lookupType + " ready");
 		}
 	}
 	
 		/**
-		 * <p>Retrieve the singleton lookup object.</p>
-		 * @return unique, single instance of the Lookup class
+		 * <p>Retrieve the lookup table of the version of models used by the current request.</p>
+		 * @return lookup table, null if the lookup table is not initialized
 		 */
 	public static CLookup getInstance() {
-		return instance;
+		return (CLookup)CModelRegistry.get(CModelRegistry.LOOKUP);
+	}
+	
+	
+		/**
+		 * <p>Set the rate of false positives of the Bloom filters created for the
+		 * lookup tables loaded or compiled afterward.</p>
+		 * @param rate rate of false positives of the filters
+		 * @throws IllegalArgumentException if the rate is not in ]0, 1[
+		 */
+	public static void setFalsePositiveRate(double rate) {
+		if( rate <= 0.0 || rate >= 1.0) {
+			throw new IllegalArgumentException("Incorrect false positive rate " + rate + " for lookup filter");
+		}
+		falsePositiveRate = rate;
 	}
 	
 	
@@ -96,7 +171,9 @@ public class CLookup extends HashMap<String, CLookupRecord> {
 	}
 	
 	
-	private boolean _originalCase = false;
+	private boolean 		_originalCase = false;
+	private CMappedLookup	_mappedLookup = null;
+	private CBloomFilter	_filter 	  = null;
 
 	
 	public void setOriginalLabelCase(boolean originalCase) {
@@ -156,6 +233,136 @@ public class CLookup extends HashMap<String, CLookupRecord> {
 	}
 	
 	
+	@Override
+	public CLookupRecord get(Object label) {
+		final CMappedLookup mappedLookup = _mappedLookup;
+		return (mappedLookup != null) ? 
+				(mightContain(label) ? mappedLookup.get((String)label) : null) : 
+				super.get(label);
+	}
+	
+	@Override
+	public boolean containsKey(Object label) {
+		final CMappedLookup mappedLookup = _mappedLookup;
+		return (mappedLookup != null) ? 
+				(mightContain(label) && mappedLookup.containsKey((String)label)) : 
+				super.containsKey(label);
+	}
+	
+	@Override
+	public int size() {
+		final CMappedLookup mappedLookup = _mappedLookup;
+		return (mappedLookup != null) ? mappedLookup.size() : super.size();
+	}
+	
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+	
+	@Override
+	public Set<String> keySet() {
+		final CMappedLookup mappedLookup = _mappedLookup;
+		return (mappedLookup != null) ?
+				new AbstractSet<String>() {
+					@Override
+					public Iterator<String> iterator() {
+						return new NMappedIterator<String>(mappedLookup) {
+							@Override
+							protected String get(int index) {
+								return mappedLookup.getKey(index);
+							}
+						};
+					}
+					
+					@Override
+					public boolean contains(Object label) {
+						return containsKey(label);
+					}
+					
+					@Override
+					public int size() {
+						return mappedLookup.size();
+					}
+				} :
+				super.keySet();
+	}
+	
+	@Override
+	public Collection<CLookupRecord> values() {
+		final CMappedLookup mappedLookup = _mappedLookup;
+		return (mappedLookup != null) ?
+				new AbstractCollection<CLookupRecord>() {
+					@Override
+					public Iterator<CLookupRecord> iterator() {
+						return new NMappedIterator<CLookupRecord>(mappedLookup) {
+							@Override
+							protected CLookupRecord get(int index) {
+								return mappedLookup.get(index);
+							}
+						};
+					}
+					
+					@Override
+					public int size() {
+						return mappedLookup.size();
+					}
+				} :
+				super.values();
+	}
+	
+	@Override
+	public Set<Map.Entry<String, CLookupRecord>> entrySet() {
+		final CMappedLookup mappedLookup = _mappedLookup;
+		return (mappedLookup != null) ?
+				new AbstractSet<Map.Entry<String, CLookupRecord>>() {
+					@Override
+					public Iterator<Map.Entry<String, CLookupRecord>> iterator() {
+						return new NMappedIterator<Map.Entry<String, CLookupRecord>>(mappedLookup) {
+							@Override
+							protected Map.Entry<String, CLookupRecord> get(int index) {
+								return new AbstractMap.SimpleImmutableEntry<String, CLookupRecord>(mappedLookup.getKey(index), mappedLookup.get(index));
+							}
+						};
+					}
+					
+					@Override
+					public int size() {
+						return mappedLookup.size();
+					}
+				} :
+				super.entrySet();
+	}
+	
+		/**
+		 * <p>Add an entry to a lookup table loaded from its text file.</p>
+		 * @throws UnsupportedOperationException if the lookup table is memory mapped
+		 */
+	@Override
+	public CLookupRecord put(String label, CLookupRecord record) {
+		checkModifiable();
+		return super.put(label, record);
+	}
+	
+	@Override
+	public void putAll(Map<? extends String, ? extends CLookupRecord> map) {
+		checkModifiable();
+		super.putAll(map);
+	}
+	
+	@Override
+	public CLookupRecord remove(Object label) {
+		checkModifiable();
+		return super.remove(label);
+	}
+	
+	@Override
+	public void clear() {
+		checkModifiable();
+		super.clear();
+	}
+	
+	
 
 	
 	
@@ -167,7 +374,127 @@ public class CLookup extends HashMap<String, CLookupRecord> {
 	protected CLookup() { 	}
 	
 	
+		/**
+		 * <p>Iterator through the entries of a memory mapped lookup table
+		 * in label order.</p>
+		 */
+	private static abstract class NMappedIterator<T> implements Iterator<T> {
+		private CMappedLookup 	_mappedLookup 	= null;
+		private int 			_index 			= 0;
+		
+		private NMappedIterator(final CMappedLookup mappedLookup) {
+			_mappedLookup = mappedLookup;
+		}
+		
+		@Override
+		public boolean hasNext() {
+			return (_index < _mappedLookup.size());
+		}
+		
+		@Override
+		public T next() {
+			if( _index >= _mappedLookup.size()) {
+				throw new NoSuchElementException("No more entries in mapped lookup table");
+			}
+			return get(_index++);
+		}
+		
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException("Cannot remove an entry from a mapped lookup table");
+		}
+		
+		protected abstract T get(int index);
+	}
+	
+	
+	private void checkModifiable() {
+		if( _mappedLookup != null) {
+			throw new UnsupportedOperationException("Cannot modify a mapped lookup table");
+		}
+	}
+	
+	
+	final CMappedLookup getMappedLookup() {
+		return _mappedLookup;
+	}
+	
 	protected void load(final String lookupType) throws IOException {
+		final String binaryLookupType = lookupType + CMappedLookup.BINARY_EXTENSION;
+		File textFile = new File(lookupType);
+		File binaryFile = new File(binaryLookupType);
+		
+			/*
+			 * Map the compiled lookup file if it is more recent
+			 * than the text version of the lookup table.
+			 */
+		if( binaryFile.exists() && (!textFile.exists() || binaryFile.lastModified() >= textFile.lastModified()) ) {
+			_mappedLookup = new CMappedLookup(binaryLookupType);
+			_filter = loadFilter(lookupType + CBloomFilter.EXTENSION, binaryFile);
+		}
+		else {
+			loadText(lookupType);
+			try {
+				CMappedLookup.compile(this, binaryLookupType);
+				createFilter().write(lookupType + CBloomFilter.EXTENSION);
+			}
+			catch( IOException e) {
+				CLogger.error("Cannot compile lookup table " + binaryLookupType + " " + e.toString());
+			}
+		}
+	}
+	
+	
+		/**
+		 * <p>Read the filter of the mapped lookup table if it is more recent than the
+		 * binary file, otherwise create the filter from the labels of the table and save it.</p>
+		 */
+	private CBloomFilter loadFilter(final String filterFileName, final File binaryFile) {
+		CBloomFilter filter = null;
+		File filterFile = new File(filterFileName);
+		
+		if( filterFile.exists() && filterFile.lastModified() >= binaryFile.lastModified()) {
+			try {
+				filter = CBloomFilter.read(filterFileName);
+			}
+			catch( IOException e) {
+				CLogger.error("Cannot read lookup filter " + filterFileName + " " + e.toString());
+			}
+		}
+		
+		if( filter == null) {
+			filter = new CBloomFilter(_mappedLookup.size(), falsePositiveRate);
+			for( int k = 0; k < _mappedLookup.size(); k++) {
+				filter.put(_mappedLookup.getKey(k));
+			}
+			try {
+				filter.write(filterFileName);
+			}
+			catch( IOException e) {
+				CLogger.error("Cannot write lookup filter " + filterFileName + " " + e.toString());
+			}
+		}
+		
+		return filter;
+	}
+	
+	
+	private CBloomFilter createFilter() {
+		CBloomFilter filter = new CBloomFilter(super.size(), falsePositiveRate);
+		for( String label : keySet()) {
+			filter.put(label);
+		}
+		return filter;
+	}
+	
+	
+	private boolean mightContain(Object label) {
+		final CBloomFilter filter = _filter;
+		return (filter == null || filter.mightContain((String)label));
+	}
+	
+	
+	private void loadText(final String lookupType) throws IOException {
 		BufferedReader reader = null;
 			
 		try {
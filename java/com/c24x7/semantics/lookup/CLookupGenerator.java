@@ -1,19 +1,32 @@
 // Copyright (C) 2010-2012 Patrick Nicolas
 package com.c24x7.semantics.lookup;
 
-import java.io.BufferedReader;
-import java.io.FileInputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.sql.SQLException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 import com.c24x7.textanalyzer.stemmer.CPluralStemmer;
 import com.c24x7.util.CEnv;
-import com.c24x7.util.CFileUtil;
 import com.c24x7.util.logs.CLogger;
 import com.c24x7.util.string.CStringUtil;
 import com.c24x7.semantics.dbpedia.CDbpediaSql;
@@ -23,51 +36,69 @@ import com.c24x7.semantics.lookup.loaders.ILookupLoader;
 
 
 			/**
-			 * <p>Cache to access dbpedia tables, implemented as a thread
-			 * unsafe (read only) hash table. The key defines the label 
-			 * entry in dbpedia table and the character specifies the
-			 * actual table in dbpedia database.</p>
-			 * 
+			 * <p>Generator of the lookup map files from the dbpedia entries and
+			 * aliases tables. The tables are partitioned into ranges of rows scanned
+			 * concurrently by a pool of workers, each range being loaded into its own
+			 * partial map. The partial maps are merged in the order of the ranges, entries
+			 * first, so the first label (or stem) found in the tables prevails as if the
+			 * tables were scanned sequentially. The number of ranges loaded ahead of the
+			 * merge is bounded so the partial maps do not accumulate in memory.</p>
+			 * <p>The lookup records accepted by the merge are streamed into temporary versions
+			 * of the map file and its lower case version, renamed once all the ranges are merged,
+			 * so only the labels already written are kept in memory. The binary lookup format
+			 * is the exception: its keys are sorted, so the records are kept in memory until 
+			 * the files are compiled if the binary output is requested.</p>
+			 *
 			 * @author Patrick Nicolas
 			 * @date 02/11/2012
 			 */
-public final class CLookupGenerator implements Runnable {
-	protected static final long serialVersionUID = -9201271345717846508L;
-	
-	private static final int FREQUENCY_PROGRESS_DISPLAY = 2500;
+public final class CLookupGenerator {
+	public static final int 	DEFAULT_RANGE_SIZE 		= 50000;
+
+	private static final int 	DEFAULT_NUM_WORKERS 	= Runtime.getRuntime().availableProcessors();
+	private static final int 	NUM_PENDING_RANGES_PER_WORKER = 2;
+	private static final int	WRITER_BUFFER_SIZE		= 65536;
+	private static final String	TEMP_EXTENSION			= ".tmp";
+
 
-	
 			/**
-			 * <p>Class that defines the lookup records map, implemented
-			 * as a HashMap.</p>
+			 * <p>Class that defines the partial lookup records map loaded from a
+			 * range of rows. The labels are normalized and the first record of a label
+			 * is kept. The stem of each label is computed by the worker and preserved, in
+			 * the order of insertion, for the merge.</p>
 			 * @author Patrick Nicolas
 			 * @date 02/17/2012
 			 */
-	public class NLookupRecordsMap extends HashMap<String, CLookupRecord> {
+	public static class NLookupRecordsMap extends LinkedHashMap<String, CLookupRecord> {
 		private static final int	INITIAL_MAP_SIZE	= 8192;
 		private static final long serialVersionUID = -8407083597197772966L;
-		
+
+		private List<String> _stems = null;
+
 			/**
 			 * <p>Constructor that initialize the size of the lookup records map.
 			 */
 		public NLookupRecordsMap() {
 			super(INITIAL_MAP_SIZE);
+			_stems = new ArrayList<String>(INITIAL_MAP_SIZE);
 		}
-		
+
 			/**
-			 * <p>Add a thread safe capabilities to the insertion of 
-			 * a new lookup records.
+			 * <p>Add a new lookup record for a normalized version of its label,
+			 * if the label has not been already loaded.</p>
+			 * @param label original label of the record
+			 * @param lookupRecord record associated to the label
+			 * @return record already associated to the normalized label, null if the record is added
 			 */
+		@Override
 		public CLookupRecord put(String label, CLookupRecord lookupRecord) {
-			displayProgress();
-			CLookupRecord record = null;
 			String convertedString = null;
-			
+
 			int indexSpace = label.indexOf(" ");
 			if( indexSpace != -1) {
 				String[] terms = label.split(" ");
 				StringBuilder buf = new StringBuilder();
-			
+
 				int termsLastIndex = terms.length-1;
 				for( int k = 0; k < termsLastIndex; k++) {
 					convertedString = CStringUtil.allButFirstCharToLowerCase(terms[k]);
@@ -76,329 +107,369 @@ public final class CLookupGenerator implements Runnable {
 				}
 				convertedString = CStringUtil.allButFirstCharToLowerCase(terms[termsLastIndex]);
 				buf.append( convertedString != null ? convertedString : terms[termsLastIndex]);
-				
+
 				convertedString = buf.toString();
 			}
-			
+
 			else {
 				convertedString = CStringUtil.allButFirstCharToLowerCase(label);
 				if( convertedString == null) {
 					convertedString = label;
 				}
 			}
-			
-			String stemVersion = CPluralStemmer.getInstance().stem(convertedString);
-			
-			synchronized(this) {
-				_recordCounter++;
-				if(!containsKey(convertedString) && !containsKey(stemVersion) ) {
-					record = super.put(convertedString, lookupRecord);
-				}
-				
+
+			CLookupRecord record = get(convertedString);
+			if( record == null) {
+				super.put(convertedString, lookupRecord);
+				_stems.add(CPluralStemmer.getInstance().stem(convertedString));
 			}
 			return record;
 		}
-
 	}
-	
-	private class NExtractorThread extends Thread {
-		private int _startRowId 	= 0;
-		private int _endRowId 		= 0;
-		private int _threadIndex 	= 0;
-		private int _recordsCount 	= 0;
-		private ILookupLoader _extractor = null;
-		
+
+
 			/**
-			 * <p>Create an extractor thread to create a lookup map file from 
-			 * DBpedia database tables.</p>
-			 * @param extractor formatted loader for lookup data.
-			 * @param startId id of starting row in DBpedia table
-			 * @param endId id of last row in DBpedia table
-			 * @param index index of the thread.
+			 * <p>Task that loads a range of rows of a dbpedia table into
+			 * a partial lookup records map.</p>
 			 */
-		private NExtractorThread(final ILookupLoader extractor, int startId, int endId, int index) {
-			_extractor = extractor;
+	private final class NRangeTask implements Callable<NLookupRecordsMap> {
+		private boolean _aliases 	= false;
+		private int 	_startRowId = 0;
+		private int 	_endRowId 	= 0;
+
+		private NRangeTask(boolean aliases, int startId, int endId) {
+			_aliases = aliases;
 			_startRowId = startId;
 			_endRowId = endId;
-			_threadIndex = index;
 		}
-		
-		
-			/**
-			 * <p>Coroutine for the thread that create a in-memory lookup 
-			 * table from  Dbpedia table
-			 */
-		public void run() {
-			for( int k = _startRowId; k <= _endRowId; k++) {
-				try {
-					if( _extractor.extract(k) ) {
-						_recordsCount++;
-					}
-				}	
-				catch( SQLException e) {
-					CLogger.error("Cannot extract aliases data in thread " + _threadIndex + ": " + e.toString());
-				}
+
+		@Override
+		public NLookupRecordsMap call() throws Exception {
+			NLookupRecordsMap lookupRecordsMap = new NLookupRecordsMap();
+			ILookupLoader loader = _aliases ?
+									new CLookupAliasesLoader(lookupRecordsMap, _originalLookup) :
+									new CLookupEntriesLoader(lookupRecordsMap, _originalLookup);
+			try {
+				loader.extract(_startRowId, _endRowId);
 			}
-			_extractor.close();
+			finally {
+				loader.close();
+			}
+			return lookupRecordsMap;
 		}
-	}	
-	
-	
-	private boolean				_completed 			= false;
-	private int 				_recordCounter 		= 0;
-	private List<NExtractorThread> 	_extractorsList 	= null;
-	private NLookupRecordsMap  	_lookupRecordsMap 	= null;
-	private String 				_lookupType 		= null;
-	private long				_startTime			= 0L;
-	private static Object		lock				= new Object();
-	
-	
+
+		@Override
+		public String toString() {
+			StringBuilder buf = new StringBuilder(_aliases ? "aliases [" : "entries [");
+			buf.append(_startRowId);
+			buf.append(", ");
+			buf.append(_endRowId);
+			buf.append("]");
+			return buf.toString();
+		}
+	}
+
+
+	private static class NWorkerFactory implements ThreadFactory {
+		private AtomicInteger 	_threadIndex 	= new AtomicInteger(0);
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "lookup-worker-" + _threadIndex.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+
+	private int 						_numWorkers 		= DEFAULT_NUM_WORKERS;
+	private int							_rangeSize			= DEFAULT_RANGE_SIZE;
+	private boolean						_binaryOutput		= false;
+	private boolean						_originalLookup		= true;
+	private Set<String>					_labels				= null;
+	private Map<String, CLookupRecord>  _lookupRecordsMap 	= null;
+	private Writer						_writer				= null;
+	private Writer						_lowerCaseWriter	= null;
+	private StringBuilder				_buf				= null;
+	private long						_startTime			= 0L;
+
+
 			/**
 			 * <p>Create a instance of the Lookup generation. The generation
 			 * of the in-memory look up table is multi-threaded.
 			 */
-	public CLookupGenerator() {
-		_extractorsList = new LinkedList<NExtractorThread>();
-		_lookupRecordsMap = new NLookupRecordsMap();
+	public CLookupGenerator() { }
+
+
+			/**
+			 * <p>Set the number of workers that scan the dbpedia tables concurrently.</p>
+			 * @param numWorkers number of worker threads
+			 * @throws IllegalArgumentException if the number of workers is not positive
+			 */
+	public void setNumWorkers(int numWorkers) {
+		if( numWorkers < 1) {
+			throw new IllegalArgumentException("Cannot generate lookup map with " + numWorkers + " workers");
+		}
+		_numWorkers = numWorkers;
+	}
+
+			/**
+			 * <p>Set the number of rows of the dbpedia tables scanned by a single task.</p>
+			 * @param rangeSize number of rows of a range
+			 * @throws IllegalArgumentException if the size of the range is not positive
+			 */
+	public void setRangeSize(int rangeSize) {
+		if( rangeSize < 1) {
+			throw new IllegalArgumentException("Cannot scan dbpedia tables by ranges of " + rangeSize + " rows");
+		}
+		_rangeSize = rangeSize;
+	}
+
+			/**
+			 * <p>Specify whether the lookup map files are compiled in the binary
+			 * lookup format, next to their text version. The binary format requires
+			 * all the lookup records in memory.</p>
+			 * @param binaryOutput true to compile the binary lookup files, false otherwise
+			 */
+	public void setBinaryOutput(boolean binaryOutput) {
+		_binaryOutput = binaryOutput;
 	}
-	
+
 
 
 			/**
 			 * <p>Main routine to create a map file for Wikipedia entries.
 			 * The map file is then loaded in memory to build a lookup table.
-			 * The table of aliases of wikipedia entries  is scanned first, 
-			 * before the actual Wikipedia entries table is scanned so the entry 
-			 * in the Wikipedia table prevails in case of conflict.</p> 
-			 * @param lookupTable type of lookup table to be created.
-			 * @return Number of entries in the lookup map file.
+			 * The table of Wikipedia entries is scanned first, before the aliases
+			 * of Wikipedia entries so the entry in the Wikipedia table prevails
+			 * in case of conflict. The method returns once the map files are written.</p>
+			 * @param lookupType type of lookup table to be created.
+			 * @return Number of entries in the lookup map file, -1 if the generation failed.
 			 */
-	
 	public int createLookupMap(final String lookupType) {
-				/*
-				 * Retrieve the size of the Wikipedia entries
-				 * and Wikipedia aliases table.
-				 */
-		boolean originalLookup = CLookup.isOriginalLookupType(lookupType);
-		_lookupType = lookupType;
-		
+		int numRecords = -1;
+		_originalLookup = CLookup.isOriginalLookupType(lookupType);
+
+		final String lowerCaseLookupType = getLowerCaseLookupType(lookupType);
+
 			/*
 			 * Iterates through both the Dbpedia entries and aliases tables
 			 */
-		long maxAliases_id 	= CDbpediaSql.getInstance().getNumAliases(),
+		int maxAliases_id 	= CDbpediaSql.getInstance().getNumAliases(),
 			max_id 			= CDbpediaSql.getInstance().getNumEntries();
-		
-		if( max_id != -1L && maxAliases_id != -1L) {
+
+		if( lowerCaseLookupType == null) {
+			CLogger.error("Failed to create label lookup table file");
+		}
+		else if( max_id != -1 && maxAliases_id != -1) {
 			_startTime = System.currentTimeMillis();
-			
-			final int numAliasesThreads = 2,
-					 numEntriesThreads = 2;
-			
-			int interval 	= (int)((float)max_id/numEntriesThreads),
-				startingId 	= 1,
-				endingId 	= 1,
-				threadIndex = 1;
-			
-			/*
-			 * Build the list of threads to extract lookup data from
-			 * the DBpedia aliases table.
-			 */
-			
-			NExtractorThread extractingThread = null;
-			ILookupLoader extractor = null;
-			
-			/*
-			 * Create the threads that extract label and state from the 
-			 * Wikipedia reference database and create the relevant lookup entry
-			 */
-			for( int k = 0; k < numEntriesThreads; k++) {
-				endingId = (int)((k == numEntriesThreads-1) ? max_id : startingId + interval);
-				extractor = new CLookupEntriesLoader(_lookupRecordsMap, originalLookup);
-				extractingThread = new NExtractorThread(extractor, startingId, endingId, threadIndex);
-				
-				/*
-				 * Add to the list of extraction threads that block the current
-				 * method, before starting the extracting threads.
-				 */
-				_extractorsList.add(extractingThread);
-				extractingThread.start();
-				startingId = endingId + 1;
-				threadIndex++;
-			}
-			
-			/*
-			 * Start this thread that wait for the extracting threads
-			 * to complete execution.
-			 */
-			new Thread(this).start();
-			
-			/*
-			 * Co-routine that waits for the extracting threads to complete.
-			 */
-			while( !_completed) {
-				try {
-					Thread.sleep(20000);
-				}
-				catch( InterruptedException e) {
-					CLogger.error("Fail to block waiting for aliases lookup");
-				}
-			}
 
-			_extractorsList = new LinkedList<NExtractorThread>();
-			
-			interval 	= (int)((float)maxAliases_id /numAliasesThreads);
-			startingId 	= 1;
-			endingId 	= 1;
+			List<NRangeTask> tasksList = new ArrayList<NRangeTask>();
+			addRangeTasks(tasksList, false, max_id);
+			addRangeTasks(tasksList, true, maxAliases_id);
 
-			/*
-			 * Create the threads that extract label and state from the 
-			 * Wikipedia reference database and create the relevant lookup 
-			 * entry associated with the aliases table.
-			 */
-			for( int k = 0; k < numAliasesThreads; k++) {
-				endingId = (int)((k == numAliasesThreads-1) ? maxAliases_id : startingId + interval);
-				extractor = new CLookupAliasesLoader(_lookupRecordsMap, originalLookup);
-				extractingThread = new NExtractorThread(extractor, startingId, endingId, threadIndex);
-				
-				/*
-				 * Add to the list of extraction threads that block the current
-				 * method, before starting the extracting threads.
-				 */
-				_extractorsList.add(extractingThread);
-				extractingThread.start();
-	
-				startingId = endingId + 1;
-				threadIndex++;
-			}
-			
-			new Thread(this).start();
-		}
-		
-		return 1;
-	}
-	
-	
-		/**
-		 * <p>Implementation to the main controlling thread.</p>
-		 */
-	public void run() {
-		for(NExtractorThread extractor : _extractorsList ) {
+			ExecutorService executor = Executors.newFixedThreadPool(_numWorkers, new NWorkerFactory());
 			try {
-				extractor.join();
+				openMapFiles(lookupType, lowerCaseLookupType);
+				if( load(executor, tasksList) ) {
+					closeMapFiles(lookupType, lowerCaseLookupType);
+					numRecords = _labels.size();
+
+					if( _binaryOutput ) {
+						createBinaryFiles(lookupType, lowerCaseLookupType);
+					}
+				}
 			}
-			catch( InterruptedException e) {
-				CLogger.error("Failed to generate Lookup Map " + e.toString());
+			catch( IOException e) {
+				numRecords = -1;
+				CLogger.error("Cannot create dbpedia lookup map " + e.toString());
+			}
+			finally {
+				executor.shutdownNow();
+				close(_writer);
+				close(_lowerCaseWriter);
+				_writer = null;
+				_lowerCaseWriter = null;
+				_labels = null;
+				_lookupRecordsMap = null;
+				_buf = null;
 			}
 		}
-		
-		if( _completed ) {
-			createMapFile();
-			createLowerCaseMapFile();
-		}
-		_completed = true;
+
+		return numRecords;
 	}
-	
-		
+
+
 							// ---------------------------
 							//  Supporting Private Methods
 							// ---------------------------
-	
-	
-	
-	
-		/**
-		 * <p>Convert the content of the lookup table to a Lower case character.</p>
-		 * @return number of records in the lookup table.
-		 */
-	private int createLowerCaseMapFile() {	
-		int numRecords = 0;
-		BufferedReader reader = null;
-		
-		try {
-			StringBuilder buf = new StringBuilder();
-			
-			/*
-			 * load the lookup table from file into memory.
+
+	private void addRangeTasks(List<NRangeTask> tasksList, boolean aliases, int maxId) {
+		for( int startId = 1; startId <= maxId; startId += _rangeSize) {
+			tasksList.add(new NRangeTask(aliases, startId, Math.min(startId + _rangeSize - 1, maxId)));
+		}
+	}
+
+
+			/**
+			 * <p>Submit the range tasks to the workers and merge their partial maps in
+			 * the order of submission. A new task is submitted each time a partial map is
+			 * merged so at most NUM_PENDING_RANGES_PER_WORKER ranges per worker are pending.</p>
+			 * @return true if all the ranges have been loaded, false otherwise
 			 */
-			FileInputStream fis = new FileInputStream(_lookupType);
-			reader = new BufferedReader(new InputStreamReader(fis));
-			String newLine = null;
-				
-			while ((newLine = reader.readLine()) != null) {	
-				newLine = newLine.trim();
-				buf.append(newLine.toLowerCase());
-				buf.append("\n");
-				numRecords++;
+	private boolean load(ExecutorService executor, List<NRangeTask> tasksList) {
+		final int numTasks = tasksList.size(),
+		          maxPendingTasks = _numWorkers*NUM_PENDING_RANGES_PER_WORKER;
+
+		LinkedList<Future<NLookupRecordsMap>> pendingTasks = new LinkedList<Future<NLookupRecordsMap>>();
+		Iterator<NRangeTask> tasksIt = tasksList.iterator();
+		NRangeTask task = null;
+		boolean succeed = true;
+
+		for( int k = 0; succeed && k < numTasks; k++) {
+			while( tasksIt.hasNext() && pendingTasks.size() < maxPendingTasks) {
+				pendingTasks.add(executor.submit(tasksIt.next()));
 			}
-			
-			reader.close();
-			reader = null;
-			
-			/*
-			 * Save the lower case characters version into file
-			 */
-			int indexLabelsFile = _lookupType.indexOf("labels");
-			if( indexLabelsFile != -1) {
-				StringBuilder filenameBuf = new StringBuilder(_lookupType.substring(0,indexLabelsFile));
-				filenameBuf.append("l");
-				filenameBuf.append(_lookupType.substring(indexLabelsFile));
-				CFileUtil.write(filenameBuf.toString(), buf.toString());
+			task = tasksList.get(k);
+
+			try {
+				merge(pendingTasks.removeFirst().get());
+				double duration = (System.currentTimeMillis() - _startTime)*0.001;
+				CLogger.info("Lookup " + task.toString() + " " + (k+1) + "/" + numTasks + " ranges, " + _labels.size() + " records - " + String.valueOf(duration) + " secs.");
 			}
-			else {
-				numRecords = 0;
-				CLogger.error("Failed to create label lookup table file");
+			catch( InterruptedException e) {
+				CLogger.error("Lookup map generation interrupted " + e.toString());
+				Thread.currentThread().interrupt();
+				succeed = false;
+			}
+			catch( ExecutionException e) {
+				CLogger.error("Cannot load lookup " + task.toString() + ": " + e.getCause().toString());
+				succeed = false;
+			}
+			catch( IOException e) {
+				CLogger.error("Cannot write lookup " + task.toString() + ": " + e.toString());
+				succeed = false;
 			}
 		}
-	
-		catch( IOException e) {
-			CLogger.error("Failed to convert Lookup table to lowercase " + e.toString());
-		}
-		finally {
-			if( reader != null) {
-				try {
-					reader.close();
-				}
-				catch( IOException e) {
-					CLogger.error("Failed to convert Lookup table to lowercase " + e.toString());
+
+		return succeed;
+	}
+
+
+			/**
+			 * <p>Merge a partial map, writing the records of the labels (or stems) 
+			 * not found in the previous ranges into the map files.</p>
+			 */
+	private void merge(final NLookupRecordsMap partialMap) throws IOException {
+		Iterator<String> stemsIt = partialMap._stems.iterator();
+		String stem = null;
+
+		for( Map.Entry<String, CLookupRecord> entry : partialMap.entrySet()) {
+			stem = stemsIt.next();
+			if( !_labels.contains(entry.getKey()) &&
+				(stem == null || !_labels.contains(stem)) ) {
+				_labels.add(entry.getKey());
+				write(entry.getKey(), entry.getValue());
+				if( _lookupRecordsMap != null) {
+					_lookupRecordsMap.put(entry.getKey(), entry.getValue());
 				}
 			}
 		}
-		
-		return numRecords;
 	}
 
 
-	private void createMapFile() {
-		try {
-			StringBuilder buf = new StringBuilder();
-			
-			CLookupRecord record = null;
-			for( String keyword : _lookupRecordsMap.keySet()) {
-				record = _lookupRecordsMap.get(keyword);
-				buf.append(keyword);
-				buf.append(CEnv.KEY_VALUE_DELIM);
-				buf.append(record.getType());
-				buf.append(CEnv.KEY_VALUE_DELIM);
-				buf.append(record.getIdf());
-				buf.append("\n");
-			}
-			
-			CFileUtil.write(_lookupType, buf.toString());
+	private void write(final String label, final CLookupRecord record) throws IOException {
+		_buf.setLength(0);
+		_buf.append(label);
+		_buf.append(CEnv.KEY_VALUE_DELIM);
+		_buf.append(record.getType());
+		_buf.append(CEnv.KEY_VALUE_DELIM);
+		_buf.append(record.getIdf());
+
+		final String line = _buf.toString();
+		_writer.write(line);
+		_writer.write("\n");
+		_lowerCaseWriter.write(line.trim().toLowerCase());
+		_lowerCaseWriter.write("\n");
+	}
+
+
+	private static String getLowerCaseLookupType(final String lookupType) {
+		String lowerCaseLookupType = null;
+
+		int indexLabelsFile = lookupType.indexOf("labels");
+		if( indexLabelsFile != -1) {
+			StringBuilder filenameBuf = new StringBuilder(lookupType.substring(0,indexLabelsFile));
+			filenameBuf.append("l");
+			filenameBuf.append(lookupType.substring(indexLabelsFile));
+			lowerCaseLookupType = filenameBuf.toString();
+		}
+		return lowerCaseLookupType;
+	}
+
+
+	private void openMapFiles(final String lookupType, final String lowerCaseLookupType) throws IOException {
+		_labels = new HashSet<String>(NLookupRecordsMap.INITIAL_MAP_SIZE);
+		_lookupRecordsMap = _binaryOutput ? new LinkedHashMap<String, CLookupRecord>(NLookupRecordsMap.INITIAL_MAP_SIZE) : null;
+		_buf = new StringBuilder();
+		_writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(lookupType + TEMP_EXTENSION)), WRITER_BUFFER_SIZE);
+		_lowerCaseWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(lowerCaseLookupType + TEMP_EXTENSION)), WRITER_BUFFER_SIZE);
+	}
+
+
+			/**
+			 * <p>Close the temporary map files and replace the map files, so the
+			 * lookup table never loads a partially generated map file.</p>
+			 */
+	private void closeMapFiles(final String lookupType, final String lowerCaseLookupType) throws IOException {
+		_writer.close();
+		_writer = null;
+		_lowerCaseWriter.close();
+		_lowerCaseWriter = null;
+
+		rename(lookupType);
+		rename(lowerCaseLookupType);
+	}
+
+
+	private static void rename(final String fileName) throws IOException {
+		File tempFile = new File(fileName + TEMP_EXTENSION),
+		     file = new File(fileName);
+		if( (file.exists() && !file.delete()) || !tempFile.renameTo(file) ) {
+			throw new IOException("Cannot create lookup map file " + fileName);
 		}
-		catch( IOException e) {
-			CLogger.error("Cannot create dbpedia lookup map " + e.toString());
+	}
+
+
+			/**
+			 * <p>Compile the lookup records into the binary lookup files. The binary
+			 * files are written after the text files so the lookup table does not recompile
+			 * them at loading time. The lower case records are overridden in the order of
+			 * the text file, as if the lower case text file were loaded.</p>
+			 */
+	private void createBinaryFiles(final String lookupType, final String lowerCaseLookupType) throws IOException {
+		CMappedLookup.compile(_lookupRecordsMap, lookupType + CMappedLookup.BINARY_EXTENSION);
+
+		Map<String, CLookupRecord> lowerCaseMap = new HashMap<String, CLookupRecord>(_lookupRecordsMap.size());
+		CLookupRecord record = null;
+		for( Map.Entry<String, CLookupRecord> entry : _lookupRecordsMap.entrySet()) {
+			record = entry.getValue();
+			lowerCaseMap.put(entry.getKey().trim().toLowerCase(), new CLookupRecord(Character.toLowerCase(record.getType()), record.getIdf()));
 		}
+		CMappedLookup.compile(lowerCaseMap, lowerCaseLookupType + CMappedLookup.BINARY_EXTENSION);
 	}
-	
-	private void displayProgress() {
-		synchronized( lock) {
-			if(_recordCounter % FREQUENCY_PROGRESS_DISPLAY == 0) {
-				double duration = (System.currentTimeMillis() - _startTime)*0.001;
-				System.out.println("Number of records: " + _recordCounter + " - " + String.valueOf(duration) + " secs.");
+
+
+	private static void close(Writer writer) {
+		if( writer != null) {
+			try {
+				writer.close();
+			}
+			catch( IOException e) {
+				CLogger.error("Cannot close lookup map file " + e.toString());
 			}
 		}
 	}
-
 }
 
 // ------------------------  EOF -------------------------------------------------
@@ -0,0 +1,247 @@
+// Copyright (C) 2010-2012 Patrick Nicolas
+package com.c24x7.semantics.lookup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.c24x7.models.tags.CTagsModel;
+import com.c24x7.util.logs.CLogger;
+
+
+
+			/**
+			 * <p>Read only token trie compiled from the multi-terms labels of a lookup
+			 * table. The terms of a label are inserted from the last term to the first
+			 * one, so a single backward walk from the last word of a N-Gram retrieves the
+			 * lookup records of all its sub N-Grams ending with this word, without building
+			 * the labels of the sub N-Grams.</p>
+			 * <p>The terms are mapped to integer identifiers and the transitions between
+			 * nodes are stored in an open addressing hash table keyed by the pair
+			 * (node, term identifier). Labels with more terms than the largest N-Gram
+			 * extracted from the documents are not compiled.</p>
+			 * @author Patrick Nicolas
+			 * @date 07/19/2012
+			 */
+public final class CLookupTrie {
+	public static final int ROOT 		= 0;
+	public static final int UNDEFINED 	= -1;
+
+	private static final int INITIAL_CAPACITY 	= 1024;
+	private static final int HASH_MULTIPLIER 	= 0x9E3779B9;
+
+
+			/**
+			 * <p>Compile the token trie of the multi-terms labels of a lookup table. The
+			 * records of a memory mapped table are retrieved from the mapped file.</p>
+			 * @param lookup lookup table
+			 * @return trie of the multi-terms labels of the lookup table
+			 * @throws IllegalArgumentException if the lookup table is undefined
+			 */
+	public static CLookupTrie compile(final CLookup lookup) {
+		if( lookup == null) {
+			throw new IllegalArgumentException("Cannot compile trie of undefined lookup table");
+		}
+
+		long startTime = System.currentTimeMillis();
+		CLookupTrie trie = new CLookupTrie();
+		CMappedLookup mappedLookup = lookup.getMappedLookup();
+
+		if( mappedLookup != null) {
+			trie._mappedLookup = mappedLookup;
+			for( int k = 0; k < mappedLookup.size(); k++) {
+				if( trie.add(mappedLookup.getKey(k), k) ) {
+					trie._numEntries++;
+				}
+			}
+		}
+		else {
+			List<CLookupRecord> recordsList = new ArrayList<CLookupRecord>();
+			for( Map.Entry<String, CLookupRecord> entry : lookup.entrySet()) {
+				if( trie.add(entry.getKey(), recordsList.size()) ) {
+					recordsList.add(entry.getValue());
+				}
+			}
+			trie._records = recordsList.toArray(new CLookupRecord[recordsList.size()]);
+			trie._numEntries = trie._records.length;
+		}
+
+		CLogger.info("Lookup trie compiled with " + trie._numEntries + " labels and " + trie._numNodes + " nodes in " + (System.currentTimeMillis() - startTime) + " msecs.");
+		return trie;
+	}
+
+
+
+	private Map<String, Integer> 	_termsMap 		= new HashMap<String, Integer>();
+	private long[] 					_transitions 	= new long[INITIAL_CAPACITY];
+	private int[] 					_children 		= new int[INITIAL_CAPACITY];
+	private int[]					_entries 		= new int[INITIAL_CAPACITY];
+	private int 					_numNodes 		= 1;
+	private int						_numEntries		= 0;
+	private CLookupRecord[]			_records 		= null;
+	private CMappedLookup			_mappedLookup 	= null;
+
+
+
+			/**
+			 * <p>Retrieve the node reached from a node of the trie through a term,
+			 * walking backward from the last term of a label.</p>
+			 * @param node current node, ROOT to start with the last term
+			 * @param term term preceding the terms already walked
+			 * @return next node, UNDEFINED if no label contains this sequence of terms
+			 */
+	public int next(int node, final String term) {
+		Integer termId = _termsMap.get(term);
+		return (termId != null) ? find(node, termId.intValue()) : UNDEFINED;
+	}
+
+
+			/**
+			 * <p>Retrieve the lookup record of the label which first term is the
+			 * last term walked to reach a node.</p>
+			 * @param node node of the trie
+			 * @return lookup record if the node terminates a label, null otherwise
+			 */
+	public CLookupRecord get(int node) {
+		CLookupRecord record = null;
+
+		if( node > ROOT && node < _numNodes) {
+			final int entry = _entries[node];
+			if( entry != UNDEFINED) {
+				record = (_mappedLookup != null) ? _mappedLookup.get(entry) : _records[entry];
+			}
+		}
+		return record;
+	}
+
+
+	public final int size() {
+		return _numEntries;
+	}
+
+	public final int getNumNodes() {
+		return _numNodes;
+	}
+
+
+
+						// ---------------------------
+						//  Supporting Private Methods
+						// ---------------------------
+
+	private CLookupTrie() {
+		_entries[ROOT] = UNDEFINED;
+	}
+
+
+	private boolean add(final String label, int entry) {
+		if( label.indexOf(' ') == -1) {
+			return false;
+		}
+
+		String[] terms = label.split(" ");
+		if( terms.length > CTagsModel.MAX_NGRAM_SIZE) {
+			return false;
+		}
+		for( String term : terms) {
+			if( term.length() == 0) {
+				return false;
+			}
+		}
+
+		int node = ROOT;
+		for( int k = terms.length-1; k >= 0; k--) {
+			Integer termId = _termsMap.get(terms[k]);
+			if( termId == null) {
+				termId = Integer.valueOf(_termsMap.size());
+				_termsMap.put(terms[k], termId);
+			}
+
+			int child = find(node, termId.intValue());
+			if( child == UNDEFINED) {
+				child = addNode(node, termId.intValue());
+			}
+			node = child;
+		}
+
+		boolean added = (_entries[node] == UNDEFINED);
+		if( added ) {
+			_entries[node] = entry;
+		}
+		return added;
+	}
+
+
+	private int find(int node, int termId) {
+		final long key = transitionKey(node, termId);
+		final int mask = _transitions.length-1;
+
+		int child = UNDEFINED;
+		for( int slot = hash(key) & mask; child == UNDEFINED && _transitions[slot] != 0L; slot = (slot+1) & mask) {
+			if( _transitions[slot] == key) {
+				child = _children[slot];
+			}
+		}
+		return child;
+	}
+
+
+	private int addNode(int node, int termId) {
+		if( (_numNodes << 1) >= _transitions.length) {
+			rehash(_transitions.length << 1);
+		}
+		if( _numNodes == _entries.length) {
+			int[] entries = new int[_entries.length << 1];
+			System.arraycopy(_entries, 0, entries, 0, _numNodes);
+			_entries = entries;
+		}
+
+		final int child = _numNodes++;
+		_entries[child] = UNDEFINED;
+		insert(transitionKey(node, termId), child);
+
+		return child;
+	}
+
+
+	private void rehash(int capacity) {
+		long[] transitions = _transitions;
+		int[] children = _children;
+
+		_transitions = new long[capacity];
+		_children = new int[capacity];
+		for( int k = 0; k < transitions.length; k++) {
+			if( transitions[k] != 0L) {
+				insert(transitions[k], children[k]);
+			}
+		}
+	}
+
+
+	private void insert(long key, int child) {
+		final int mask = _transitions.length-1;
+
+		int slot = hash(key) & mask;
+		while( _transitions[slot] != 0L) {
+			slot = (slot+1) & mask;
+		}
+		_transitions[slot] = key;
+		_children[slot] = child;
+	}
+
+
+		/*
+		 * The term identifier is incremented so a key is never null.
+		 */
+	private static long transitionKey(int node, int termId) {
+		return ((long)node << 32) | ((long)termId + 1L);
+	}
+
+	private static int hash(long key) {
+		int h = (int)(key ^ (key >>> 32)) * HASH_MULTIPLIER;
+		return h ^ (h >>> 16);
+	}
+}
+
+// ------------------------  EOF -------------------------------------------------
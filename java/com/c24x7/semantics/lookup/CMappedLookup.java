@@ -0,0 +1,309 @@
+// Copyright (C) 2010-2012 Patrick Nicolas
+package com.c24x7.semantics.lookup;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+
+
+
+			/**
+			 * <p>Read only lookup table stored in a compiled binary file which is
+			 * memory mapped and queried in place. The labels are sorted by their UTF-8
+			 * encoding so a label is found through a binary search, without loading
+			 * the dictionary in the heap. The mapped pages are shared by all the processes
+			 * using the same lookup file.</p>
+			 * <p>Layout: magic, version, number of entries, size of the keys block,
+			 * offsets of the keys (number of entries + 1), types (1 byte each),
+			 * inverse document frequencies (float each) and the keys block.</p>
+			 * @author Patrick Nicolas
+			 * @date 06/25/2012
+			 */
+public final class CMappedLookup {
+	public static final String 	BINARY_EXTENSION 	= ".bin";
+
+	private static final int 	MAGIC 				= 0x32347843;
+	private static final int 	VERSION 			= 1;
+	private static final int 	HEADER_SIZE 		= 16;
+	private static final String ENCODING			= "UTF-8";
+
+
+			/**
+			 * <p>Comparator of labels encoded in UTF-8, using the unsigned value
+			 * of bytes so the order is consistent with the binary search.</p>
+			 */
+	private static class NBytesComparator implements Comparator<byte[]> {
+		@Override
+		public int compare(byte[] key1, byte[] key2) {
+			int minLength = (key1.length < key2.length) ? key1.length : key2.length;
+			int diff = 0;
+
+			for( int k = 0; diff == 0 && k < minLength; k++) {
+				diff = (key1[k] & 0xFF) - (key2[k] & 0xFF);
+			}
+			return (diff != 0) ? diff : key1.length - key2.length;
+		}
+	}
+
+
+
+			/**
+			 * <p>Compile a lookup table into a binary file. The file is first written
+			 * into a temporary file then renamed so readers never map a partial file.</p>
+			 * @param lookupMap map of labels to lookup records
+			 * @param fileName name of the binary lookup file
+			 * @throws IOException if the binary file cannot be written
+			 */
+	public static void compile(final Map<String, CLookupRecord> lookupMap, final String fileName) throws IOException {
+		if( lookupMap == null || fileName == null) {
+			throw new IllegalArgumentException("Cannot compile undefined lookup table");
+		}
+
+		final int numEntries = lookupMap.size();
+		byte[][] keys = new byte[numEntries][];
+
+		int k = 0;
+		for( String label : lookupMap.keySet()) {
+			keys[k++] = label.getBytes(ENCODING);
+		}
+		Arrays.sort(keys, new NBytesComparator());
+
+		File tempFile = new File(fileName + ".tmp");
+		DataOutputStream out = null;
+
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile), 65536));
+
+			int keysLength = 0;
+			for( k = 0; k < numEntries; k++) {
+				keysLength += keys[k].length;
+			}
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(numEntries);
+			out.writeInt(keysLength);
+
+			int offset = 0;
+			for( k = 0; k < numEntries; k++) {
+				out.writeInt(offset);
+				offset += keys[k].length;
+			}
+			out.writeInt(offset);
+
+			CLookupRecord record = null;
+			for( k = 0; k < numEntries; k++) {
+				record = lookupMap.get(new String(keys[k], ENCODING));
+				out.writeByte((byte)record.getType());
+			}
+			for( k = 0; k < numEntries; k++) {
+				record = lookupMap.get(new String(keys[k], ENCODING));
+				out.writeFloat(record.getIdf());
+			}
+			for( k = 0; k < numEntries; k++) {
+				out.write(keys[k]);
+			}
+			out.close();
+			out = null;
+		}
+		finally {
+			if( out != null) {
+				out.close();
+			}
+		}
+
+		File binaryFile = new File(fileName);
+		if( (binaryFile.exists() && !binaryFile.delete()) || !tempFile.renameTo(binaryFile) ) {
+			throw new IOException("Cannot create binary lookup file " + fileName);
+		}
+	}
+
+
+
+	private MappedByteBuffer 	_buffer 		= null;
+	private int 				_numEntries		= 0;
+	private int 				_offsetsIndex	= 0;
+	private int 				_typesIndex		= 0;
+	private int 				_idfsIndex		= 0;
+	private int 				_keysIndex		= 0;
+
+
+			/**
+			 * <p>Map a compiled binary lookup file in memory.</p>
+			 * @param fileName name of the binary lookup file
+			 * @throws IOException if the file cannot be mapped or its format is incorrect.
+			 */
+	public CMappedLookup(final String fileName) throws IOException {
+		RandomAccessFile file = null;
+
+		try {
+			file = new RandomAccessFile(fileName, "r");
+			FileChannel channel = file.getChannel();
+			if( channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Incorrect size for binary lookup file " + fileName);
+			}
+			_buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		finally {
+			if( file != null) {
+				file.close();
+			}
+		}
+
+		if( _buffer.getInt(0) != MAGIC || _buffer.getInt(4) != VERSION) {
+			throw new IOException("Incorrect format for binary lookup file " + fileName);
+		}
+		_numEntries = _buffer.getInt(8);
+		final int keysLength = _buffer.getInt(12);
+
+		_offsetsIndex = HEADER_SIZE;
+		_typesIndex = _offsetsIndex + ((_numEntries+1) << 2);
+		_idfsIndex = _typesIndex + _numEntries;
+		_keysIndex = _idfsIndex + (_numEntries << 2);
+
+		if( _keysIndex + keysLength != _buffer.capacity()) {
+			throw new IOException("Binary lookup file " + fileName + " is truncated");
+		}
+	}
+
+
+	public final int size() {
+		return _numEntries;
+	}
+
+
+			/**
+			 * <p>Test if the lookup table contains a label.</p>
+			 * @param label label of the entry
+			 * @return true if the label is found, false otherwise
+			 */
+	public boolean containsKey(final String label) {
+		return (indexOf(label) >= 0);
+	}
+
+
+			/**
+			 * <p>Retrieve a new lookup record for a label.</p>
+			 * @param label label of the entry
+			 * @return lookup record if the label is found, null otherwise.
+			 */
+	public CLookupRecord get(final String label) {
+		CLookupRecord record = null;
+
+		int index = indexOf(label);
+		if( index >= 0) {
+			record = new CLookupRecord((char)_buffer.get(_typesIndex + index),
+									   _buffer.getFloat(_idfsIndex + (index << 2)));
+		}
+
+		return record;
+	}
+
+
+			/**
+			 * <p>Retrieve the label of an entry of the lookup table, for the
+			 * applications which iterate through the entries in label order.</p>
+			 * @param index index of the entry in the table
+			 * @return label of the entry
+			 * @throws IndexOutOfBoundsException if the index is out of range
+			 */
+	public String getKey(int index) {
+		if( index < 0 || index >= _numEntries) {
+			throw new IndexOutOfBoundsException("Incorrect lookup entry index " + index);
+		}
+
+		final int start = _keysIndex + _buffer.getInt(_offsetsIndex + (index << 2));
+		byte[] key = new byte[_keysIndex + _buffer.getInt(_offsetsIndex + ((index+1) << 2)) - start];
+		for( int k = 0; k < key.length; k++) {
+			key[k] = _buffer.get(start + k);
+		}
+
+		try {
+			return new String(key, ENCODING);
+		}
+		catch( UnsupportedEncodingException e) {
+			throw new IllegalStateException(e.toString());
+		}
+	}
+
+
+			/**
+			 * <p>Retrieve a new lookup record for an entry of the lookup table.</p>
+			 * @param index index of the entry in the table
+			 * @return lookup record of the entry
+			 * @throws IndexOutOfBoundsException if the index is out of range
+			 */
+	public CLookupRecord get(int index) {
+		if( index < 0 || index >= _numEntries) {
+			throw new IndexOutOfBoundsException("Incorrect lookup entry index " + index);
+		}
+		return new CLookupRecord((char)_buffer.get(_typesIndex + index),
+								 _buffer.getFloat(_idfsIndex + (index << 2)));
+	}
+
+
+
+						// ---------------------------
+						//  Supporting Private Methods
+						// ---------------------------
+
+	private int indexOf(final String label) {
+		int index = -1;
+
+		if( label != null) {
+			byte[] key = null;
+			try {
+				key = label.getBytes(ENCODING);
+			}
+			catch( UnsupportedEncodingException e) {
+				throw new IllegalStateException(e.toString());
+			}
+
+			int low = 0,
+				high = _numEntries -1,
+				mid = 0,
+				diff = 0;
+
+			while( index == -1 && low <= high) {
+				mid = (low + high) >>> 1;
+				diff = compare(mid, key);
+
+				if( diff < 0) {
+					low = mid + 1;
+				}
+				else if( diff > 0) {
+					high = mid - 1;
+				}
+				else {
+					index = mid;
+				}
+			}
+		}
+
+		return index;
+	}
+
+
+	private int compare(int index, final byte[] key) {
+		final int start = _keysIndex + _buffer.getInt(_offsetsIndex + (index << 2));
+		final int length = _keysIndex + _buffer.getInt(_offsetsIndex + ((index+1) << 2)) - start;
+		final int minLength = (length < key.length) ? length : key.length;
+
+		int diff = 0;
+		for( int k = 0; diff == 0 && k < minLength; k++) {
+			diff = (_buffer.get(start + k) & 0xFF) - (key[k] & 0xFF);
+		}
+
+		return (diff != 0) ? diff : length - key.length;
+	}
+}
+
+// ------------------------  EOF -------------------------------------------------
@@ -3,6 +3,7 @@ package com.c24x7.semantics.lookup;
 import java.io.IOException;
 
 import com.c24x7.exception.InitException;
+import com.c24x7.models.CModelRegistry;
 import com.c24x7.textanalyzer.ngrams.CTaggedWord;
 import com.c24x7.util.string.CStringUtil;
 
@@ -12,33 +13,33 @@ public final class CTaggedWordLookup extends CLookup {
 
 	private static final long serialVersionUID = -2130167092059932161L;
 
-	protected static CTaggedWordLookup instance = null;
-
 	
 		/**
 		 * <p>Initialize the lookup table in memory by loading
-		 * the data from file.</p>
-		 * @return true if the lookup table is properly loaded, false otherwise.
+		 * the data from file. The lookup table is registered so
+		 * it can be reloaded through the models registry.</p>
+		 * @throws InitException if the lookup table is not properly loaded.
 		 */
 	public static void init(final String lookupType) throws InitException {
-		if( instance == null) {
-			instance = new CTaggedWordLookup();
-			try {
-				instance.load(lookupType);
-			}
-			catch( IOException e) {
-				throw new InitException(e.toString());
-			}
+		if( getInstance() == null) {
+			NLookupLoader loader = new NLookupLoader(lookupType) {
+				@Override
+				protected CLookup create() {
+					return new CTaggedWordLookup();
+				}
+			};
+			CModelRegistry.register(CModelRegistry.TAGGED_WORD_LOOKUP, loader);
+			CModelRegistry.publish(CModelRegistry.TAGGED_WORD_LOOKUP, loader.load());
 		}
 	}
 	
 	
 		/**
-		 * <p>Retrieve the singleton lookup object.</p>
-		 * @return unique, single instance of the Lookup class
+		 * <p>Retrieve the lookup table of the version of models used by the current request.</p>
+		 * @return lookup table, null if the lookup table is not initialized
 		 */
 	public static CTaggedWordLookup getInstance() {
-		return instance;
+		return (CTaggedWordLookup)CModelRegistry.get(CModelRegistry.TAGGED_WORD_LOOKUP);
 	}
 
 	
@@ -80,10 +81,28 @@ public final class CTaggedWordLookup extends CLookup {
 
 
 
+		/**
+		 * <p>Retrieve the token trie of the multi-terms labels of this lookup table.</p>
+		 * @return trie compiled when the lookup table is loaded, null if the table is not loaded
+		 */
+	public final CLookupTrie getTrie() {
+		return _trie;
+	}
+
+
+
+	private CLookupTrie _trie = null;
 	
 	private CTaggedWordLookup() { 
 		super();
 	}
+	
+	
+	@Override
+	protected void load(final String lookupType) throws IOException {
+		super.load(lookupType);
+		_trie = CLookupTrie.compile(this);
+	}
 }
 
 // ------------------------------------  EOF --------------------------------------------------
\ No newline at end of file
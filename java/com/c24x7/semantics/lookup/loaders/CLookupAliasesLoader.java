@@ -22,10 +22,9 @@ import com.c24x7.util.string.CStringUtil;
 		 */
 					
 public final class CLookupAliasesLoader implements ILookupLoader {
-	private final static String SELECT_DBPEDIA_ALIAS_LABEL 	= "SELECT label,resourceid,idf FROM 24x7c.dbpedia_aliases WHERE id=?";
-	private final static String SELECT_DBPEDIA_ONTOLOGY 	= "SELECT taxonomy,sub_taxonomy,wnet FROM 24x7c.dbpedia WHERE id=?";
+	private final static String SELECT_DBPEDIA_ALIAS_LABELS = 
+		"SELECT a.label,a.idf,d.taxonomy,d.sub_taxonomy,d.wnet FROM 24x7c.dbpedia_aliases a INNER JOIN 24x7c.dbpedia d ON d.id=a.resourceid WHERE a.id BETWEEN ? AND ? AND a.resourceid > 0 ORDER BY a.id;";
 	
-	private CSqlPreparedStmt 	_pOntoStmt 			= null;
 	private CSqlPreparedStmt 	_pStmt 				= null;
 	private NLookupRecordsMap	_lookupRecordsMap 	= null;
 	private boolean				_wordnetTaxonomyOnly = true;
@@ -42,40 +41,64 @@ public final class CLookupAliasesLoader implements ILookupLoader {
 			throw new IllegalArgumentException("Cannot load Wikipedia aliases into a look up table");
 		}
 		
-		_pStmt = new CSqlPreparedStmt(SELECT_DBPEDIA_ALIAS_LABEL);
-		_pOntoStmt = new CSqlPreparedStmt(SELECT_DBPEDIA_ONTOLOGY);
+		_pStmt = new CSqlPreparedStmt();
+		_pStmt.setStreamingStmt(SELECT_DBPEDIA_ALIAS_LABELS);
 		_lookupRecordsMap = lookupRecordsMap;
 		_wordnetTaxonomyOnly = wordnetTaxonomyOnly;
 	}
 	
 		
 	/**
-	 * <p>Extract the lookup data (entry type, idf value) from the table of Wikipedia aliases.</p>
+	 * <p>Extract the lookup data (entry type, idf value) from a range of rows of
+	 * the table of Wikipedia aliases. The taxonomy of the entry an alias refers to
+	 * is retrieved by the same query.</p>
 	 * 
-	 * @param id  row id in the database table
-	 * @return true if extraction succeeds, false otherwise
+	 * @param startId id of the first row of the range
+	 * @param endId id of the last row (inclusive) of the range
+	 * @return number of lookup records extracted from the range
 	 * @throws SQLException if the query to the database failed.
 	 */
 	@Override
-	public boolean extract(long id) throws SQLException {
-		boolean succeed = false;
+	public long extract(int startId, int endId) throws SQLException {
+		long numRecords = 0L;
 		
-		_pStmt.set(1, id);
+		_pStmt.set(1, startId);
+		_pStmt.set(2, endId);
 		ResultSet rs = _pStmt.query();
 		
-		String keyword = null;
-		long resourceid = -1L;
-		double idf = UNKNOWN_NGRAM_IDF;
-		
-		if( rs.next() ) {
-			keyword = rs.getString("label");
-			resourceid = rs.getInt("resourceid");
-			idf = rs.getDouble("idf");
+		try {
+			while( rs.next() ) {
+				if( extract(rs) ) {
+					numRecords++;
+				}
+			}
+		}
+		finally {
+			rs.close();
 		}
+		return numRecords;
+	}
+
+	/**
+	 * <p>Close all database connections used in the extraction
+	 * of lookup data and inverse document frequency.</p>
+	 */
+	@Override
+	public void close() {
+		_pStmt.close();
+	}
+	
+				// ----------------------------
+				//  Private Supporting Methods
+				// -----------------------------
+	
+	private boolean extract(ResultSet rs) throws SQLException {
+		boolean succeed = false;
+		String keyword = rs.getString(1);
 		
-		if( keyword != null && resourceid > 0) {
+		if( keyword != null) {
 			keyword = CStringUtil.decodeLatin1(keyword);
-			if( keyword.length() > 2) {
+			if( keyword != null && keyword.length() > 2) {
 				keyword = keyword.trim();
 				String[] numberTerms = keyword.split(" ");
 				
@@ -84,11 +107,11 @@ public final class CLookupAliasesLoader implements ILookupLoader {
 				 * has a taxonomy or a sub_taxonomy defined ...
 				 */
 				if( numberTerms.length <= ILookupLoader.MAX_NUM_TERMS_PER_ENTRY && 
-				   hasTaxonomyFromId(resourceid)) {
+				    hasTaxonomy(rs.getString(3), rs.getString(4), rs.getInt(5))) {
 		
 					char type = Character.isUpperCase(keyword.charAt(0)) ? CLookup.DPBEDIA_ENTRY_ALIAS_UPPER_CASE : CLookup.DPBEDIA_ENTRY_ALIAS;
 
-					CLookupRecord lookupRecord = new CLookupRecord(type, (float)idf);		
+					CLookupRecord lookupRecord = new CLookupRecord(type, rs.getFloat(2));		
 					_lookupRecordsMap.put( keyword, lookupRecord);
 					succeed = true;
 				}
@@ -96,34 +119,8 @@ public final class CLookupAliasesLoader implements ILookupLoader {
 		}
 		return succeed;
 	}
-
-	/**
-	 * <p>Close all database connections used in the extraction
-	 * of lookup data and inverse document frequency.</p>
-	 */
-	@Override
-	public void close() {
-		_pStmt.close();
-		_pOntoStmt.close();
-	}
 	
-				// ----------------------------
-				//  Private Supporting Methods
-				// -----------------------------
-	
-	private boolean hasTaxonomyFromId(long id) throws SQLException {
-		_pOntoStmt.set(1, id);
-		String taxonomy = null,
-		       sub_taxonomy = null;
-		int wordnetTaxonomyOnlyFlag = -1;
-		
-		ResultSet rs = _pOntoStmt.query();						
-		if( rs.next() ) {
-			taxonomy = rs.getString("taxonomy");
-			sub_taxonomy = rs.getString("sub_taxonomy");
-			wordnetTaxonomyOnlyFlag = rs.getInt("wnet");
-		}
-		
+	private boolean hasTaxonomy(final String taxonomy, final String sub_taxonomy, int wordnetTaxonomyOnlyFlag) {
 		return (!_wordnetTaxonomyOnly || wordnetTaxonomyOnlyFlag ==1) && 
 			   ((taxonomy != null && taxonomy.length() > 2) || (sub_taxonomy != null && sub_taxonomy.length() > 2));
 	}
@@ -1,13 +1,13 @@
 // Copyright (C) 2010-2012 Patrick Nicolas
 package com.c24x7.semantics.lookup.loaders;
 
-import java.sql.ResultSet;
 import java.sql.SQLException;
 
+import com.c24x7.semantics.dbpedia.CDbpediaSql;
 import com.c24x7.semantics.lookup.CLookup;
 import com.c24x7.semantics.lookup.CLookupGenerator.NLookupRecordsMap;
 import com.c24x7.semantics.lookup.CLookupRecord;
-import com.c24x7.util.db.CSqlPreparedStmt;
+import com.c24x7.util.logs.CLogger;
 import com.c24x7.util.string.CStringUtil;
 
 
@@ -22,11 +22,12 @@ import com.c24x7.util.string.CStringUtil;
 		 */
 
 public class CLookupEntriesLoader implements ILookupLoader {
-	private final static String SELECT_DBPEDIA_LABEL = "SELECT label,idf,taxonomy,sub_taxonomy,wnet FROM 24x7c.dbpedia WHERE id=?";
+	private static final String[] LOOKUP_FIELDS 	= { "label", "idf", "taxonomy", "sub_taxonomy", "wnet" };
+	private static final String   WORDNET_FILTER 	= "wnet=1";
 
-	private CSqlPreparedStmt 	_pStmt 				= null;
 	private NLookupRecordsMap	_lookupRecordsMap 	= null;
 	private boolean				_wordNetOnly 		= true;
+	private long				_numRecords			= 0L;
 	
 	
 		/**
@@ -50,48 +51,60 @@ public class CLookupEntriesLoader implements ILookupLoader {
 			throw new IllegalArgumentException("Cannot load Wikipedia aliases into a look up table");
 		}
 		
-		_pStmt = new CSqlPreparedStmt(SELECT_DBPEDIA_LABEL);
 		_lookupRecordsMap = lookupRecordsMap;
 		_wordNetOnly = wordNetOnly;
 	} 
 	
 	/**
-	 * <p>Extract the lookup data (entry type, idf value) from 
-	 * the table of Wikipedia entries.</p>
+	 * <p>Extract the lookup data (entry type, idf value) from a range 
+	 * of rows of the table of Wikipedia entries. The entries without WordNet
+	 * definition are filtered by the query if required.</p>
 	 * 
-	 * @param id  row id in the database table
-	 * @return true if extraction succeeds, false otherwise
+	 * @param startId id of the first row of the range
+	 * @param endId id of the last row (inclusive) of the range
+	 * @return number of lookup records extracted from the range
 	 * @throws SQLException if the query to the database failed.
 	 */
 	@Override
-	public boolean extract(long id) throws SQLException {
-		boolean succeed = false;
-		
-		_pStmt.set(1, id);
-		ResultSet rs = _pStmt.query();
-		
-		String 	keyword 		= null,
-		   		taxonomy 	= null,
-		   		sub_taxonomy = null;
+	public long extract(int startId, int endId) throws SQLException {
+		_numRecords = 0L;
 		
-		double idf = UNKNOWN_NGRAM_IDF;
-		int wordnetFlag = -1;
+		CDbpediaSql.getInstance().scan(LOOKUP_FIELDS, _wordNetOnly ? WORDNET_FILTER : null, startId, endId, false, 
+			new CDbpediaSql.NRecordHandler() {
+				@Override
+				public void process(int id, final String[] record) {
+					if( extract(record[0], record[1], record[2], record[3]) ) {
+						_numRecords++;
+					}
+				}
+			});
 		
-		if( rs.next() ) {
-			keyword = rs.getString("label");
-			idf = rs.getDouble("idf");
-			taxonomy = rs.getString("taxonomy");
-			sub_taxonomy = rs.getString("sub_taxonomy");
-			wordnetFlag = rs.getInt("wnet");
-		}
+		return _numRecords;
+	}
+	
+	/**
+	 * <p>Close all database connections used in the extraction
+	 * of lookup data and inverse document frequency. The range
+	 * scans release their connection once completed.</p>
+	 */
+	@Override
+	public void close() { }
+	
+	
+				// ----------------------------
+				//  Private Supporting Methods
+				// -----------------------------
+	
+	private boolean extract(String keyword, final String idfStr, final String taxonomy, final String sub_taxonomy) {
+		boolean succeed = false;
 		
 			/*
 			 * If the entry is valid with at least a label..
 			 */
-		if( keyword != null && (!_wordNetOnly || wordnetFlag == 1)) {
+		if( keyword != null) {
 			keyword = CStringUtil.decodeLatin1(keyword);
 			
-			if( keyword.length() > 2) {
+			if( keyword != null && keyword.length() > 2) {
 				keyword = keyword.trim();
 				String[] numberTerms = keyword.split(" ");
 				
@@ -104,7 +117,7 @@ public class CLookupEntriesLoader implements ILookupLoader {
 					 (sub_taxonomy != null && sub_taxonomy.length() > 2)) ) {
 					
 					char type = Character.isUpperCase(keyword.charAt(0)) ? CLookup.DPBEDIA_ENTRY_UPPER_CASE : CLookup.DBPEDIA_ENTRY;
-					CLookupRecord lookupRecord = new CLookupRecord(type, (float)idf);
+					CLookupRecord lookupRecord = new CLookupRecord(type, parseIdf(idfStr));
 					_lookupRecordsMap.put(keyword, lookupRecord);
 					succeed = true;
 				}
@@ -114,13 +127,19 @@ public class CLookupEntriesLoader implements ILookupLoader {
 		return succeed;
 	}
 	
-	/**
-	 * <p>Close all database connections used in the extraction
-	 * of lookup data and inverse document frequency.</p>
-	 */
-	@Override
-	public void close() {
-		_pStmt.close();
+	
+	private static float parseIdf(final String idfStr) {
+		float idf = 0.0F;
+		
+		if( idfStr != null) {
+			try {
+				idf = Float.parseFloat(idfStr);
+			}
+			catch( NumberFormatException e) {
+				CLogger.error("Incorrect idf value " + idfStr + " " + e.toString());
+			}
+		}
+		return idf;
 	}
 }
 
@@ -19,13 +19,14 @@ public interface ILookupLoader {
 	
 	/**
 	 * <p>Extract the lookup data (entry type, idf value) from 
-	 * the database.</p>
+	 * a range of rows of the database, scanned with a single query.</p>
 	 * 
-	 * @param id  row id in the database table
-	 * @return true if extraction succeeds, false otherwise
+	 * @param startId id of the first row of the range
+	 * @param endId id of the last row (inclusive) of the range
+	 * @return number of lookup records extracted from the range
 	 * @throws SQLException if the query to the database failed.
 	 */
-	public boolean extract(long id) throws SQLException;
+	public long extract(int startId, int endId) throws SQLException;
 	
 	/**
 	 * <p>Close all database connections used in the extraction
@@ -2,16 +2,13 @@
 package com.c24x7.textanalyzer;
 
 
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 
 
 import com.c24x7.exception.InitException;
-import com.c24x7.models.CTaxonomyInstance;
 import com.c24x7.models.CTaxonomyInstancesMap;
 import com.c24x7.models.CText;
 import com.c24x7.models.ngrams.CNGramsModel;
@@ -74,40 +71,6 @@ public final class CTaggedNGramsExtractor {
 	
 	
 	
-		/**
-		 * <p>Comparator for Integer that excludes equal terms. Contrary to the
-		 * default comparator used in TreeSet and TreeMap this comparator
-		 * return 1 for greater or equals and -1 for less operators.</p>
-		 * 
-		 * @author Patrick Nicolas
-		 * @date 01/15/2012
-		 */
-	protected static class NCompositeComparator implements Comparator<String> {
-		
-		Map<String, CTaxonomyInstance> _map = null;
-		
-		protected NCompositeComparator(Map<String, CTaxonomyInstance> map) {
-			super();
-			_map = map;
-		}
-		
-		/**
-		 * <p>compare two Composite using their computed, normalized weights.
-		 * This method is called for the ranking of the key taxonomyInstance nouns 
-		 * in a document.</p>
-		 * @param key1 content of the taxonomyInstance noun to compare from
-		 * @param key2 content of the taxonomyInstance noun to compare to
-		 */
-		
-		@Override
-		public int compare(String key1, String key2) {
-			CTaxonomyInstance c1 = _map.get(key1);
-			CTaxonomyInstance c2 = _map.get(key2);
-			return (c1.getWeight() < c2.getWeight()) ? 1 : -1;
-		}
-	}
-	
-	
 	private AFilter 			_charValidationRule = null;
 	private CTaggedNGramsMap			_nGramsMap 			= null;
 	private boolean				_luhnWeight			= false;
@@ -448,22 +411,19 @@ public final class CTaggedNGramsExtractor {
 		 */
 	private boolean prioritizeComposites(CText document, CTaxonomyInstancesMap taxonomyInstanceMap) {
 		boolean success = false;
-				
-		@SuppressWarnings({ "unchecked", "rawtypes" })
-		TreeMap<String, CTaxonomyInstance> taxonomyInstanceTreeMap = new TreeMap(new CTaggedNGramsExtractor.NCompositeComparator(taxonomyInstanceMap));
 
-		CTaxonomyInstance thisComposite = null;
+			/*
+			 * The taxonomy instances are not ranked here: the document only
+			 * needs to know whether any valid instance has been extracted.
+			 */
 		for( String taxonomyInstanceLabel : taxonomyInstanceMap.keySet()) {
-			
-			thisComposite = taxonomyInstanceMap.get(taxonomyInstanceLabel);
-			if( thisComposite != null) {
-				taxonomyInstanceTreeMap.put(taxonomyInstanceLabel, thisComposite);
+			if( taxonomyInstanceMap.get(taxonomyInstanceLabel) != null) {
+				success = true;
+				break;
 			}
 		}
 
-		success = (taxonomyInstanceTreeMap != null && taxonomyInstanceTreeMap.size() > 0);
-		if( success ) {			
-	//		document.setObjectsMap(taxonomyInstanceTreeMap);
+		if( success ) {
 			document.setState(CText.E_STATES.NGRAMS);
 		}
 		
@@ -30,9 +30,21 @@ public final class CTagger {
 	private static final String TOKENIZER 			= CEnv.projectDir + "models/tokenizer/en-token.bin";
 	private static final String POSTAG_MAXENT 		= CEnv.projectDir + "models/postag/en-pos-maxent.bin";
 
-	private static TokenizerME 			tokenizer = null;
-	private static SentenceDetectorME 	sdetector = null;
-	private static POSTaggerME 			tagger = null;
+	private static TokenizerModel 		tokenizerModel = null;
+	private static SentenceModel 		sdetectorModel = null;
+	private static POSModel 			taggerModel = null;
+	
+		/**
+		 * <p>Decoders (sentence detector, tokenizer and tagger) of the
+		 * current thread. The OpenNLP decoders are not thread safe but cheap to
+		 * create from the immutable models shared by all the threads.</p>
+		 */
+	private static ThreadLocal<NDecoders> decoders = new ThreadLocal<NDecoders>() {
+		@Override
+		protected NDecoders initialValue() {
+			return new NDecoders();
+		}
+	};
 	
 	
 	public static void init() throws InitException {
@@ -42,6 +54,24 @@ public final class CTagger {
 	}
 	
 	
+			/**
+			 * <p>Set of OpenNLP decoders used by a single thread.</p>
+			 * @author Patrick Nicolas
+			 * @date 06/22/2012
+			 */
+	private static final class NDecoders {
+		private TokenizerME 		_tokenizer = null;
+		private SentenceDetectorME 	_sdetector = null;
+		private POSTaggerME 		_tagger = null;
+		
+		private NDecoders() {
+			_tokenizer = new TokenizerME(tokenizerModel);
+			_sdetector = new SentenceDetectorME(sdetectorModel);
+			_tagger = new POSTaggerME(taggerModel);
+		}
+	}
+	
+	
 			/**
 			 * <p>List of tokens extracted from a specific sentence.</p>
 			 * @author Patrick Nicolas
@@ -102,12 +132,7 @@ public final class CTagger {
 		if( input == null || input.length() < 8) {
 			throw new IllegalArgumentException("Cannot extract tokens from undefined input");
 		}
-		String[] sentences = null;
-		synchronized( sdetector) {
-			sentences = sdetector.sentDetect(input);
-		}
-		
-		return sentences;
+		return decoders.get()._sdetector.sentDetect(input);
 	}
 	
 			/**
@@ -122,11 +147,10 @@ public final class CTagger {
 		String[] tokens = null;
 		sentTokensList = new NSentenceTokens[sentences.length];
 		
+		final TokenizerME tokenizer = decoders.get()._tokenizer;
 		int sentCounter =0;
 		for( String sentence : sentences ) {
-			synchronized( tokenizer) {
-				tokens = tokenizer.tokenize(sentence);
-			}
+			tokens = tokenizer.tokenize(sentence);
 			sentTokensList[sentCounter] = new NSentenceTokens(tokens);
 			sentCounter++;
 		}
@@ -136,12 +160,7 @@ public final class CTagger {
 
 	
 	public String[] extractTags(final String[] tokens) {
-		String[] tags = null;
-		
-		synchronized( tagger) {
-			tags = tagger.tag(tokens);
-		}
-		return tags;
+		return decoders.get()._tagger.tag(tokens);
 	}
 	
 			/**
@@ -156,12 +175,7 @@ public final class CTagger {
 			throw new IllegalArgumentException("Cannot extract tags from undefined tokens");
 		}
 		
-		String[] tags = null;
-		String[] tokensStr = tokens.getTokens();
-		synchronized( tagger) {
-			tags = tagger.tag(tokensStr);
-		}
-		return tags;
+		return decoders.get()._tagger.tag(tokens.getTokens());
 	}
 
 	
@@ -174,8 +188,7 @@ public final class CTagger {
 	
 		try {
 			in = new FileInputStream(TOKENIZER);
-			TokenizerModel tokenModel = new TokenizerModel(in);
-			tokenizer = new TokenizerME(tokenModel);
+			tokenizerModel = new TokenizerModel(in);
 		}
 		catch (IOException e) {
 			CLogger.error("Cannot load token detector model " + e.toString());
@@ -190,7 +203,7 @@ public final class CTagger {
 			}
 		}
 		
-		return (tokenizer != null);
+		return (tokenizerModel != null);
 	}
 
 	
@@ -199,8 +212,7 @@ public final class CTagger {
 	
 		try {
 			in = new FileInputStream(SENT_DETECT);
-			SentenceModel sentdetectModel = new SentenceModel(in);
-			sdetector =  new SentenceDetectorME(sentdetectModel);
+			sdetectorModel = new SentenceModel(in);
 		}
 		catch (IOException e) {
 			CLogger.error("Cannot load sentence detector model " + e.toString());
@@ -216,7 +228,7 @@ public final class CTagger {
 			}
 		}
 		
-		return (sdetector != null);
+		return (sdetectorModel != null);
 	}
 	
 	
@@ -224,8 +236,7 @@ public final class CTagger {
 		InputStream in = null;
 		try {
 			in = new FileInputStream(POSTAG_MAXENT);
-			POSModel posModel = new POSModel(in);
-			tagger = new POSTaggerME(posModel);
+			taggerModel = new POSModel(in);
 			in.close();
 		}
 		catch( IOException e) {
@@ -241,7 +252,7 @@ public final class CTagger {
 				}
 			}
 		}
-		return (tagger != null);
+		return (taggerModel != null);
 	}
 }
 // -------------------------  EOF ------------------------------------
\ No newline at end of file
@@ -5,6 +5,7 @@ import java.util.List;
 import java.util.Map;
 
 import com.c24x7.semantics.lookup.CLookupRecord;
+import com.c24x7.semantics.lookup.CLookupTrie;
 import com.c24x7.semantics.lookup.CTaggedWordLookup;
 import com.c24x7.textanalyzer.tfidf.CTfVector;
 import com.c24x7.util.string.CStringUtil;
@@ -282,10 +283,30 @@ public class CTaggedNGram  {
 			if( _taggedWordsList != null) {
 				final int lastTaggedWordsIndex = _taggedWordsList.size()-1;
 				CTaggedWord[] subNGram = null;
+				
+				/*
+				 * Match all the sub N-Grams against the token trie of the lookup
+				 * table in a single backward walk, unless their labels have to be
+				 * checked against the exclusion list.
+				 */
+				CLookupRecord[] lookupRecords = null;
+				boolean[] stemmed = null;
+				CLookupTrie trie = CTaggedWordLookup.getInstance().getTrie();
+				if( exclusionList == null && trie != null) {
+					lookupRecords = new CLookupRecord[_taggedWords.length];
+					stemmed = new boolean[_taggedWords.length];
+					matchSubNGrams(trie, lookupRecords, stemmed);
+				}
 		
 				for( int k = lastTaggedWordsIndex; k >=0; k--) {
-					subNGram = _taggedWordsList.get(k);				
-					semanticRecord = getNGramSemanticRecord(subNGram, exclusionList);
+					subNGram = _taggedWordsList.get(k);
+					if( lookupRecords != null && subNGram.length > 1) {
+						final int start = _taggedWords.length - subNGram.length;
+						semanticRecord = getNGramSemanticRecord(subNGram, lookupRecords[start], stemmed[start]);
+					}
+					else {
+						semanticRecord = getNGramSemanticRecord(subNGram, exclusionList);
+					}
 					if( semanticRecord != null) {
 						if( semanticRecords == null) {
 							semanticRecords = new LinkedList<CSemanticNGram>();
@@ -449,7 +470,73 @@ public class CTaggedNGram  {
 		
 		return record;
 	}
-
 	
+	
+	
+	private CSemanticNGram getNGramSemanticRecord(	final CTaggedWord[] taggedWords, 
+													final CLookupRecord lookupRecord,
+													boolean 			stemmed)  {
+		CSemanticNGram record = null;
+		
+		if( lookupRecord != null) {
+			String[] labels = new String[2];
+			getLabels(taggedWords, labels);
+			
+			final int k = stemmed ? 1 : 0;
+			record = new CSemanticNGram(lookupRecord, labels[k]);
+			if( stemmed ) {
+				record.setOriginal(labels[0]);
+			}
+			record.is1Gram(false);
+			_label = labels[k];
+		}
+		
+		return record;
+	}
+	
+	
+		/**
+		 * <p>Match the sub N-Grams of this N-Gram, which all end with its last word, by
+		 * walking the token trie backward from the last word, then from its stem. The 
+		 * first word of a sub N-Gram which does not contain a proper noun is matched with
+		 * a first character in upper case. The labels are built for the matched sub N-Grams only.</p>
+		 * @param trie token trie of the lookup table
+		 * @param lookupRecords lookup records of the sub N-Grams indexed by their first word
+		 * @param stemmed flags set for the sub N-Grams matched with the stem of the last word
+		 */
+	private void matchSubNGrams(final CLookupTrie trie, CLookupRecord[] lookupRecords, boolean[] stemmed) {
+		final CTaggedWord lastTaggedWord = _taggedWords[_taggedWords.length-1];
+		
+		matchSubNGrams(trie, lastTaggedWord.getWord(), lookupRecords, null);
+		if( lastTaggedWord.getStem() != null) {
+			matchSubNGrams(trie, lastTaggedWord.getStem(), lookupRecords, stemmed);
+		}
+	}
+	
+	
+	private void matchSubNGrams(final CLookupTrie 	trie, 
+								final String 		lastTerm, 
+								CLookupRecord[] 	lookupRecords, 
+								boolean[] 			stemmed) {
+		
+		int node = trie.next(CLookupTrie.ROOT, lastTerm);
+		int rank = ANY;
+		String term = null;
+		
+		for( int k = _taggedWords.length-2; node != CLookupTrie.UNDEFINED && k >= 0; k--) {
+			if( rank < _taggedWords[k].getRank()) {
+				rank = _taggedWords[k].getRank();
+			}
+			term = _taggedWords[k].getWord();
+			
+			if( lookupRecords[k] == null) {
+				lookupRecords[k] = trie.get(trie.next(node, (rank == CONTAINS_NNP) ? term : CStringUtil.convertFirstCharToUpperCase(term)));
+				if( lookupRecords[k] != null && stemmed != null) {
+					stemmed[k] = true;
+				}
+			}
+			node = trie.next(node, term);
+		}
+	}
 }
 // ------------------------- EOF -------------------------------------
\ No newline at end of file
@@ -11,11 +11,15 @@ import com.c24x7.util.logs.CLogger;
 import com.c24x7.util.string.CStringUtil;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -27,7 +31,11 @@ import java.util.Map;
 		 * <p>Singleton class that encapsulates the generation of the relative 
 		 * frequency of term extracted from a Corpus also known as the inverse
 		 * document frequency. The results of the computation is stored in the
-		 * dbpedia database.</p>
+		 * dbpedia database.<br>
+		 * The bulk update streams the dbpedia entries and aliases by pages of 
+		 * identifiers, computes their IDF in memory and writes them back through
+		 * batched updates. The last identifier committed is recorded in a watermark
+		 * file so an interrupted update resumes where it stopped.</p>
 		 * 
 		 * @author Patrick Nicolas
 		 * @date 12/08/2011
@@ -43,6 +51,11 @@ public final class CIdfVector {
 	private final static String SELECT_ENTRY_RECORD 	= "SELECT label FROM 24x7c.dbpedia WHERE id=?;";
 	private final static String UPDATE_ENTRY_RECORD 	= "UPDATE 24x7c.dbpedia SET idf=? WHERE id=?;";
 	protected final static String UPDATE_ALIAS_RECORD 	= "UPDATE 24x7c.dbpedia_aliases SET idf=? WHERE id=?;";
+	private final static String SCAN_ALIAS_RECORDS 		= "SELECT id,label,resourceid FROM 24x7c.dbpedia_aliases WHERE id>? ORDER BY id LIMIT ?;";
+	private final static String SCAN_ENTRY_RECORDS 		= "SELECT id,label,idf FROM 24x7c.dbpedia WHERE id>? ORDER BY id LIMIT ?;";
+	private final static String WATERMARK_FILE 			= CEnv.outputDir + "idfvector.watermark";
+	public final static int		DEFAULT_PAGE_SIZE 		= 10000;
+	public final static int		DEFAULT_BATCH_SIZE 		= 1000;
 
 	
 	private final static String[] datasets = {
@@ -54,6 +67,130 @@ public final class CIdfVector {
 	private final static double IDF_DESCRIMINANT 	= 1.12;
 	private final static float  DEFAULT_IDF_VALUE 	= 0.90F;
 	private final static int 	MIN_FREQ_MOST_COMMON_TERMS = 10000;
+	private final static String DBPEDIA_PHASE 		= "dbpedia";
+	private final static String ALIASES_PHASE 		= "aliases";
+
+
+			/**
+			 * <p>Watermark of the bulk update which records the last identifier 
+			 * committed for the dbpedia entries and the dbpedia aliases.</p>
+			 */
+	private static final class NWatermark {
+		private String 	_fileName 	= null;
+		private int 	_dbpediaId 	= 0;
+		private int		_aliasesId 	= 1;
+		
+		private NWatermark(final String fileName) throws IOException {
+			_fileName = fileName;
+			
+			File file = new File(_fileName);
+			if( file.exists()) {
+				BufferedReader reader = new BufferedReader(new FileReader(file));
+				try {
+					String line = null;
+					while( (line = reader.readLine()) != null) {
+						String[] fields = line.trim().split(" ");
+						if( fields.length == 2) {
+							if( fields[0].equals(DBPEDIA_PHASE)) {
+								_dbpediaId = Integer.parseInt(fields[1]);
+							}
+							else if( fields[0].equals(ALIASES_PHASE)) {
+								_aliasesId = Integer.parseInt(fields[1]);
+							}
+						}
+					}
+					CLogger.info("Resume IDF update after dbpedia id " + _dbpediaId + " and aliases id " + _aliasesId);
+				}
+				catch( NumberFormatException e) {
+					CLogger.error("Incorrect watermark " + _fileName + " " + e.toString());
+					_dbpediaId = 0;
+					_aliasesId = 1;
+				}
+				finally {
+					reader.close();
+				}
+			}
+		}
+		
+		private void setDbpediaId(int dbpediaId) throws IOException {
+			_dbpediaId = dbpediaId;
+			write();
+		}
+		
+		private void setAliasesId(int aliasesId) throws IOException {
+			_aliasesId = aliasesId;
+			write();
+		}
+		
+		private void write() throws IOException {
+			FileWriter writer = new FileWriter(_fileName, false);
+			try {
+				writer.write(DBPEDIA_PHASE + " " + _dbpediaId + "\n");
+				writer.write(ALIASES_PHASE + " " + _aliasesId + "\n");
+			}
+			finally {
+				writer.close();
+			}
+		}
+		
+		private void delete() {
+			new File(_fileName).delete();
+		}
+	}
+	
+	
+			/**
+			 * <p>Scan of a table by pages of rows ordered by identifier. The queries
+			 * select the rows with an identifier greater than the last identifier of the
+			 * previous page, so the scan does not depend on the gaps in identifiers.</p>
+			 */
+	private static abstract class NKeysetScan {
+		private int _pageSize = DEFAULT_PAGE_SIZE;
+		
+		protected NKeysetScan(int pageSize) {
+			_pageSize = pageSize;
+		}
+		
+		protected abstract void process(int id, final ResultSet rs) throws SQLException;
+		
+		protected void endOfPage(int lastId) throws SQLException, IOException { }
+		
+		protected long scan(final String query, int fromId) throws SQLException, IOException {
+			CSqlPreparedStmt selectStmt = new CSqlPreparedStmt(query);
+			long count = 0L;
+			
+			try {
+				selectStmt.setFetchSize(_pageSize);
+				int lastId = fromId,
+				    numRows = _pageSize;
+				
+				while( numRows == _pageSize) {
+					selectStmt.set(1, lastId);
+					selectStmt.set(2, _pageSize);
+					ResultSet rs = selectStmt.query();
+					
+					numRows = 0;
+					try {
+						while( rs.next()) {
+							lastId = rs.getInt("id");
+							process(lastId, rs);
+							numRows++;
+						}
+					}
+					finally {
+						rs.close();
+					}
+					
+					count += numRows;
+					endOfPage(lastId);
+				}
+			}
+			finally {
+				selectStmt.close();
+			}
+			return count;
+		}
+	}
 
 
 		/**
@@ -167,6 +304,79 @@ public final class CIdfVector {
 	}
 	
 	
+	public static long writeDatabaseBulk() {
+		return writeDatabaseBulk(DEFAULT_PAGE_SIZE, DEFAULT_BATCH_SIZE, WATERMARK_FILE);
+	}
+	
+	
+		/**
+		 * <p>Generate the IDF value for each Dbpedia entry and alias in bulk. The entries
+		 * and aliases are streamed by pages of identifiers and their IDF values updated
+		 * through batches of updates. The IDF values are computed with the same rules as 
+		 * writeDatabase. The last identifier of each page committed is recorded in the
+		 * watermark file, which is deleted once the update completes.</p>
+		 * @param pageSize number of rows fetched by each query
+		 * @param batchSize number of updates executed in a single JDBC batch
+		 * @param watermarkFile name of the file which records the last identifiers committed
+		 * @return number of dbpedia entries and aliases updated, -1 if the update failed
+		 * @throws IllegalArgumentException if the size of the pages or batches is not positive or the watermark file is undefined
+		 */
+	public static long writeDatabaseBulk(int pageSize, int batchSize, final String watermarkFile) {
+		if( pageSize < 1 || batchSize < 1 || watermarkFile == null) {
+			throw new IllegalArgumentException("Cannot update IDF values with pages of " + pageSize + " rows and batches of " + batchSize);
+		}
+		
+		long count = -1L;
+		Map<String, String> errors = new HashMap<String, String>();
+		
+			/*
+			 * STEP 1: Load the corpus term frequency into a local map.
+			 */
+		CIntMap idfMap = loadIDFCorpus();
+		CLogger.info("Number of entries: " + idfMap.size());
+		
+		int maxId = CDbpediaSql.getInstance().getNumEntries();
+		if( maxId != -1) {
+			try {
+				NWatermark watermark = new NWatermark(watermarkFile);
+				
+					/*
+					 * STEP 2: Stream the aliases to map the resource id to their alias
+					 */
+				Map<Integer, String> aliasResourceMap = streamDbpediaAliases(pageSize);
+				
+					/*
+					 * STEP 3: Compute and update the IDF values of the dbpedia entries.
+					 * The IDF values of the entries are kept to update the aliases.
+					 */
+				float[] dbpediaIdf = new float[maxId+1];
+				Arrays.fill(dbpediaIdf, DEFAULT_IDF_VALUE);
+				count = updateDbpediaIdf(pageSize, batchSize, watermark, idfMap, aliasResourceMap, dbpediaIdf);
+				CLogger.info("Done with dbpedia");
+				
+					/*
+					 * STEP 4: Compute and update the IDF values of the aliases
+					 */
+				count += updateDbpediaAliasesIdf(pageSize, batchSize, watermark, idfMap, dbpediaIdf);
+				watermark.delete();
+			}
+			catch( SQLException e) {
+				errors.put("Dbpedia", "cannot update IDF values: " + e.toString());
+				CLogger.error("Bulk IDF update failed, restart to resume " + e.toString());
+				count = -1L;
+			}
+			catch( IOException e) {
+				errors.put("Dbpedia", "cannot record IDF watermark: " + e.toString());
+				CLogger.error("Bulk IDF update failed, restart to resume " + e.toString());
+				count = -1L;
+			}
+		}
+		save(errors);
+		
+		return count;
+	}
+	
+	
 
 		
 	
@@ -174,6 +384,130 @@ public final class CIdfVector {
 								// Private supporting methods
 								// ---------------------------
 
+	private static Map<Integer, String> streamDbpediaAliases(int pageSize) throws SQLException, IOException {
+		final Map<Integer, String> aliasResourceMap = new HashMap<Integer, String>();
+		
+		NKeysetScan scan = new NKeysetScan(pageSize) {
+			@Override
+			protected void process(int id, final ResultSet rs) throws SQLException {
+				String aliasLabel = rs.getString("label");
+				int resourceId = rs.getInt("resourceid");
+				if( aliasLabel != null && aliasLabel.length() > 2 && !rs.wasNull()) {
+					aliasResourceMap.put(Integer.valueOf(resourceId), aliasLabel);
+				}
+			}
+		};
+		scan.scan(SCAN_ALIAS_RECORDS, 1);
+		
+		return aliasResourceMap;
+	}
+	
+	
+	private static long updateDbpediaIdf(	int pageSize, 
+											int batchSize, 
+											final NWatermark watermark, 
+											final CIntMap idfMap, 
+											final Map<Integer, String> aliasResourceMap, 
+											final float[] dbpediaIdf) throws SQLException, IOException {
+		
+		final CSqlPreparedStmt updateStmt = new CSqlPreparedStmt(UPDATE_ENTRY_RECORD, batchSize);
+		final long[] counts = new long[2];
+		
+			/*
+			 * The entries already committed are scanned to
+			 * retrieve their IDF values for the aliases.
+			 */
+		final int fromId = watermark._dbpediaId;
+		NKeysetScan scan = new NKeysetScan(pageSize) {
+			@Override
+			protected void process(int id, final ResultSet rs) throws SQLException {
+				String keyword = rs.getString("label");
+				if( keyword != null && id < dbpediaIdf.length) {
+					if( id <= fromId) {
+						dbpediaIdf[id] = rs.getFloat("idf");
+					}
+					else {
+						float idf = computeDbpediaIdf(id, keyword, idfMap, aliasResourceMap);
+						updateStmt.set(1, idf);
+						updateStmt.set(2, id);
+						updateStmt.addBatch();
+						
+						dbpediaIdf[id] = idf;
+						counts[0]++;
+						if( idf == DEFAULT_IDF_VALUE) {
+							counts[1]++;
+						}
+					}
+				}
+			}
+			
+			@Override
+			protected void endOfPage(int lastId) throws SQLException, IOException {
+				if( lastId > fromId) {
+					updateStmt.flush();
+					watermark.setDbpediaId(lastId);
+					CLogger.info("Update dbpedia entries up to id=" + lastId + " count=" + counts[0] + " failures=" + counts[1]);
+				}
+			}
+		};
+		
+		try {
+			scan.scan(SCAN_ENTRY_RECORDS, 0);
+		}
+		finally {
+			updateStmt.close();
+		}
+		return counts[0];
+	}
+	
+	
+	private static long updateDbpediaAliasesIdf(int pageSize, 
+												int batchSize, 
+												final NWatermark watermark, 
+												final CIntMap idfMap, 
+												final float[] dbpediaIdf) throws SQLException, IOException {
+		
+		final CSqlPreparedStmt updateStmt = new CSqlPreparedStmt(UPDATE_ALIAS_RECORD, batchSize);
+		final long[] counts = new long[2];
+		
+		NKeysetScan scan = new NKeysetScan(pageSize) {
+			@Override
+			protected void process(int id, final ResultSet rs) throws SQLException {
+				String label = rs.getString("label");
+				int resourceId = rs.getInt("resourceid");
+				
+				if( label != null && label.length() > 2) {
+					float resourceIdf = (resourceId > 0 && resourceId < dbpediaIdf.length) ? dbpediaIdf[resourceId] : DEFAULT_IDF_VALUE;
+					float idf = computeDbpediaAliasIdf(label, resourceIdf, idfMap);
+					updateStmt.set(1, idf);
+					updateStmt.set(2, id);
+					updateStmt.addBatch();
+					
+					counts[0]++;
+					if( idf == DEFAULT_IDF_VALUE) {
+						counts[1]++;
+					}
+				}
+			}
+			
+			@Override
+			protected void endOfPage(int lastId) throws SQLException, IOException {
+				updateStmt.flush();
+				watermark.setAliasesId(lastId);
+				CLogger.info("Update dbpedia aliases up to id=" + lastId + " count=" + counts[0] + " failures=" + counts[1]);
+			}
+		};
+		
+		try {
+			scan.scan(SCAN_ALIAS_RECORDS, watermark._aliasesId);
+		}
+		finally {
+			updateStmt.close();
+		}
+		return counts[0];
+	}
+	
+	
 	private static CIntMap loadIDFCorpus() {
 		CIntMap idfMap = new CIntMap();
 			
@@ -248,10 +582,36 @@ public final class CIdfVector {
 			 * If the label has been retrieved.
 			 */
 		if( keyword != null) {
+			idf = computeDbpediaIdf(id, keyword, idfMap, aliasResourcedMap);
+			
+			/*
+			 * Update the IDF value for this label..
+			 */
+			updateStmt.set(1,idf);
+			updateStmt.set(2,id);
+			updateStmt.update();
+
+			dbpediaIdtoIdfMap.put(new Integer(id), new Float(idf));
+		}
+		
+		return (idf != DEFAULT_IDF_VALUE);
+	}
+	
+	
+		/**
+		 * <p>Compute the IDF value of a dbpedia entry from its encoded label.</p>
+		 */
+	private static float computeDbpediaIdf(	int id, 
+											String keyword, 
+											CIntMap idfMap, 
+											Map<Integer, String> aliasResourcedMap) {
+		float idf = DEFAULT_IDF_VALUE;
+		
 			/*
 			 * Decode and clean the label
 			 */
-			keyword = CStringUtil.decodeLatin1(keyword);
+		keyword = CStringUtil.decodeLatin1(keyword);
+		if( keyword != null) {
 			keyword = keyword.toLowerCase();
 			int freq = 0;
 			
@@ -316,18 +676,9 @@ public final class CIdfVector {
 			if ( freq != NO_IDF_MATCH) {
 				idf = computeIdf(freq);
 			}
-			
-			/*
-			 * Update the IDF value for this label..
-			 */
-			updateStmt.set(1,idf);
-			updateStmt.set(2,id);
-			updateStmt.update();
-
-			dbpediaIdtoIdfMap.put(new Integer(id), new Float(idf));
 		}
 		
-		return (idf != DEFAULT_IDF_VALUE);
+		return idf;
 	}
 	
 	
@@ -349,27 +700,14 @@ public final class CIdfVector {
 		}
 
 		if( label != null && label.length() > 2) {
-			label = label.toLowerCase();
-				/*
-				 * First attempt to match the label in the aliases table
-				 */
-			if( idfMap.containsKey(label)) {
-				int freq = idfMap.get(label);
-				idf = computeIdf(freq);
-			}
-			
-				/*
-				 * If the label does not have an entry in the IDF
-				 * corpus and the label is an alias of one Wikipedia entry
-				 * the compute the label IDF value as the idf value of the
-				 * wikipedia entry.
-				 */
-			else if( resourceid > 0) {
+			float resourceIdf = DEFAULT_IDF_VALUE;
+			if( resourceid > 0) {
 				Integer resIdObj = new Integer((int)resourceid);
 				if( dbpediaIdtoIdfMap.containsKey(resIdObj)) {
-					idf = dbpediaIdtoIdfMap.get(resIdObj).floatValue();
+					resourceIdf = dbpediaIdtoIdfMap.get(resIdObj).floatValue();
 				}
-			} 
+			}
+			idf = computeDbpediaAliasIdf(label, resourceIdf, idfMap);
 	
 				/*
 				 * Set the IDF value in the aliases table.
@@ -383,6 +721,24 @@ public final class CIdfVector {
 		return (idf != DEFAULT_IDF_VALUE);
 	}
 	
+	
+		/**
+		 * <p>Compute the IDF value of an alias from the corpus or, if the alias is
+		 * not found in the corpus, from the IDF value of the Wikipedia entry it refers to.</p>
+		 */
+	private static float computeDbpediaAliasIdf(String label, float resourceIdf, CIntMap idfMap) {
+		float idf = resourceIdf;
+		
+		label = label.toLowerCase();
+			/*
+			 * First attempt to match the label in the aliases table
+			 */
+		if( idfMap.containsKey(label)) {
+			int freq = idfMap.get(label);
+			idf = computeIdf(freq);
+		}
+		return idf;
+	}
 
 	
 	public static void extract(final String input, CIntMap map) {
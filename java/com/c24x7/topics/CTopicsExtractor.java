@@ -4,21 +4,19 @@
 package com.c24x7.topics;
 
 
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeMap;
 
-import com.c24x7.math.utils.CFreqArray;
 import com.c24x7.models.ATaxonomyNode;
 import com.c24x7.models.CTaxonomyObject;
 import com.c24x7.models.CText;
 import com.c24x7.topics.CTopicsMap;
 import com.c24x7.util.CEnv;
 import com.c24x7.util.collections.CGraph;
+import com.c24x7.util.collections.CIntBitmap;
 
 
 
@@ -44,10 +42,10 @@ public final class CTopicsExtractor {
 			 * @date June 1, 2012 9:10:30 PM
 			 */
 	protected class NTaxonomySentencesDistribution {
-		protected Map<ATaxonomyNode, CFreqArray> _nodesSentencesMap = null;
+		protected Map<ATaxonomyNode, CIntBitmap> _nodesSentencesMap = null;
 		
 		protected NTaxonomySentencesDistribution() {
-			_nodesSentencesMap = new HashMap<ATaxonomyNode, CFreqArray>();
+			_nodesSentencesMap = new HashMap<ATaxonomyNode, CIntBitmap>();
 		}
 			/**
 			 * <p>Add a new taxonomy node and its associated array of sentences
@@ -55,12 +53,12 @@ public final class CTopicsExtractor {
 			 * @param node taxonomy node added to the table
 			 * @param sentenceIndices array of sentences indices
 			 */
-		protected void add(final ATaxonomyNode node, final CFreqArray newSentencesIndices) {
+		protected void add(final ATaxonomyNode node, final CIntBitmap newSentencesIndices) {
 				/*
 				 * If the taxonomy node is already defined in the table, 
 				 * update the list of sentences indices
 				 */
-			CFreqArray sentencesIndices = null;
+			CIntBitmap sentencesIndices = null;
 			if(_nodesSentencesMap.containsKey(node)) {
 				sentencesIndices = _nodesSentencesMap.get(node);
 				sentencesIndices.add(newSentencesIndices);
@@ -75,7 +73,7 @@ public final class CTopicsExtractor {
 		}
 		
 		
-		protected final CFreqArray getSentencesIndices(final ATaxonomyNode node) {
+		protected final CIntBitmap getSentencesIndices(final ATaxonomyNode node) {
 			return _nodesSentencesMap.get(node);
 		}
 		
@@ -251,7 +249,7 @@ public final class CTopicsExtractor {
 		_maxFeaturesValues = new NFeaturesSet();
 		Map<String, CTaxonomyObject> objectsMap = document.getObjectsMap();		
 		
-		CFreqArray sentencesIndices = null;
+		CIntBitmap sentencesIndices = null;
 		List<ATaxonomyNode[]> taxonomyNodesList = null;
 		
 		NFeaturesSet feature = null;
@@ -312,28 +310,6 @@ public final class CTopicsExtractor {
 
 
 
-	private class NClassComparator implements Comparator<String> {
-		Map<String, ATaxonomyNode> _map = null;
-		
-		public NClassComparator(Map<String, ATaxonomyNode> map) {
-			_map = map;
-		}
-	
-		/**
-		 * <p>compare two Composite using their computed, normalized weights.
-		 * This method is called for the ranking of the key taxonomyInstance nouns 
-		 * in a document.</p>
-		 * @param key1 content of the taxonomyInstance noun to compare from
-		 * @param key2 content of the taxonomyInstance noun to compare to
-		 */
-		@Override
-		public int compare(String label1, String label2) {
-			return (_map.get(label1).getWeight() < _map.get(label2).getWeight() ? 1 : -1);
-		}
-	}
-
-
-	
 	private void createTopicsMap(final CText document, CTopicsMap topicsMap) {
 		
 		/*
@@ -365,23 +341,16 @@ public final class CTopicsExtractor {
 			}
 		}
 		
-		@SuppressWarnings({ "unchecked", "rawtypes" })
-		TreeMap<String, ATaxonomyNode> taxonomyClassesTreeMap = new TreeMap(new NClassComparator(topClassesMap));
-		for(ATaxonomyNode topClass : topClassesMap.values()) {
-			taxonomyClassesTreeMap.put(topClass.getLabel(), topClass);
-		}
-		
-		
 		/*
 		 * Extract the most relevant top classes, which weight are greater 
-		 * than a minimum threshold.
+		 * than a minimum threshold. The classes do not need to be ranked
+		 * as all the classes above the threshold are selected.
 		 */
 		Map<String, ATaxonomyNode> mostRelevantTopClassesMap = new HashMap<String, ATaxonomyNode>();
-		for( String topClassLabel : taxonomyClassesTreeMap.keySet()) {
-			if(topClassesMap.get(topClassLabel).getWeight() < MIN_TOP_CLASS_WEIGHT) {
-				break;
+		for( ATaxonomyNode topClass : topClassesMap.values()) {
+			if(topClass.getWeight() >= MIN_TOP_CLASS_WEIGHT) {
+				mostRelevantTopClassesMap.put(topClass.getLabel(), topClass);
 			}
-			mostRelevantTopClassesMap.put(topClassLabel, topClassesMap.get(topClassLabel));
 		}
 		
 
@@ -18,9 +18,9 @@ import java.util.TreeSet;
 
 import com.c24x7.models.ATaxonomyNode;
 import com.c24x7.models.CTaxonomyObject;
-import com.c24x7.math.utils.CFreqArray;
 import com.c24x7.topics.CTopicsExtractor.NTaxonomySentencesDistribution;
 import com.c24x7.util.collections.CGraph;
+import com.c24x7.util.collections.CIntBitmap;
 
 
 
@@ -49,7 +49,7 @@ public final class CTopicsMap {
 	}
 
 	private TreeMap<Float, TreeSet<ATaxonomyNode[]>> _taxonomyPathsMap 	= null;
-	private Map<ATaxonomyNode, CFreqArray> 		_nodesSentencesMap 	= null;
+	private Map<ATaxonomyNode, CIntBitmap> 		_nodesSentencesMap 	= null;
 	private List<CGraph>						_graphsList 		= null;
 	private List<String[]>						_sentencesGroupList	= null;
 	
@@ -79,7 +79,7 @@ public final class CTopicsMap {
 							final ATaxonomyNode[] 	taxonomyClasses,
 							NTaxonomySentencesDistribution taxonomyDistribution) {
 		
-		CFreqArray sentencesIndices = taxonomyObject.getSentencesIndices();
+		CIntBitmap sentencesIndices = taxonomyObject.getSentencesIndices();
 		for(int j = 0; j < taxonomyClasses.length; j++) {
 			taxonomyDistribution.add(taxonomyClasses[j], sentencesIndices);
 		}
@@ -88,7 +88,7 @@ public final class CTopicsMap {
 	public void addObject( final CTaxonomyObject taxonomyObject, 
 						  NTaxonomySentencesDistribution taxonomyDistribution) {
 		
-		CFreqArray sentencesIndices = taxonomyObject.getSentencesIndices();
+		CIntBitmap sentencesIndices = taxonomyObject.getSentencesIndices();
 		taxonomyDistribution.add(taxonomyObject, sentencesIndices);
 	}
 	
@@ -114,12 +114,12 @@ public final class CTopicsMap {
 		for( CTaxonomyObject taxonomyObject : objectsMap.values()) {
 			addObject(taxonomyObject, mostRelevantTopClassesMap);
 		}
-		_nodesSentencesMap = new HashMap<ATaxonomyNode, CFreqArray>();
+		_nodesSentencesMap = new HashMap<ATaxonomyNode, CIntBitmap>();
 		
 			/*
 			 * Walk through the map of taxonomy path.
 			 */
-		CFreqArray sentencesIndices = null;
+		CIntBitmap sentencesIndices = null;
 		for( SortedSet<ATaxonomyNode[]> nodesList : _taxonomyPathsMap.values() )  {
 			
 			for( ATaxonomyNode[] nodes : nodesList) {
@@ -140,7 +140,7 @@ public final class CTopicsMap {
 	 * @return array of indices of sentences associated with a specific taxonomy node
 	 * @throws IllegalArgumentException exception if the taxonomy node is undefined (null).
 	 */
-	public CFreqArray getSentencesIndices(final ATaxonomyNode node) {
+	public CIntBitmap getSentencesIndices(final ATaxonomyNode node) {
 		if( node == null ) {
 			throw new IllegalArgumentException("Cannot access sentences indices from undefined node");
 		}
@@ -155,7 +155,7 @@ public final class CTopicsMap {
 		 * @throws IllegalArgumentException  if the taxonomy node is undefined
 		 * @throws NullPointerException if the node does not have sentences indices associated to it.
 		 */
-	public CFreqArray updateSentenceIndices(final ATaxonomyNode node) {
+	public CIntBitmap updateSentenceIndices(final ATaxonomyNode node) {
 		if( node == null ) {
 			throw new IllegalArgumentException("Cannot access sentences indices from undefined node");
 		}
@@ -163,16 +163,12 @@ public final class CTopicsMap {
 			throw new NullPointerException("node " + node.getLabel() + " does not have associated sentences");
 		}
 		
-		CFreqArray freqArray = null;
-		int textIndex = node.getTextIndex();
-		if( _nodesSentencesMap.containsKey( node)) {
-			freqArray = _nodesSentencesMap.get(node);
-			if( freqArray != null) {
-				freqArray.shiftValueBy(textIndex);
-			}
+		CIntBitmap sentencesIndices = _nodesSentencesMap.get(node);
+		if( sentencesIndices != null) {
+			sentencesIndices.shift(node.getTextIndex());
 		}
 		
-		return freqArray;
+		return sentencesIndices;
 	}
 	
 
@@ -223,6 +219,42 @@ public final class CTopicsMap {
 	public void setGraphsList(List<CGraph> graphsList) {
 		_graphsList = graphsList;
 	}
+
+
+		/**
+		 * <p>Merge the topics map of another document into this topics map. The
+		 * taxonomy paths, the sentences indices of the taxonomy nodes, the graphs and
+		 * the groups of sentences of the other document are appended to this map.</p>
+		 * @param topicsMap topics map of another document
+		 * @throws IllegalArgumentException if the topics map is undefined
+		 */
+	public void merge(final CTopicsMap topicsMap) {
+		if( topicsMap == null ) {
+			throw new IllegalArgumentException("Cannot merge undefined topics map");
+		}
+
+		for( Map.Entry<Float, TreeSet<ATaxonomyNode[]>> entry : topicsMap._taxonomyPathsMap.entrySet()) {
+			for( ATaxonomyNode[] taxonomyPath : entry.getValue()) {
+				put(entry.getKey().floatValue(), taxonomyPath);
+			}
+		}
+
+		if( topicsMap._nodesSentencesMap != null) {
+			if( _nodesSentencesMap == null) {
+				_nodesSentencesMap = new HashMap<ATaxonomyNode, CIntBitmap>();
+			}
+			_nodesSentencesMap.putAll(topicsMap._nodesSentencesMap);
+		}
+
+		if( topicsMap._graphsList != null) {
+			if( _graphsList == null) {
+				_graphsList = new ArrayList<CGraph>();
+			}
+			_graphsList.addAll(topicsMap._graphsList);
+		}
+
+		_sentencesGroupList.addAll(topicsMap._sentencesGroupList);
+	}
 		
 	/**
 	 * <p>Display the content of non-transient hash tables containing
@@ -267,7 +299,7 @@ public final class CTopicsMap {
 		if( _nodesSentencesMap != null ) {
 			buf.append("\n\n");
 			
-			CFreqArray sentencesIndices = null;
+			CIntBitmap sentencesIndices = null;
 			for( ATaxonomyNode node : _nodesSentencesMap.keySet()) {
 				buf.append(node.getLabel());
 				buf.append(":");
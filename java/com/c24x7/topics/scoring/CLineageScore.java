@@ -4,17 +4,17 @@
 package com.c24x7.topics.scoring;
 
 import java.util.Collection;
-import java.util.Comparator;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 
 import com.c24x7.models.ATaxonomyNode;
 import com.c24x7.models.CTaxonomyObject;
 import com.c24x7.models.CText;
 import com.c24x7.models.taxonomy.CTaxonomyModel;
+import com.c24x7.util.collections.CObjectDoubleMap;
+import com.c24x7.util.collections.CTopKSelector;
 
 
 
@@ -76,38 +76,6 @@ public class CLineageScore {
 	}
 	
 	
-	/**
-	 * <p>Class that implement the comparator for the taxonomy lineages. 
-	 * The comparator is used to ordered the list of Taxonomy lineages
-	 * (classes & instances) extracted from a document by comparing 
-	 * the total weight for all the classes composing the lineage.</p>
-	 * 
-	 * @author Patrick Nicolas
-	 * @date 05/23/2012
-	 */
-
-	protected static class NLineageComparator implements Comparator<NRelevantLineage> {
-		private Map<NRelevantLineage, Float> _map = null;
-		
-		private NLineageComparator(Map<NRelevantLineage, Float> map) {
-			super();
-			_map = map;
-		}
-
-		/**
-		 * <p>Compare to taxonomy lineages defined by their labels or keys
-		 * by their relative weights.</p>
-		 * @param key1  Key of the first taxonomy node to be ordered
-		 * @param key2  Key of the second taxonomy node 
-		 * @return 1 if first taxonomy node has a lower weight -1 otherwise.
-		 */
-		@Override
-		public int compare(NRelevantLineage key1, NRelevantLineage key2) {
-			return _map.get(key1) <  _map.get(key2) ? 1 : -1;
-		}
-	}
-
-	
 	private int 	_numTopLineages = DEFAULT_NUM_TOP_LINEAGE;
 	private IScore 	_scoreMethod 	= null;
 	
@@ -137,7 +105,12 @@ public class CLineageScore {
 			throw new IllegalArgumentException("Cannot extract top lineages from undefined document");
 		}
 		
-		Map<NRelevantLineage, Float> lineagesMap = new HashMap<NRelevantLineage, Float>();
+		/*
+		 * Keep the highest weight of each distinct lineage, 
+		 * the first one found for identical weights.
+		 */
+		Map<String, NRelevantLineage> lineagesMap = new LinkedHashMap<String, NRelevantLineage>();
+		CObjectDoubleMap<String> lineagesWeights = new CObjectDoubleMap<String>();
 		
 		CNodeScore nodeScore = new CNodeScore(); 
 		Map<String, Object> bestClassesMap = nodeScore.getRelevantClassesMap(document);
@@ -165,8 +138,13 @@ public class CLineageScore {
 					 * node labels.
 					 */
 					if( weight > 0.0F) {
-						weight = _scoreMethod.score(weight, instance);
-						lineagesMap.put(new NRelevantLineage(nodes, instance), new Float(weight/nodes.length));
+						weight = _scoreMethod.score(weight, instance)/nodes.length;
+						
+						final String lineageStr = CTaxonomyModel.convertClassesToLineage(nodes);
+						if( !lineagesMap.containsKey(lineageStr) || weight > lineagesWeights.get(lineageStr, 0.0)) {
+							lineagesMap.put(lineageStr, new NRelevantLineage(nodes, instance));
+							lineagesWeights.put(lineageStr, weight);
+						}
 					}
 				}
 			}
@@ -175,29 +153,11 @@ public class CLineageScore {
 		/*
 		 * Rank the best taxonomy lineages..
 		 */
-		@SuppressWarnings({ "unchecked", "rawtypes" })
-		TreeMap<NRelevantLineage, Float> lineagesTreeMap = new TreeMap(new NLineageComparator(lineagesMap));
-		for(NRelevantLineage key : lineagesMap.keySet()) {
-			lineagesTreeMap.put(key, lineagesMap.get(key));
-		}
-				
-		
-		List<NRelevantLineage> bestLineages = new LinkedList<NRelevantLineage>();
-		Map<String, String> lineagesDuplicates = new HashMap<String, String>();
-		int k = 0;
-		for(NRelevantLineage relevantLineage : lineagesTreeMap.keySet()) {
-			if( k >= _numTopLineages) {
-				break;
-			}
-			final String bestLineageStr = CTaxonomyModel.convertClassesToLineage(relevantLineage.getNodes());
-			
-			if( !lineagesDuplicates.containsKey(bestLineageStr)) {
-				lineagesDuplicates.put(bestLineageStr, null);
-				bestLineages.add(relevantLineage);
-				k++;
-			}
-		
+		CTopKSelector<NRelevantLineage> selector = new CTopKSelector<NRelevantLineage>(_numTopLineages);
+		for( Map.Entry<String, NRelevantLineage> entry : lineagesMap.entrySet()) {
+			selector.add(entry.getValue(), lineagesWeights.get(entry.getKey(), 0.0));
 		}
+		List<NRelevantLineage> bestLineages = new LinkedList<NRelevantLineage>(selector.toList());
 			
 		return bestLineages;
 	}
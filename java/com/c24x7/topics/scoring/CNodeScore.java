@@ -4,13 +4,14 @@
 package com.c24x7.topics.scoring;
 
 
-import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 
 import com.c24x7.models.ATaxonomyNode;
 import com.c24x7.models.CText;
+import com.c24x7.models.CTextClasses;
+import com.c24x7.util.collections.CTopKSelector;
 
 
 
@@ -108,36 +109,6 @@ public final class CNodeScore {
 	}
 	*/
 
-		/**
-		 * <p>Class that implement the comparator for the taxonomy nodes. 
-		 * The comparator is used to ordered the list of Taxonomy nodes
-		 * (classes and instances) extracted from 
-		 * a document by comparing their relative weights.</p>
-		 * 
-		 * @author Patrick Nicolas
-		 * @date 05/23/2012
-		 */
-	protected static class NTaxonomyNodeComparator implements Comparator<String> {
-		private Map<String, ATaxonomyNode> _map = null;
-		
-		private NTaxonomyNodeComparator(Map<String, ATaxonomyNode> map) {
-			super();
-			_map = map;
-		}
-		
-		/**
-		 * <p>Compare to taxonomy nodes defined by their labels or keys
-		 * by their relative weights.</p>
-		 * @param key1  Key of the first taxonomy node to be ordered
-		 * @param key2  Key of the second taxonomy node 
-		 * @return 1 if first taxonomy node has a lower weight -1 otherwise.
-		 */
-		@Override
-		public int compare(String key1, String key2) {
-			return _map.get(key1).getWeight() < _map.get(key2).getWeight() ? 1 : -1;
-		}
-	}
-	
 	private int _numTopNodes = DEFAULT_NUM_TOP_NODES;
 
 	public CNodeScore() {
@@ -152,26 +123,12 @@ public final class CNodeScore {
 	protected final Map<String, Object> getRelevantClassesMap(final CText document) {
 		Map<String, Object> topClassesMap = new HashMap<String, Object>();
 		
-		/*
-		 * Order the taxonomy classes by their relative weight.
-		 */
-		Map<String, ATaxonomyNode> nodesMap = document.getClassesMap();
-		@SuppressWarnings({ "unchecked", "rawtypes" })
-		TreeMap<String, ATaxonomyNode> lineagesTreeMap = new TreeMap(new NTaxonomyNodeComparator(nodesMap));
-	
-		for( ATaxonomyNode node : nodesMap.values()) {
-			lineagesTreeMap.put(node.getLabel(), node);
-		}
-		
 			/*
-			 * Extract only a subset of classes with the highest weights
+			 * Extract only a subset of classes with the highest weights,
+			 * excluding the last of the top nodes.
 			 */
-		int k = 0;
-		for( String topClassStr : lineagesTreeMap.keySet()) {
-			if( ++k >= _numTopNodes) {
-				break;
-			}
-			topClassesMap.put(topClassStr, null);
+		for( ATaxonomyNode topClass : selectTopClasses(document, _numTopNodes-1)) {
+			topClassesMap.put(topClass.getLabel(), null);
 		}
 
 		return topClassesMap;
@@ -189,33 +146,36 @@ public final class CNodeScore {
 			throw new IllegalArgumentException("Cannot extract top classes from undefined document");
 		}
 		
-		/*
-		 * Order the taxonomy classes by their relative weight.
-		 */
-		Map<String, ATaxonomyNode> nodesMap = document.getClassesMap();
-		@SuppressWarnings({ "unchecked", "rawtypes" })
-		TreeMap<String, ATaxonomyNode> lineagesTreeMap = new TreeMap(new NTaxonomyNodeComparator(nodesMap));
-	
-		for( ATaxonomyNode node : nodesMap.values()) {
-			lineagesTreeMap.put(node.getLabel(), node);
-		}
-		
 			/*
 			 * Extract only a subset of classes with the highest weights
 			 */
-
 		ATaxonomyNode[] topClasses = new ATaxonomyNode[_numTopNodes];
 		int k = 0;
-		for( String topClassStr : lineagesTreeMap.keySet()) {
-			if( k >= _numTopNodes) {
-				break;
-			}
-			topClasses[k++] = nodesMap.get(topClassStr);
+		for( ATaxonomyNode topClass : selectTopClasses(document, _numTopNodes)) {
+			topClasses[k++] = topClass;
 		}
 		return topClasses;
 	}
 	
-
+	
+	
+						// ---------------------------
+						//  Supporting Private Methods
+						// ---------------------------
+	
+		/*
+		 * Select the taxonomy classes of the document with the highest relative
+		 * weights, in decreasing order of weight.
+		 */
+	private static List<ATaxonomyNode> selectTopClasses(final CText document, int numTopClasses) {
+		CTextClasses textClasses = document.getTextClasses();
+		CTopKSelector<ATaxonomyNode> selector = new CTopKSelector<ATaxonomyNode>((numTopClasses > 0) ? numTopClasses : 0);
+		
+		for( int k = 0; k < textClasses.size(); k++) {
+			selector.add(textClasses.get(k), textClasses.getWeight(k));
+		}
+		return selector.toList();
+	}
 }
 
 // ---------------------- EOF ---------------------------------------------------------------
@@ -3,66 +3,167 @@
  */
 package com.c24x7.util;
 
-import java.util.Comparator;
-import java.util.HashMap;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.TreeMap;
+
+import com.c24x7.util.collections.CObjectDoubleMap;
+import com.c24x7.util.collections.CTopKSelector;
 
 
 
 		/**
-		 * <p>Hash map for double floating point values.</p>
-		 * @author Patrick Nicolas         24x7c 
+		 * <p>Hash map for double floating point values. The values are stored
+		 * as primitive double in an open addressing hash table.</p>
+		 * @author Patrick Nicolas         24x7c
 		 * @date July 7, 2012 12:11:29 PM
 		 */
-public final class CDoubleMap extends HashMap<String, Double> {
-	private static final long serialVersionUID = -521163626930974445L;
+public final class CDoubleMap extends AbstractMap<String, Double> {
+	private CObjectDoubleMap<String> _map = null;
+
+
+			/**
+			 * <p>Iterator on the slots of the hash table.</p>
+			 */
+	private abstract class NSlotIterator<T> implements Iterator<T> {
+		private int _slot = nextSlot(0);
+
+		@Override
+		public boolean hasNext() {
+			return (_slot < _map.capacity());
+		}
 
-		/**
-		 * <p>Comparator for hash table for double that excludes equal terms. 
-		 * Contrary to the default comparator used in TreeSet and TreeMap this comparator
-		 * return 1 for greater or equals and -1 for less operators
-		 * @author Patrick Nicolas
-		 * @date June 23, 2012
-		 */
-	protected class NDecreasingComparator implements Comparator<String> {
-		
 		@Override
-		public int compare(String o1, String o2) {
-			return (get(o1).doubleValue() < get(o2).doubleValue()) ? 1 : -1;
+		public T next() {
+			if( !hasNext()) {
+				throw new NoSuchElementException();
+			}
+			T element = get(_slot);
+			_slot = nextSlot(_slot+1);
+			return element;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException("Cannot remove entries while iterating over a double map");
+		}
+
+		abstract protected T get(int slot);
+
+		private int nextSlot(int slot) {
+			while( slot < _map.capacity() && _map.keyAt(slot) == null) {
+				slot++;
+			}
+			return slot;
 		}
 	}
-	
-		/**
-		 * <p>Comparator for hash table for double that excludes equal terms. 
-		 * Contrary to the default comparator used in TreeSet and TreeMap this comparator
-		 * return 1 for greater or equals and -1 for less operators
-		 * @author Patrick Nicolas
-		 * @date June 23, 2012
-		 */
-	protected class NIncreasingComparator implements Comparator<String> {
-		
+
+
+	private final class NKeySet extends AbstractSet<String> {
+		@Override
+		public Iterator<String> iterator() {
+			return new NSlotIterator<String>() {
+				@Override
+				protected String get(int slot) {
+					return _map.keyAt(slot);
+				}
+			};
+		}
+		@Override
+		public boolean contains(Object key) {
+			return _map.containsKey(key);
+		}
+		@Override
+		public int size() {
+			return _map.size();
+		}
+	}
+
+
+	private final class NEntrySet extends AbstractSet<Map.Entry<String, Double>> {
+		@Override
+		public Iterator<Map.Entry<String, Double>> iterator() {
+			return new NSlotIterator<Map.Entry<String, Double>>() {
+				@Override
+				protected Map.Entry<String, Double> get(int slot) {
+					return new AbstractMap.SimpleImmutableEntry<String, Double>(_map.keyAt(slot), Double.valueOf(_map.valueAt(slot)));
+				}
+			};
+		}
 		@Override
-		public int compare(String o1, String o2) {
-			return (get(o1).doubleValue() >= get(o2).doubleValue()) ? 1 : -1;
+		public int size() {
+			return _map.size();
 		}
 	}
-	
+
+
+	public CDoubleMap() {
+		super();
+		_map = new CObjectDoubleMap<String>();
+	}
+
+
 	/**
 	 * <p>Increment the value associated to a key on this integer map by an arbitrary value</p>
 	 * @param key key of the key-value pair {'key",value}
 	 * @param value value to be incremented
+	 * @return previous value associated with the key, null if none
 	 */
 	public Double put(String key, double value) {
 		Double oldValue = get(key);
-		
-		if ( oldValue != null ) {
-			value += oldValue.intValue();
-		}
-		return super.put(key, new Double(value));
+		_map.adjust(key, value);
+		return oldValue;
+	}
+
+	@Override
+	public Double put(String key, Double value) {
+		Double oldValue = get(key);
+		_map.put(key, value.doubleValue());
+		return oldValue;
+	}
+
+	@Override
+	public Double get(final Object key) {
+		return _map.containsKey(key) ? Double.valueOf(_map.get(key, 0.0)) : null;
 	}
-	
-	
+
+	@Override
+	public boolean containsKey(final Object key) {
+		return _map.containsKey(key);
+	}
+
+	@Override
+	public Double remove(final Object key) {
+		Double oldValue = get(key);
+		_map.remove(key);
+		return oldValue;
+	}
+
+	@Override
+	public int size() {
+		return _map.size();
+	}
+
+	@Override
+	public void clear() {
+		_map.clear();
+	}
+
+	@Override
+	public Set<String> keySet() {
+		return new NKeySet();
+	}
+
+	@Override
+	public Set<Map.Entry<String, Double>> entrySet() {
+		return new NEntrySet();
+	}
+
+
 	/**
 	 * <p>Extracted the ordered set of keys for this hash map
 	 * of <key,float point value> pairs in decreasing order of values</p>
@@ -71,7 +172,7 @@ public final class CDoubleMap extends HashMap<String, Double> {
 	public Set<String> order() {
 		return order(true);
 	}
-	
+
 
 	/**
 	 * <p>Extracted the ordered set of keys for this hash map
@@ -80,15 +181,27 @@ public final class CDoubleMap extends HashMap<String, Double> {
 	 * @return Set of keys ordered by decreasing values or increasing values.
 	 */
 	public Set<String> order(boolean decreasingOrder) {
-		Comparator<String> cmp = decreasingOrder ? new NDecreasingComparator() : new NIncreasingComparator();
-		
-		@SuppressWarnings({ "rawtypes", "unchecked" })
-		TreeMap<String, Double> treeMap = new TreeMap(cmp);
-		for(String key : keySet()) {
-			treeMap.put(key, get(key));
-		}	
-		return treeMap.keySet();
+		return order(decreasingOrder, _map.size());
+	}
+
+
+	/**
+	 * <p>Extracted the ordered set of the keys with the highest, or lowest, values 
+	 * of this hash map. Keys with identical values are kept in the order of the map.</p>
+	 * @param decreasingOrder  The keys with the highest values are extracted in decreasing order if true, the keys with the lowest values in increasing order if false.
+	 * @param maxNumKeys maximum number of keys extracted
+	 * @return Set of at most maxNumKeys keys ordered by decreasing values or increasing values.
+	 */
+	public Set<String> order(boolean decreasingOrder, int maxNumKeys) {
+		CTopKSelector<String> selector = new CTopKSelector<String>((maxNumKeys < _map.size()) ? maxNumKeys : _map.size());
+		for( int slot = 0; slot < _map.capacity(); slot++) {
+			if( _map.keyAt(slot) != null) {
+				selector.add(_map.keyAt(slot), decreasingOrder ? _map.valueAt(slot) : -_map.valueAt(slot));
+			}
+		}
+
+		return new LinkedHashSet<String>(selector.toList());
 	}
 }
 
-// -------------------------  EOF ------------------------------
\ No newline at end of file
+// -------------------------  EOF ------------------------------
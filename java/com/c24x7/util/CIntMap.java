@@ -1,124 +1,246 @@
 // Copyright (C) 2010-2012 Patrick Nicolas
 package com.c24x7.util;
 
-import java.util.Comparator;
-import java.util.HashMap;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.TreeMap;
+
+import com.c24x7.util.collections.CObjectIntMap;
+import com.c24x7.util.collections.CTopKSelector;
 
 
 
 	/**
 	 * <p>
 	 * Convenient class to override the standard put/insert method
-	 * for non-synchronized hash tables (Map)</p>
+	 * for non-synchronized hash tables (Map). The counters are stored as
+	 * primitive integers in an open addressing hash table, so incrementing
+	 * a counter does not allocate any object.</p>
 	 * @author Patrick Nicolas
 	 * @date 02/14/2012
 	 */
-public class CIntMap extends HashMap<String, Integer> {
-	static final long  serialVersionUID = 931433L;
+public class CIntMap extends AbstractMap<String, Integer> {
+	private CObjectIntMap<String> _map = null;
 
-		/**
-		 * <p>Comparator for Integer that excludes equal terms. Contrary to the
-		 * default comparator used in TreeSet and TreeMap this comparator
-		 * return 1 for greater or equals and -1 for less operators
-		 * @author Patrick Nicolas
-		 * @date 01/15/2012
-		 */
-	protected class NComparator implements Comparator<String> {
-		
+
+			/**
+			 * <p>Iterator on the slots of the hash table.</p>
+			 */
+	private abstract class NSlotIterator<T> implements Iterator<T> {
+		private int _slot = nextSlot(0);
+
+		@Override
+		public boolean hasNext() {
+			return (_slot < _map.capacity());
+		}
+
+		@Override
+		public T next() {
+			if( !hasNext()) {
+				throw new NoSuchElementException();
+			}
+			T element = get(_slot);
+			_slot = nextSlot(_slot+1);
+			return element;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException("Cannot remove entries while iterating over an integer map");
+		}
+
+		abstract protected T get(int slot);
+
+		private int nextSlot(int slot) {
+			while( slot < _map.capacity() && _map.keyAt(slot) == null) {
+				slot++;
+			}
+			return slot;
+		}
+	}
+
+
+	private final class NKeySet extends AbstractSet<String> {
+		@Override
+		public Iterator<String> iterator() {
+			return new NSlotIterator<String>() {
+				@Override
+				protected String get(int slot) {
+					return _map.keyAt(slot);
+				}
+			};
+		}
+		@Override
+		public boolean contains(Object key) {
+			return _map.containsKey(key);
+		}
 		@Override
-		public int compare(String o1, String o2) {
-			return (get(o1).intValue() >= get(o2).intValue()) ? 1 : -1;
+		public int size() {
+			return _map.size();
 		}
 	}
-	
-	
+
+
+	private final class NEntrySet extends AbstractSet<Map.Entry<String, Integer>> {
+		@Override
+		public Iterator<Map.Entry<String, Integer>> iterator() {
+			return new NSlotIterator<Map.Entry<String, Integer>>() {
+				@Override
+				protected Map.Entry<String, Integer> get(int slot) {
+					return new AbstractMap.SimpleImmutableEntry<String, Integer>(_map.keyAt(slot), Integer.valueOf(_map.valueAt(slot)));
+				}
+			};
+		}
+		@Override
+		public int size() {
+			return _map.size();
+		}
+	}
+
+
+
 	public CIntMap() {
 		super();
+		_map = new CObjectIntMap<String>();
 	}
-	
-	
+
+
 	public void putAll(CIntMap map) {
 		for( String key : map.keySet() ) {
 			this.put(key);
 		}
 	}
-	
+
 	public void putAll(CIntMap map, int n) {
 		for( String key : map.keySet() ) {
 			this.put(key, n);
 		}
 	}
-	
-	
+
+
 	public final int getInt(final String key) {
-		Integer value = get(key);
-		return (value == null) ? -1 : value.intValue();
+		return _map.get(key, -1);
 	}
-	
+
 			/**
 			 * <p>Increment the value associated to a key on this integer map, by 1</p>
 			 * @param key key of the key-value pair {'key", +1}
 			 */
 	public void put(final String key) {
-		Integer oldValue = get(key);
-		int newValue = 1;
-		
-		if ( oldValue != null ) {
-			newValue += oldValue.intValue();
-		}
-		super.put(key, new Integer(newValue));
+		_map.adjust(key, 1);
 	}
-	
+
 	/**
-	 * <p>Increment the value associated to a key on this integer map by an arbitrary value</p>
+	 * <p>Set the value associated to a key on this integer map</p>
 	 * @param key key of the key-value pair {'key",value}
-	 * @param value value to be incremented
+	 * @param value new value
+	 * @return previous value associated with the key, null if none
 	 */
+	@Override
 	public Integer put(final String key, final Integer value) {
-		return super.put(key, value);
+		Integer oldValue = get(key);
+		_map.put(key, value.intValue());
+		return oldValue;
 	}
-	
-	
+
+
 	/**
 	 * <p>Increment the value associated to a key on this integer map by an arbitrary value</p>
 	 * @param key key of the key-value pair {'key",value}
 	 * @param value value to be incremented
+	 * @return previous value associated with the key, null if none
 	 */
 	public Integer put(String key, int value) {
 		Integer oldValue = get(key);
-		
-		if ( oldValue != null ) {
-			value += oldValue.intValue();
-		}
-		return super.put(key, new Integer(value));
+		_map.adjust(key, value);
+		return oldValue;
+	}
+
+
+	@Override
+	public Integer get(final Object key) {
+		return _map.containsKey(key) ? Integer.valueOf(_map.get(key, 0)) : null;
 	}
-	
-	
+
+	@Override
+	public boolean containsKey(final Object key) {
+		return _map.containsKey(key);
+	}
+
+	@Override
+	public Integer remove(final Object key) {
+		Integer oldValue = get(key);
+		_map.remove(key);
+		return oldValue;
+	}
+
+	@Override
+	public int size() {
+		return _map.size();
+	}
+
+	@Override
+	public void clear() {
+		_map.clear();
+	}
+
+	@Override
+	public Set<String> keySet() {
+		return new NKeySet();
+	}
+
+	@Override
+	public Set<Map.Entry<String, Integer>> entrySet() {
+		return new NEntrySet();
+	}
+
+
+		/**
+		 * <p>Extract the keys of this map ordered by increasing value.</p>
+		 * @return set of keys ordered by increasing value.
+		 */
 	public final Set<String> order() {
-		@SuppressWarnings({ "rawtypes", "unchecked" })
-		TreeMap<String, Integer> treeMap = new TreeMap(new NComparator());
-		for(String key : keySet()) {
-			treeMap.put(key, get(key));
+		return order(_map.size());
+	}
+
+
+		/**
+		 * <p>Extract the keys with the lowest values of this map, ordered by
+		 * increasing value. Keys with identical values are kept in the order
+		 * of the map.</p>
+		 * @param maxNumKeys maximum number of keys extracted
+		 * @return set of at most maxNumKeys keys ordered by increasing value.
+		 */
+	public final Set<String> order(int maxNumKeys) {
+		CTopKSelector<String> selector = new CTopKSelector<String>((maxNumKeys < _map.size()) ? maxNumKeys : _map.size());
+		for( int slot = 0; slot < _map.capacity(); slot++) {
+			if( _map.keyAt(slot) != null) {
+				selector.add(_map.keyAt(slot), -(double)_map.valueAt(slot));
+			}
 		}
-	
-		return treeMap.keySet();
+
+		return new LinkedHashSet<String>(selector.toList());
 	}
-	
-		
+
+
 	@Override
 	public String toString() {
 		StringBuilder buf = new StringBuilder();
-		for( String key : keySet() ) {
-			buf.append("\n");
-			buf.append(key);
-			buf.append(CEnv.KEY_VALUE_DELIM);
-			buf.append(get(key));
+		for( int slot = 0; slot < _map.capacity(); slot++) {
+			if( _map.keyAt(slot) != null) {
+				buf.append("\n");
+				buf.append(_map.keyAt(slot));
+				buf.append(CEnv.KEY_VALUE_DELIM);
+				buf.append(_map.valueAt(slot));
+			}
 		}
-		
+
 		return buf.toString();
 	}
 
 }
-// ----------------------  EOF ------------------------
\ No newline at end of file
+// ----------------------  EOF ------------------------
@@ -0,0 +1,314 @@
+/*
+ *  Copyright (C) 2010-2012 Patrick Nicolas
+ */
+package com.c24x7.util.collections;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+
+
+		/**
+		 * <p>Blocked Bloom filter of strings used to reject the labels which are not
+		 * defined in a dictionary or a table before querying it. The bits of a label are
+		 * all set in a single block of 512 bits (the size of a cache line) selected by the
+		 * hash of the label, so a test costs one hash of the characters and a single
+		 * memory access. The filter has no false negative; its rate of false positives is
+		 * defined at creation from the expected number of labels.</p>
+		 * <p>The filter is read only once created and can be shared between threads.
+		 * It is persisted in a binary file next to the table it describes, with a stamp
+		 * set by the creator of the filter to identify the content it was created from.</p>
+		 *
+		 * @author Patrick Nicolas         24x7c
+		 * @date July 21, 2012 9:45:12 AM
+		 */
+public final class CBloomFilter {
+	public static final String 	EXTENSION 						= ".bloom";
+	public static final double 	DEFAULT_FALSE_POSITIVE_RATE 	= 0.01;
+
+	private static final int 	MAGIC 				= 0x32344246;
+	private static final int 	VERSION 			= 2;
+	private static final int 	BLOCK_SIZE 			= 8;
+	private static final int 	BLOCK_BITS_MASK 	= (BLOCK_SIZE << 6) - 1;
+	private static final int 	MAX_NUM_HASHES 		= 16;
+	private static final double LN2 					= Math.log(2.0);
+	private static final double BLOCK_LOAD_CORRECTION 	= 0.2;
+
+
+		/**
+		 * <p>Read a filter from its binary file. The filters of the first version
+		 * of the file format have no stamp.</p>
+		 * @param fileName name of the binary file of the filter
+		 * @return filter stored in the file
+		 * @throws IOException if the file cannot be read or is not a filter file
+		 */
+	public static CBloomFilter read(final String fileName) throws IOException {
+		DataInputStream in = null;
+		CBloomFilter filter = null;
+
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName), 65536));
+			final int magic = in.readInt();
+			final int version = in.readInt();
+			if( magic != MAGIC || version < 1 || version > VERSION) {
+				throw new IOException(fileName + " is not a Bloom filter file");
+			}
+			final int numHashes = in.readInt();
+			final int numBlocks = in.readInt();
+			final long numEntries = in.readLong();
+			final long stamp = (version > 1) ? in.readLong() : 0L;
+			if( numHashes < 1 || numHashes > MAX_NUM_HASHES || numBlocks < 1) {
+				throw new IOException("Bloom filter file " + fileName + " is corrupted");
+			}
+
+			filter = new CBloomFilter(numBlocks, numHashes);
+			filter._numEntries = numEntries;
+			filter._stamp = stamp;
+			for( int k = 0; k < filter._bits.length; k++) {
+				filter._bits[k] = in.readLong();
+			}
+		}
+		finally {
+			if( in != null) {
+				in.close();
+			}
+		}
+
+		return filter;
+	}
+
+
+
+	private long[] 	_bits 		= null;
+	private int		_numBlocks 	= 0;
+	private int		_numHashes 	= 0;
+	private long	_numEntries = 0L;
+	private long	_stamp 		= 0L;
+
+
+		/**
+		 * <p>Create an empty filter sized for an expected number of labels and
+		 * a rate of false positives.</p>
+		 * @param expectedNumEntries expected number of labels added to the filter
+		 * @param falsePositiveRate rate of false positives once the expected number of labels is added
+		 * @throws IllegalArgumentException if the number of labels is negative or the rate is not in ]0, 1[
+		 */
+	public CBloomFilter(long expectedNumEntries, double falsePositiveRate) {
+		if( expectedNumEntries < 0L) {
+			throw new IllegalArgumentException("Incorrect number of entries " + expectedNumEntries + " for Bloom filter");
+		}
+		if( falsePositiveRate <= 0.0 || falsePositiveRate >= 1.0) {
+			throw new IllegalArgumentException("Incorrect false positive rate " + falsePositiveRate + " for Bloom filter");
+		}
+
+		final long numEntries = (expectedNumEntries > 0L) ? expectedNumEntries : 1L;
+		final double bitsPerEntry = -Math.log(falsePositiveRate)/(LN2*LN2);
+		
+			/*
+			 * The load of the blocks varies so a blocked filter needs more bits
+			 * than a standard filter for the same rate, the more so the lower the rate.
+			 */
+		final double blockLoadFactor = (falsePositiveRate < 0.1) ? 1.0 - BLOCK_LOAD_CORRECTION*Math.log10(10.0*falsePositiveRate) : 1.0;
+		final long numBits = (long)Math.ceil(numEntries*bitsPerEntry*blockLoadFactor);
+		final long numBlocks = (numBits + BLOCK_BITS_MASK) >>> 9;
+		if( numBlocks > Integer.MAX_VALUE/BLOCK_SIZE) {
+			throw new IllegalArgumentException("Bloom filter for " + expectedNumEntries + " entries is too large");
+		}
+
+		int numHashes = (int)Math.round(bitsPerEntry*LN2);
+		numHashes = (numHashes < 1) ? 1 : (numHashes > MAX_NUM_HASHES) ? MAX_NUM_HASHES : numHashes;
+
+		init((int)numBlocks, numHashes);
+	}
+
+
+		/**
+		 * <p>Add a label to the filter.</p>
+		 * @param label label to add
+		 * @throws IllegalArgumentException if the label is undefined
+		 */
+	public void put(final String label) {
+		if( label == null) {
+			throw new IllegalArgumentException("Cannot add undefined label to Bloom filter");
+		}
+
+		final long hash = hash(label);
+		final int block = blockIndex(hash);
+		final long probes = mix(hash);
+		final int probe = (int)probes;
+		final int step = (int)(probes >>> 32) | 1;
+
+		for( int k = 0, bit = probe; k < _numHashes; k++, bit += step) {
+			_bits[block + ((bit & BLOCK_BITS_MASK) >>> 6)] |= (1L << bit);
+		}
+		_numEntries++;
+	}
+
+
+		/**
+		 * <p>Test if a label may have been added to the filter.</p>
+		 * @param label label to test
+		 * @return false if the label has never been added, true if it may have been added
+		 */
+	public boolean mightContain(final String label) {
+		if( label == null) {
+			return false;
+		}
+
+		final long hash = hash(label);
+		final int block = blockIndex(hash);
+		final long probes = mix(hash);
+		final int probe = (int)probes;
+		final int step = (int)(probes >>> 32) | 1;
+
+		boolean found = true;
+		for( int k = 0, bit = probe; found && k < _numHashes; k++, bit += step) {
+			found = (_bits[block + ((bit & BLOCK_BITS_MASK) >>> 6)] & (1L << bit)) != 0L;
+		}
+		return found;
+	}
+
+
+		/**
+		 * <p>Write the filter into a binary file. The file is first written
+		 * into a temporary file then renamed so readers never read a partial file.</p>
+		 * @param fileName name of the binary file of the filter
+		 * @throws IOException if the file cannot be written
+		 */
+	public void write(final String fileName) throws IOException {
+		File tempFile = new File(fileName + ".tmp");
+		DataOutputStream out = null;
+
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile), 65536));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(_numHashes);
+			out.writeInt(_numBlocks);
+			out.writeLong(_numEntries);
+			out.writeLong(_stamp);
+			for( long bits : _bits) {
+				out.writeLong(bits);
+			}
+			out.close();
+			out = null;
+		}
+		finally {
+			if( out != null) {
+				out.close();
+			}
+		}
+
+		File filterFile = new File(fileName);
+		if( (filterFile.exists() && !filterFile.delete()) || !tempFile.renameTo(filterFile) ) {
+			throw new IOException("Cannot create Bloom filter file " + fileName);
+		}
+	}
+
+
+	public final long size() {
+		return _numEntries;
+	}
+
+	public final long getNumBits() {
+		return ((long)_bits.length) << 6;
+	}
+
+	public final int getNumHashes() {
+		return _numHashes;
+	}
+
+	public final long getStamp() {
+		return _stamp;
+	}
+
+		/**
+		 * <p>Set the stamp saved with the filter, such as a fingerprint of the
+		 * table the filter is created from.</p>
+		 * @param stamp stamp of the filter
+		 */
+	public void setStamp(long stamp) {
+		_stamp = stamp;
+	}
+
+
+		/**
+		 * <p>Estimate the rate of false positives of the filter for the labels
+		 * added so far, ignoring the variance of the load of the blocks.</p>
+		 * @return estimated rate of false positives
+		 */
+	public double getFalsePositiveRate() {
+		return Math.pow(1.0 - Math.exp(-_numHashes*(double)_numEntries/getNumBits()), _numHashes);
+	}
+
+
+	@Override
+	public String toString() {
+		StringBuilder buf = new StringBuilder("Bloom filter entries=");
+		buf.append(_numEntries);
+		buf.append(" bits=");
+		buf.append(getNumBits());
+		buf.append(" hashes=");
+		buf.append(_numHashes);
+		buf.append(" fpp=");
+		buf.append(getFalsePositiveRate());
+
+		return buf.toString();
+	}
+
+
+
+						// ---------------------------
+						//  Supporting Private Methods
+						// ---------------------------
+
+	private CBloomFilter(int numBlocks, int numHashes) {
+		init(numBlocks, numHashes);
+	}
+
+
+	private void init(int numBlocks, int numHashes) {
+		_numBlocks = numBlocks;
+		_numHashes = numHashes;
+		_bits = new long[numBlocks*BLOCK_SIZE];
+	}
+
+
+	private int blockIndex(long hash) {
+		return (int)(((hash >>> 33)*_numBlocks) >>> 31)*BLOCK_SIZE;
+	}
+
+
+		/*
+		 * FNV-1a hash of the characters of the label followed
+		 * by the finalization step of MurmurHash3. The bits in the block
+		 * are selected by a second mix, independent of the block index.
+		 */
+	private static long hash(final String label) {
+		long hash = 0xCBF29CE484222325L;
+		for( int k = 0; k < label.length(); k++) {
+			hash = (hash ^ label.charAt(k))*0x100000001B3L;
+		}
+
+		return mix(hash);
+	}
+
+
+	private static long mix(long hash) {
+		hash ^= hash >>> 33;
+		hash *= 0xFF51AFD7ED558CCDL;
+		hash ^= hash >>> 33;
+		hash *= 0xC4CEB9FE1A85EC53L;
+		hash ^= hash >>> 33;
+
+		return hash;
+	}
+}
+
+// ------------------------------------  EOF ------------------------------------------
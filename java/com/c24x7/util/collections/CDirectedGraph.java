@@ -1,72 +1,25 @@
 package com.c24x7.util.collections;
 
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 
 import com.c24x7.util.CEnv;
 
 
 public final class CDirectedGraph {
 	private static final String INDENTATION = "  ";
+	private static final int INITIAL_CAPACITY = 16;
 	
 	private class NVertex {
-		
-		Map<String, Object> _nextVertices = null;
 		protected String 	_label 		= null;
 		protected int 		_level 		= 0;
 		protected float 	_weight 	= 0.0F;
 		
-		private NVertex(final String label, float weight, int level) {
-			_label = label;
-			_level = level;
-			_weight = weight;
-		}
-		
-		private final String getLabel() {
-			return _label;
-		}
-		
-		private float getWeight() {
-			return _weight;
-		}
-		
-		private int getLevel() {
-			return _level;
-		}
-		
-		private Map<String, Object> nextVertices() {
-			return _nextVertices;
-		}
-		
-		
-		private void addNextVertex(final NVertex nextVertex) {
-			if ( _nextVertices == null) {
-				_nextVertices = new HashMap<String, Object>();
-			}
-			_nextVertices.put(nextVertex.getLabel(), null);
-		}
-
-		
-		private final NVertex nextSpanningVertex() {
-			NVertex nextSpanningVertex = null;
-			if(_nextVertices != null ) {
-				float maxWeight = Float.MIN_VALUE;
-				
-				for( String nextVertexLabel : _nextVertices.keySet()) {
-					nextSpanningVertex = _verticesMap.get(nextVertexLabel);
-					if( maxWeight < nextSpanningVertex.getWeight()) {
-						maxWeight = nextSpanningVertex.getWeight();
-					}
-				}
-			}
-			return nextSpanningVertex;
-		}
-		
-		private final String nextSpanningVertexLabel() {
-			NVertex nextSpanningVertex = nextSpanningVertex();
-			return (nextSpanningVertex != null) ? nextSpanningVertex.getLabel() : null;
+		private NVertex(int vertex) {
+			_label = _graph.getLabel(vertex);
+			_level = _levels[vertex];
+			_weight = _weights[vertex];
 		}
 		
 		@Override
@@ -81,11 +34,15 @@ public final class CDirectedGraph {
 		}
 	}
 	
-	private Map<String, NVertex> _verticesMap 	= null;
-	private String 				 _rootLabel 	= null;
+	private CIntGraph	_graph 		= null;
+	private int[]		_levels 	= null;
+	private float[]		_weights 	= null;
+	private String 		_rootLabel 	= null;
 	
 	public CDirectedGraph(final String rootLabel) {
-		_verticesMap = new HashMap<String, NVertex>();
+		_graph = new CIntGraph();
+		_levels = new int[INITIAL_CAPACITY];
+		_weights = new float[INITIAL_CAPACITY];
 		_rootLabel = rootLabel;
 	}
 	
@@ -96,31 +53,32 @@ public final class CDirectedGraph {
 			throw new IllegalArgumentException("Cannot add undefined vertice to the graph");
 		}
 		
-		NVertex vertex 			= null, 
-				prevVertex 		= null, 
-				lastNewVertex 	= null;
+		int vertex 			= CIntGraph.UNDEFINED, 
+			prevVertex 		= CIntGraph.UNDEFINED, 
+			lastNewVertex 	= CIntGraph.UNDEFINED;
 		
 		for( int level = 0; level < labels.length; level++) {
 				/*
 				 * If this is a new Vertex, add it to the
 				 * vertices map and link to the previous one
 				 */
-			if( !_verticesMap.containsKey(labels[level])) {
-				vertex = new NVertex(labels[level], weights[level], level);
-				if( prevVertex != null) {
-					prevVertex.addNextVertex(vertex);
+			vertex = _graph.getVertexId(labels[level]);
+			if( vertex == CIntGraph.UNDEFINED) {
+				vertex = _graph.addVertex(labels[level]);
+				setVertex(vertex, level, weights[level]);
+				if( prevVertex != CIntGraph.UNDEFINED) {
+					_graph.addEdge(prevVertex, vertex);
 				}
-				_verticesMap.put(labels[level], vertex);
 				lastNewVertex = vertex;
 				prevVertex = vertex;
 			}
 		
 			else {
-				prevVertex = _verticesMap.get(labels[level]);
-				if( lastNewVertex != null) {
-					lastNewVertex.addNextVertex(prevVertex);
+				prevVertex = vertex;
+				if( lastNewVertex != CIntGraph.UNDEFINED) {
+					_graph.addEdge(lastNewVertex, vertex);
 				}
-				lastNewVertex = null;
+				lastNewVertex = CIntGraph.UNDEFINED;
 			}
 		}
 	}
@@ -131,25 +89,45 @@ public final class CDirectedGraph {
 		this.addVertices(nodes, weights);
 	}
 	
+	
+		/**
+		 * <p>Walk the spanning path from the root, moving from each vertex
+		 * to its next vertex of highest weight.</p>
+		 * @return list of the labels of the vertices of the path, starting with the root
+		 */
 	public List<String> getSpanningTreeLabels() {
 		List<String> vertexLabels = new LinkedList<String>();
-		nextSpanningLabel(vertexLabels, _rootLabel);
+		for( int vertex : spanningPath()) {
+			vertexLabels.add(_graph.getLabel(vertex));
+		}
 		
 		return vertexLabels;
 	}
 	
 	public List<NVertex> getSpanningTree() {
-		List<NVertex> vertexLabels = new LinkedList<NVertex>();
-		nextSpanningVertex(vertexLabels, _rootLabel);
+		List<NVertex> vertices = new LinkedList<NVertex>();
+		for( int vertex : spanningPath()) {
+			vertices.add(new NVertex(vertex));
+		}
 		
-		return vertexLabels;
+		return vertices;
 	}
 
 	public String toString() {
-		StringBuilder buf = new StringBuilder();
-		
-		if( _verticesMap.size() > 0) {
-			printChildren(_rootLabel, buf);
+		final StringBuilder buf = new StringBuilder();
+		final int root = _graph.getVertexId(_rootLabel);
+		
+		if( root != CIntGraph.UNDEFINED) {
+			_graph.depthFirst(root, new CIntGraph.IVisitor() {
+				@Override
+				public void visit(int vertex, int depth) {
+					for( int k = 0; k < _levels[vertex]; k++) {
+						buf.append(INDENTATION);
+					}
+					buf.append(new NVertex(vertex).toString());
+					buf.append("\n");
+				}
+			});
 		}		
 		return buf.toString();
 	}
@@ -159,49 +137,22 @@ public final class CDirectedGraph {
 				// Private Supporting Methods
 				// --------------------------
 	
-	private void printChildren(final String vertexLabel, StringBuilder buf) {
-		
-		NVertex vertex = _verticesMap.get(vertexLabel);			
-
-		final int indentation = vertex.getLevel();
-			
-		for( int k = 0; k < indentation; k++) {
-			buf.append(INDENTATION);
-		}	
-		buf.append(vertex.toString());
-		buf.append("\n");
-			
-			/*
-			* If this node has children, recurse the printing method.
-			*/
-		Map<String, Object> nextVertices = vertex.nextVertices();
-			
-		if( nextVertices != null ) {
-			for( String nextVertice : nextVertices.keySet()) {
-				printChildren(nextVertice, buf);
-			}
-		}
-	}
-	
-
-	private void nextSpanningLabel(List<String> vertexLabels, String thisLabel) {
-		vertexLabels.add(thisLabel);
-		NVertex thisVertex = _verticesMap.get(thisLabel);
-		String nextSpanningVertex = thisVertex.nextSpanningVertexLabel();	
-		
-		if(nextSpanningVertex != null) {
-			nextSpanningLabel(vertexLabels, nextSpanningVertex);
-		}
+	private int[] spanningPath() {
+		final int root = _graph.getVertexId(_rootLabel);
+		return (root != CIntGraph.UNDEFINED) ? 
+				_graph.bestPath(root, _weights, Float.NEGATIVE_INFINITY) :
+				new int[0];
 	}
 	
-	private void nextSpanningVertex(List<NVertex> vertexLabels, String thisLabel) {
-		NVertex thisVertex = _verticesMap.get(thisLabel);
-		vertexLabels.add(thisVertex);
 	
-		String nextSpanningVertex = thisVertex.nextSpanningVertexLabel();	
-		if(nextSpanningVertex != null) {
-			nextSpanningVertex(vertexLabels, nextSpanningVertex);
+	private void setVertex(int vertex, int level, float weight) {
+		if( vertex >= _levels.length) {
+			final int capacity = Math.max(vertex+1, _levels.length << 1);
+			_levels = Arrays.copyOf(_levels, capacity);
+			_weights = Arrays.copyOf(_weights, capacity);
 		}
+		_levels[vertex] = level;
+		_weights[vertex] = weight;
 	}
 	
 }
@@ -3,7 +3,8 @@
  */
 package com.c24x7.util.collections;
 
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
@@ -15,13 +16,16 @@ import com.c24x7.util.CEnv;
 	/**
 	 * <p>Generic undirected graph class. The graph is composed of Vertex which carry also
 	 * the weight of the edge from the previous vertices. The content structure of a Vertex
-	 * is defined in run-time as an implementation of the interface INode.</p>
+	 * is defined in run-time as an implementation of the interface INode. The vertices and
+	 * edges are stored in a compact graph indexed by integers and the level of each vertex
+	 * in an array indexed by the identifier of the vertex.</p>
 	 * 
 	 * @author Patrick Nicolas         24x7c 
 	 * @date June 27, 2012 4:49:27 PM
 	 */
 public final class CGraph {
 	private static final String INDENTATION = "  ";
+	private static final int INITIAL_CAPACITY = 16;
 	
 		/**
 		 * <p>Generic interface for the content (or Node) of a vertex.</p>
@@ -33,74 +37,9 @@ public final class CGraph {
 		public int getLevel();
 	}
 	
-		/**
-		 * <p>Generic Vertex inner class for this undirected graph. The Vertex contains the
-		 * following information: label, map of previous vertices, map of next vertices and 
-		 * the weight (or level) of the vertex.</p>
-		 * 
-		 * @author Patrick Nicolas         24x7c 
-		 * @date June 27, 2012 4:50:35 PM
-		 */
-	public class NVertex {
-		private String				_label = null;
-		private Map<String, Object> _nextVertices = null;
-		private Map<String, Object> _prevVertices = null;
-		protected int 				_level = 0;
-		
-		private NVertex(final String label, int level) {
-			_label = label;
-			_level = level;
-		}
-			
-		private int getLevel() {
-			return _level;
-		}
-		
-		private final String getLabel() {
-			return _label;
-		}
-		private Map<String, Object> nextVertices() {
-			return _nextVertices;
-		}
-				
-		public int getNumChildren() {
-			return (_nextVertices != null) ? _nextVertices.size() : 0;
-		}
-
-		public Set<String> getParentsSet() {
-			return (_prevVertices != null) ? _prevVertices.keySet() : null;
-		}
-		
-		private void setParent(final NVertex vertex) {
-			if ( _prevVertices == null) {
-				_prevVertices = new HashMap<String, Object>();
-			}
-			_prevVertices.put(vertex.getLabel(), vertex);
-		}
-				
-		
-		private void addNextVertex(final NVertex nextVertex, int numVertices) {
-			if ( _nextVertices == null) {
-				_nextVertices = new HashMap<String, Object>();
-			}
-			_nextVertices.put(nextVertex.getLabel(), null);
-			nextVertex.setParent(this);
-		}
-
-		
-		@Override
-		public String toString() {
-			StringBuilder buf = new StringBuilder(_label);
-			buf.append(CEnv.KEY_VALUE_DELIM);
-			buf.append(getLevel());
-
-			return buf.toString();
-		}
-	}
-	
-	
-	private Map<String, NVertex> _verticesMap 	= null;
-	private String 				 _rootLabel 	= null;
+	private CIntGraph	_graph 		= null;
+	private int[]		_levels 	= null;
+	private String 		_rootLabel 	= null;
 	
 	
 		/**
@@ -109,7 +48,8 @@ public final class CGraph {
 		 * @param rootLabel label of the first or root Node.
 		 */
 	public CGraph(final String rootLabel) {
-		_verticesMap = new HashMap<String, NVertex>();
+		_graph = new CIntGraph();
+		_levels = new int[INITIAL_CAPACITY];
 		_rootLabel = rootLabel;
 	}
 	
@@ -129,10 +69,9 @@ public final class CGraph {
 			throw new IllegalArgumentException("Cannot add undefined vertice to the graph");
 		}
 		
-		NVertex vertex 		= null, 
-				prevVertex 	= null, 
-				lastNewVertex = null;
-		String label = null;
+		int vertex 			= CIntGraph.UNDEFINED, 
+			prevVertex 		= CIntGraph.UNDEFINED, 
+			lastNewVertex 	= CIntGraph.UNDEFINED;
 		
 		/*
 		 * Insert the element of the array of nodes one by one.
@@ -142,49 +81,57 @@ public final class CGraph {
 				 * If this is a new Vertex, add it to the
 				 * vertices map and link to the previous one
 				 */
-			label = nodes[level].getLabel();
-			if( !_verticesMap.containsKey(label)) {
-				vertex = new NVertex(nodes[level].getLabel(), level);
+			vertex = _graph.getVertexId(nodes[level].getLabel());
+			if( vertex == CIntGraph.UNDEFINED) {
+				vertex = _graph.addVertex(nodes[level].getLabel());
+				setLevel(vertex, level);
 				
-				if( prevVertex != null) {
-					prevVertex.addNextVertex(vertex, nodes.length);
+				if( prevVertex != CIntGraph.UNDEFINED) {
+					_graph.addEdge(prevVertex, vertex);
 				}
-				_verticesMap.put(label, vertex);
 				lastNewVertex = vertex;
 				prevVertex = vertex;
 			}
 		
 			else {
-				prevVertex = _verticesMap.get(label);
-				if( lastNewVertex != null) {
-					lastNewVertex.addNextVertex(prevVertex, nodes.length);
+				prevVertex = vertex;
+				if( lastNewVertex != CIntGraph.UNDEFINED) {
+					_graph.addEdge(lastNewVertex, vertex);
 				}
-				lastNewVertex = null;
+				lastNewVertex = CIntGraph.UNDEFINED;
 			}
 		}
 	}
 	
 	public int getNumChildren(final String nodeLabel) {
-		return (_verticesMap.containsKey(nodeLabel)) ?
-				_verticesMap.get(nodeLabel).getNumChildren() :
-				-1;
+		final int vertex = _graph.getVertexId(nodeLabel);
+		return (vertex != CIntGraph.UNDEFINED) ? _graph.getNumSuccessors(vertex) : -1;
 	}
 	
 	
 	public Set<String> getParentsSet(final String nodeLabel) {
-		return (_verticesMap.containsKey(nodeLabel)) ?
-				_verticesMap.get(nodeLabel).getParentsSet() :
-				null;
+		Set<String> parentsSet = null;
+		
+		final int vertex = _graph.getVertexId(nodeLabel);
+		if( vertex != CIntGraph.UNDEFINED) {
+			final int numParents = _graph.getNumPredecessors(vertex);
+			if( numParents > 0) {
+				parentsSet = new HashSet<String>(numParents << 1);
+				for( int k = 0; k < numParents; k++) {
+					parentsSet.add(_graph.getLabel(_graph.getPredecessor(vertex, k)));
+				}
+			}
+		}
+		return parentsSet;
 	}
 	
 	public double getParentsWeight(final String nodeLabel, Map<String, ATaxonomyNode> classesMap) {
 		double totalParentWeight = 0.0;
 		
-		if( _verticesMap.containsKey(nodeLabel) ) {
-			Set<String> parentsSet = _verticesMap.get(nodeLabel).getParentsSet();
-		
-			for(String parentLabel : parentsSet) {
-				totalParentWeight += classesMap.get(parentLabel).getWeight();
+		final int vertex = _graph.getVertexId(nodeLabel);
+		if( vertex != CIntGraph.UNDEFINED) {
+			for( int k = 0; k < _graph.getNumPredecessors(vertex); k++) {
+				totalParentWeight += classesMap.get(_graph.getLabel(_graph.getPredecessor(vertex, k))).getWeight();
 			}
 		}
 		
@@ -192,17 +139,41 @@ public final class CGraph {
 	}
 	
 	
-	public void visit(IFunction function) {
-		if( _verticesMap.size() > 0) {
-			visit(_rootLabel, function);
+		/**
+		 * <p>Apply a function to the label and level of each vertex reachable
+		 * from the root, in depth first order. Each vertex is visited once.</p>
+		 * @param function function applied to the vertices
+		 */
+	public void visit(final IFunction function) {
+		final int root = _graph.getVertexId(_rootLabel);
+		
+		if( root != CIntGraph.UNDEFINED) {
+			_graph.depthFirst(root, new CIntGraph.IVisitor() {
+				@Override
+				public void visit(int vertex, int depth) {
+					function.apply(_graph.getLabel(vertex), _levels[vertex]);
+				}
+			});
 		}
 	}
 
 	public String toString() {
-		StringBuilder buf = new StringBuilder();
+		final StringBuilder buf = new StringBuilder();
+		final int root = _graph.getVertexId(_rootLabel);
 		
-		if( _verticesMap.size() > 0) {
-			printChildren(_rootLabel, buf);
+		if( root != CIntGraph.UNDEFINED) {
+			_graph.depthFirst(root, new CIntGraph.IVisitor() {
+				@Override
+				public void visit(int vertex, int depth) {
+					for( int k = 0; k < _levels[vertex]; k++) {
+						buf.append(INDENTATION);
+					}
+					buf.append(_graph.getLabel(vertex));
+					buf.append(CEnv.KEY_VALUE_DELIM);
+					buf.append(_levels[vertex]);
+					buf.append("\n");
+				}
+			});
 		}		
 		return buf.toString();
 	}
@@ -212,48 +183,11 @@ public final class CGraph {
 				// Private Supporting Methods
 				// --------------------------
 	
-	private void printChildren(final String vertexLabel, StringBuilder buf) {
-		
-		NVertex vertex = _verticesMap.get(vertexLabel);			
-
-		final int indentation = vertex.getLevel();
-		for( int k = 0; k < indentation; k++) {
-			buf.append(INDENTATION);
-		}	
-		buf.append(vertex.toString());
-		buf.append("\n");
-			
-			/*
-			* If this node has children, recurse the printing method.
-			*/
-		Map<String, Object> nextVertices = vertex.nextVertices();
-			
-		if( nextVertices != null ) {
-			for( String nextVertice : nextVertices.keySet()) {
-				printChildren(nextVertice, buf);
-			}
-		}
-	}
-	
-	
-	private void visit(final String vertexLabel, IFunction function) {
-		
-		NVertex vertex = _verticesMap.get(vertexLabel);	
-		function.apply(vertexLabel, vertex.getLevel());
-			
-			/*
-			* If this node has children, recurse the printing method.
-			*/
-		Map<String, Object> nextVertices = vertex.nextVertices();
-			
-		if( nextVertices != null ) {
-			for( String nextVertice : nextVertices.keySet()) {
-				visit(nextVertice, function);
-			}
+	private void setLevel(int vertex, int level) {
+		if( vertex >= _levels.length) {
+			_levels = Arrays.copyOf(_levels, Math.max(vertex+1, _levels.length << 1));
 		}
+		_levels[vertex] = level;
 	}
-
-
-	
 }
 // --------------------  EOF ----------------------------------------
\ No newline at end of file
@@ -0,0 +1,459 @@
+/*
+ *  Copyright (C) 2010-2012 Patrick Nicolas
+ */
+package com.c24x7.util.collections;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+
+
+		/**
+		 * <p>Compressed set of integers such as the indices of the sentences in which
+		 * a taxonomy node occurs. The values are stored relative to an origin, either
+		 * in a sorted array of positions while the set is sparse or in a bitmap of 64 bits
+		 * words once the bitmap is smaller than the array, as the containers of the
+		 * roaring bitmaps. The set can only expand but not shrink.</p>
+		 * <p>The shift of all the values by an offset, needed when the sentences of
+		 * several documents are merged, only updates the origin. The union of two sets
+		 * is a single pass over their positions or over their words.</p>
+		 *
+		 * @author Patrick Nicolas         24x7c
+		 * @date July 28, 2012 10:12:45 AM
+		 */
+public final class CIntBitmap {
+	private final static int MIN_CAPACITY 		= 4;
+	private final static int MIN_BITMAP_SIZE 	= 16;
+
+		/**
+		 * <p>Iterator over the values of a set in increasing order, which
+		 * does not box the values.</p>
+		 */
+	public final class NIterator {
+		private int		_index 		= 0;
+		private long	_word 		= 0L;
+
+		private NIterator() {
+			if( _words != null && _words.length > 0) {
+				_word = _words[0];
+			}
+		}
+
+		public boolean hasNext() {
+			boolean found = false;
+			if( _words == null) {
+				found = (_index < _size);
+			}
+			else {
+				while( _word == 0L && _index < _words.length-1) {
+					_word = _words[++_index];
+				}
+				found = (_word != 0L);
+			}
+			return found;
+		}
+
+			/**
+			 * <p>Retrieve the next value of the set.</p>
+			 * @return next value in increasing order
+			 * @throws NoSuchElementException if all the values have been retrieved
+			 */
+		public int next() {
+			if( !hasNext() ) {
+				throw new NoSuchElementException("No more values in the bitmap");
+			}
+
+			int value = 0;
+			if( _words == null) {
+				value = _origin + _positions[_index++];
+			}
+			else {
+				value = _origin + (_index << 6) + Long.numberOfTrailingZeros(_word);
+				_word &= _word - 1L;
+			}
+			return value;
+		}
+	}
+
+
+	private int		_origin 		= 0;
+	private int[]	_positions 		= null;
+	private int		_size 			= 0;
+	private long[]	_words 			= null;
+	private int		_cardinality 	= 0;
+
+
+	public CIntBitmap() {
+		_positions = new int[MIN_CAPACITY];
+	}
+
+		/**
+		 * <p>Create a set with a single value.</p>
+		 * @param value first value of the set
+		 */
+	public CIntBitmap(int value) {
+		this();
+		add(value);
+	}
+
+
+		/**
+		 * <p>Clone this set of integers.</p>
+		 * @return deep copy of 'this' object
+		 */
+	@Override
+	public CIntBitmap clone() {
+		CIntBitmap bitmap = new CIntBitmap();
+		bitmap._origin = _origin;
+		bitmap._size = _size;
+		bitmap._cardinality = _cardinality;
+		if( _words != null) {
+			bitmap._positions = null;
+			bitmap._words = _words.clone();
+		}
+		else {
+			bitmap._positions = Arrays.copyOf(_positions, Math.max(_size, MIN_CAPACITY));
+		}
+		return bitmap;
+	}
+
+
+	public int cardinality() {
+		return _cardinality;
+	}
+
+	public boolean isEmpty() {
+		return (_cardinality == 0);
+	}
+
+		/**
+		 * <p>Test if the values are stored in a bitmap.</p>
+		 * @return true if the values are stored in a bitmap, false if they are stored in a sorted array
+		 */
+	public boolean isBitmap() {
+		return (_words != null);
+	}
+
+	public NIterator iterator() {
+		return new NIterator();
+	}
+
+
+	public boolean contains(int value) {
+		boolean found = false;
+
+		if( _cardinality > 0 && value >= _origin) {
+			final int position = value - _origin;
+			if( _words == null) {
+				found = (Arrays.binarySearch(_positions, 0, _size, position) >= 0);
+			}
+			else {
+				found = ((position >>> 6) < _words.length && (_words[position >>> 6] & (1L << position)) != 0L);
+			}
+		}
+		return found;
+	}
+
+
+		/**
+		 * <p>Add a value to the set.</p>
+		 * @param value value to add
+		 * @return true if the value has been added, false if the set already contains the value
+		 */
+	public boolean add(int value) {
+		if( _cardinality == 0) {
+			_origin = value;
+		}
+		else if( value < _origin) {
+			rebase(value);
+		}
+
+		return (_words == null) ? addPosition(value - _origin) : setBit(value - _origin);
+	}
+
+
+		/**
+		 * <p>Add all the values of another set to this set.</p>
+		 * @param bitmap set of values to add
+		 * @throws IllegalArgumentException if the set is undefined
+		 */
+	public void add(final CIntBitmap bitmap) {
+		if( bitmap == null) {
+			throw new IllegalArgumentException("Cannot add an undefined bitmap");
+		}
+
+		if( bitmap._cardinality > 0) {
+			if( _cardinality == 0) {
+				_origin = bitmap._origin;
+			}
+			else if( bitmap._origin < _origin) {
+				rebase(bitmap._origin);
+			}
+			final int offset = bitmap._origin - _origin;
+
+			if( _words == null && bitmap._words == null) {
+				mergePositions(bitmap._positions, bitmap._size, offset);
+			}
+			else {
+				if( _words == null) {
+					final int lastPosition = offset + bitmap.lastPosition();
+					toBitmap((_size > 0) ? Math.max(_positions[_size-1], lastPosition) : lastPosition);
+				}
+				if( bitmap._words == null) {
+					for( int k = 0; k < bitmap._size; k++) {
+						setBit(offset + bitmap._positions[k]);
+					}
+				}
+				else {
+					orWords(bitmap._words, offset, offset + bitmap.lastPosition());
+				}
+			}
+		}
+	}
+
+
+		/**
+		 * <p>Shift the values of the set.</p>
+		 * @param shiftValue value added to all the values of the set
+		 */
+	public void shift(int shiftValue) {
+		_origin += shiftValue;
+	}
+
+
+		/**
+		 * <p>Retrieve the values of the set.</p>
+		 * @return array of values in increasing order
+		 */
+	public int[] toArray() {
+		int[] values = new int[_cardinality];
+
+		if( _words == null) {
+			for( int k = 0; k < _size; k++) {
+				values[k] = _origin + _positions[k];
+			}
+		}
+		else {
+			int index = 0;
+			long word = 0L;
+			for( int k = 0; k < _words.length; k++) {
+				word = _words[k];
+				while( word != 0L) {
+					values[index++] = _origin + (k << 6) + Long.numberOfTrailingZeros(word);
+					word &= word - 1L;
+				}
+			}
+		}
+		return values;
+	}
+
+
+		/**
+		 * <p>Computes the mean and variance of the distance of the values
+		 * to the lowest value of the set.</p>
+		 * @return two floating point array of {mean, variance} of the values in the set
+		 * @throws IllegalArgumentException  if the set is empty
+		 */
+	public double[] computeStats() {
+		if( isEmpty()) {
+			throw new IllegalArgumentException("Cannot compute mean of undefined data");
+		}
+
+		double sum 			= 0.0,
+		       squareSum 	= 0.0,
+		       diff 		= 0.0;
+
+		NIterator iterator = iterator();
+		final int minValue = iterator.next();
+		while( iterator.hasNext() ) {
+			diff = iterator.next() - minValue;
+			sum += diff;
+			squareSum += diff*diff;
+		}
+		double mean = sum/_cardinality;
+
+		return new double[] { mean, (squareSum - mean*mean)/_cardinality };
+	}
+
+
+	@Override
+	public String toString() {
+		StringBuilder buf = new StringBuilder();
+		NIterator iterator = iterator();
+		while( iterator.hasNext() ) {
+			buf.append(iterator.next());
+			buf.append(" ");
+		}
+		return buf.toString();
+	}
+
+
+
+							// ---------------------------
+							//  Supporting Private Methods
+							// ---------------------------
+
+	private boolean addPosition(int position) {
+		boolean added = false;
+		int index = (_size > 0 && position > _positions[_size-1]) ? -(_size+1) : Arrays.binarySearch(_positions, 0, _size, position);
+
+		if( index < 0) {
+			index = -index-1;
+			if( _size == _positions.length) {
+				_positions = Arrays.copyOf(_positions, _size << 1);
+			}
+			if( index < _size) {
+				System.arraycopy(_positions, index, _positions, index+1, _size - index);
+			}
+			_positions[index] = position;
+			_size++;
+			_cardinality++;
+			added = true;
+
+			if( isDense() ) {
+				toBitmap(_positions[_size-1]);
+			}
+		}
+		return added;
+	}
+
+
+	private boolean setBit(int position) {
+		final int wordIndex = position >>> 6;
+		if( wordIndex >= _words.length) {
+			_words = Arrays.copyOf(_words, Math.max(wordIndex+1, _words.length + (_words.length >> 1)));
+		}
+
+		final long mask = 1L << position;
+		boolean added = ((_words[wordIndex] & mask) == 0L);
+		if( added ) {
+			_words[wordIndex] |= mask;
+			_cardinality++;
+		}
+		return added;
+	}
+
+
+		/*
+		 * The array of positions is converted into a bitmap once
+		 * the bitmap requires less memory than the array.
+		 */
+	private boolean isDense() {
+		return (_size >= MIN_BITMAP_SIZE && _size > (((_positions[_size-1] >>> 6) + 1) << 1));
+	}
+
+
+	private void toBitmap(int lastPosition) {
+		long[] words = new long[(lastPosition >>> 6) + 1];
+		for( int k = 0; k < _size; k++) {
+			words[_positions[k] >>> 6] |= 1L << _positions[k];
+		}
+		_words = words;
+		_positions = null;
+		_size = 0;
+	}
+
+
+	private int lastPosition() {
+		int position = 0;
+
+		if( _words == null) {
+			position = _positions[_size-1];
+		}
+		else {
+			int k = _words.length-1;
+			while( k > 0 && _words[k] == 0L) {
+				k--;
+			}
+			position = (k << 6) + 63 - Long.numberOfLeadingZeros(_words[k]);
+		}
+		return position;
+	}
+
+
+		/*
+		 * Move the origin down to a lower value, so all the
+		 * positions relative to the origin increase by the same offset.
+		 */
+	private void rebase(int origin) {
+		final int offset = _origin - origin;
+
+		if( _words == null) {
+			for( int k = 0; k < _size; k++) {
+				_positions[k] += offset;
+			}
+		}
+		else {
+			final long[] words = _words;
+			final int lastPosition = lastPosition();
+			_words = new long[((lastPosition + offset) >>> 6) + 1];
+			_cardinality = 0;
+			orWords(words, offset, lastPosition + offset);
+		}
+		_origin = origin;
+	}
+
+
+	private void mergePositions(final int[] positions, int size, int offset) {
+		int[] newPositions = new int[Math.max(_size + size, MIN_CAPACITY)];
+
+		int i = 0,
+		    j = 0,
+		    k = 0;
+		while( i < _size || j < size) {
+			if( j >= size || (i < _size && _positions[i] < positions[j] + offset)) {
+				newPositions[k++] = _positions[i++];
+			}
+			else if( i >= _size || _positions[i] > positions[j] + offset) {
+				newPositions[k++] = positions[j++] + offset;
+			}
+			else {
+				newPositions[k++] = _positions[i++];
+				j++;
+			}
+		}
+
+		_positions = newPositions;
+		_size = k;
+		_cardinality = k;
+		if( isDense() ) {
+			toBitmap(_positions[_size-1]);
+		}
+	}
+
+
+		/*
+		 * Add the bits of words which first bit is at a given
+		 * offset of the first bit of this bitmap.
+		 */
+	private void orWords(final long[] words, int offset, int lastPosition) {
+		final int lastWordIndex = lastPosition >>> 6;
+		if( lastWordIndex >= _words.length) {
+			_words = Arrays.copyOf(_words, lastWordIndex+1);
+		}
+
+		final int wordShift = offset >>> 6,
+		          bitShift = offset & 63;
+		int numAdded = 0;
+		long word = 0L,
+		     newBits = 0L;
+
+		for( int k = 0; k < words.length && k + wordShift <= lastWordIndex; k++) {
+			word = words[k];
+			if( word != 0L) {
+				newBits = (word << bitShift) & ~_words[k + wordShift];
+				_words[k + wordShift] |= newBits;
+				numAdded += Long.bitCount(newBits);
+
+				if( bitShift != 0 && k + wordShift + 1 <= lastWordIndex) {
+					newBits = (word >>> (64 - bitShift)) & ~_words[k + wordShift + 1];
+					_words[k + wordShift + 1] |= newBits;
+					numAdded += Long.bitCount(newBits);
+				}
+			}
+		}
+		_cardinality += numAdded;
+	}
+}
+
+// ------------------------------------  EOF ------------------------------------------
@@ -6,192 +6,151 @@ import java.util.Arrays;
 
 public final class CIntFreqArray {
 	private final static int EXPANSION_SIZE = 5;
-	
+
 	public final class NData {
 		private int _data = -1;
 		private int _frequency = 1;
-		
-		private NData(int data) {
-			_data = data;
-		}
-		
+
 		private NData(int data, int frequency) {
 			_data = data;
 			_frequency = frequency;
 		}
-		
+
 		public int getFrequency() {
 			return _frequency;
 		}
-		
+
 		public int getData() {
 			return _data;
 		}
-		
-		private boolean compareTo(int value) {
-			boolean match = (_data == value);
-			if( match ) {
-				_frequency++;
-			}
-			
-			return match;
-		}
-		
-		private boolean compareTo(NData value) {
-			boolean match = (_data == value.getData());
-			if( match ) {
-				_frequency += value.getFrequency();
-			}
-			
-			return match;
-		}
 	}
-	
-	private int	  _expansionSize = EXPANSION_SIZE;
-	private int   _index = -1;
-	private NData[] _values = null;
-	
-	public CIntFreqArray() {	}
-	
+
+	private CIntSet _values 	 = null;
+	private int[]	_frequencies = null;
+
+	public CIntFreqArray() {
+		this(EXPANSION_SIZE);
+	}
+
+	private CIntFreqArray(int capacity) {
+		_values = new CIntSet(capacity);
+		_frequencies = new int[_values.capacity()];
+	}
+
 	public CIntFreqArray(final NData[] values, final int index) {
-		_values = values;
-		_index = index;
+		this(index + EXPANSION_SIZE);
+		for( int k = 0; k <= index; k++) {
+			add(values[k].getData(), values[k].getFrequency());
+		}
 	}
-	
-	
+
+
+		/**
+		 * <p>Set the minimum capacity of the array. The array is now backed by
+		 * a set of integers which grows geometrically.</p>
+		 * @param expansionSize minimum capacity of the array
+		 */
 	public void setExpansionSize(final int expansionSize) {
-		_expansionSize = expansionSize;
+		if( _values.isEmpty() && expansionSize > _values.capacity()) {
+			_values = new CIntSet(expansionSize);
+			_frequencies = new int[_values.capacity()];
+		}
 	}
-	
+
 	public int size() {
-		return _values.length;
+		return _values.size();
 	}
-	
+
 	public int getData(int index) {
-		return _values[index].getData();
+		return _values.get(index);
 	}
-	
+
 	public int getFrequency(int index) {
-		return _values[index].getFrequency();
+		return _frequencies[index];
 	}
-	
-	
+
+
 		/**
 		 * <p>Add a new value to this array of integer.
 		 * @param value value added to the array of integers.
 		 */
 	public void add(int value) {
-		
-		if(_index == -1) {
-			_values = new NData[_expansionSize];
-			_values[++_index] = new NData(value);
-		}
-		
-		else if(!addValue(value)) {
-			if( _index == _values.length-1) {
-				NData[] oldArray = Arrays.copyOf(_values, _index + _expansionSize);
-				_values = oldArray;
-			}
-			_values[++_index] = new NData(value);
-		}
+		add(value, 1);
 	}
-	
-	
+
+
 	public void add(final CIntFreqArray values) {
-		this.add(values.values());
+		for( int k = 0; k < values.size(); k++) {
+			add(values.getData(k), values.getFrequency(k));
+		}
 	}
 
-	
+
 	public void add(NData[] values) {
 		if( values == null) {
 			throw new IllegalArgumentException("Cannot add an empty array");
 		}
-		
-		if(_index == -1) {
-			_values = new NData[_expansionSize + values.length];
-			for(int k = 0; k < values.length; k++) {
-				_values[++_index] = values[k];
-			}
+		for( int k = 0; k < values.length; k++) {
+			add(values[k].getData(), values[k].getFrequency());
 		}
-		
-		else {
-			for( int k = 0; k < values.length; k++) {
-				if(!addValue(values[k])) {
-					if( _index == _values.length-1) { 
-						NData[] oldArray = Arrays.copyOf(_values, _index + _expansionSize);
-						_values = oldArray;
-					}
-					_values[++_index] = values[k];
-				}
-			}
-		}	
 	}
 
-	
-	private boolean addValue(int value) {
-		boolean found = false;
-		
-		for(int k = 0; k <= _index; k++) {
-			if(_values[k].compareTo(value)) {
-				found = true;
-				break;
-			}
-		}
-		
-		return found;
-	}
-	
-	private boolean addValue(NData value) {
-		boolean found = false;
-		
-		for(int k = 0; k <= _index; k++) {
-			if(_values[k].compareTo(value)) {
-				found = true;
-				break;
-			}
-		}
-		
-		return found;
-	}
-	
+
 	public boolean isEmpty() {
-		return (_index == 0);
+		return _values.isEmpty();
 	}
-	
+
 	public CIntFreqArray clone() {
-		NData[] values = new NData[_values.length];
-		for( int k = 0; k <= _index; k++) {
-			values[k] = new NData(_values[k].getData(), _values[k].getFrequency());
-		}
-		return new CIntFreqArray(values, _index);
+		CIntFreqArray intFreqArray = new CIntFreqArray(_values.capacity());
+		intFreqArray._values = _values.clone();
+		intFreqArray._frequencies = Arrays.copyOf(_frequencies, _frequencies.length);
+
+		return intFreqArray;
 	}
-	
-	
+
+
 		/**
 		 * <p>Retrieve the array of values (integers)
 		 * @return array of values
 		 */
 	public final NData[] values() {
-		return Arrays.copyOf(_values, _index+1);
+		NData[] values = new NData[_values.size()];
+		for( int k = 0; k < values.length; k++) {
+			values[k] = new NData(_values.get(k), _frequencies[k]);
+		}
+		return values;
 	}
-	
+
 	@Override
 	public String toString() {
 		StringBuilder buf = new StringBuilder();
-		for( int k = 0; k < _index; k++) {
-			buf.append(_values[k].getData());
+		for( int k = 0; k < _values.size(); k++) {
+			buf.append(_values.get(k));
 			buf.append("/");
-			buf.append(_values[k].getFrequency());
+			buf.append(_frequencies[k]);
 			buf.append(" ");
 		}
-		buf.append(_values[_index].getData());
-		buf.append("/");
-		buf.append(_values[_index].getFrequency());
-		buf.append(" ");
-		
+
 		return buf.toString();
 	}
 
+
+	private void add(int value, int frequency) {
+		int index = _values.add(value);
+
+		if( index < 0) {
+			_frequencies[-index-1] += frequency;
+		}
+		else {
+			if( _frequencies.length < _values.capacity()) {
+				_frequencies = Arrays.copyOf(_frequencies, _values.capacity());
+			}
+			if( index < _values.size()-1) {
+				System.arraycopy(_frequencies, index, _frequencies, index+1, _values.size()-1-index);
+			}
+			_frequencies[index] = frequency;
+		}
+	}
 }
 
 // -------------------------  EOF --------------------------------
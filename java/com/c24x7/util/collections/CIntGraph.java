@@ -0,0 +1,414 @@
+/*
+ *  Copyright (C) 2010-2012 Patrick Nicolas
+ */
+package com.c24x7.util.collections;
+
+import java.util.Arrays;
+
+
+
+		/**
+		 * <p>Directed graph of vertices identified by dense integer identifiers. The label
+		 * of each vertex is resolved into its identifier once, through a dictionary, when the
+		 * vertex is added. The edges are appended to arrays of sources and targets, then
+		 * compacted into a compressed sparse row (CSR) representation, with the successors
+		 * and the predecessors of each vertex stored contiguously in arrays of integers, the
+		 * first time the graph is traversed after an update. The duplicated edges are removed
+		 * during the compaction and the successors are kept in the order the edges are added.</p>
+		 * <p>The breadth first, depth first and best path traversals are iterative and visit
+		 * each vertex once, so they do not depend on the depth of the graph and terminate on
+		 * graphs with cycles.</p>
+		 *
+		 * @author Patrick Nicolas         24x7c
+		 * @date July 29, 2012 3:40:12 PM
+		 */
+public final class CIntGraph {
+	public final static int UNDEFINED = -1;
+
+	private final static int MIN_CAPACITY = 16;
+
+		/**
+		 * <p>Generic interface for the function applied to each vertex
+		 * visited during a depth first traversal.</p>
+		 * @author Patrick Nicolas         24x7c
+		 * @date July 29, 2012 3:42:30 PM
+		 */
+	public interface IVisitor {
+		public void visit(int vertex, int depth);
+	}
+
+
+	private CObjectIntMap<String> 	_vertexIds 		= null;
+	private String[]				_labels 		= null;
+	private int						_numVertices 	= 0;
+
+	private int[]					_edgeSources 	= null;
+	private int[]					_edgeTargets 	= null;
+	private int						_numEdges 		= 0;
+
+	private int[]					_successorOffsets 	= null;
+	private int[]					_successors 		= null;
+	private int[]					_predecessorOffsets = null;
+	private int[]					_predecessors 		= null;
+	private int						_numCompactedVertices = UNDEFINED;
+	private int						_numCompactedEdges 	= UNDEFINED;
+
+
+	public CIntGraph() {
+		this(MIN_CAPACITY);
+	}
+
+		/**
+		 * <p>Create an empty graph with a predefined capacity.</p>
+		 * @param capacity expected number of vertices
+		 */
+	public CIntGraph(int capacity) {
+		if( capacity < MIN_CAPACITY) {
+			capacity = MIN_CAPACITY;
+		}
+		_vertexIds = new CObjectIntMap<String>(capacity);
+		_labels = new String[capacity];
+		_edgeSources = new int[capacity];
+		_edgeTargets = new int[capacity];
+	}
+
+
+		/**
+		 * <p>Retrieve the identifier of a vertex, adding the vertex to the
+		 * graph if it has not been seen before.</p>
+		 * @param label label of the vertex
+		 * @return identifier of the vertex
+		 * @throws IllegalArgumentException if the label is undefined
+		 */
+	public int addVertex(final String label) {
+		if( label == null) {
+			throw new IllegalArgumentException("Cannot add undefined vertex to the graph");
+		}
+
+		int vertex = _vertexIds.get(label, UNDEFINED);
+		if( vertex == UNDEFINED) {
+			vertex = _numVertices++;
+			if( vertex == _labels.length) {
+				_labels = Arrays.copyOf(_labels, vertex << 1);
+			}
+			_labels[vertex] = label;
+			_vertexIds.put(label, vertex);
+		}
+		return vertex;
+	}
+
+
+		/**
+		 * <p>Add a directed edge between two vertices.</p>
+		 * @param source identifier of the source vertex
+		 * @param target identifier of the target vertex
+		 * @throws IllegalArgumentException if one of the vertices is not in the graph
+		 */
+	public void addEdge(int source, int target) {
+		checkVertex(source);
+		checkVertex(target);
+
+		if( _numEdges == _edgeSources.length) {
+			_edgeSources = Arrays.copyOf(_edgeSources, _numEdges << 1);
+			_edgeTargets = Arrays.copyOf(_edgeTargets, _numEdges << 1);
+		}
+		_edgeSources[_numEdges] = source;
+		_edgeTargets[_numEdges++] = target;
+	}
+
+
+		/**
+		 * <p>Retrieve the identifier of a vertex.</p>
+		 * @param label label of the vertex
+		 * @return identifier of the vertex, UNDEFINED if the graph does not contain the vertex
+		 */
+	public int getVertexId(final String label) {
+		return (label != null) ? _vertexIds.get(label, UNDEFINED) : UNDEFINED;
+	}
+
+	public final String getLabel(int vertex) {
+		return _labels[checkVertex(vertex)];
+	}
+
+	public final int size() {
+		return _numVertices;
+	}
+
+		/**
+		 * <p>Retrieve the number of distinct edges of the graph.</p>
+		 * @return number of edges, without duplicates
+		 */
+	public int getNumEdges() {
+		compact();
+		return _successorOffsets[_numVertices];
+	}
+
+
+	public int getNumSuccessors(int vertex) {
+		compact();
+		return _successorOffsets[checkVertex(vertex)+1] - _successorOffsets[vertex];
+	}
+
+	public int getSuccessor(int vertex, int index) {
+		compact();
+		return _successors[_successorOffsets[checkVertex(vertex)] + checkIndex(index, getNumSuccessors(vertex))];
+	}
+
+	public int getNumPredecessors(int vertex) {
+		compact();
+		return _predecessorOffsets[checkVertex(vertex)+1] - _predecessorOffsets[vertex];
+	}
+
+	public int getPredecessor(int vertex, int index) {
+		compact();
+		return _predecessors[_predecessorOffsets[checkVertex(vertex)] + checkIndex(index, getNumPredecessors(vertex))];
+	}
+
+
+		/**
+		 * <p>Traverse the vertices reachable from a source vertex in breadth first order.</p>
+		 * @param source identifier of the first vertex
+		 * @return identifiers of the visited vertices in the order of the traversal
+		 */
+	public int[] breadthFirst(int source) {
+		checkVertex(source);
+		compact();
+
+		int[] queue = new int[_numVertices];
+		boolean[] visited = new boolean[_numVertices];
+		int head = 0,
+		    tail = 0;
+
+		queue[tail++] = source;
+		visited[source] = true;
+		while( head < tail) {
+			final int vertex = queue[head++];
+			for( int k = _successorOffsets[vertex]; k < _successorOffsets[vertex+1]; k++) {
+				if( !visited[_successors[k]] ) {
+					visited[_successors[k]] = true;
+					queue[tail++] = _successors[k];
+				}
+			}
+		}
+		return Arrays.copyOf(queue, tail);
+	}
+
+
+		/**
+		 * <p>Traverse the vertices reachable from a source vertex in depth first order.</p>
+		 * @param source identifier of the first vertex
+		 * @return identifiers of the visited vertices in the order of the traversal
+		 */
+	public int[] depthFirst(int source) {
+		final int[] vertices = new int[_numVertices];
+		final int[] numVisited = new int[1];
+
+		depthFirst(source, new IVisitor() {
+			@Override
+			public void visit(int vertex, int depth) {
+				vertices[numVisited[0]++] = vertex;
+			}
+		});
+		return Arrays.copyOf(vertices, numVisited[0]);
+	}
+
+
+		/**
+		 * <p>Traverse the vertices reachable from a source vertex in depth first order,
+		 * applying a function to each vertex before its successors. The successors of
+		 * a vertex are visited in the order their edges were added. The traversal uses
+		 * an explicit stack instead of recursion.</p>
+		 * @param source identifier of the first vertex
+		 * @param visitor function applied to each visited vertex with its depth in the traversal
+		 * @return number of visited vertices
+		 * @throws IllegalArgumentException if the visitor is undefined
+		 */
+	public int depthFirst(int source, IVisitor visitor) {
+		if( visitor == null) {
+			throw new IllegalArgumentException("Cannot traverse a graph with undefined visitor");
+		}
+		checkVertex(source);
+		compact();
+
+		int[] stack = new int[MIN_CAPACITY],
+		      depths = new int[MIN_CAPACITY];
+		boolean[] visited = new boolean[_numVertices];
+		int top = 0,
+		    numVisited = 0;
+
+		stack[top] = source;
+		depths[top++] = 0;
+		while( top > 0) {
+			final int vertex = stack[--top],
+			          depth = depths[top];
+
+			if( !visited[vertex] ) {
+				visited[vertex] = true;
+				visitor.visit(vertex, depth);
+				numVisited++;
+
+					/*
+					 * The successors are pushed in reverse order
+					 * so the first successor is visited first.
+					 */
+				final int start = _successorOffsets[vertex],
+				          end = _successorOffsets[vertex+1];
+				if( top + end - start > stack.length) {
+					stack = Arrays.copyOf(stack, Math.max(top + end - start, stack.length << 1));
+					depths = Arrays.copyOf(depths, stack.length);
+				}
+				for( int k = end-1; k >= start; k--) {
+					if( !visited[_successors[k]] ) {
+						stack[top] = _successors[k];
+						depths[top++] = depth+1;
+					}
+				}
+			}
+		}
+		return numVisited;
+	}
+
+
+		/**
+		 * <p>Compute the best path from a source vertex using the local steepest gradient:
+		 * the path moves to the successor with the highest weight, the first one added
+		 * for identical weights, until no successor has a weight higher than the minimum
+		 * weight or the successor has already been visited.</p>
+		 * @param source identifier of the first vertex
+		 * @param weights weights of the vertices indexed by their identifiers
+		 * @param minWeight weight a successor has to exceed to be selected
+		 * @return identifiers of the vertices of the path, starting with the source vertex
+		 * @throws IllegalArgumentException if the weights are undefined or do not cover all the vertices
+		 */
+	public int[] bestPath(int source, final float[] weights, float minWeight) {
+		if( weights == null || weights.length < _numVertices) {
+			throw new IllegalArgumentException("Cannot compute best path with undefined vertices weights");
+		}
+		checkVertex(source);
+		compact();
+
+		int[] path = new int[MIN_CAPACITY];
+		boolean[] visited = new boolean[_numVertices];
+		int length = 0,
+		    vertex = source;
+
+		while( vertex != UNDEFINED) {
+			visited[vertex] = true;
+			if( length == path.length) {
+				path = Arrays.copyOf(path, length << 1);
+			}
+			path[length++] = vertex;
+
+			int bestVertex = UNDEFINED;
+			float maxWeight = minWeight;
+			for( int k = _successorOffsets[vertex]; k < _successorOffsets[vertex+1]; k++) {
+				if( weights[_successors[k]] > maxWeight) {
+					maxWeight = weights[_successors[k]];
+					bestVertex = _successors[k];
+				}
+			}
+			vertex = (bestVertex != UNDEFINED && !visited[bestVertex]) ? bestVertex : UNDEFINED;
+		}
+		return Arrays.copyOf(path, length);
+	}
+
+
+	@Override
+	public String toString() {
+		StringBuilder buf = new StringBuilder("Graph vertices=");
+		buf.append(_numVertices);
+		buf.append(" edges=");
+		buf.append(_numEdges);
+		return buf.toString();
+	}
+
+
+
+							// ---------------------------
+							//  Supporting Private Methods
+							// ---------------------------
+
+		/*
+		 * Build the successors and predecessors arrays from the list of edges
+		 * using a counting sort on the vertices, which preserves the order in
+		 * which the edges were added.
+		 */
+	private void compact() {
+		if( _numCompactedVertices != _numVertices || _numCompactedEdges != _numEdges) {
+			int[] offsets = new int[_numVertices+1];
+			for( int k = 0; k < _numEdges; k++) {
+				offsets[_edgeSources[k]+1]++;
+			}
+			for( int k = 0; k < _numVertices; k++) {
+				offsets[k+1] += offsets[k];
+			}
+
+			int[] successors = new int[_numEdges];
+			int[] cursors = Arrays.copyOf(offsets, _numVertices);
+			for( int k = 0; k < _numEdges; k++) {
+				successors[cursors[_edgeSources[k]]++] = _edgeTargets[k];
+			}
+
+				/*
+				 * Remove the duplicated edges: a target is kept only
+				 * the first time it is found for a source.
+				 */
+			int[] lastSources = cursors;
+			Arrays.fill(lastSources, UNDEFINED);
+			int numSuccessors = 0,
+			    start = 0;
+			for( int vertex = 0; vertex < _numVertices; vertex++) {
+				final int end = offsets[vertex+1];
+				offsets[vertex] = numSuccessors;
+				for( int k = start; k < end; k++) {
+					if( lastSources[successors[k]] != vertex) {
+						lastSources[successors[k]] = vertex;
+						successors[numSuccessors++] = successors[k];
+					}
+				}
+				start = end;
+			}
+			offsets[_numVertices] = numSuccessors;
+
+			int[] predecessorOffsets = new int[_numVertices+1];
+			for( int k = 0; k < numSuccessors; k++) {
+				predecessorOffsets[successors[k]+1]++;
+			}
+			for( int k = 0; k < _numVertices; k++) {
+				predecessorOffsets[k+1] += predecessorOffsets[k];
+			}
+			int[] predecessors = new int[numSuccessors];
+			cursors = Arrays.copyOf(predecessorOffsets, _numVertices);
+			for( int vertex = 0; vertex < _numVertices; vertex++) {
+				for( int k = offsets[vertex]; k < offsets[vertex+1]; k++) {
+					predecessors[cursors[successors[k]]++] = vertex;
+				}
+			}
+
+			_successorOffsets = offsets;
+			_successors = successors;
+			_predecessorOffsets = predecessorOffsets;
+			_predecessors = predecessors;
+			_numCompactedVertices = _numVertices;
+			_numCompactedEdges = _numEdges;
+		}
+	}
+
+
+	private int checkVertex(int vertex) {
+		if( vertex < 0 || vertex >= _numVertices) {
+			throw new IllegalArgumentException("Incorrect vertex identifier " + vertex + " for graph of " + _numVertices + " vertices");
+		}
+		return vertex;
+	}
+
+
+	private static int checkIndex(int index, int size) {
+		if( index < 0 || index >= size) {
+			throw new ArrayIndexOutOfBoundsException("Incorrect index " + index + " for " + size + " edges");
+		}
+		return index;
+	}
+}
+
+// ------------------------------------  EOF ------------------------------------------
@@ -0,0 +1,191 @@
+/*
+ *  Copyright (C) 2010-2012 Patrick Nicolas
+ */
+package com.c24x7.util.collections;
+
+import java.util.Arrays;
+
+
+
+		/**
+		 * <p>Set of integers backed by a sorted array. The lookup is a binary search
+		 * and the insertion of values in increasing order, such as the indices of
+		 * sentences in a document, is an append. The array grows geometrically.</p>
+		 *
+		 * @author Patrick Nicolas         24x7c
+		 * @date June 29, 2012 8:12:05 PM
+		 */
+public final class CIntSet {
+	private final static int MIN_CAPACITY = 4;
+
+	private int[] 	_values = null;
+	private int		_size 	= 0;
+
+	public CIntSet() {
+		this(MIN_CAPACITY);
+	}
+
+		/**
+		 * <p>Create an empty set with a predefined capacity.</p>
+		 * @param capacity initial capacity of the set
+		 */
+	public CIntSet(int capacity) {
+		_values = new int[(capacity < MIN_CAPACITY) ? MIN_CAPACITY : capacity];
+	}
+
+
+	public int size() {
+		return _size;
+	}
+
+	public boolean isEmpty() {
+		return (_size == 0);
+	}
+
+	public int capacity() {
+		return _values.length;
+	}
+
+		/**
+		 * <p>Retrieve the value of rank index in increasing order.</p>
+		 * @param index rank of the value
+		 * @return value of rank index
+		 * @throws ArrayIndexOutOfBoundsException if the index is out of range
+		 */
+	public int get(int index) {
+		if( index < 0 || index >= _size) {
+			throw new ArrayIndexOutOfBoundsException("Incorrect index " + index + " for set of size " + _size);
+		}
+		return _values[index];
+	}
+
+		/**
+		 * <p>Search the rank of a value in the set.</p>
+		 * @param value value to search
+		 * @return rank of the value if found, -(insertion rank) - 1 otherwise.
+		 */
+	public int indexOf(int value) {
+		return (_size > 0 && value > _values[_size-1]) ? -(_size+1) : Arrays.binarySearch(_values, 0, _size, value);
+	}
+
+	public boolean contains(int value) {
+		return (indexOf(value) >= 0);
+	}
+
+
+		/**
+		 * <p>Add a value to the set.</p>
+		 * @param value value to add
+		 * @return rank of the new value if it was added, -(rank of the existing value) - 1 if the set already contains the value.
+		 */
+	public int add(int value) {
+		int index = indexOf(value);
+
+		if( index < 0) {
+			index = -index - 1;
+			if( _size == _values.length) {
+				_values = Arrays.copyOf(_values, _values.length << 1);
+			}
+			if( index < _size) {
+				System.arraycopy(_values, index, _values, index+1, _size - index);
+			}
+			_values[index] = value;
+			_size++;
+		}
+		else {
+			index = -index - 1;
+		}
+
+		return index;
+	}
+
+
+		/**
+		 * <p>Add all the values of another set, by merging the two sorted arrays.</p>
+		 * @param intSet set of values to add
+		 * @throws IllegalArgumentException if the set is undefined
+		 */
+	public void addAll(final CIntSet intSet) {
+		if( intSet == null) {
+			throw new IllegalArgumentException("Cannot add an undefined set");
+		}
+
+		int[] values = new int[Math.max(MIN_CAPACITY, _size + intSet._size)];
+		int i = 0,
+		    j = 0,
+		    k = 0;
+
+		while( i < _size && j < intSet._size) {
+			if( _values[i] < intSet._values[j]) {
+				values[k++] = _values[i++];
+			}
+			else if( _values[i] > intSet._values[j]) {
+				values[k++] = intSet._values[j++];
+			}
+			else {
+				values[k++] = _values[i++];
+				j++;
+			}
+		}
+		while( i < _size) {
+			values[k++] = _values[i++];
+		}
+		while( j < intSet._size) {
+			values[k++] = intSet._values[j++];
+		}
+
+		_values = values;
+		_size = k;
+	}
+
+
+		/**
+		 * <p>Shift all the values of the set, preserving their order.</p>
+		 * @param shiftValue value added to all the values of the set
+		 */
+	public void shift(int shiftValue) {
+		for( int k = 0; k < _size; k++) {
+			_values[k] += shiftValue;
+		}
+	}
+
+
+	public void clear() {
+		_size = 0;
+	}
+
+		/**
+		 * <p>Retrieve the backing array of this set. Only the first size()
+		 * elements are defined.</p>
+		 * @return array of values in increasing order
+		 */
+	public int[] values() {
+		return _values;
+	}
+
+	public int[] toArray() {
+		return Arrays.copyOf(_values, _size);
+	}
+
+	@Override
+	public CIntSet clone() {
+		CIntSet intSet = new CIntSet(_values.length);
+		System.arraycopy(_values, 0, intSet._values, 0, _size);
+		intSet._size = _size;
+
+		return intSet;
+	}
+
+
+	@Override
+	public String toString() {
+		StringBuilder buf = new StringBuilder();
+		for( int k = 0; k < _size; k++) {
+			buf.append(_values[k]);
+			buf.append(" ");
+		}
+		return buf.toString();
+	}
+}
+
+// -------------------------  EOF --------------------------------
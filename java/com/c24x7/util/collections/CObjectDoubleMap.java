@@ -0,0 +1,271 @@
+/*
+ *  Copyright (C) 2010-2012 Patrick Nicolas
+ */
+package com.c24x7.util.collections;
+
+import java.util.Arrays;
+
+
+
+		/**
+		 * <p>Hash table of objects to double floating point values using open addressing with
+		 * linear probing. The values are stored in an array of primitive double so
+		 * neither the entries nor the values are allocated on the heap. The entries
+		 * are traversed through their slot in the table, between 0 and capacity()-1,
+		 * skipping the slots for which keyAt returns null.</p>
+		 *
+		 * @author Patrick Nicolas         24x7c
+		 * @date June 29, 2012 9:47:12 PM
+		 */
+public final class CObjectDoubleMap<K> {
+	private final static int 	MIN_CAPACITY = 16;
+	private final static float 	LOAD_FACTOR  = 0.6F;
+
+	private Object[] 	_keys 		= null;
+	private double[]	_values 	= null;
+	private int			_size 		= 0;
+	private int			_threshold 	= 0;
+
+
+	public CObjectDoubleMap() {
+		this(MIN_CAPACITY);
+	}
+
+		/**
+		 * <p>Create a hash table for an expected number of entries.</p>
+		 * @param expectedSize expected number of entries
+		 */
+	public CObjectDoubleMap(int expectedSize) {
+		allocate(tableSize(expectedSize));
+	}
+
+
+	public int size() {
+		return _size;
+	}
+
+	public boolean isEmpty() {
+		return (_size == 0);
+	}
+
+	public int capacity() {
+		return _keys.length;
+	}
+
+	public boolean containsKey(final Object key) {
+		return (slotOf(key) >= 0);
+	}
+
+
+		/**
+		 * <p>Retrieve the value associated with a key.</p>
+		 * @param key key of the entry
+		 * @param defaultValue value returned if the key is not found
+		 * @return value associated with the key, defaultValue if the key is not found.
+		 */
+	public double get(final Object key, double defaultValue) {
+		int slot = slotOf(key);
+		return (slot >= 0) ? _values[slot] : defaultValue;
+	}
+
+
+		/**
+		 * <p>Associate a value to a key, replacing the existing value if any.</p>
+		 * @param key key of the entry
+		 * @param value new value
+		 * @return true if the key was not in the table, false otherwise
+		 * @throws IllegalArgumentException if the key is undefined
+		 */
+	public boolean put(final K key, double value) {
+		int slot = insertionSlot(key);
+		boolean added = (_keys[slot] == null);
+
+		_values[slot] = value;
+		if( added ) {
+			add(slot, key);
+		}
+		return added;
+	}
+
+
+		/**
+		 * <p>Increment the value associated with a key. A key not in the table
+		 * is added with the increment as value.</p>
+		 * @param key key of the entry
+		 * @param increment value added to the existing value
+		 * @return new value associated with the key
+		 * @throws IllegalArgumentException if the key is undefined
+		 */
+	public double adjust(final K key, double increment) {
+		int slot = insertionSlot(key);
+		double value = 0.0;
+
+		if( _keys[slot] == null) {
+			_values[slot] = increment;
+			value = increment;
+			add(slot, key);
+		}
+		else {
+			_values[slot] += increment;
+			value = _values[slot];
+		}
+		return value;
+	}
+
+
+		/**
+		 * <p>Remove an entry from the table. The entries following the removed entry
+		 * in its probe sequence are shifted back so no tombstone is needed.</p>
+		 * @param key key of the entry to remove
+		 * @return true if the entry was found and removed, false otherwise
+		 */
+	public boolean remove(final Object key) {
+		int gap = slotOf(key);
+		boolean removed = (gap >= 0);
+
+		if( removed ) {
+			final int mask = _keys.length-1;
+			int slot = (gap + 1) & mask,
+			    idealSlot = 0;
+
+			while( _keys[slot] != null) {
+				idealSlot = hash(_keys[slot]) & mask;
+				if( ((slot - idealSlot) & mask) >= ((slot - gap) & mask) ) {
+					_keys[gap] = _keys[slot];
+					_values[gap] = _values[slot];
+					gap = slot;
+				}
+				slot = (slot + 1) & mask;
+			}
+			_keys[gap] = null;
+			_values[gap] = 0.0;
+			_size--;
+		}
+
+		return removed;
+	}
+
+
+	public void clear() {
+		Arrays.fill(_keys, null);
+		Arrays.fill(_values, 0.0);
+		_size = 0;
+	}
+
+
+		/**
+		 * <p>Retrieve the key stored in a slot of the table.</p>
+		 * @param slot slot of the table between 0 and capacity()-1
+		 * @return key in this slot, null if the slot is empty.
+		 */
+	@SuppressWarnings("unchecked")
+	public K keyAt(int slot) {
+		return (K)_keys[slot];
+	}
+
+	public double valueAt(int slot) {
+		return _values[slot];
+	}
+
+
+	@Override
+	public String toString() {
+		StringBuilder buf = new StringBuilder();
+		for( int slot = 0; slot < _keys.length; slot++) {
+			if( _keys[slot] != null) {
+				buf.append(_keys[slot]);
+				buf.append(":");
+				buf.append(_values[slot]);
+				buf.append(" ");
+			}
+		}
+		return buf.toString();
+	}
+
+
+						// ---------------------------
+						//  Supporting Private Methods
+						// ---------------------------
+
+	private static int hash(final Object key) {
+		int h = key.hashCode() * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	private static int tableSize(int expectedSize) {
+		int capacity = MIN_CAPACITY;
+		while( capacity*LOAD_FACTOR < expectedSize) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+
+	private void allocate(int capacity) {
+		_keys = new Object[capacity];
+		_values = new double[capacity];
+		_threshold = (int)(capacity*LOAD_FACTOR);
+	}
+
+
+	private int slotOf(final Object key) {
+		int slot = -1;
+
+		if( key != null) {
+			final int mask = _keys.length-1;
+			int index = hash(key) & mask;
+
+			while( slot == -1 && _keys[index] != null) {
+				if( _keys[index].equals(key)) {
+					slot = index;
+				}
+				index = (index + 1) & mask;
+			}
+		}
+		return slot;
+	}
+
+
+	private int insertionSlot(final K key) {
+		if( key == null) {
+			throw new IllegalArgumentException("Cannot add an undefined key to the hash table");
+		}
+
+		final int mask = _keys.length-1;
+		int index = hash(key) & mask;
+
+		while( _keys[index] != null && !_keys[index].equals(key)) {
+			index = (index + 1) & mask;
+		}
+		return index;
+	}
+
+
+	private void add(int slot, final K key) {
+		_keys[slot] = key;
+		if( ++_size > _threshold) {
+			rehash(_keys.length << 1);
+		}
+	}
+
+
+	private void rehash(int capacity) {
+		Object[] keys = _keys;
+		double[] values = _values;
+		allocate(capacity);
+
+		final int mask = capacity-1;
+		int index = 0;
+		for( int k = 0; k < keys.length; k++) {
+			if( keys[k] != null) {
+				index = hash(keys[k]) & mask;
+				while( _keys[index] != null) {
+					index = (index + 1) & mask;
+				}
+				_keys[index] = keys[k];
+				_values[index] = values[k];
+			}
+		}
+	}
+}
+
+// -------------------------  EOF --------------------------------
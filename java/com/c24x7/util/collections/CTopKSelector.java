@@ -0,0 +1,201 @@
+/*
+ *  Copyright (C) 2010-2012 Patrick Nicolas
+ */
+package com.c24x7.util.collections;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+
+		/**
+		 * <p>Bounded selection of the items with the highest scores. The selected items
+		 * are kept in a binary heap of at most maxNumItems entries which root is the lowest
+		 * selected item, so the selection of k items among n costs O(n.log(k)). The scores
+		 * are stored in an array of primitive doubles. Items with identical scores are
+		 * ranked in the order they are added, so no item is dropped or reordered because
+		 * of a tie.</p>
+		 * <p>The items are ranked by increasing scores by adding their opposite scores.</p>
+		 *
+		 * @author Patrick Nicolas         24x7c
+		 * @date July 26, 2012 8:40:17 AM
+		 */
+public final class CTopKSelector<T> {
+	private Object[] 	_items 		= null;
+	private double[] 	_scores 	= null;
+	private int[]		_sequences 	= null;
+	private int			_size 		= 0;
+	private int			_numAdded 	= 0;
+
+
+		/**
+		 * <p>Create a selector for a maximum number of items.</p>
+		 * @param maxNumItems maximum number of items selected
+		 * @throws IllegalArgumentException if the maximum number of items is negative
+		 */
+	public CTopKSelector(int maxNumItems) {
+		if( maxNumItems < 0) {
+			throw new IllegalArgumentException("Incorrect number of items " + maxNumItems + " for top selection");
+		}
+		_items = new Object[maxNumItems];
+		_scores = new double[maxNumItems];
+		_sequences = new int[maxNumItems];
+	}
+
+
+		/**
+		 * <p>Submit an item to the selection.</p>
+		 * @param item item to select
+		 * @param score score of the item
+		 * @return true if the item is selected, false if the selection already contains
+		 * maxNumItems items with a higher or identical score
+		 */
+	public boolean add(final T item, double score) {
+		boolean added = false;
+		final int sequence = _numAdded++;
+
+		if( _size < _items.length) {
+			_items[_size] = item;
+			_scores[_size] = score;
+			_sequences[_size] = sequence;
+			siftUp(_size++);
+			added = true;
+		}
+			/*
+			 * The new item has the latest sequence so it replaces the lowest
+			 * selected item only if its score is strictly higher.
+			 */
+		else if( _size > 0 && score > _scores[0]) {
+			_items[0] = item;
+			_scores[0] = score;
+			_sequences[0] = sequence;
+			siftDown(0, _size);
+			added = true;
+		}
+
+		return added;
+	}
+
+
+	public final int size() {
+		return _size;
+	}
+
+	public final boolean isEmpty() {
+		return (_size == 0);
+	}
+
+	public final int getMaxNumItems() {
+		return _items.length;
+	}
+
+
+		/**
+		 * <p>Retrieve the lowest score of the selected items.</p>
+		 * @return lowest score of the selected items, Double.NEGATIVE_INFINITY if the selection is empty
+		 */
+	public double getMinScore() {
+		return (_size > 0) ? _scores[0] : Double.NEGATIVE_INFINITY;
+	}
+
+
+		/**
+		 * <p>Retrieve the selected items ranked by decreasing score. The selection
+		 * is not modified.</p>
+		 * @return list of the selected items, the item with the highest score first
+		 */
+	@SuppressWarnings("unchecked")
+	public List<T> toList() {
+		Object[] items = _items.clone();
+		double[] scores = _scores.clone();
+		int[] sequences = _sequences.clone();
+
+		Object[] rankedItems = new Object[_size];
+		for( int size = _size; size > 0; size--) {
+			rankedItems[size-1] = items[0];
+			swap(items, scores, sequences, 0, size-1);
+			siftDown(items, scores, sequences, 0, size-1);
+		}
+
+		List<T> itemsList = new ArrayList<T>(_size);
+		for( Object item : rankedItems) {
+			itemsList.add((T)item);
+		}
+		return itemsList;
+	}
+
+
+	public void clear() {
+		for( int k = 0; k < _size; k++) {
+			_items[k] = null;
+		}
+		_size = 0;
+		_numAdded = 0;
+	}
+
+
+
+						// ---------------------------
+						//  Supporting Private Methods
+						// ---------------------------
+
+		/*
+		 * An entry is lower than another one if its score is lower or,
+		 * for identical scores, if it was added later.
+		 */
+	private static boolean isLower(final double[] scores, final int[] sequences, int index1, int index2) {
+		return (scores[index1] < scores[index2]) ||
+			   (scores[index1] == scores[index2] && sequences[index1] > sequences[index2]);
+	}
+
+
+	private void siftUp(int index) {
+		while( index > 0) {
+			int parent = (index-1) >>> 1;
+			if( !isLower(_scores, _sequences, index, parent) ) {
+				break;
+			}
+			swap(_items, _scores, _sequences, index, parent);
+			index = parent;
+		}
+	}
+
+
+	private void siftDown(int index, int size) {
+		siftDown(_items, _scores, _sequences, index, size);
+	}
+
+
+	private static void siftDown(Object[] items, double[] scores, int[] sequences, int index, int size) {
+		int child = (index << 1) + 1;
+
+		while( child < size) {
+			if( child+1 < size && isLower(scores, sequences, child+1, child) ) {
+				child++;
+			}
+			if( !isLower(scores, sequences, child, index) ) {
+				break;
+			}
+			swap(items, scores, sequences, index, child);
+			index = child;
+			child = (index << 1) + 1;
+		}
+	}
+
+
+	private static void swap(Object[] items, double[] scores, int[] sequences, int index1, int index2) {
+		Object item = items[index1];
+		items[index1] = items[index2];
+		items[index2] = item;
+
+		double score = scores[index1];
+		scores[index1] = scores[index2];
+		scores[index2] = score;
+
+		int sequence = sequences[index1];
+		sequences[index1] = sequences[index2];
+		sequences[index2] = sequence;
+	}
+}
+
+// ------------------------------------  EOF ------------------------------------------
@@ -1,16 +1,18 @@
 // Copyright (C) 2010-2012 Patrick Nicolas
 package com.c24x7.util.collections;
 
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 
 import com.c24x7.util.CEnv;
 
 
 			/**
-			 * <p>Class the implements a basic Direct Graph.</p>
+			 * <p>Class the implements a basic Direct Graph. The nodes and their
+			 * children are stored in a compact graph indexed by integers; the level,
+			 * weight and frequency of each node are stored in arrays indexed by the
+			 * identifier of the node.</p>
 			 *
 			 * @author Patrick Nicolas
 			 * @date 01/13/2012
@@ -18,85 +20,13 @@ import com.c24x7.util.CEnv;
 
 public final class CTree {	
 	protected static final String INDENTATION = "  ";
+	private static final int INITIAL_CAPACITY = 16;
 
-			/**
-			 * <p>Class that implements a node for the ontology graph. A node is composed
-			 * of a ontology element, its weight and the list of its children. For the
-			 * sake of efficiency in execution, the children are referred through their 
-			 * name. By default the weight is the level of the element in the taxonomy + 1.</p>
-			 * 
-			 * @author Patrick Nicolas
-			 * @date 01/25/2012
-			 */
-	protected final class NNode  {
-		protected List<String> 	_nextNodes = null;
-		protected String 		_label = null;
-		protected int 			_level = 0;
-		protected float 		_weight = 0.0F;
-		protected int			_frequency= 0;
-		
-			/**
-			 * <p>Create an Ontology graph node for an ontology element and a weight.</p>
-			 * @param element element of the taxonomy
-			 * @param level level (or distance from the root element) of this element in the taxonomy
-			 */
-		protected NNode(final String label, int level) {
-			_label = label;
-			_level = level;
-		}
-		
-		protected final boolean isLeaf() {
-			return (_nextNodes == null);
-		}
-		
-		protected final List<String> getNextNodes() {
-			return _nextNodes;
-		}
-		
-		public int getLevel() {
-			return _level;
-		}
-		
-		public void setLevel(int level) {
-			_level = level;
-		}
-	
-		
-		protected NNode addChild(final String content) {
-			if( _nextNodes == null) {
-				_nextNodes = new LinkedList<String>();
-			}
-			_nextNodes.add(content);
-			return new NNode(content, _level);
-		}
-		
-		protected void setFrequency(int frequency) {
-			_frequency = frequency;
-		}
-		
-		protected void setWeight(float weight) {
-			_weight = weight;
-		}
-		
-		public float getWeight() {
-			return _weight;
-		}
-				
-		
-		@Override
-		public String toString() {
-			StringBuilder buf = new StringBuilder(_label);
-			buf.append(CEnv.KEY_VALUE_DELIM);
-			buf.append(_frequency);
-			buf.append(CEnv.FIELD_DELIM);
-			buf.append(_weight);
-			
-			return buf.toString();
-		}
-	}
-	
-	protected Map<String, NNode> 	_treeNodes = null;
-	protected String 				_rootLabel = null;
+	private CIntGraph	_graph 			= null;
+	private int[]		_levels 		= null;
+	private float[]		_weights 		= null;
+	private int[]		_frequencies 	= null;
+	private String 		_rootLabel 		= null;
 	
 	
 			/**
@@ -108,7 +38,10 @@ public final class CTree {
 			throw new IllegalArgumentException("Cannot create a graph with unspecified root");
 		}
 		_rootLabel = rootLabel;
-		_treeNodes = new HashMap<String, NNode>();
+		_graph = new CIntGraph();
+		_levels = new int[INITIAL_CAPACITY];
+		_weights = new float[INITIAL_CAPACITY];
+		_frequencies = new int[INITIAL_CAPACITY];
 	}
 	
 		
@@ -118,7 +51,7 @@ public final class CTree {
 		 * @return number of vertices.
 		 */
 	public final int size() {
-		return _treeNodes.size();
+		return _graph.size();
 	}
 	
 
@@ -134,12 +67,8 @@ public final class CTree {
 			throw new IllegalArgumentException("Cannot retrieve weight of unspecified tree node");
 		}
 		
-		float weight = -1.0F;
-		if( _treeNodes.containsKey(nodeLabel)) {
-			NNode node = _treeNodes.get(nodeLabel);
-			weight = node.getWeight();
-		}
-		return weight;
+		final int node = _graph.getVertexId(nodeLabel);
+		return (node != CIntGraph.UNDEFINED) ? _weights[node] : -1.0F;
 	}
 
 	
@@ -164,51 +93,38 @@ public final class CTree {
 		}
 		
 		final int lastFieldIndex = labels.length -1;
-		
-		String nodeLabel = null;
-		NNode node = null;
 		int foundNodeIndex = -1;
 		
 			/*
 			 * Start from the last element (or leaf) of the taxonomy path (or route)
 			 */
 		for(int k = lastFieldIndex; k >= 0; k--) {
-			nodeLabel = labels[k];
-			
 				/*
 				 * If found a node with the same ontology field
 				 * append the subtree to it. 
 				 * BUG: It should not apply to the leaf node.
 				 */
-			if( _treeNodes.containsKey(nodeLabel)) {
+			if( _graph.getVertexId(labels[k]) != CIntGraph.UNDEFINED) {
 				foundNodeIndex = k;
 				break;
 			}
 		}
+		
+		int thisNode = CIntGraph.UNDEFINED;
 			/*
 			 * Update all the descendant of this node, then update the count for all the 
 			 * parents..
 			 */
 		if( foundNodeIndex != -1) {
-			node = _treeNodes.get(labels[foundNodeIndex]);
-			String[] remainingNodes = new String[lastFieldIndex-foundNodeIndex];
-			
-			int cursor = foundNodeIndex;
-			for( int j = 0; j < remainingNodes.length; j++) {
-				remainingNodes[j] = labels[++cursor];
-			}
+			final int node = _graph.getVertexId(labels[foundNodeIndex]);
 			
 				/*
 				 * Create the subtree of descendants..
 				 */
-			NNode thisNode = node;
-			
-			for( int j = 0, l = foundNodeIndex +2; j < remainingNodes.length; j++, l++) {
-				thisNode = node.addChild(remainingNodes[j]);
-				thisNode.setWeight(weights[j]);
-				thisNode.setLevel(l);
-				thisNode.setFrequency(frequencies[j]);
-				_treeNodes.put(remainingNodes[j], thisNode);
+			for( int j = 0, l = foundNodeIndex +2; j < lastFieldIndex-foundNodeIndex; j++, l++) {
+				thisNode = _graph.addVertex(labels[foundNodeIndex+1+j]);
+				_graph.addEdge(node, thisNode);
+				setNode(thisNode, l, frequencies[j], weights[j]);
 			}
 			
 				/*
@@ -219,15 +135,14 @@ public final class CTree {
 				 * If one of the element of a new taxonomy branch
 				 * does not exist, added to the ontology.
 				 */
-				if( !_treeNodes.containsKey(labels[j])) {
-					thisNode = new NNode(labels[j], j);
-					_treeNodes.put(labels[j], thisNode);
+				thisNode = _graph.getVertexId(labels[j]);
+				if( thisNode == CIntGraph.UNDEFINED) {
+					thisNode = _graph.addVertex(labels[j]);
+					setNode(thisNode, j, frequencies[j], weights[j]);
 				}
 				else {
-					thisNode = _treeNodes.get(labels[j]);
+					setNode(thisNode, _levels[thisNode], frequencies[j], weights[j]);
 				}
-				thisNode.setWeight(weights[j]);
-				thisNode.setFrequency(frequencies[j]);
 			}
 		}
 			/*
@@ -236,22 +151,19 @@ public final class CTree {
 			 */
 		
 		else {
-			NNode beforeNode = null, newNode = null;
+			int beforeNode = CIntGraph.UNDEFINED;
 			/*
 			 * Each node, representing an Ontology element has a relative
 			 * position in the Ontology graph and a weight.
 			 */
 			for(int k = 0; k < labels.length; k++) {
-				newNode = new NNode(labels[k], k+1);
-				newNode.setWeight(weights[k]);
-				newNode.setFrequency(frequencies[k]);
-				
-				_treeNodes.put(labels[k], newNode);
+				thisNode = _graph.addVertex(labels[k]);
+				setNode(thisNode, k+1, frequencies[k], weights[k]);
 
-				if( newNode != null && beforeNode != null) {
-					beforeNode.addChild(labels[k]);
+				if( beforeNode != CIntGraph.UNDEFINED) {
+					_graph.addEdge(beforeNode, thisNode);
 				}
-				beforeNode = newNode;
+				beforeNode = thisNode;
 			}
 		}
 	}
@@ -264,8 +176,11 @@ public final class CTree {
 			 */
 	public List<String> getBestPathList() {
 		List<String> nodesList = new LinkedList<String>();
-		searchNextBestTreeNode(nodesList,_rootLabel);
 		
+		int[] bestPath = bestPath();
+		for( int k = 1; k < bestPath.length; k++) {
+			nodesList.add(_graph.getLabel(bestPath[k]));
+		}
 		return nodesList;
 	}
 	
@@ -278,16 +193,20 @@ public final class CTree {
 	 */
 	public String getBestPathString() {
 		StringBuilder buf = new StringBuilder();
-		searchNextBestTreeNode(buf,_rootLabel);
 		
+		int[] bestPath = bestPath();
+		for( int k = 1; k < bestPath.length; k++) {
+			buf.append("/");
+			buf.append(_graph.getLabel(bestPath[k]));
+		}
 		return buf.toString();
 	}
 	
 	public String printNodes() {
 		StringBuilder buf = new StringBuilder();
-		for( NNode node : _treeNodes.values()) {
+		for( int node = 0; node < _graph.size(); node++) {
 			buf.append("\n");
-			buf.append(node.toString());
+			buf.append(toString(node));
 		}
 		
 		return buf.toString();
@@ -299,115 +218,78 @@ public final class CTree {
 		 */
 	@Override
 	public String toString() {
-		StringBuilder buf = new StringBuilder();
+		final StringBuilder buf = new StringBuilder();
+		final int root = _graph.getVertexId(_rootLabel);
 		
-		if( _treeNodes.size() > 0) {
-			Map<String, Object> visitedNodes = new HashMap<String, Object>();
-			printChildren(_rootLabel, buf, visitedNodes);
+		if( root != CIntGraph.UNDEFINED) {
+			_graph.depthFirst(root, new CIntGraph.IVisitor() {
+				@Override
+				public void visit(int node, int depth) {
+					final int indentation = _levels[node]-1;
+					for( int k = 0; k < indentation; k++) {
+						buf.append(INDENTATION);
+					}
+					buf.append(CTree.this.toString(node));
+					buf.append("\n");
+				}
+			});
 		}		
 		return buf.toString();
 	}
 	
+	
+	public String printGraphDebug() {
+		StringBuilder buf = new StringBuilder("\n\nTree Debug: ----------------");
+		for( int node = 0; node < _graph.size(); node++) {
+			buf.append("\n");
+			buf.append(toString(node));
+			buf.append("\n");
+			for( int k = 0; k < _graph.getNumSuccessors(node); k++) {
+				buf.append("    ");
+				buf.append(_graph.getLabel(_graph.getSuccessor(node, k)));
+				buf.append("\n");
+			}
+		}
+		
+		return buf.toString();
+	}
 
 	
 					// -------------------------
 					// Supporting Private Methods
 					// --------------------------	
 	
-	
-	protected void searchNextBestTreeNode(List<String> nodesLabelList, String nodeLabel) {
-
-		NNode treeNode = _treeNodes.get(nodeLabel), nextTreeNode = null;
-		String bestNodeLabel = null;
-		
-		if( !treeNode.isLeaf()) {
-			List<String> graphNextNodes = treeNode.getNextNodes();
-			float maxWeight = 0.0F;
-			
-			for( String nextNodeLabel : graphNextNodes) {
-				nextTreeNode = _treeNodes.get(nextNodeLabel);
-				if(nextTreeNode.getWeight() > maxWeight) {
-					maxWeight = nextTreeNode.getWeight();
-					bestNodeLabel = nextNodeLabel;
-				}
-			}	
-			nodesLabelList.add(bestNodeLabel);			
-			searchNextBestTreeNode(nodesLabelList,  bestNodeLabel);
-		}
+		/*
+		 * The path starts at the root and moves to the child of
+		 * highest positive weight until it reaches a leaf.
+		 */
+	private int[] bestPath() {
+		final int root = _graph.getVertexId(_rootLabel);
+		return (root != CIntGraph.UNDEFINED) ? _graph.bestPath(root, _weights, 0.0F) : new int[0];
 	}
-
 	
-	protected void searchNextBestTreeNode(StringBuilder routePath, String nodeLabel) {
-		
-		NNode treeNode = _treeNodes.get(nodeLabel), nextTreeNode = null;
-		
-		String bestNodeLabel = null;
-		
-		if( !treeNode.isLeaf()) {
-			List<String> treeNextNodesLabels = treeNode.getNextNodes();
-			float maxWeight = 0.0F;
-			
-			for( String treeNextNodeLabel : treeNextNodesLabels) {
-				nextTreeNode = _treeNodes.get(treeNextNodeLabel);
-				if(nextTreeNode.getWeight() > maxWeight) {
-					maxWeight = nextTreeNode.getWeight();
-					bestNodeLabel = treeNextNodeLabel;
-				}
-			}
-		
-			routePath.append("/");	
-			routePath.append(bestNodeLabel);			
-			searchNextBestTreeNode(routePath,  bestNodeLabel);
-		}
-	}
 	
-	public String printGraphDebug() {
-		StringBuilder buf = new StringBuilder("\n\nTree Debug: ----------------");
-		for( NNode node : _treeNodes.values() ) {
-			buf.append("\n");
-			buf.append(node.toString());
-			buf.append("\n");
-			if( !node.isLeaf() ) {
-				for(String childLabel : node.getNextNodes()) {
-					buf.append("    ");
-					buf.append(childLabel);
-					buf.append("\n");
-				}
-			}
+	private void setNode(int node, int level, int frequency, float weight) {
+		if( node >= _levels.length) {
+			final int capacity = Math.max(node+1, _levels.length << 1);
+			_levels = Arrays.copyOf(_levels, capacity);
+			_weights = Arrays.copyOf(_weights, capacity);
+			_frequencies = Arrays.copyOf(_frequencies, capacity);
 		}
-		
-		return buf.toString();
+		_levels[node] = level;
+		_weights[node] = weight;
+		_frequencies[node] = frequency;
 	}
 	
-	protected void printChildren(final String nodeLabel, 
-							   StringBuilder buf, 
-							   Map<String, Object> visitedNodes) {
+	
+	private String toString(int node) {
+		StringBuilder buf = new StringBuilder(_graph.getLabel(node));
+		buf.append(CEnv.KEY_VALUE_DELIM);
+		buf.append(_frequencies[node]);
+		buf.append(CEnv.FIELD_DELIM);
+		buf.append(_weights[node]);
 		
-		if( !visitedNodes.containsKey(nodeLabel)) {
-			NNode node = _treeNodes.get(nodeLabel);
-			List<String> nextNodes = node.getNextNodes();
-			
-				/*
-				 * otherwise move back up to the parent.
-				 */
-			final int indentation = node.getLevel()-1;
-			
-			for( int k = 0; k < indentation; k++) {
-				buf.append(INDENTATION);
-			}
-			buf.append(node.toString());
-			buf.append("\n");
-			visitedNodes.put(nodeLabel, null);
-			
-				/*
-				 * If this node has children, recurse the printing method.
-				 */
-			if( nextNodes != null ) {
-				for( String nextNode : nextNodes) {
-					printChildren(nextNode, buf, visitedNodes);
-				}
-			}
-		}
+		return buf.toString();
 	}
 }
 
@@ -6,10 +6,15 @@
 
 import java.io.UnsupportedEncodingException;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
 import com.c24x7.util.logs.CLogger;
 import com.c24x7.util.string.CStringUtil;
@@ -27,6 +32,7 @@ public abstract class ASqlRequest {
 	protected static final String JDBC_ROLE 		= "root";
 	protected static final String JDBC_PWD 		 	= "jbk010659";
 
+	protected static String  driverName = JDBC_DRIVER_NAME;
 	protected static String  pwd	= JDBC_PWD;
 	protected static String  role 	= JDBC_ROLE;
 	protected static String  url 	= JDBC_URL;
@@ -34,11 +40,31 @@ public abstract class ASqlRequest {
 	
 	public ASqlRequest() { }
 	
+	
+		/**
+		 * <p>Select the database used by all the subsequent connections. This method
+		 * is used to load or query a local or embedded database instead of the 
+		 * default MySQL server.</p>
+		 * @param newDriverName class name of the JDBC driver
+		 * @param newUrl JDBC URL of the database
+		 * @param newRole user name
+		 * @param newPwd password
+		 */
+	public static void setDatabase(final String newDriverName, final String newUrl, final String newRole, final String newPwd) {
+		if( newDriverName == null || newUrl == null) {
+			throw new IllegalArgumentException("Cannot connect to an undefined database");
+		}
+		driverName = newDriverName;
+		url = newUrl;
+		role = newRole;
+		pwd = newPwd;
+	}
+	
 
 	protected void setConnection() {
 		try {
 			//Register the JDBC driver for MySQL.
-			Class.forName(JDBC_DRIVER_NAME);
+			Class.forName(driverName);
 		
 			//Define URL of database server...
 			_con = DriverManager.getConnection(url, role, pwd);
@@ -52,6 +78,36 @@ public abstract class ASqlRequest {
 	}
 	
 	
+		/**
+		 * <p>Test if a table has a unique index on exactly a set of columns, using the meta
+		 * data of the connection. The database of the table is looked up as a catalog, as 
+		 * reported by MySQL, then as a schema, as reported by the other databases.</p>
+		 * @param database name of the database or schema of the table
+		 * @param table name of the table
+		 * @param columns names of the columns of the index, in any order
+		 * @return true if a unique index covers exactly the columns, false otherwise
+		 * @throws SQLException if the connection is undefined or the meta data cannot be retrieved
+		 */
+	public boolean hasUniqueIndex(final String database, final String table, final String[] columns) throws SQLException {
+		if( _con == null) {
+			throw new SQLException("Database connection is undefined");
+		}
+		
+		DatabaseMetaData metaData = _con.getMetaData();
+		final String tableName = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase() : table;
+		Set<String> indexColumns = new HashSet<String>();
+		for( String column : columns) {
+			indexColumns.add(column.toLowerCase());
+		}
+		
+		Map<String, Set<String>> uniqueIndices = getUniqueIndices(metaData.getIndexInfo(database, null, tableName, true, false));
+		if( uniqueIndices.isEmpty() ) {
+			uniqueIndices = getUniqueIndices(metaData.getIndexInfo(null, database, tableName, true, false));
+		}
+		return uniqueIndices.containsValue(indexColumns);
+	}
+	
+	
 	abstract public ResultSet query() throws SQLException;
 	
 	abstract public int update() throws SQLException;
@@ -176,6 +232,35 @@ public abstract class ASqlRequest {
 		
 		return maxId;
 	}
+	
+	
+		/*
+		 * Columns of the unique indices of a result set of index meta data, in lower case.
+		 */
+	private static Map<String, Set<String>> getUniqueIndices(ResultSet rs) throws SQLException {
+		Map<String, Set<String>> uniqueIndices = new HashMap<String, Set<String>>();
+		
+		try {
+			String indexName = null,
+			       columnName = null;
+			while( rs.next() ) {
+				indexName = rs.getString("INDEX_NAME");
+				columnName = rs.getString("COLUMN_NAME");
+				if( indexName != null && columnName != null && !rs.getBoolean("NON_UNIQUE") ) {
+					Set<String> columns = uniqueIndices.get(indexName);
+					if( columns == null) {
+						columns = new HashSet<String>();
+						uniqueIndices.put(indexName, columns);
+					}
+					columns.add(columnName.toLowerCase());
+				}
+			}
+		}
+		finally {
+			rs.close();
+		}
+		return uniqueIndices;
+	}
 }
 
 // ---------------------------  EOF ----------------------------------
\ No newline at end of file
@@ -14,13 +14,20 @@ import com.c24x7.util.logs.CLogger;
 	 * <p>Generic class that wraps a JDBC prepared statement statement.
 	 * The constructor create and initialize both the connection and
 	 * the statement. The connection is to be closed, manual by a call
-	 * to the close method.
-	 * </p>
+	 * to the close method.<br>
+	 * A prepared statement created with a batch size larger than 1 accumulates
+	 * the requests added through addBatch and executes them as a JDBC batch 
+	 * committed once the batch is full.</p>
 	 * @author Patrick Nicolas         24x7c 
 	 * @date June 3, 2012 5:37:30 PM
 	 */
 public class CSqlPreparedStmt extends ASqlRequest {
+	public static final int 	STREAMING_FETCH_SIZE = 1000;
+	
 	protected PreparedStatement _pstmt = null;
+	private int					_batchSize = 1;
+	private int					_batchCount = 0;
+	private boolean				_sharedConnection = false;
 	
 	
 		/**
@@ -41,6 +48,52 @@ public class CSqlPreparedStmt extends ASqlRequest {
 		setConnection();
 		setStmt(preparedStmt);
 	}
+	
+		/**
+		 * <p>Create a prepared statement on the connection of another prepared statement.
+		 * The connection is not closed with this statement, so the statements sharing a 
+		 * connection have to be closed before the statement that created it.</p>
+		 * @param connectionStmt prepared statement which owns the connection
+		 * @param preparedStmt string defining the prepared statement
+		 * @throws IllegalArgumentException if the prepared statement owning the connection is undefined
+		 */
+	public CSqlPreparedStmt(final CSqlPreparedStmt connectionStmt, final String preparedStmt) {
+		super();
+		if( connectionStmt == null) {
+			throw new IllegalArgumentException("Cannot share the connection of an undefined prepared statement");
+		}
+		_con = connectionStmt._con;
+		_sharedConnection = true;
+		if( _con != null) {
+			setStmt(preparedStmt);
+		}
+	}
+	
+		/**
+		 * <p>Create a connection and a prepared statement which executes the requests
+		 * by batches. The auto-commit of the connection is disabled if the batch size is
+		 * larger than 1 so each batch is committed in a single transaction.</p>
+		 * @param preparedStmt string defining the prepared statement
+		 * @param batchSize number of requests executed in a single batch
+		 * @throws IllegalArgumentException if the batch size is not positive
+		 */
+	public CSqlPreparedStmt(final String preparedStmt, int batchSize) {
+		this(preparedStmt);
+		if( batchSize < 1) {
+			throw new IllegalArgumentException("Cannot create a prepared statement with a batch of size " + batchSize);
+		}
+		_batchSize = batchSize;
+		
+		if( _batchSize > 1 && _con != null) {
+			try {
+				_con.setAutoCommit(false);
+			}
+			catch( SQLException e) {
+				CLogger.error("Cannot disable auto-commit " + e.toString());
+				_batchSize = 1;
+			}
+		}
+	}
 
 		/**
 		 * <p>Initialize the prepared statement for this connection.</p>
@@ -56,6 +109,38 @@ public class CSqlPreparedStmt extends ASqlRequest {
 		}
 	}
 	
+		/**
+		 * <p>Initialize a forward-only, read-only prepared statement whose queries stream
+		 * their results instead of loading them in memory. The MySQL driver streams the rows
+		 * one at a time only if the fetch size is Integer.MIN_VALUE; the other drivers fetch 
+		 * STREAMING_FETCH_SIZE rows per round trip. The connection of a MySQL streaming
+		 * statement cannot execute other requests until the results set is closed.</p>
+		 * @param preparedStmt string defining the prepared statement
+		 */
+	public void setStreamingStmt(final String preparedStmt) {
+		try {
+			_pstmt = _con.prepareStatement(preparedStmt, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			_pstmt.setFetchSize(driverName.equals(JDBC_DRIVER_NAME) ? Integer.MIN_VALUE : STREAMING_FETCH_SIZE);
+		}
+		catch( SQLException e) {
+			close();
+			CLogger.error(e.toString());
+		}
+	}
+	
+		/**
+		 * <p>Set the number of rows fetched from the database in a single round
+		 * trip by the queries of this prepared statement.</p>
+		 * @param fetchSize number of rows fetched at once
+		 * @throws SQLException if the prepared statement is undefined or the fetch size is rejected
+		 */
+	public void setFetchSize(int fetchSize) throws SQLException {
+		if( _pstmt == null) {
+			throw new SQLException("Prepared statement is undefined");
+		}
+		_pstmt.setFetchSize(fetchSize);
+	}
+
 	/**
 	 * <p>Initialize the prepared statement parameter with a characters string
 	 * as a specified index.</p>
@@ -137,15 +222,147 @@ public class CSqlPreparedStmt extends ASqlRequest {
 	
 	
 		/**
-		 * <p>Close the JDBC prepared statement and the connection.</p>
+		 * <p>Add the current parameters of this prepared statement to the batch. The
+		 * batch is executed and committed once it contains batch size requests. The request
+		 * is executed immediately if the batch size is 1.</p>
+		 * @throws SQLException if either the batch or the connection fails
+		 */
+	public void addBatch() throws SQLException {
+		if( _pstmt == null) {
+			throw new SQLException("Prepared statement is undefined");
+		}
+		
+		if( _batchSize == 1) {
+			_pstmt.executeUpdate();
+		}
+		else {
+			_pstmt.addBatch();
+			if( ++_batchCount >= _batchSize) {
+				flush();
+			}
+		}
+	}
+	
+	
+		/**
+		 * <p>Execute and commit the pending batch of requests.</p>
+		 * @throws SQLException if either the batch or the connection fails
+		 */
+	public void flush() throws SQLException {
+		if( _batchCount > 0) {
+			try {
+				_pstmt.executeBatch();
+				_con.commit();
+			}
+			catch( SQLException e) {
+				_con.rollback();
+				throw e;
+			}
+			finally {
+				_batchCount = 0;
+			}
+		}
+	}
+	
+		/**
+		 * <p>Discard the pending batch of requests and roll back the changes
+		 * of the connection which are not committed yet.</p>
+		 * @throws SQLException if the prepared statement is undefined or the roll back fails
+		 */
+	public void rollback() throws SQLException {
+		if( _pstmt == null) {
+			throw new SQLException("Prepared statement is undefined");
+		}
+		
+		try {
+			_pstmt.clearBatch();
+			if( !_con.getAutoCommit() ) {
+				_con.rollback();
+			}
+		}
+		finally {
+			_batchCount = 0;
+		}
+	}
+	
+		/**
+		 * <p>Retrieve the number of requests executed in a single batch, 1 if 
+		 * the requests are executed immediately.</p>
+		 * @return size of the batches
+		 */
+	public final int getBatchSize() {
+		return _batchSize;
+	}
+	
+		/**
+		 * <p>Retrieve the number of requests waiting in the current batch.</p>
+		 * @return number of pending requests
+		 */
+	public final int getBatchCount() {
+		return _batchCount;
+	}
+	
+	
+		/**
+		 * <p>Test if the prepared statement is defined and its connection
+		 * is still opened and valid.</p>
+		 * @param timeout time in seconds to wait for the validation of the connection
+		 * @return true if the statement can be executed, false otherwise
+		 */
+	public boolean isValid(int timeout) {
+		boolean valid = false;
+		
+		try {
+			valid = (_pstmt != null && _con != null && _con.isValid(timeout));
+		}
+		catch(SQLException e) {
+			CLogger.error("Cannot validate database connection " + e.toString());
+		}
+		
+		return valid;
+	}
+	
+	
+		/**
+		 * <p>Test if the prepared statement and its connection are still opened,
+		 * without querying the database.</p>
+		 * @return true if the statement and its connection are opened, false otherwise
+		 */
+	public boolean isOpen() {
+		boolean open = false;
+		
+		try {
+			open = (_pstmt != null && _con != null && !_con.isClosed());
+		}
+		catch(SQLException e) {
+			CLogger.error("Cannot test database connection " + e.toString());
+		}
+		
+		return open;
+	}
+	
+	
+		/**
+		 * <p>Close the JDBC prepared statement and the connection, unless the connection
+		 * is shared with another statement. The pending batch of requests, if any, is 
+		 * executed and committed first.</p>
 		 */
 	public void close() {
+		try {
+			if( _pstmt != null) {
+				flush();
+			}
+		}
+		catch(SQLException e) {
+			CLogger.error("Cannot commit pending batch " + e.toString());
+		}
+		
 		try {
 			if( _pstmt != null) {
 				_pstmt.close();
 				_pstmt = null;
 			}
-			if( _con != null) {
+			if( _con != null && !_sharedConnection) {
 				_con.close();
 			}
 		}